@@ -23,6 +23,31 @@
  * @author ddf.isgs@lmco.com
  */
 public interface Response<T extends Request> extends Operation {
+    /**
+     * Response property set by a {@link ddf.content.storage.StorageProvider} to the number of bytes
+     * it stored for the content item.
+     */
+    public static final String CONTENT_SIZE = "contentSize";
+
+    /**
+     * Response property set by a {@link ddf.content.storage.StorageProvider} to the hex encoded
+     * SHA-256 digest of the content it stored, computed while the content was written.
+     */
+    public static final String CONTENT_CHECKSUM = "contentChecksum";
+
+    /**
+     * Response property set by a {@link ddf.content.storage.StorageProvider} to the mime type
+     * detected from the first bytes of the content it stored, if one could be detected.
+     */
+    public static final String CONTENT_DETECTED_MIME_TYPE = "contentDetectedMimeType";
+
+    /**
+     * Response property set by a {@link ddf.content.storage.StorageProvider} to the id of a
+     * content item already stored with identical content, when the provider stores identical
+     * content only once.
+     */
+    public static final String CONTENT_DUPLICATE_OF = "contentDuplicateOf";
+
     /**
      * Get the request that generated this response
      *
@@ -13,12 +13,14 @@
  */
 package ddf.content.plugin.cataloger;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 
 import javax.activation.MimeType;
+import javax.activation.MimeTypeParseException;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
@@ -27,18 +29,26 @@
 import org.slf4j.LoggerFactory;
 import org.slf4j.ext.XLogger;
 
+import com.google.common.io.ByteSource;
 import com.google.common.io.FileBackedOutputStream;
+import com.google.common.io.Files;
 
 import ddf.catalog.CatalogFramework;
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.AttributeDescriptor;
 import ddf.catalog.data.BinaryContent;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.MetacardCreationException;
+import ddf.catalog.data.MetacardType;
 import ddf.catalog.data.impl.AttributeImpl;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.filter.FilterBuilder;
 import ddf.catalog.transform.CatalogTransformerException;
 import ddf.catalog.transform.InputTransformer;
 import ddf.content.data.ContentItem;
 import ddf.content.operation.CreateResponse;
 import ddf.content.operation.DeleteResponse;
+import ddf.content.operation.Response;
 import ddf.content.operation.UpdateResponse;
 import ddf.content.operation.impl.CreateResponseImpl;
 import ddf.content.operation.impl.DeleteResponseImpl;
@@ -56,12 +66,18 @@ public class CatalogContentPlugin implements ContentPlugin {
 
     private static final String DEFAULT_METACARD_TRANSFORMER = "geojson";
 
+    private static final String DEFAULT_MIME_TYPE = "application/octet-stream";
+
+    private static final String ID_PARAMETER = "id";
+
     private final CatalogFramework catalogFramework;
 
     private Cataloger cataloger;
 
     private MimeTypeToTransformerMapper mimeTypeToTransformerMapper;
 
+    private FilterBuilder filterBuilder;
+
     public CatalogContentPlugin(CatalogFramework catalogFramework,
             MimeTypeToTransformerMapper mimeTypeToTransformerMapper) {
         LOGGER.trace("INSIDE: CatalogContentPlugin constructor");
@@ -71,28 +87,24 @@ public CatalogContentPlugin(CatalogFramework catalogFramework,
         this.mimeTypeToTransformerMapper = mimeTypeToTransformerMapper;
     }
 
+    /**
+     * Sets the filter builder used to find the catalog entry of content already stored for another
+     * content item.
+     */
+    public void setFilterBuilder(FilterBuilder filterBuilder) {
+        this.filterBuilder = filterBuilder;
+    }
+
     @Override
     public CreateResponse process(CreateResponse input) throws PluginExecutionException {
         LOGGER.trace("ENTERING: process(CreateResponse)");
 
         ContentItem createdContentItem = input.getCreatedContentItem();
         CreateResponseImpl response = new CreateResponseImpl(input);
-        MimeType mimeType = createdContentItem.getMimeType();
-        InputStream stream = null;
-        try {
-            stream = createdContentItem.getInputStream();
-        } catch (IOException e) {
-            throw new PluginExecutionException(
-                    "Unable to read InputStream in created content item.", e);
-        }
-
-        if (stream == null) {
-            throw new PluginExecutionException("InputStream is null in created content item.");
-        }
 
         try {
-            Metacard metacard = generateMetacard(createdContentItem, mimeType,
-                    createdContentItem.getUri(), stream);
+            Metacard metacard = generateMetacard(createdContentItem, input,
+                    createdContentItem.getUri());
             String catalogId = cataloger.createMetacard(metacard);
             LOGGER.debug("catalogId = " + catalogId);
             Map<String, String> properties = response.getResponseProperties();
@@ -111,13 +123,6 @@ public CreateResponse process(CreateResponse input) throws PluginExecutionExcept
         } catch (MetacardCreationException e) {
             LOGGER.warn(e.getMessage(), e);
             throw new PluginExecutionException(e.getMessage(), e);
-        } finally {
-            if (stream != null) {
-                try {
-                    stream.close();
-                } catch (IOException e) {
-                }
-            }
         }
 
         LOGGER.trace("EXITING: process(CreateResponse)");
@@ -131,22 +136,10 @@ public UpdateResponse process(UpdateResponse input) throws PluginExecutionExcept
 
         ContentItem updatedContentItem = input.getUpdatedContentItem();
         UpdateResponseImpl response = new UpdateResponseImpl(input);
-        MimeType mimeType = updatedContentItem.getMimeType();
-        InputStream stream = null;
-        try {
-            stream = updatedContentItem.getInputStream();
-        } catch (IOException e) {
-            throw new PluginExecutionException(
-                    "Unable to read InputStream in updated content item.", e);
-        }
-
-        if (stream == null) {
-            throw new PluginExecutionException("InputStream is null in updated content item.");
-        }
 
         try {
-            Metacard metacard = generateMetacard(updatedContentItem, mimeType,
-                    updatedContentItem.getUri(), stream);
+            Metacard metacard = generateMetacard(updatedContentItem, input,
+                    updatedContentItem.getUri());
             String catalogId = cataloger.updateMetacard(updatedContentItem.getUri(), metacard);
             LOGGER.debug("catalogId = " + catalogId);
             Map<String, String> properties = response.getResponseProperties();
@@ -165,13 +158,6 @@ public UpdateResponse process(UpdateResponse input) throws PluginExecutionExcept
         } catch (MetacardCreationException e) {
             LOGGER.warn(e.getMessage(), e);
             throw new PluginExecutionException(e.getMessage(), e);
-        } finally {
-            if (stream != null) {
-                try {
-                    stream.close();
-                } catch (IOException e) {
-                }
-            }
         }
 
         LOGGER.trace("EXITING: process(UpdateResponse)");
@@ -202,81 +188,227 @@ public DeleteResponse process(DeleteResponse input) throws PluginExecutionExcept
         return response;
     }
 
-    private Metacard generateMetacard(ContentItem contentItem, MimeType mimeType, String uri,
-            InputStream message) throws MetacardCreationException {
+    /**
+     * Generates the metacard for a content item. When the storage provider stored the content in a
+     * file, each candidate transformer reads that file directly, and the size and detected mime type
+     * it reported are used instead of reading the content again. Otherwise the content is copied
+     * once so it can be replayed for each candidate transformer.
+     */
+    private Metacard generateMetacard(ContentItem contentItem, Response<?> storageResponse,
+            String uri) throws MetacardCreationException, PluginExecutionException {
         LOGGER.trace("ENTERING: generateMetacard");
 
+        MimeType mimeType = selectMimeType(contentItem.getMimeType(),
+                storageResponse.getResponsePropertyValue(Response.CONTENT_DETECTED_MIME_TYPE));
+
         List<InputTransformer> listOfCandidates = mimeTypeToTransformerMapper
                 .findMatches(InputTransformer.class, mimeType);
 
         LOGGER.debug("List of matches for mimeType [ {} ]: {}", mimeType, listOfCandidates);
 
-        Metacard generatedMetacard = null;
-        try (FileBackedOutputStream fileBackedOutputStream = new FileBackedOutputStream(1000000)) {
+        File storedFile = getStoredFile(contentItem);
+        Metacard generatedMetacard = copyDuplicateMetacard(contentItem, storageResponse, uri,
+                storedFile);
+        if (generatedMetacard != null) {
+            LOGGER.trace("EXITING: generateMetacard");
+            return generatedMetacard;
+        }
+
+        if (storedFile != null) {
+            long size = getStoredSize(storageResponse, storedFile);
+            generatedMetacard = transform(listOfCandidates, Files.asByteSource(storedFile), size,
+                    contentItem, uri);
+        } else {
+            generatedMetacard = transformCopy(listOfCandidates, contentItem, uri);
+        }
+
+        if (generatedMetacard == null) {
+            throw new MetacardCreationException("Could not create metacard with mimeType " + mimeType
+                    + ". No valid transformers found.");
+        }
+
+        LOGGER.trace("EXITING: generateMetacard");
+
+        return generatedMetacard;
+    }
+
+    private Metacard transformCopy(List<InputTransformer> listOfCandidates,
+            ContentItem contentItem, String uri)
+            throws MetacardCreationException, PluginExecutionException {
+        InputStream message;
+        try {
+            message = contentItem.getInputStream();
+        } catch (IOException e) {
+            throw new PluginExecutionException("Unable to read InputStream in content item.", e);
+        }
+
+        if (message == null) {
+            throw new PluginExecutionException("InputStream is null in content item.");
+        }
+
+        try (InputStream stream = message;
+                FileBackedOutputStream fileBackedOutputStream = new FileBackedOutputStream(
+                        1000000)) {
 
             long size;
             try {
-                size = IOUtils.copyLarge(message, fileBackedOutputStream);
+                size = IOUtils.copyLarge(stream, fileBackedOutputStream);
                 LOGGER.debug("Copied {} bytes of file in content framework", size);
             } catch (IOException e) {
                 throw new MetacardCreationException("Could not copy bytes of content message.", e);
             }
 
-            // Multiple InputTransformers may be found that match the mime type.
-            // Need to try each InputTransformer until we find one that can successfully transform
-            // the input stream's data into a metacard. Once an InputTransformer is found that
-            // can create the metacard, then do not need to try any remaining InputTransformers.
-            for (InputTransformer transformer : listOfCandidates) {
-
-                try (InputStream inputStreamMessageCopy = fileBackedOutputStream.asByteSource()
-                        .openStream()) {
-                    generatedMetacard = transformer.transform(inputStreamMessageCopy);
-                    if (generatedMetacard != null) {
-                        try {
-                            Subject subject = SecurityUtils.getSubject();
-                            if (subject != null) {
-                                generatedMetacard.setAttribute(
-                                        new AttributeImpl(Metacard.POINT_OF_CONTACT,
-                                                SubjectUtils.getName(subject)));
-                            }
-                        } catch (IllegalStateException e) {
-                            LOGGER.debug("Unable to retrieve user from request.", e);
-                        }
-
-                        if (uri != null) {
-                            //Setting the non-transformer specific information not including creation and modification dates/times
-                            generatedMetacard
-                                    .setAttribute(new AttributeImpl(Metacard.RESOURCE_URI, uri));
-                            generatedMetacard.setAttribute(new AttributeImpl(Metacard.RESOURCE_SIZE,
-                                    String.valueOf(size)));
-                        } else {
-                            LOGGER.debug("Metacard had a null uri");
-                        }
-                        if (StringUtils.isBlank(generatedMetacard.getTitle())) {
-                            LOGGER.debug("Metacard title was blank. Setting title to filename.");
-                            generatedMetacard.setAttribute(
-                                    new AttributeImpl(Metacard.TITLE, contentItem.getFilename()));
-                        }
-                        break;
-                    }
-                } catch (IOException | CatalogTransformerException e) {
-                    LOGGER.debug("Transformer [" + transformer + "] could not create metacard.", e);
+            return transform(listOfCandidates, fileBackedOutputStream.asByteSource(), size,
+                    contentItem, uri);
+        } catch (IOException e) {
+            LOGGER.debug("Error encountered while using filed backed stream.", e);
+            return null;
+        }
+    }
+
+    private Metacard transform(List<InputTransformer> listOfCandidates, ByteSource content,
+            long size, ContentItem contentItem, String uri) {
+        // Multiple InputTransformers may be found that match the mime type.
+        // Need to try each InputTransformer until we find one that can successfully transform
+        // the input stream's data into a metacard. Once an InputTransformer is found that
+        // can create the metacard, then do not need to try any remaining InputTransformers.
+        for (InputTransformer transformer : listOfCandidates) {
+
+            try (InputStream inputStreamMessageCopy = content.openStream()) {
+                Metacard generatedMetacard = transformer.transform(inputStreamMessageCopy);
+                if (generatedMetacard != null) {
+                    setContentAttributes(generatedMetacard, size, contentItem, uri);
+                    return generatedMetacard;
                 }
+            } catch (IOException | CatalogTransformerException e) {
+                LOGGER.debug("Transformer [" + transformer + "] could not create metacard.", e);
+            }
+
+        }
 
+        return null;
+    }
+
+    private void setContentAttributes(Metacard metacard, long size, ContentItem contentItem,
+            String uri) {
+        try {
+            Subject subject = SecurityUtils.getSubject();
+            if (subject != null) {
+                metacard.setAttribute(new AttributeImpl(Metacard.POINT_OF_CONTACT,
+                        SubjectUtils.getName(subject)));
             }
+        } catch (IllegalStateException e) {
+            LOGGER.debug("Unable to retrieve user from request.", e);
+        }
 
-            if (generatedMetacard == null) {
-                throw new MetacardCreationException(
-                        "Could not create metacard with mimeType " + mimeType
-                                + ". No valid transformers found.");
+        if (uri != null) {
+            //Setting the non-transformer specific information not including creation and modification dates/times
+            metacard.setAttribute(new AttributeImpl(Metacard.RESOURCE_URI, uri));
+            metacard.setAttribute(
+                    new AttributeImpl(Metacard.RESOURCE_SIZE, String.valueOf(size)));
+        } else {
+            LOGGER.debug("Metacard had a null uri");
+        }
+        if (StringUtils.isBlank(metacard.getTitle())) {
+            LOGGER.debug("Metacard title was blank. Setting title to filename.");
+            metacard.setAttribute(new AttributeImpl(Metacard.TITLE, contentItem.getFilename()));
+        }
+    }
+
+    /**
+     * When the storage provider found the content already stored for another content item, copies
+     * the catalog entry of that content item instead of transforming the content again.
+     *
+     * @return the copied metacard, or {@code null} if the content is not a duplicate or the
+     * catalog entry of the original content item could not be found
+     */
+    private Metacard copyDuplicateMetacard(ContentItem contentItem, Response<?> storageResponse,
+            String uri, File storedFile) {
+        String duplicateOf = storageResponse
+                .getResponsePropertyValue(Response.CONTENT_DUPLICATE_OF);
+        if (StringUtils.isBlank(duplicateOf) || uri == null || !uri
+                .endsWith(contentItem.getId())) {
+            return null;
+        }
+
+        String originalUri =
+                uri.substring(0, uri.length() - contentItem.getId().length()) + duplicateOf;
+        Metacard original = cataloger.findMetacard(originalUri, filterBuilder);
+        if (original == null) {
+            LOGGER.debug("No catalog entry found for duplicate content {}", originalUri);
+            return null;
+        }
+
+        LOGGER.debug("Copying catalog entry of {} for duplicate content {}", originalUri, uri);
+        MetacardType type = original.getMetacardType();
+        MetacardImpl copy = new MetacardImpl(type);
+        if (type.getAttributeDescriptors() != null) {
+            for (AttributeDescriptor descriptor : type.getAttributeDescriptors()) {
+                Attribute attribute = original.getAttribute(descriptor.getName());
+                if (attribute != null) {
+                    copy.setAttribute(attribute);
+                }
             }
+        }
+        copy.setId(null);
 
-            LOGGER.trace("EXITING: generateMetacard");
+        setContentAttributes(copy, getStoredSize(storageResponse, storedFile), contentItem, uri);
+        return copy;
+    }
+
+    /**
+     * Uses the mime type detected by the storage provider when the content item's own mime type is
+     * missing, generic, or less specific than the detected one, so the first candidate transformer
+     * is the one able to parse the content.
+     */
+    MimeType selectMimeType(MimeType declaredMimeType, String detectedMimeType) {
+        if (StringUtils.isBlank(detectedMimeType)) {
+            return declaredMimeType;
+        }
+
+        MimeType detected;
+        try {
+            detected = new MimeType(detectedMimeType);
+        } catch (MimeTypeParseException e) {
+            LOGGER.debug("Unable to parse detected mime type {}", detectedMimeType, e);
+            return declaredMimeType;
+        }
+
+        if (declaredMimeType == null || DEFAULT_MIME_TYPE
+                .equals(declaredMimeType.getBaseType())) {
+            return detected;
+        }
+
+        if (declaredMimeType.match(detected) && declaredMimeType.getParameter(ID_PARAMETER) == null
+                && detected.getParameter(ID_PARAMETER) != null) {
+            return detected;
+        }
+
+        return declaredMimeType;
+    }
+
+    private File getStoredFile(ContentItem contentItem) {
+        try {
+            File file = contentItem.getFile();
+            if (file != null && file.isFile() && file.canRead()) {
+                return file;
+            }
         } catch (IOException e) {
-            LOGGER.debug("Error encountered while using filed backed stream.", e);
+            LOGGER.debug("Content item {} is not stored in a file.", contentItem.getId(), e);
         }
+        return null;
+    }
 
-        return generatedMetacard;
+    private long getStoredSize(Response<?> storageResponse, File storedFile) {
+        String size = storageResponse.getResponsePropertyValue(Response.CONTENT_SIZE);
+        if (StringUtils.isNotBlank(size)) {
+            try {
+                return Long.parseLong(size);
+            } catch (NumberFormatException e) {
+                LOGGER.debug("Invalid content size {}", size, e);
+            }
+        }
+        return storedFile == null ? 0 : storedFile.length();
     }
 
 }
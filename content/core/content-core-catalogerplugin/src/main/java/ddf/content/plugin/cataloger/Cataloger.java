@@ -23,15 +23,22 @@
 
 import ddf.catalog.CatalogFramework;
 import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.federation.FederationException;
+import ddf.catalog.filter.FilterBuilder;
 import ddf.catalog.operation.CreateResponse;
 import ddf.catalog.operation.DeleteResponse;
+import ddf.catalog.operation.QueryResponse;
 import ddf.catalog.operation.Update;
 import ddf.catalog.operation.UpdateResponse;
 import ddf.catalog.operation.impl.CreateRequestImpl;
 import ddf.catalog.operation.impl.DeleteRequestImpl;
+import ddf.catalog.operation.impl.QueryImpl;
+import ddf.catalog.operation.impl.QueryRequestImpl;
 import ddf.catalog.operation.impl.UpdateRequestImpl;
 import ddf.catalog.source.IngestException;
 import ddf.catalog.source.SourceUnavailableException;
+import ddf.catalog.source.UnsupportedQueryException;
 import ddf.content.plugin.PluginExecutionException;
 
 /**
@@ -46,6 +53,8 @@ public class Cataloger {
 
     private static final String DELETE_WARNING_MSG = "Unable to delete catalog entry";
 
+    private static final String FIND_WARNING_MSG = "Unable to find catalog entry";
+
     private static XLogger logger = new XLogger(LoggerFactory.getLogger(Cataloger.class));
 
     private CatalogFramework catalogFramework;
@@ -150,6 +159,41 @@ public String updateMetacard(String productUri, Metacard metacard)
         return updatedCatalogId;
     }
 
+    /**
+     * Finds the catalog entry for a product in the local catalog.
+     *
+     * @param productUri    the URI of the product
+     * @param filterBuilder builder for the query filter
+     * @return the metacard of the product, or {@code null} if it could not be found
+     */
+    public Metacard findMetacard(String productUri, FilterBuilder filterBuilder) {
+        logger.trace("ENTERING: findMetacard");
+
+        Metacard metacard = null;
+
+        if (productUri != null && filterBuilder != null) {
+            QueryImpl query = new QueryImpl(
+                    filterBuilder.attribute(Metacard.RESOURCE_URI).is().equalTo().text(productUri));
+            query.setPageSize(1);
+
+            try {
+                logger.debug("Calling catalog framework");
+                QueryResponse queryResponse = this.catalogFramework
+                        .query(new QueryRequestImpl(query));
+                List<Result> results = queryResponse.getResults();
+                if (results != null && !results.isEmpty()) {
+                    metacard = results.get(0).getMetacard();
+                }
+            } catch (UnsupportedQueryException | SourceUnavailableException | FederationException e) {
+                logger.debug(FIND_WARNING_MSG, e);
+            }
+        }
+
+        logger.trace("EXITING: findMetacard");
+
+        return metacard;
+    }
+
     // Can only update catalog entry by product URI from Content Framework because the catalog ID is
     // never
     // provided as an input from the client (via ContentRestEndpoint)
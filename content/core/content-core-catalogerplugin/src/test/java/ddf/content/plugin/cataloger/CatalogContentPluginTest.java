@@ -0,0 +1,291 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.content.plugin.cataloger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isA;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.activation.MimeType;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import ddf.catalog.CatalogFramework;
+import ddf.catalog.data.BinaryContent;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.filter.FilterBuilder;
+import ddf.catalog.operation.CreateRequest;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.impl.CreateResponseImpl;
+import ddf.catalog.operation.impl.QueryResponseImpl;
+import ddf.catalog.transform.CatalogTransformerException;
+import ddf.catalog.transform.InputTransformer;
+import ddf.content.data.ContentItem;
+import ddf.content.operation.Response;
+import ddf.content.plugin.PluginExecutionException;
+import ddf.mime.MimeTypeToTransformerMapper;
+
+public class CatalogContentPluginTest {
+
+    private static final String CONTENT = "<xml>content</xml>";
+
+    private static final String URI = "content:id";
+
+    private static final String FILENAME = "file.xml";
+
+    private static final String CATALOG_ID = "catalogId";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private CatalogFramework catalogFramework;
+
+    private MimeTypeToTransformerMapper mapper;
+
+    private CatalogContentPlugin plugin;
+
+    private ContentItem contentItem;
+
+    private Map<String, String> responseProperties;
+
+    @Before
+    public void setUp() throws Exception {
+        catalogFramework = mock(CatalogFramework.class);
+        when(catalogFramework.create(isA(CreateRequest.class))).thenAnswer(
+                new Answer<ddf.catalog.operation.CreateResponse>() {
+                    @Override
+                    public ddf.catalog.operation.CreateResponse answer(
+                            InvocationOnMock invocation) {
+                        CreateRequest request = (CreateRequest) invocation.getArguments()[0];
+                        MetacardImpl created = new MetacardImpl(request.getMetacards().get(0));
+                        created.setId(CATALOG_ID);
+                        return new CreateResponseImpl(request, null,
+                                Arrays.asList((Metacard) created));
+                    }
+                });
+        BinaryContent binaryContent = mock(BinaryContent.class);
+        when(binaryContent.getByteArray()).thenReturn(new byte[0]);
+        when(binaryContent.getMimeType()).thenReturn(new MimeType("application/json"));
+        when(catalogFramework.transform(any(Metacard.class), anyString(),
+                any(Map.class))).thenReturn(binaryContent);
+
+        mapper = mock(MimeTypeToTransformerMapper.class);
+        plugin = new CatalogContentPlugin(catalogFramework, mapper);
+
+        contentItem = mock(ContentItem.class);
+        when(contentItem.getId()).thenReturn("id");
+        when(contentItem.getUri()).thenReturn(URI);
+        when(contentItem.getFilename()).thenReturn(FILENAME);
+        when(contentItem.getMimeType()).thenReturn(new MimeType("application/octet-stream"));
+
+        responseProperties = new HashMap<String, String>();
+    }
+
+    @Test
+    public void testSelectMimeTypeWithoutDetectedType() throws Exception {
+        MimeType declared = new MimeType("text/xml");
+
+        assertThat(plugin.selectMimeType(declared, null), is(sameInstance(declared)));
+        assertThat(plugin.selectMimeType(declared, " "), is(sameInstance(declared)));
+    }
+
+    @Test
+    public void testSelectMimeTypeWithInvalidDetectedType() throws Exception {
+        MimeType declared = new MimeType("text/xml");
+
+        assertThat(plugin.selectMimeType(declared, "not a mime type"),
+                is(sameInstance(declared)));
+    }
+
+    @Test
+    public void testSelectMimeTypeWithoutDeclaredType() throws Exception {
+        assertThat(plugin.selectMimeType(null, "text/xml").toString(), is("text/xml"));
+    }
+
+    @Test
+    public void testSelectMimeTypeWithGenericDeclaredType() throws Exception {
+        assertThat(plugin.selectMimeType(new MimeType("application/octet-stream"), "text/xml")
+                .toString(), is("text/xml"));
+    }
+
+    @Test
+    public void testSelectMimeTypeWithMoreSpecificDetectedType() throws Exception {
+        assertThat(plugin.selectMimeType(new MimeType("text/xml"), "text/xml; id=xml")
+                .getParameter("id"), is("xml"));
+    }
+
+    @Test
+    public void testSelectMimeTypeKeepsDeclaredId() throws Exception {
+        MimeType declared = new MimeType("text/xml; id=declared");
+
+        assertThat(plugin.selectMimeType(declared, "text/xml; id=detected"),
+                is(sameInstance(declared)));
+    }
+
+    @Test
+    public void testSelectMimeTypeKeepsDifferentDeclaredType() throws Exception {
+        MimeType declared = new MimeType("application/json");
+
+        assertThat(plugin.selectMimeType(declared, "text/xml; id=xml"),
+                is(sameInstance(declared)));
+    }
+
+    @Test
+    public void testCreateTransformsStoredFile() throws Exception {
+        File storedFile = temporaryFolder.newFile(FILENAME);
+        FileUtils.writeStringToFile(storedFile, CONTENT, StandardCharsets.UTF_8.name());
+        when(contentItem.getFile()).thenReturn(storedFile);
+        responseProperties.put(Response.CONTENT_DETECTED_MIME_TYPE, "text/xml");
+        responseProperties.put(Response.CONTENT_SIZE, "1234");
+
+        InputTransformer failing = givenTransformer(false);
+        InputTransformer parsing = givenTransformer(true);
+        when(mapper.findMatches(eq(InputTransformer.class), any(MimeType.class)))
+                .thenReturn(Arrays.asList(failing, parsing));
+
+        ddf.content.operation.CreateResponse response = plugin.process(createResponse());
+
+        ArgumentCaptor<MimeType> mimeType = ArgumentCaptor.forClass(MimeType.class);
+        verify(mapper).findMatches(eq(InputTransformer.class), mimeType.capture());
+        assertThat(mimeType.getValue().toString(), is("text/xml"));
+        verify(contentItem, never()).getInputStream();
+        assertThat(response.getResponsePropertyValue("Catalog-ID"), is(CATALOG_ID));
+
+        Metacard created = getCreatedMetacard();
+        assertThat(created.getResourceURI().toString(), is(URI));
+        assertThat(created.getAttribute(Metacard.RESOURCE_SIZE).getValue(),
+                is((Serializable) "1234"));
+        assertThat(created.getTitle(), is(FILENAME));
+    }
+
+    @Test
+    public void testCreateCopiesContentWithoutStoredFile() throws Exception {
+        when(contentItem.getFile()).thenReturn(null);
+        when(contentItem.getInputStream()).thenReturn(
+                new ByteArrayInputStream(CONTENT.getBytes(StandardCharsets.UTF_8)));
+
+        InputTransformer failing = givenTransformer(false);
+        InputTransformer parsing = givenTransformer(true);
+        when(mapper.findMatches(eq(InputTransformer.class), any(MimeType.class)))
+                .thenReturn(Arrays.asList(failing, parsing));
+
+        plugin.process(createResponse());
+
+        Metacard created = getCreatedMetacard();
+        assertThat(created.getAttribute(Metacard.RESOURCE_SIZE).getValue(),
+                is((Serializable) String.valueOf(CONTENT.length())));
+    }
+
+    @Test(expected = PluginExecutionException.class)
+    public void testCreateWithoutTransformerFails() throws Exception {
+        File storedFile = temporaryFolder.newFile(FILENAME);
+        FileUtils.writeStringToFile(storedFile, CONTENT, StandardCharsets.UTF_8.name());
+        when(contentItem.getFile()).thenReturn(storedFile);
+
+        InputTransformer failing = givenTransformer(false);
+        when(mapper.findMatches(eq(InputTransformer.class), any(MimeType.class)))
+                .thenReturn(Arrays.asList(failing));
+
+        plugin.process(createResponse());
+    }
+
+    @Test
+    public void testCreateDuplicateCopiesAttributes() throws Exception {
+        File storedFile = temporaryFolder.newFile(FILENAME);
+        FileUtils.writeStringToFile(storedFile, CONTENT, StandardCharsets.UTF_8.name());
+        when(contentItem.getFile()).thenReturn(storedFile);
+        when(contentItem.getUri()).thenReturn("content:duplicate");
+        when(contentItem.getId()).thenReturn("duplicate");
+        responseProperties.put(Response.CONTENT_DUPLICATE_OF, "original");
+
+        MetacardImpl original = new MetacardImpl();
+        original.setId("originalId");
+        original.setTitle("original title");
+        original.setAttribute(Metacard.POINT_OF_CONTACT, "original contact");
+        when(catalogFramework.query(isA(QueryRequest.class))).thenReturn(
+                new QueryResponseImpl(null, Arrays.asList((Result) new ResultImpl(original)), 1));
+        plugin.setFilterBuilder(mock(FilterBuilder.class, RETURNS_DEEP_STUBS));
+
+        plugin.process(createResponse());
+
+        verify(mapper).findMatches(eq(InputTransformer.class), any(MimeType.class));
+        Metacard created = getCreatedMetacard();
+        assertThat(created.getId(), is(nullValue()));
+        assertThat(created.getTitle(), is("original title"));
+        assertThat(created.getAttribute(Metacard.POINT_OF_CONTACT).getValue(),
+                is((Serializable) "original contact"));
+        assertThat(created.getResourceURI().toString(), is("content:duplicate"));
+    }
+
+    private ddf.content.operation.CreateResponse createResponse() {
+        return new ddf.content.operation.impl.CreateResponseImpl(
+                mock(ddf.content.operation.CreateRequest.class), contentItem, responseProperties);
+    }
+
+    private Metacard getCreatedMetacard() throws Exception {
+        ArgumentCaptor<CreateRequest> request = ArgumentCaptor.forClass(CreateRequest.class);
+        verify(catalogFramework).create(request.capture());
+        return request.getValue().getMetacards().get(0);
+    }
+
+    /**
+     * Creates a transformer that reads the whole content, and checks it is complete, before either
+     * failing or returning a metacard.
+     */
+    private InputTransformer givenTransformer(final boolean parses) throws Exception {
+        InputTransformer transformer = mock(InputTransformer.class);
+        when(transformer.transform(any(InputStream.class))).thenAnswer(new Answer<Metacard>() {
+            @Override
+            public Metacard answer(InvocationOnMock invocation) throws Throwable {
+                InputStream input = (InputStream) invocation.getArguments()[0];
+                assertThat(IOUtils.toString(input, StandardCharsets.UTF_8.name()), is(CONTENT));
+                if (!parses) {
+                    throw new CatalogTransformerException("Unable to parse content.");
+                }
+                return new MetacardImpl();
+            }
+        });
+        return transformer;
+    }
+}
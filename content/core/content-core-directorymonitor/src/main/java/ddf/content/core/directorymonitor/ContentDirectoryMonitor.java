@@ -13,14 +13,35 @@
  */
 package ddf.content.core.directorymonitor;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
 
 import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.ExchangePattern;
+import org.apache.camel.Message;
+import org.apache.camel.Processor;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.Route;
 import org.apache.camel.ServiceStatus;
 import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.file.GenericFile;
 import org.apache.camel.model.FromDefinition;
+import org.apache.camel.model.ProcessorDefinition;
 import org.apache.camel.model.RouteDefinition;
+import org.apache.camel.support.RoutePolicySupport;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,21 +49,60 @@
 import ddf.content.operation.Request;
 
 /**
+ * Ingests the files written to a directory into the Content Framework.
+ * <p/>
+ * By default the directory is polled by a Camel file route. When {@link #setWatchDirectory(boolean)
+ * watching} is enabled, files are found through a {@link DirectoryWatcher} instead and ingested by
+ * a bounded pool of workers.
+ *
  * @author rodgersh
  */
 public class ContentDirectoryMonitor implements DirectoryMonitor {
     private static final Logger LOGGER = LoggerFactory.getLogger(ContentDirectoryMonitor.class);
 
+    private static final String CONTENT_FRAMEWORK_URI = "content:framework";
+
+    private static final String INGESTED_DIRECTORY = ".ingested";
+
+    private static final String FAILED_DIRECTORY = ".errors";
+
+    private static final String DELETE = "";
+
+    /*
+     * Camel only waits this many stability intervals for a file to stop changing before trying
+     * again on its next poll.
+     */
+    private static final int READ_LOCK_TIMEOUT_FACTOR = 10;
+
     private String monitoredDirectory = null;
 
     private String directive = null;
 
     private boolean copyIngestedFiles = false;
 
+    private boolean watchDirectory = false;
+
+    private int maxConcurrentIngests = 1;
+
+    private long stabilityIntervalMillis = 0;
+
     private CamelContext camelContext;
 
     private List<RouteDefinition> routeCollection;
 
+    private DirectoryWatcher directoryWatcher;
+
+    private ProducerTemplate producerTemplate;
+
+    private final DirectoryMonitorMetrics metrics = new DirectoryMonitorMetrics();
+
+    /*
+     * Directory each handled file that could not be moved is still to be moved to, or DELETE.
+     */
+    private final Map<File, String> cleanUpTargets = new ConcurrentHashMap<File, String>();
+
+    private ObjectName objectName;
+
     /**
      * Constructs a monitor for a specific directory that will ingest files into
      * the Content Framework.
@@ -80,7 +140,15 @@ public void init() {
             LOGGER.debug("No routes to remove before configuring a new route");
         }
 
-        configureCamelRoute();
+        stopDirectoryWatcher();
+
+        if (watchDirectory) {
+            startDirectoryWatcher();
+        } else {
+            configureCamelRoute();
+        }
+
+        configureMBean();
     }
 
     /**
@@ -89,6 +157,8 @@ public void init() {
     public void destroy() {
         LOGGER.trace("INSIDE: destroy()");
         removeRoutes();
+        stopDirectoryWatcher();
+        unregisterMBean();
     }
 
     /**
@@ -105,6 +175,16 @@ public void updateCallback(Map<String, Object> properties) {
             setMonitoredDirectoryPath((String) properties.get("monitoredDirectoryPath"));
             setDirective((String) properties.get("directive"));
             setCopyIngestedFiles((Boolean) properties.get("copyIngestedFiles"));
+            if (properties.get("watchDirectory") != null) {
+                setWatchDirectory((Boolean) properties.get("watchDirectory"));
+            }
+            if (properties.get("maxConcurrentIngests") != null) {
+                setMaxConcurrentIngests(((Number) properties.get("maxConcurrentIngests")).intValue());
+            }
+            if (properties.get("stabilityIntervalMillis") != null) {
+                setStabilityIntervalMillis(
+                        ((Number) properties.get("stabilityIntervalMillis")).longValue());
+            }
             init();
         }
 
@@ -139,20 +219,274 @@ public void setCopyIngestedFiles(boolean copyIngestedFiles) {
     }
 
     /**
-     *
+     * @param watchDirectory - flag to find new files through file system events rather than by
+     *                       polling the directory
      */
-    private void configureCamelRoute() {
-        LOGGER.trace("ENTERING: configureCamelRoute");
+    public void setWatchDirectory(boolean watchDirectory) {
+        LOGGER.trace("INSIDE: setWatchDirectory");
+
+        this.watchDirectory = watchDirectory;
+    }
+
+    /**
+     * @param maxConcurrentIngests - number of files ingested at the same time
+     */
+    public void setMaxConcurrentIngests(int maxConcurrentIngests) {
+        LOGGER.trace("INSIDE: setMaxConcurrentIngests");
+
+        this.maxConcurrentIngests = Math.max(1, maxConcurrentIngests);
+    }
+
+    /**
+     * @param stabilityIntervalMillis - time a file must stay unchanged before it is ingested, so
+     *                                files still being written are not ingested; 0 to ingest files
+     *                                as soon as they are found
+     */
+    public void setStabilityIntervalMillis(long stabilityIntervalMillis) {
+        LOGGER.trace("INSIDE: setStabilityIntervalMillis");
+
+        this.stabilityIntervalMillis = Math.max(0, stabilityIntervalMillis);
+    }
+
+    @Override
+    public String getMonitoredDirectoryPath() {
+        return monitoredDirectory;
+    }
+
+    @Override
+    public long getIngestedCount() {
+        return metrics.getIngestedCount();
+    }
+
+    @Override
+    public long getFailedCount() {
+        return metrics.getFailedCount();
+    }
+
+    @Override
+    public int getBacklog() {
+        return metrics.getBacklog();
+    }
+
+    @Override
+    public double getThroughput() {
+        return metrics.getThroughput();
+    }
+
+    /**
+     * Registers this monitor's metrics as an MBean named after its directory, replacing the MBean
+     * registered for a previously monitored directory.
+     */
+    private void configureMBean() {
+        unregisterMBean();
+
+        if (StringUtils.isEmpty(monitoredDirectory)) {
+            return;
+        }
+
+        MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            objectName = new ObjectName(
+                    DirectoryMonitor.OBJECTNAME_PREFIX + ObjectName.quote(monitoredDirectory));
+            try {
+                mbeanServer.registerMBean(new StandardMBean(this, DirectoryMonitor.class),
+                        objectName);
+            } catch (InstanceAlreadyExistsException e) {
+                LOGGER.info("Re-registering Content Directory Monitor MBean for {}",
+                        monitoredDirectory);
+                mbeanServer.unregisterMBean(objectName);
+                mbeanServer.registerMBean(new StandardMBean(this, DirectoryMonitor.class),
+                        objectName);
+            }
+        } catch (MalformedObjectNameException e) {
+            LOGGER.info("Could not create object name", e);
+            objectName = null;
+        } catch (Exception e) {
+            LOGGER.warn("Could not register MBean.", e);
+            objectName = null;
+        }
+    }
+
+    private void unregisterMBean() {
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (Exception e) {
+                LOGGER.debug("Could not unregister MBean.", e);
+            }
+            objectName = null;
+        }
+    }
 
+    private boolean hasRequiredProperties() {
         // Must have a directory to be monitored to be able to configure the Camel route.
         if (StringUtils.isEmpty(monitoredDirectory)) {
             LOGGER.debug("Cannot setup camel route - must specify a directory to be monitored");
-            return;
+            return false;
         }
 
         if (StringUtils.isEmpty(directive)) {
             LOGGER.debug(
                     "Cannot setup camel route - must specify a directive for the directory to be monitored");
+            return false;
+        }
+
+        return true;
+    }
+
+    private void startDirectoryWatcher() {
+        LOGGER.trace("ENTERING: startDirectoryWatcher");
+
+        if (!hasRequiredProperties()) {
+            return;
+        }
+
+        try {
+            producerTemplate = camelContext.createProducerTemplate();
+            directoryWatcher = new DirectoryWatcher(new File(monitoredDirectory),
+                    stabilityIntervalMillis, maxConcurrentIngests,
+                    new DirectoryWatcher.FileHandler() {
+                        @Override
+                        public boolean handle(File file) {
+                            return ingest(file);
+                        }
+
+                        @Override
+                        public boolean cleanUp(File file) {
+                            return ContentDirectoryMonitor.this.cleanUp(file);
+                        }
+                    }, metrics);
+            directoryWatcher.start();
+            LOGGER.debug("Watching {} with {} workers", monitoredDirectory, maxConcurrentIngests);
+        } catch (Exception e) {
+            LOGGER.error(
+                    "Unable to watch directory {} - this Content Directory Monitor will be unusable",
+                    monitoredDirectory, e);
+            stopDirectoryWatcher();
+        }
+
+        LOGGER.trace("EXITING: startDirectoryWatcher");
+    }
+
+    private void stopDirectoryWatcher() {
+        if (directoryWatcher != null) {
+            directoryWatcher.stop();
+            directoryWatcher = null;
+            LOGGER.debug("Stopped watching {}: {} files ingested, {} failed", monitoredDirectory,
+                    metrics.getIngestedCount(), metrics.getFailedCount());
+        }
+
+        if (producerTemplate != null) {
+            try {
+                producerTemplate.stop();
+            } catch (Exception e) {
+                LOGGER.debug("Unable to stop producer template", e);
+            }
+            producerTemplate = null;
+        }
+    }
+
+    /**
+     * Sends a file found by the {@link DirectoryWatcher} to the Content Framework, then moves or
+     * deletes it as the Camel file route would.
+     *
+     * @return true if the file was moved or deleted
+     */
+    private boolean ingest(final File file) {
+        metrics.fileStarted();
+
+        Exchange exchange = producerTemplate
+                .send(CONTENT_FRAMEWORK_URI, ExchangePattern.InOnly, new Processor() {
+                    @Override
+                    public void process(Exchange exchange) throws Exception {
+                        Message in = exchange.getIn();
+                        in.setBody(toGenericFile(file));
+                        in.setHeader(Exchange.FILE_NAME, file.getName());
+                        in.setHeader(Request.OPERATION, "create");
+                        in.setHeader(Request.DIRECTIVE, directive);
+                        in.setHeader(Request.CONTENT_URI, "");
+                    }
+                });
+
+        String target;
+        if (exchange.getException() != null) {
+            LOGGER.warn("Unable to ingest file {}", file, exchange.getException());
+            metrics.fileFailed();
+            target = FAILED_DIRECTORY;
+        } else {
+            metrics.fileIngested();
+            target = copyIngestedFiles ? INGESTED_DIRECTORY : null;
+        }
+
+        if (cleanUp(file, target)) {
+            return true;
+        }
+        cleanUpTargets.put(file, target == null ? DELETE : target);
+        return false;
+    }
+
+    /**
+     * Retries moving or deleting a file that {@link #ingest(File)} could not.
+     */
+    private boolean cleanUp(File file) {
+        String target = cleanUpTargets.get(file);
+        if (target == null || cleanUp(file, DELETE.equals(target) ? null : target)) {
+            cleanUpTargets.remove(file);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param directoryName directory to move the file to, or {@code null} to delete it
+     * @return true if the file was moved or deleted
+     */
+    private boolean cleanUp(File file, String directoryName) {
+        if (directoryName != null) {
+            return moveFile(file, directoryName);
+        }
+        try {
+            Files.deleteIfExists(file.toPath());
+            return true;
+        } catch (IOException e) {
+            LOGGER.warn("Unable to delete ingested file {}", file, e);
+            return false;
+        }
+    }
+
+    private GenericFile<File> toGenericFile(File file) {
+        GenericFile<File> genericFile = new GenericFile<File>();
+        genericFile.setFile(file);
+        genericFile.setEndpointPath(monitoredDirectory);
+        genericFile.setAbsolute(file.isAbsolute());
+        genericFile.setAbsoluteFilePath(file.getAbsolutePath());
+        genericFile.setRelativeFilePath(file.getName());
+        genericFile.setFileName(file.getName());
+        genericFile.setFileNameOnly(file.getName());
+        genericFile.setLength(file.length());
+        genericFile.setLastModified(file.lastModified());
+        return genericFile;
+    }
+
+    private boolean moveFile(File file, String directoryName) {
+        File target = new File(new File(file.getParentFile(), directoryName), file.getName());
+        try {
+            Files.createDirectories(target.getParentFile().toPath());
+            Files.move(file.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (IOException e) {
+            LOGGER.warn("Unable to move file {} to {}", file, target.getParent(), e);
+            return false;
+        }
+    }
+
+    /**
+     *
+     */
+    private void configureCamelRoute() {
+        LOGGER.trace("ENTERING: configureCamelRoute");
+
+        if (!hasRequiredProperties()) {
             return;
         }
 
@@ -165,11 +499,20 @@ public void configure() throws Exception {
                 } else {
                     inbox += "&delete=true";
                 }
+                if (stabilityIntervalMillis > 0) {
+                    inbox += "&readLock=changed&readLockCheckInterval=" + stabilityIntervalMillis
+                            + "&readLockTimeout=" + stabilityIntervalMillis
+                            * READ_LOCK_TIMEOUT_FACTOR;
+                }
                 LOGGER.debug("inbox = {}", inbox);
 
-                from(inbox).setHeader(Request.OPERATION, constant("create"))
+                ProcessorDefinition<?> route = from(inbox).routePolicy(new MetricsRoutePolicy());
+                if (maxConcurrentIngests > 1) {
+                    route = route.threads(maxConcurrentIngests);
+                }
+                route.setHeader(Request.OPERATION, constant("create"))
                         .setHeader(Request.DIRECTIVE, constant(directive))
-                        .setHeader(Request.CONTENT_URI, constant("")).to("content:framework");
+                        .setHeader(Request.CONTENT_URI, constant("")).to(CONTENT_FRAMEWORK_URI);
             }
         };
 
@@ -301,4 +644,23 @@ private void dumpCamelContext(String msg) {
         }
         LOGGER.debug("***************  END: {}  *****************\n\n", msg);
     }
+
+    /**
+     * Updates the metrics of this monitor with the files ingested by its Camel route.
+     */
+    private class MetricsRoutePolicy extends RoutePolicySupport {
+        @Override
+        public void onExchangeBegin(Route route, Exchange exchange) {
+            metrics.fileStarted();
+        }
+
+        @Override
+        public void onExchangeDone(Route route, Exchange exchange) {
+            if (exchange.isFailed()) {
+                metrics.fileFailed();
+            } else {
+                metrics.fileIngested();
+            }
+        }
+    }
 }
@@ -13,6 +13,38 @@
  */
 package ddf.content.core.directorymonitor;
 
+/**
+ * Monitors a directory and ingests the files written to it. Each monitor is also registered as an
+ * MBean named {@link #OBJECTNAME_PREFIX} followed by its quoted directory path.
+ */
 public interface DirectoryMonitor {
 
+    public static final String OBJECTNAME_PREFIX =
+            "ddf.content.core.directorymonitor.ContentDirectoryMonitor:service=directory-monitor,directory=";
+
+    /**
+     * @return the path of the monitored directory
+     */
+    String getMonitoredDirectoryPath();
+
+    /**
+     * @return the number of files ingested since the monitor was created
+     */
+    long getIngestedCount();
+
+    /**
+     * @return the number of files that could not be ingested since the monitor was created
+     */
+    long getFailedCount();
+
+    /**
+     * @return the number of files found in the directory that are waiting to be ingested or being
+     * ingested
+     */
+    int getBacklog();
+
+    /**
+     * @return the average number of files ingested per second since the monitor was created
+     */
+    double getThroughput();
 }
@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.content.core.directorymonitor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the files handled by a {@link ContentDirectoryMonitor}.
+ */
+class DirectoryMonitorMetrics {
+
+    private final AtomicLong ingested = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private final AtomicInteger inProgress = new AtomicInteger();
+
+    private final long startTime = System.nanoTime();
+
+    private volatile int pending;
+
+    void fileStarted() {
+        inProgress.incrementAndGet();
+    }
+
+    void fileIngested() {
+        inProgress.decrementAndGet();
+        ingested.incrementAndGet();
+    }
+
+    void fileFailed() {
+        inProgress.decrementAndGet();
+        failed.incrementAndGet();
+    }
+
+    /**
+     * @param pending number of files found in the directory that have not been handed to a worker
+     */
+    void setPending(int pending) {
+        this.pending = pending;
+    }
+
+    long getIngestedCount() {
+        return ingested.get();
+    }
+
+    long getFailedCount() {
+        return failed.get();
+    }
+
+    int getBacklog() {
+        return pending + inProgress.get();
+    }
+
+    double getThroughput() {
+        double seconds = (double) (System.nanoTime() - startTime) / TimeUnit.SECONDS.toNanos(1);
+        return seconds > 0 ? ingested.get() / seconds : 0;
+    }
+}
@@ -0,0 +1,376 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.content.core.directorymonitor;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Finds the files written to a directory and hands each of them to a bounded pool of workers once
+ * it has stopped changing.
+ * <p/>
+ * New and modified files are found through a {@link WatchService}. If the file system does not
+ * support watching the directory, or events were lost, the directory is scanned instead. A file is
+ * only handed to a worker once its size and modification time have not changed for the stability
+ * interval, so files that are still being written are not picked up. Files stay in the backlog
+ * while all workers are busy and their queue is full. A handled file that could not be moved or
+ * deleted is not handed to a worker again; only moving or deleting it is retried.
+ */
+class DirectoryWatcher {
+
+    /**
+     * Handles a file found in the directory. The file must be moved or deleted once handled.
+     */
+    interface FileHandler {
+
+        /**
+         * @return true if the file was moved or deleted, false if that must be retried
+         */
+        boolean handle(File file);
+
+        /**
+         * Retries moving or deleting a handled file.
+         *
+         * @return true if the file was moved or deleted
+         */
+        boolean cleanUp(File file);
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DirectoryWatcher.class);
+
+    private static final long POLL_INTERVAL_MILLIS = 500;
+
+    private static final int QUEUE_SIZE_PER_WORKER = 2;
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private static final long CLEAN_UP_RETRY_MILLIS = 1000;
+
+    private final File directory;
+
+    private final long stabilityIntervalMillis;
+
+    private final int maxConcurrentIngests;
+
+    private final FileHandler handler;
+
+    private final DirectoryMonitorMetrics metrics;
+
+    /*
+     * Files found but not yet handed to a worker, by file. Only used by the watcher thread.
+     */
+    private final Map<File, Candidate> candidates = new HashMap<File, Candidate>();
+
+    private final Set<File> inProgress = Collections.synchronizedSet(new HashSet<File>());
+
+    /*
+     * Files handled but not yet moved or deleted, with the time of their next clean up attempt.
+     * They are not handed to a worker again.
+     */
+    private final Map<File, Long> uncleaned = new ConcurrentHashMap<File, Long>();
+
+    private ThreadPoolExecutor executor;
+
+    private volatile WatchService watchService;
+
+    private Thread watcherThread;
+
+    private volatile boolean running;
+
+    /**
+     * @param directory               directory to watch
+     * @param stabilityIntervalMillis time a file must stay unchanged before it is handled
+     * @param maxConcurrentIngests    number of files handled at the same time
+     * @param handler                 handles each stable file
+     * @param metrics                 metrics updated with the backlog of the directory
+     */
+    DirectoryWatcher(File directory, long stabilityIntervalMillis, int maxConcurrentIngests,
+            FileHandler handler, DirectoryMonitorMetrics metrics) {
+        this.directory = directory;
+        this.stabilityIntervalMillis = Math.max(0, stabilityIntervalMillis);
+        this.maxConcurrentIngests = Math.max(1, maxConcurrentIngests);
+        this.handler = handler;
+        this.metrics = metrics;
+    }
+
+    synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create directory " + directory.getAbsolutePath());
+        }
+
+        try {
+            Path path = directory.toPath();
+            watchService = path.getFileSystem().newWatchService();
+            path.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+        } catch (IOException | UnsupportedOperationException e) {
+            LOGGER.warn("Unable to watch directory {}, scanning it every {} ms instead", directory,
+                    POLL_INTERVAL_MILLIS, e);
+            closeWatchService();
+        }
+
+        final String name = "content-directory-monitor-" + directory.getName();
+        executor = new ThreadPoolExecutor(maxConcurrentIngests, maxConcurrentIngests, 0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(maxConcurrentIngests * QUEUE_SIZE_PER_WORKER),
+                new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+
+        running = true;
+        watcherThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                watch();
+            }
+        }, name);
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+    }
+
+    /**
+     * Stops watching the directory and waits for the files being handled. Files still in the
+     * backlog are found again when the directory is next watched.
+     */
+    synchronized void stop() {
+        if (!running) {
+            return;
+        }
+
+        running = false;
+        closeWatchService();
+        watcherThread.interrupt();
+
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.warn("Timed out waiting for files in {} to be ingested", directory);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void watch() {
+        LOGGER.debug("Watching {} for new files", directory);
+
+        scan();
+        long lastScan = System.currentTimeMillis();
+        long checkInterval = Math.max(1, Math.min(POLL_INTERVAL_MILLIS, stabilityIntervalMillis));
+
+        while (running) {
+            try {
+                WatchService service = watchService;
+                if (service != null) {
+                    WatchKey key = service.poll(checkInterval, TimeUnit.MILLISECONDS);
+                    if (key != null) {
+                        readEvents(key);
+                    }
+                } else {
+                    Thread.sleep(checkInterval);
+                    if (System.currentTimeMillis() - lastScan >= POLL_INTERVAL_MILLIS) {
+                        scan();
+                        lastScan = System.currentTimeMillis();
+                    }
+                }
+
+                submitStableFiles();
+                retryCleanUp();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                LOGGER.debug("Stopped watching {}", directory);
+                return;
+            } catch (RuntimeException e) {
+                LOGGER.warn("Unable to check {} for new files", directory, e);
+            }
+        }
+    }
+
+    private void readEvents(WatchKey key) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                LOGGER.debug("Events lost for {}, scanning it", directory);
+                scan();
+            } else {
+                found(directory.toPath().resolve((Path) event.context()).toFile());
+            }
+        }
+
+        if (!key.reset()) {
+            LOGGER.warn("{} can no longer be watched, scanning it every {} ms instead", directory,
+                    POLL_INTERVAL_MILLIS);
+            closeWatchService();
+        }
+    }
+
+    private void scan() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                found(file);
+            }
+        }
+    }
+
+    private void found(File file) {
+        // skips the .ingested and .errors directories and files being written by other tools
+        if (!file.isFile() || file.isHidden() || file.getName().startsWith(".")) {
+            return;
+        }
+        if (!candidates.containsKey(file) && !inProgress.contains(file) && !uncleaned
+                .containsKey(file)) {
+            candidates.put(file, new Candidate(file));
+        }
+    }
+
+    private void submitStableFiles() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<File, Candidate>> iterator = candidates.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<File, Candidate> entry = iterator.next();
+            final File file = entry.getKey();
+            Candidate candidate = entry.getValue();
+
+            if (!file.isFile()) {
+                iterator.remove();
+            } else if (candidate.isStable(now, stabilityIntervalMillis)) {
+                inProgress.add(file);
+                try {
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                if (!handler.handle(file)) {
+                                    uncleaned.put(file,
+                                            System.currentTimeMillis() + CLEAN_UP_RETRY_MILLIS);
+                                }
+                            } finally {
+                                inProgress.remove(file);
+                            }
+                        }
+                    });
+                    iterator.remove();
+                } catch (RejectedExecutionException e) {
+                    // all workers are busy, the file stays in the backlog
+                    inProgress.remove(file);
+                    break;
+                }
+            }
+        }
+        metrics.setPending(candidates.size());
+    }
+
+    /**
+     * Retries moving or deleting the handled files that are due, rather than waiting for them to
+     * be found again, which would ingest them a second time.
+     */
+    private void retryCleanUp() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<File, Long>> iterator = uncleaned.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<File, Long> entry = iterator.next();
+            if (entry.getValue() > now) {
+                continue;
+            }
+            File file = entry.getKey();
+            if (!file.exists() || handler.cleanUp(file)) {
+                iterator.remove();
+            } else {
+                entry.setValue(now + CLEAN_UP_RETRY_MILLIS);
+            }
+        }
+    }
+
+    private void closeWatchService() {
+        WatchService service = watchService;
+        watchService = null;
+        if (service != null) {
+            try {
+                service.close();
+            } catch (IOException e) {
+                LOGGER.debug("Unable to close watch service for {}", directory, e);
+            }
+        }
+    }
+
+    /**
+     * Size and modification time of a file, as last seen by the watcher.
+     */
+    private static class Candidate {
+
+        private final File file;
+
+        private long length;
+
+        private long lastModified;
+
+        private long unchangedSince;
+
+        Candidate(File file) {
+            this.file = file;
+            this.length = file.length();
+            this.lastModified = file.lastModified();
+            this.unchangedSince = System.currentTimeMillis();
+        }
+
+        /**
+         * @return true if the file has not changed for the stability interval
+         */
+        boolean isStable(long now, long stabilityIntervalMillis) {
+            long currentLength = file.length();
+            long currentLastModified = file.lastModified();
+            if (currentLength != length || currentLastModified != lastModified) {
+                length = currentLength;
+                lastModified = currentLastModified;
+                unchangedSince = now;
+                return stabilityIntervalMillis == 0;
+            }
+            return now - unchangedSince >= stabilityIntervalMillis;
+        }
+    }
+}
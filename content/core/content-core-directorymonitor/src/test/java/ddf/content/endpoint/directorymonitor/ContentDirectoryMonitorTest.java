@@ -17,10 +17,14 @@
 import static org.hamcrest.Matchers.is;
 
 import java.io.File;
+import java.lang.management.ManagementFactory;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
 import org.apache.camel.Exchange;
 import org.apache.camel.builder.AdviceWithRouteBuilder;
 import org.apache.camel.component.mock.MockComponent;
@@ -37,6 +41,7 @@
 import org.slf4j.LoggerFactory;
 
 import ddf.content.core.directorymonitor.ContentDirectoryMonitor;
+import ddf.content.core.directorymonitor.DirectoryMonitor;
 
 public class ContentDirectoryMonitorTest extends CamelTestSupport {
     private static final Logger LOGGER = LoggerFactory.getLogger(ContentDirectoryMonitorTest.class);
@@ -322,6 +327,105 @@ public void testMultipleDirectoryMonitors() throws Exception {
         FileUtils.deleteDirectory(new File(secondMonitoredDirectory));
     }
 
+    @Test
+    public void testWatchDirectory() throws Exception {
+        String monitoredDirectory = "target/inbox_watch";
+        int fileCount = 5;
+
+        camelContext = (ModelCamelContext) super.createCamelContext();
+        camelContext.start();
+        camelContext.addComponent("content", new MockComponent());
+
+        contentDirectoryMonitor = new ContentDirectoryMonitor(camelContext);
+        contentDirectoryMonitor.setMonitoredDirectoryPath(monitoredDirectory);
+        contentDirectoryMonitor.setDirective("PROCESS");
+        contentDirectoryMonitor.setCopyIngestedFiles(true);
+        contentDirectoryMonitor.setWatchDirectory(true);
+        contentDirectoryMonitor.setMaxConcurrentIngests(2);
+        contentDirectoryMonitor.setStabilityIntervalMillis(100);
+        contentDirectoryMonitor.init();
+
+        // Files are ingested without a Camel route
+        assertThat(camelContext.getRouteDefinitions().size(), is(0));
+
+        for (int i = 0; i < fileCount; i++) {
+            FileUtils.writeStringToFile(new File(monitoredDirectory, "input_" + i + ".txt"),
+                    "text file " + i);
+        }
+
+        Thread.sleep(3000);
+
+        for (int i = 0; i < fileCount; i++) {
+            File target = new File(monitoredDirectory + "/.ingested/input_" + i + ".txt");
+            assertTrue("File " + i + " not moved to .ingested folder", target.exists());
+        }
+        assertThat(contentDirectoryMonitor.getIngestedCount(), is((long) fileCount));
+        assertThat(contentDirectoryMonitor.getFailedCount(), is(0L));
+        assertThat(contentDirectoryMonitor.getBacklog(), is(0));
+
+        // Cleanup
+        contentDirectoryMonitor.destroy();
+        FileUtils.deleteDirectory(new File(monitoredDirectory));
+    }
+
+    @Test
+    public void testWatchDirectoryRetriesFailedMove() throws Exception {
+        String monitoredDirectory = "target/inbox_watch_retry";
+        File ingestedDirectory = new File(monitoredDirectory, ".ingested");
+
+        camelContext = (ModelCamelContext) super.createCamelContext();
+        camelContext.start();
+        camelContext.addComponent("content", new MockComponent());
+
+        // A file in place of the .ingested directory makes moving ingested files fail
+        FileUtils.writeStringToFile(ingestedDirectory, "not a directory");
+
+        contentDirectoryMonitor = new ContentDirectoryMonitor(camelContext);
+        contentDirectoryMonitor.setMonitoredDirectoryPath(monitoredDirectory);
+        contentDirectoryMonitor.setDirective("PROCESS");
+        contentDirectoryMonitor.setCopyIngestedFiles(true);
+        contentDirectoryMonitor.setWatchDirectory(true);
+        contentDirectoryMonitor.init();
+
+        File input = new File(monitoredDirectory, INPUT_FILENAME);
+        FileUtils.writeStringToFile(input, "text file");
+
+        Thread.sleep(1500);
+        assertTrue("File moved although .ingested is not a directory", input.exists());
+        assertThat(contentDirectoryMonitor.getIngestedCount(), is(1L));
+
+        FileUtils.forceDelete(ingestedDirectory);
+        Thread.sleep(3000);
+
+        assertTrue("File not moved to .ingested folder",
+                new File(ingestedDirectory, INPUT_FILENAME).exists());
+        assertThat(input.exists(), is(false));
+        // Only the move is retried, the file is not ingested again
+        assertThat(contentDirectoryMonitor.getIngestedCount(), is(1L));
+
+        // Cleanup
+        contentDirectoryMonitor.destroy();
+        FileUtils.deleteDirectory(new File(monitoredDirectory));
+    }
+
+    @Test
+    public void testMonitorIsRegisteredAsMBean() throws Exception {
+        String monitoredDirectory = "target/inbox_mbean";
+        ObjectName objectName = new ObjectName(
+                DirectoryMonitor.OBJECTNAME_PREFIX + ObjectName.quote(monitoredDirectory));
+        MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+
+        createRoute(monitoredDirectory, "STORE", false);
+
+        assertThat(mbeanServer.isRegistered(objectName), is(true));
+        assertThat(mbeanServer.getAttribute(objectName, "IngestedCount"), is((Object) 0L));
+
+        contentDirectoryMonitor.destroy();
+
+        assertThat(mbeanServer.isRegistered(objectName), is(false));
+        FileUtils.deleteDirectory(new File(monitoredDirectory));
+    }
+
     /**
      * ********************************************************************************
      */
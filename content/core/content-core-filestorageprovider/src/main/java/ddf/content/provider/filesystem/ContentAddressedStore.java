@@ -0,0 +1,250 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.content.provider.filesystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.LoggerFactory;
+import org.slf4j.ext.XLogger;
+
+/**
+ * Stores each distinct content once, as a blob named by the SHA-256 digest of its bytes. Content
+ * items are hard links to their blob, or copies of it where the file system does not support hard
+ * links, so the rest of the content repository layout is unchanged.
+ * <p/>
+ * The ids of the content items referencing a blob are kept next to it, and the digest of each
+ * content item is kept under {@value #REFERENCES_DIRECTORY}, so a blob is only removed once no
+ * content item references it.
+ */
+class ContentAddressedStore {
+
+    static final String REFERENCES_DIRECTORY = "refs";
+
+    private static final XLogger LOGGER = new XLogger(
+            LoggerFactory.getLogger(ContentAddressedStore.class));
+
+    private static final String TEMP_DIRECTORY = "tmp";
+
+    private static final String REFERENCES_EXTENSION = ".refs";
+
+    private final File root;
+
+    private final Object lock = new Object();
+
+    /**
+     * @param root directory holding the blobs
+     */
+    ContentAddressedStore(File root) {
+        this.root = root;
+    }
+
+    /**
+     * Stores the content of a content item and makes the target file refer to it. If a blob with
+     * the same digest already exists, the content is not stored again.
+     *
+     * @param contentId id of the content item
+     * @param in        content of the content item; not closed
+     * @param target    file of the content item, replaced by a link to the blob
+     */
+    StoreResult store(String contentId, InputStream in, File target) throws IOException {
+        File tempDirectory = new File(root, TEMP_DIRECTORY);
+        if (!tempDirectory.isDirectory() && !tempDirectory.mkdirs()) {
+            throw new IOException(
+                    "Unable to create directory " + tempDirectory.getAbsolutePath());
+        }
+
+        File temp = new File(tempDirectory, UUID.randomUUID().toString());
+        ContentTee tee;
+        try {
+            tee = ContentTee.copy(in, temp);
+        } catch (IOException e) {
+            FileUtils.deleteQuietly(temp);
+            throw e;
+        }
+
+        String digest = tee.getChecksum();
+        File blob = getBlob(digest);
+        String duplicateOf = null;
+
+        synchronized (lock) {
+            if (blob.exists()) {
+                FileUtils.deleteQuietly(temp);
+                duplicateOf = findOtherReference(digest, contentId);
+                LOGGER.debug("Content {} already stored as blob {}", contentId, digest);
+            } else {
+                FileUtils.forceMkdir(blob.getParentFile());
+                Files.move(temp.toPath(), blob.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            }
+
+            // the target must never be written through, since it may be a link to a shared blob
+            Files.deleteIfExists(target.toPath());
+            link(blob, target);
+
+            String previousDigest = getDigest(contentId);
+            if (!digest.equals(previousDigest)) {
+                addReference(digest, contentId);
+                if (previousDigest != null) {
+                    removeReference(previousDigest, contentId);
+                }
+                writeLines(getReferenceFile(contentId), listOf(digest));
+            }
+        }
+
+        return new StoreResult(tee, duplicateOf);
+    }
+
+    /**
+     * Releases the reference of a content item to its blob, removing the blob if no other content
+     * item references it. Does nothing if the content item was not stored in this store.
+     */
+    void release(String contentId) throws IOException {
+        synchronized (lock) {
+            String digest = getDigest(contentId);
+            if (digest == null) {
+                return;
+            }
+            removeReference(digest, contentId);
+            Files.deleteIfExists(getReferenceFile(contentId).toPath());
+        }
+    }
+
+    /**
+     * @return the number of content items referencing the blob with the digest
+     */
+    int getReferenceCount(String digest) throws IOException {
+        synchronized (lock) {
+            return readLines(getBlobReferences(digest)).size();
+        }
+    }
+
+    File getBlob(String digest) {
+        return new File(new File(root, digest.substring(0, 2)), digest);
+    }
+
+    private void link(File blob, File target) throws IOException {
+        try {
+            Files.createLink(target.toPath(), blob.toPath());
+        } catch (UnsupportedOperationException | IOException e) {
+            LOGGER.debug("Unable to link {} to {}, copying instead", target, blob, e);
+            Files.copy(blob.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private String findOtherReference(String digest, String contentId) throws IOException {
+        for (String reference : readLines(getBlobReferences(digest))) {
+            if (!reference.equals(contentId)) {
+                return reference;
+            }
+        }
+        return null;
+    }
+
+    private void addReference(String digest, String contentId) throws IOException {
+        File references = getBlobReferences(digest);
+        List<String> ids = readLines(references);
+        if (!ids.contains(contentId)) {
+            ids.add(contentId);
+            writeLines(references, ids);
+        }
+    }
+
+    private void removeReference(String digest, String contentId) throws IOException {
+        File references = getBlobReferences(digest);
+        List<String> ids = readLines(references);
+        ids.remove(contentId);
+        if (ids.isEmpty()) {
+            LOGGER.debug("Removing unreferenced blob {}", digest);
+            Files.deleteIfExists(getBlob(digest).toPath());
+            Files.deleteIfExists(references.toPath());
+        } else {
+            writeLines(references, ids);
+        }
+    }
+
+    private String getDigest(String contentId) throws IOException {
+        List<String> lines = readLines(getReferenceFile(contentId));
+        return lines.isEmpty() ? null : lines.get(0);
+    }
+
+    private File getBlobReferences(String digest) {
+        File blob = getBlob(digest);
+        return new File(blob.getParentFile(), digest + REFERENCES_EXTENSION);
+    }
+
+    private File getReferenceFile(String contentId) {
+        return new File(new File(root, REFERENCES_DIRECTORY), contentId);
+    }
+
+    private List<String> readLines(File file) throws IOException {
+        if (!file.isFile()) {
+            return new ArrayList<String>();
+        }
+        List<String> lines = new ArrayList<String>();
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            if (!line.isEmpty()) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private void writeLines(File file, List<String> lines) throws IOException {
+        FileUtils.forceMkdir(file.getParentFile());
+        File temp = new File(file.getPath() + ".tmp");
+        Files.write(temp.toPath(), lines, StandardCharsets.UTF_8);
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private List<String> listOf(String line) {
+        List<String> lines = new ArrayList<String>(1);
+        lines.add(line);
+        return lines;
+    }
+
+    /**
+     * Result of storing content in the store.
+     */
+    static class StoreResult {
+
+        private final ContentTee tee;
+
+        private final String duplicateOf;
+
+        StoreResult(ContentTee tee, String duplicateOf) {
+            this.tee = tee;
+            this.duplicateOf = duplicateOf;
+        }
+
+        ContentTee getTee() {
+            return tee;
+        }
+
+        /**
+         * @return the id of another content item with the same content, or {@code null} if the
+         * content was not already stored
+         */
+        String getDuplicateOf() {
+            return duplicateOf;
+        }
+    }
+}
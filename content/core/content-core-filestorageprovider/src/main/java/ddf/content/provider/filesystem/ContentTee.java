@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.content.provider.filesystem;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Copies content to a file while computing its size and SHA-256 digest and keeping its first
+ * bytes for mime type detection, so the content only has to be read once.
+ */
+class ContentTee {
+
+    static final String DIGEST_ALGORITHM = "SHA-256";
+
+    /**
+     * Number of leading bytes kept for mime type detection.
+     */
+    static final int HEAD_LENGTH = 64 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final long size;
+
+    private final String checksum;
+
+    private final byte[] head;
+
+    private ContentTee(long size, String checksum, byte[] head) {
+        this.size = size;
+        this.checksum = checksum;
+        this.head = head;
+    }
+
+    /**
+     * Copies the input stream to the file, replacing its contents. The input stream is not
+     * closed.
+     */
+    static ContentTee copy(InputStream in, File file) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] head = new byte[HEAD_LENGTH];
+        int headLength = 0;
+        long size = 0;
+
+        try (OutputStream out = new FileOutputStream(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+                digest.update(buffer, 0, read);
+                if (headLength < HEAD_LENGTH) {
+                    int copied = Math.min(read, HEAD_LENGTH - headLength);
+                    System.arraycopy(buffer, 0, head, headLength, copied);
+                    headLength += copied;
+                }
+                size += read;
+            }
+        }
+
+        return new ContentTee(size, toHex(digest.digest()),
+                Arrays.copyOf(head, headLength));
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    /**
+     * @return the hex encoded SHA-256 digest of the content
+     */
+    String getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * @return a stream over the first {@value #HEAD_LENGTH} bytes of the content
+     */
+    InputStream getHead() {
+        return new ByteArrayInputStream(head);
+    }
+}
@@ -16,6 +16,9 @@
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
 
 import javax.activation.MimeType;
 
@@ -32,6 +35,7 @@
 import ddf.content.operation.DeleteResponse;
 import ddf.content.operation.ReadRequest;
 import ddf.content.operation.ReadResponse;
+import ddf.content.operation.Response;
 import ddf.content.operation.UpdateRequest;
 import ddf.content.operation.UpdateResponse;
 import ddf.content.operation.impl.CreateResponseImpl;
@@ -54,6 +58,11 @@ public class FileSystemProvider implements StorageProvider {
 
     public static final String DEFAULT_CONTENT_REPOSITORY = "content" + File.separator + "store";
 
+    /**
+     * Directory under the base content directory holding the content-addressed blobs.
+     */
+    public static final String BLOB_DIRECTORY = ".blobs";
+
     private static final String DEFAULT_MIME_TYPE = "application/octet-stream";
 
     /**
@@ -73,6 +82,13 @@ public class FileSystemProvider implements StorageProvider {
      */
     private String baseContentDirectory;
 
+    /**
+     * Whether identical content is stored once and shared between content items
+     */
+    private boolean contentAddressed = false;
+
+    private ContentAddressedStore contentAddressedStore;
+
     /**
      * Default constructor, invoked by blueprint.
      */
@@ -87,6 +103,7 @@ public CreateResponse create(CreateRequest createRequest) throws StorageExceptio
         ContentItem item = createRequest.getContentItem();
 
         ContentItem createdItem = null;
+        Map<String, String> responseProperties = new HashMap<String, String>();
         try {
             // Create the root directory for entire content repository if does not
             // already exist.
@@ -95,12 +112,13 @@ public CreateResponse create(CreateRequest createRequest) throws StorageExceptio
                 throw new IOException("Error creating content file system root directory");
             }
 
-            createdItem = generateContentFile(item);
+            createdItem = generateContentFile(item, responseProperties);
         } catch (IOException e) {
             throw new StorageException(e);
         }
 
-        CreateResponse response = new CreateResponseImpl(createRequest, createdItem);
+        CreateResponse response = new CreateResponseImpl(createRequest, createdItem,
+                responseProperties);
 
         LOGGER.trace("EXITING: create");
 
@@ -140,15 +158,17 @@ public UpdateResponse update(UpdateRequest updateRequest) throws StorageExceptio
 
         ContentItem item = updateRequest.getContentItem();
         ContentItem updatedItem = null;
+        Map<String, String> responseProperties = new HashMap<String, String>();
         LOGGER.debug("Updating item with id = {}", item.getId());
 
         try {
-            updatedItem = updateContentFile(item);
+            updatedItem = updateContentFile(item, responseProperties);
         } catch (IOException e) {
             throw new StorageException(e);
         }
 
-        UpdateResponse response = new UpdateResponseImpl(updateRequest, updatedItem);
+        UpdateResponse response = new UpdateResponseImpl(updateRequest, updatedItem,
+                responseProperties);
 
         LOGGER.trace("EXITING: update");
 
@@ -185,6 +205,7 @@ public DeleteResponse delete(DeleteRequest deleteRequest) throws StorageExceptio
                     LOGGER.info("Unable to delete directory {} for id = {}",
                             dirToBeDeleted.getAbsolutePath(), id);
                 }
+                releaseContent(id);
                 deletedContentItem = new ContentFile(null, id,
                         itemToBeDeleted.getMimeTypeRawData());
                 String contentUri = CONTENT_URI_PREFIX + deletedContentItem.getId();
@@ -203,7 +224,8 @@ public DeleteResponse delete(DeleteRequest deleteRequest) throws StorageExceptio
         return response;
     }
 
-    private ContentItem generateContentFile(ContentItem item) throws IOException, StorageException {
+    private ContentItem generateContentFile(ContentItem item,
+            Map<String, String> responseProperties) throws IOException, StorageException {
         LOGGER.trace("ENTERING: generateContentFile");
 
         String mimeType = getMimeType(item.getMimeType());
@@ -219,7 +241,7 @@ private ContentItem generateContentFile(ContentItem item) throws IOException, St
         LOGGER.debug("fileId = {}", fileId);
 
         File createdFile = createFile(fileId);
-        FileUtils.copyInputStreamToFile(item.getInputStream(), createdFile);
+        storeContent(item, createdFile, responseProperties);
 
         ContentItem contentItem = new ContentFile(createdFile, item.getId(),
                 item.getMimeTypeRawData(), item.getFilename());
@@ -232,7 +254,8 @@ private ContentItem generateContentFile(ContentItem item) throws IOException, St
         return contentItem;
     }
 
-    private ContentItem updateContentFile(ContentItem item) throws IOException, StorageException {
+    private ContentItem updateContentFile(ContentItem item,
+            Map<String, String> responseProperties) throws IOException, StorageException {
         LOGGER.trace("ENTERING: updateContentFile");
 
         String fileId = item.getId();
@@ -241,7 +264,7 @@ private ContentItem updateContentFile(ContentItem item) throws IOException, Stor
         File fileToUpdate = getFileForContentId(fileId);
         ContentItem contentItem = null;
         if (fileToUpdate.exists()) {
-            FileUtils.copyInputStreamToFile(item.getInputStream(), fileToUpdate);
+            storeContent(item, fileToUpdate, responseProperties);
 
             contentItem = new ContentFile(fileToUpdate, item.getId(), item.getMimeTypeRawData());
             String contentUri = CONTENT_URI_PREFIX + contentItem.getId();
@@ -260,6 +283,65 @@ private ContentItem updateContentFile(ContentItem item) throws IOException, Stor
         return contentItem;
     }
 
+    /**
+     * Writes the content of the item to the file. The size, checksum and detected mime type of the
+     * content are computed in the same pass and added to the response properties, so content
+     * plugins do not have to read the stored content again to find them.
+     */
+    private void storeContent(ContentItem item, File file, Map<String, String> responseProperties)
+            throws IOException {
+        ContentTee tee;
+        try (InputStream in = item.getInputStream()) {
+            if (contentAddressed) {
+                ContentAddressedStore.StoreResult result = contentAddressedStore
+                        .store(item.getId(), in, file);
+                tee = result.getTee();
+                if (result.getDuplicateOf() != null) {
+                    responseProperties
+                            .put(Response.CONTENT_DUPLICATE_OF, result.getDuplicateOf());
+                }
+            } else {
+                tee = ContentTee.copy(in, file);
+            }
+        }
+
+        responseProperties.put(Response.CONTENT_SIZE, Long.toString(tee.getSize()));
+        responseProperties.put(Response.CONTENT_CHECKSUM, tee.getChecksum());
+
+        String detectedMimeType = detectMimeType(tee, file.getName());
+        if (StringUtils.isNotEmpty(detectedMimeType)) {
+            responseProperties.put(Response.CONTENT_DETECTED_MIME_TYPE, detectedMimeType);
+        }
+    }
+
+    /**
+     * Releases the blob of a deleted content item if it was stored content-addressed, even if
+     * content-addressed storage has since been turned off.
+     */
+    private void releaseContent(String id) {
+        try {
+            contentAddressedStore.release(id);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to release stored content for id = {}", id, e);
+        }
+    }
+
+    private String detectMimeType(ContentTee tee, String filename) {
+        if (mimeTypeMapper == null) {
+            return null;
+        }
+
+        String extension = FilenameUtils.getExtension(filename);
+        try {
+            String mimeType = mimeTypeMapper.guessMimeType(tee.getHead(), extension);
+            LOGGER.debug("Detected mime type {} for file {}", mimeType, filename);
+            return mimeType;
+        } catch (Exception e) {
+            LOGGER.debug("Could not detect mime type for file {}", filename, e);
+            return null;
+        }
+    }
+
     private File createFile(final String newFileID) throws IOException {
         LOGGER.trace("ENTERING: createFile");
 
@@ -375,10 +457,25 @@ public void setBaseContentDirectory(final String baseDirectory) {
         }
 
         this.baseContentDirectory = newBaseDir;
+        this.contentAddressedStore = new ContentAddressedStore(
+                new File(newBaseDir, BLOB_DIRECTORY));
 
         LOGGER.debug("Set base content directory to: {}", this.baseContentDirectory);
     }
 
+    public boolean isContentAddressed() {
+        return contentAddressed;
+    }
+
+    /**
+     * When enabled, content is stored once per distinct SHA-256 digest and content items with the
+     * same content share it.
+     */
+    public void setContentAddressed(boolean contentAddressed) {
+        LOGGER.debug("Setting content addressed storage to {}", contentAddressed);
+        this.contentAddressed = contentAddressed;
+    }
+
     private String getMimeType(MimeType mimeType) {
         LOGGER.trace("ENTERING: getMimeType");
 
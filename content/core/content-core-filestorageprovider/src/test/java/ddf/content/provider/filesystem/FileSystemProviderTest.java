@@ -17,6 +17,7 @@
 import static org.hamcrest.Matchers.endsWith;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -40,6 +41,7 @@
 import ddf.content.operation.DeleteResponse;
 import ddf.content.operation.ReadRequest;
 import ddf.content.operation.ReadResponse;
+import ddf.content.operation.Response;
 import ddf.content.operation.UpdateRequest;
 import ddf.content.operation.UpdateResponse;
 import ddf.content.operation.impl.CreateRequestImpl;
@@ -96,6 +98,64 @@ public void testCreateMimeTypeWithIdAndOtherParameter() throws Exception {
         assertContentItem(TEST_INPUT_CONTENTS, mimeType, ".xml");
     }
 
+    @Test
+    public void testCreateReportsSizeAndChecksum() throws Exception {
+        CreateResponse createResponse = storeContentItem(TEST_INPUT_CONTENTS, NITF_MIME_TYPE,
+                TEST_INPUT_FILENAME);
+
+        assertEquals(String.valueOf(TEST_INPUT_CONTENTS.length()),
+                createResponse.getResponsePropertyValue(Response.CONTENT_SIZE));
+        assertEquals("a591a6d40bf420404a011733cfb7b190d62c65bf0bcda32b57b277d9ad9f146e",
+                createResponse.getResponsePropertyValue(Response.CONTENT_CHECKSUM));
+    }
+
+    @Test
+    public void testContentAddressedCreateSharesContent() throws Exception {
+        provider.setContentAddressed(true);
+        String content = "Shared " + UUID.randomUUID();
+
+        CreateResponse first = storeContentItem(content, NITF_MIME_TYPE, TEST_INPUT_FILENAME);
+        CreateResponse second = storeContentItem(content, NITF_MIME_TYPE, TEST_INPUT_FILENAME);
+
+        String firstId = first.getCreatedContentItem().getId();
+        assertNull(first.getResponsePropertyValue(Response.CONTENT_DUPLICATE_OF));
+        assertEquals(firstId, second.getResponsePropertyValue(Response.CONTENT_DUPLICATE_OF));
+        assertEquals(content, IOUtils.toString(second.getCreatedContentItem().getInputStream()));
+
+        String checksum = first.getResponsePropertyValue(Response.CONTENT_CHECKSUM);
+        File blob = new File(BASE_DIR + File.separator + FileSystemProvider.BLOB_DIRECTORY
+                + File.separator + checksum.substring(0, 2), checksum);
+        assertTrue(blob.isFile());
+
+        provider.delete(new DeleteRequestImpl(first.getCreatedContentItem()));
+        assertTrue(blob.isFile());
+        assertEquals(content, IOUtils.toString(
+                provider.read(new ReadRequestImpl(second.getCreatedContentItem().getId(), null))
+                        .getContentItem().getInputStream()));
+
+        provider.delete(new DeleteRequestImpl(second.getCreatedContentItem()));
+        assertFalse(blob.exists());
+    }
+
+    @Test
+    public void testContentAddressedUpdateDoesNotChangeSharedContent() throws Exception {
+        provider.setContentAddressed(true);
+        String content = "Shared " + UUID.randomUUID();
+
+        CreateResponse first = storeContentItem(content, NITF_MIME_TYPE, TEST_INPUT_FILENAME);
+        CreateResponse second = storeContentItem(content, NITF_MIME_TYPE, TEST_INPUT_FILENAME);
+
+        String id = second.getCreatedContentItem().getId();
+        ContentItem updateItem = new IncomingContentItem(id, IOUtils.toInputStream("Updated NITF"),
+                NITF_MIME_TYPE);
+        provider.update(new UpdateRequestImpl(updateItem));
+
+        assertEquals(content,
+                IOUtils.toString(first.getCreatedContentItem().getInputStream()));
+        assertEquals("Updated NITF", IOUtils.toString(
+                provider.read(new ReadRequestImpl(id, null)).getContentItem().getInputStream()));
+    }
+
     @Test
     public void testRead() throws Exception {
         CreateResponse createResponse = storeContentItem(TEST_INPUT_CONTENTS, NITF_MIME_TYPE,
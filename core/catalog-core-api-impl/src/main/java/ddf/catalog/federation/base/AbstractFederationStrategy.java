@@ -39,6 +39,8 @@
 import ddf.catalog.plugin.PreFederatedQueryPlugin;
 import ddf.catalog.plugin.StopProcessingException;
 import ddf.catalog.source.Source;
+import ddf.catalog.util.impl.QueryOutcomeRecorder;
+import ddf.catalog.util.impl.Requests;
 
 /**
  * This class serves as a base implementation of the {@link FederationStrategy} interface. Other
@@ -70,6 +72,8 @@ public abstract class AbstractFederationStrategy implements FederationStrategy {
 
     private int maxStartIndex;
 
+    private volatile QueryOutcomeRecorder queryOutcomeRecorder;
+
     /**
      * Instantiates an {@code AbstractFederationStrategy} with the provided {@link ExecutorService}.
      *
@@ -127,17 +131,24 @@ public QueryResponse federate(List<Source> sources, final QueryRequest queryRequ
 
         int offset = originalQuery.getStartIndex();
         final int pageSize = originalQuery.getPageSize();
+        final boolean hitsOnly = Requests.isHitsOnly(queryRequest);
 
         // limit offset to max value
         if (offset > this.maxStartIndex) {
             offset = this.maxStartIndex;
         }
 
+        // only the hits of each source are needed, no results are paged through
+        if (hitsOnly) {
+            offset = 1;
+        }
+
         final QueryResponseImpl queryResponseQueue = new QueryResponseImpl(queryRequest, null);
 
         Map<Source, Future<SourceResponse>> futures = new HashMap<Source, Future<SourceResponse>>();
 
-        Query modifiedQuery = getModifiedQuery(originalQuery, sources.size(), offset, pageSize);
+        Query modifiedQuery = getModifiedQuery(originalQuery, sources.size(), offset, pageSize,
+                hitsOnly);
         QueryRequest modifiedQueryRequest = new QueryRequestImpl(modifiedQuery,
                 queryRequest.isEnterprise(), queryRequest.getSourceIds(),
                 queryRequest.getProperties());
@@ -216,12 +227,19 @@ public QueryResponse federate(List<Source> sources, final QueryRequest queryRequ
     }
 
     private Query getModifiedQuery(Query originalQuery, int numberOfSources, int offset,
-            int pageSize) {
+            int pageSize, boolean hitsOnly) {
 
         Query query = null;
 
-        // If offset is not specified, our offset is 1
-        if (offset > 1 && numberOfSources > 1) {
+        if (hitsOnly) {
+            /**
+             * Sources that cannot count without returning results return a single unsorted result,
+             * which is discarded.
+             */
+            query = new QueryImpl(originalQuery, 1, 1, null, true,
+                    originalQuery.getTimeoutMillis());
+        } else if (offset > 1 && numberOfSources > 1) {
+            // If offset is not specified, our offset is 1
 
             final int modifiedOffset = 1;
             int modifiedPageSize = computeModifiedPageSize(offset, pageSize);
@@ -276,6 +294,22 @@ public void setMaxStartIndex(int maxStartIndex) {
         }
     }
 
+    /**
+     * Sets the recorder of the outcome of each query of a source, so the availability of sources is
+     * updated as soon as their queries succeed, fail or time out.
+     */
+    public void setQueryOutcomeRecorder(QueryOutcomeRecorder queryOutcomeRecorder) {
+        this.queryOutcomeRecorder = queryOutcomeRecorder;
+    }
+
+    /**
+     * @return the recorder of the outcome of each query of a source, or {@code null} if there is
+     * none
+     */
+    protected QueryOutcomeRecorder getQueryOutcomeRecorder() {
+        return queryOutcomeRecorder;
+    }
+
     private class CallableSourceResponse implements Callable<SourceResponse> {
 
         private Query query = null;
@@ -294,7 +328,18 @@ public CallableSourceResponse(Source source, Query query,
         @Override
         public SourceResponse call() throws Exception {
             long startTime = System.currentTimeMillis();
-            SourceResponse sourceResponse = source.query(new QueryRequestImpl(query, properties));
+            SourceResponse sourceResponse;
+            try {
+                sourceResponse = source.query(new QueryRequestImpl(query, properties));
+            } catch (Exception e) {
+                if (queryOutcomeRecorder != null) {
+                    queryOutcomeRecorder.queryFailed(source, e);
+                }
+                throw e;
+            }
+            if (queryOutcomeRecorder != null) {
+                queryOutcomeRecorder.querySucceeded(source);
+            }
             long ellapsedTime = System.currentTimeMillis() - startTime;
             LOGGER.debug("The source {} responded to the query in {} milliseconds", source.getId(),
                     ellapsedTime);
@@ -22,7 +22,9 @@
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.LoggerFactory;
 import org.slf4j.ext.XLogger;
@@ -46,6 +48,30 @@ public class CachedSource implements Source {
 
     private static final String ORGANIZATION = "organization";
 
+    /**
+     * Interval between the checks of a source that just became unavailable, so it is soon known
+     * when it is available again.
+     */
+    static final long MINIMUM_INTERVAL = TimeUnit.SECONDS.toMillis(5);
+
+    /**
+     * Interval between the checks of a source that just became available. Checks of unavailable
+     * sources back off up to this interval.
+     */
+    static final long DEFAULT_INTERVAL = TimeUnit.SECONDS.toMillis(60);
+
+    /**
+     * Checks of sources that stay available back off up to this interval.
+     */
+    static final long MAXIMUM_INTERVAL = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * Number of consecutive timed out queries after which a source is considered unavailable.
+     */
+    static final int TIMEOUT_THRESHOLD = 3;
+
+    private static final double JITTER = 0.1;
+
     private static XLogger logger = new XLogger(LoggerFactory.getLogger(CachedSource.class));
 
     private Source source;
@@ -54,10 +80,34 @@ public class CachedSource implements Source {
 
     private Map<String, String> cachedAttributes;
 
-    private SourceStatus sourceStatus;
+    private volatile SourceStatus sourceStatus;
+
+    private final SourceStatusListener listener;
+
+    private final Clock clock;
+
+    private final Random random;
+
+    private long interval = DEFAULT_INTERVAL;
+
+    private long nextCheck = 0;
+
+    private int consecutiveTimeouts = 0;
 
     public CachedSource(Source source) {
+        this(source, null, Clock.SYSTEM, new Random());
+    }
+
+    /**
+     * @param listener notified of the changes of status of the source, may be {@code null}
+     * @param clock    tells the time checks are scheduled from
+     * @param random   spreads the checks of sources
+     */
+    CachedSource(Source source, SourceStatusListener listener, Clock clock, Random random) {
         this.source = source;
+        this.listener = listener;
+        this.clock = clock;
+        this.random = random;
         this.sourceStatus = SourceStatus.UNCHECKED;
         clearContentTypes();
         cachedAttributes = new HashMap<String, String>();
@@ -143,8 +193,115 @@ public SourceStatus getSourceStatus() {
         return sourceStatus;
     }
 
-    private void setSourceStatus(SourceStatus sourceStatus) {
-        this.sourceStatus = sourceStatus;
+    /**
+     * @return whether the availability of the source should be checked now. Sources that stay
+     * available are checked less and less often, and sources that are unavailable or whose
+     * queries fail are checked more often.
+     */
+    public synchronized boolean isCheckDue() {
+        return nextCheck <= clock.currentTimeMillis();
+    }
+
+    /**
+     * Records that a query of the source succeeded. An unavailable source becomes available, and is
+     * checked again soon to update its cached values.
+     */
+    public void querySucceeded() {
+        SourceStatus previous;
+        synchronized (this) {
+            previous = sourceStatus;
+            consecutiveTimeouts = 0;
+            if (previous == SourceStatus.UNAVAILABLE) {
+                sourceStatus = SourceStatus.AVAILABLE;
+                interval = DEFAULT_INTERVAL;
+                nextCheck = clock.currentTimeMillis();
+            }
+        }
+        notifyListener(previous);
+    }
+
+    /**
+     * Records that a query of the source failed. The source becomes unavailable until a check finds
+     * it available again.
+     */
+    public void queryFailed() {
+        SourceStatus previous;
+        synchronized (this) {
+            previous = sourceStatus;
+            consecutiveTimeouts = 0;
+            becomeUnavailable();
+        }
+        notifyListener(previous);
+    }
+
+    /**
+     * Records that a query of the source timed out. A few timeouts in a row make the source
+     * unavailable, and each one makes it checked soon.
+     */
+    public void queryTimedOut() {
+        SourceStatus previous;
+        synchronized (this) {
+            previous = sourceStatus;
+            consecutiveTimeouts++;
+            if (consecutiveTimeouts >= TIMEOUT_THRESHOLD) {
+                consecutiveTimeouts = 0;
+                becomeUnavailable();
+            } else {
+                nextCheck = Math.min(nextCheck,
+                        clock.currentTimeMillis() + jitter(MINIMUM_INTERVAL));
+            }
+        }
+        notifyListener(previous);
+    }
+
+    private void checked(boolean available) {
+        SourceStatus previous;
+        synchronized (this) {
+            previous = sourceStatus;
+            if (available) {
+                interval = previous == SourceStatus.AVAILABLE ?
+                        Math.min(interval * 2, MAXIMUM_INTERVAL) :
+                        DEFAULT_INTERVAL;
+                sourceStatus = SourceStatus.AVAILABLE;
+            } else {
+                interval = previous == SourceStatus.UNAVAILABLE ?
+                        Math.min(interval * 2, DEFAULT_INTERVAL) :
+                        MINIMUM_INTERVAL;
+                sourceStatus = SourceStatus.UNAVAILABLE;
+            }
+            consecutiveTimeouts = 0;
+            nextCheck = clock.currentTimeMillis() + jitter(interval);
+        }
+        notifyListener(previous);
+    }
+
+    private void becomeUnavailable() {
+        if (sourceStatus != SourceStatus.UNAVAILABLE) {
+            sourceStatus = SourceStatus.UNAVAILABLE;
+            clearContentTypes();
+            interval = MINIMUM_INTERVAL;
+        }
+        nextCheck = Math.min(nextCheck, clock.currentTimeMillis() + jitter(MINIMUM_INTERVAL));
+    }
+
+    /**
+     * @return the interval plus or minus up to 10%, so sources added together are not all checked
+     * at the same time
+     */
+    private long jitter(long base) {
+        return base + (long) (base * JITTER * (2 * random.nextDouble() - 1));
+    }
+
+    private void notifyListener(SourceStatus previous) {
+        SourceStatus current = sourceStatus;
+        if (listener != null && previous != current) {
+            logger.debug("Source [{}] changed from {} to {}.", source, previous, current);
+            try {
+                listener.statusChanged(source, previous, current);
+            } catch (RuntimeException e) {
+                logger.warn("Unable to notify of the status of source [{}].", source, e);
+            }
+        }
     }
 
     /**
@@ -165,19 +322,19 @@ public void checkStatus() {
                 setOrganization(source.getOrganization());
                 setDescription(source.getDescription());
                 setVersion(source.getVersion());
-                setSourceStatus(SourceStatus.AVAILABLE);
+                checked(true);
             } else {
                 logger.debug(
                         "Source [{}] with id [{}] is not available.  " + "Clearing cached values",
                         source, source.getId());
-                setSourceStatus(SourceStatus.UNAVAILABLE);
                 clearContentTypes();
+                checked(false);
             }
         } catch (Exception e) {
             logger.debug("Failed to check Source [{}] with id [{}]] availability.  "
                             + "Clearing cached values.", source, source.getId());
-            setSourceStatus(SourceStatus.UNAVAILABLE);
             clearContentTypes();
+            checked(false);
 
         }
     }
@@ -0,0 +1,32 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.util.impl;
+
+import ddf.catalog.source.Source;
+
+/**
+ * Records the outcome of each query of a {@link Source}, so its availability is known as soon as
+ * real queries succeed or fail instead of at its next availability check.
+ */
+public interface QueryOutcomeRecorder {
+
+    void querySucceeded(Source source);
+
+    /**
+     * @param cause why the query failed
+     */
+    void queryFailed(Source source, Throwable cause);
+
+    void queryTimedOut(Source source);
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.util.impl;
+
+import java.io.Serializable;
+
+import ddf.catalog.Constants;
+import ddf.catalog.operation.Operation;
+
+/**
+ * Utilities for reading the properties of catalog requests.
+ */
+public final class Requests {
+
+    private Requests() {
+    }
+
+    /**
+     * @return {@code true} if the request only asks for the number of matching metacards, as set
+     * by the {@link Constants#QUERY_HITS_ONLY} property
+     */
+    public static boolean isHitsOnly(Operation request) {
+        if (request == null) {
+            return false;
+        }
+        Serializable value = request.getPropertyValue(Constants.QUERY_HITS_ONLY);
+        return Boolean.TRUE.equals(value) || "true".equalsIgnoreCase(String.valueOf(value));
+    }
+}
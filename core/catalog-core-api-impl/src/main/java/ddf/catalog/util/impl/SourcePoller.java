@@ -14,8 +14,6 @@
 package ddf.catalog.util.impl;
 
 import java.util.Map;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
@@ -36,21 +34,22 @@
  */
 public class SourcePoller {
 
-    private static final int INTERVAL = 60;
-
-    private static final int INITIAL_DELAY = 0;
+    /**
+     * Seconds between the runs of the {@link SourcePollerRunner}, each checking the sources that
+     * are due for a check.
+     */
+    private static final int INTERVAL = 1;
 
     private static final XLogger LOGGER = new XLogger(LoggerFactory.getLogger(SourcePoller.class));
 
-    private ScheduledExecutorService scheduler;
-
     private ScheduledFuture<?> handle;
 
     private SourcePollerRunner runner;
 
     /**
      * Constructor to schedule the SourcePollerRunner to execute immediately and at a fixed
-     * interval, currently set at every 60 seconds. This constructor is invoked by the
+     * interval, currently set at every second, on the runner's scheduler. Each source is checked
+     * at its own interval, which adapts to its availability. This constructor is invoked by the
      * CatalogFramework's blueprint.
      *
      * @param incomingRunner
@@ -60,9 +59,7 @@ public SourcePoller(SourcePollerRunner incomingRunner) {
 
         this.runner = incomingRunner;
 
-        scheduler = Executors.newScheduledThreadPool(1);
-
-        handle = scheduler.scheduleAtFixedRate(runner, INITIAL_DELAY, INTERVAL, TimeUnit.SECONDS);
+        handle = runner.schedule(INTERVAL, TimeUnit.SECONDS);
 
     }
 
@@ -98,8 +95,6 @@ public void cancel(CatalogFramework framework, Map properties) {
 
         handle.cancel(true);
 
-        scheduler.shutdownNow();
-
     }
 
     /**
@@ -15,29 +15,42 @@
 
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.LoggerFactory;
 import org.slf4j.ext.XLogger;
 
 import ddf.catalog.source.Source;
+import ddf.catalog.source.UnsupportedQueryException;
 
 /**
  * The poller to check the availability of all configured sources. This class is instantiated by the
  * CatalogFramework's blueprint and is scheduled by the {@link SourcePoller} to execute at a fixed
- * rate, i.e., the polling interval.
+ * rate, checking the sources that are due for a check.
  *
  * This class maintains a list of all of the sources to be polled for their availability. Sources
  * are added to this list when they come online and when they are deleted. A cached map is
  * maintained of all the sources and their last availability states.
  *
+ * As a {@link QueryOutcomeRecorder}, the availability of sources is also updated from the outcome
+ * of their queries. The runs are scheduled on their own thread and the checks, which block on the
+ * sources, run on a separate fixed-size pool, so a slow source cannot delay the checks of the
+ * others. A source has at most one check in flight; it is not checked again until that one ends.
+ *
  */
-public class SourcePollerRunner implements Runnable {
+public class SourcePollerRunner implements Runnable, QueryOutcomeRecorder {
+
+    /** Number of threads checking the status of sources */
+    private static final int STATUS_THREADS = 8;
 
     private static final XLogger LOGGER = new XLogger(
             LoggerFactory.getLogger(SourcePollerRunner.class));
@@ -46,22 +59,51 @@ public class SourcePollerRunner implements Runnable {
 
     private Map<Source, CachedSource> cachedSources = new ConcurrentHashMap<Source, CachedSource>();
 
-    private ExecutorService pool;
+    private final ScheduledExecutorService scheduler;
+
+    private final ExecutorService statusExecutor;
 
-    private Map<Source, Lock> sourceStatusThreadLocks = new ConcurrentHashMap<Source, Lock>();
+    private final Clock clock;
+
+    private final Random random = new Random();
+
+    private volatile SourceStatusListener statusListener;
+
+    private final SourceStatusListener statusForwarder = new SourceStatusListener() {
+        @Override
+        public void statusChanged(Source source, SourceStatus previous, SourceStatus current) {
+            SourceStatusListener listener = statusListener;
+            if (listener != null) {
+                listener.statusChanged(source, previous, current);
+            }
+        }
+    };
+
+    private Map<Source, AtomicBoolean> checksInFlight =
+            new ConcurrentHashMap<Source, AtomicBoolean>();
 
     /**
      * Creates an empty list of {@link Source} sources to be polled for availability. This
      * constructor is invoked by the CatalogFramework's blueprint.
      */
     public SourcePollerRunner() {
+        this(Executors.newSingleThreadScheduledExecutor(),
+                Executors.newFixedThreadPool(STATUS_THREADS), Clock.SYSTEM);
+    }
+
+    SourcePollerRunner(ScheduledExecutorService scheduler, ExecutorService statusExecutor,
+            Clock clock) {
 
         LOGGER.info("Creating source poller runner.");
         sources = new CopyOnWriteArrayList<Source>();
+        this.scheduler = scheduler;
+        this.statusExecutor = statusExecutor;
+        this.clock = clock;
     }
 
     /**
-     * Checks the availability of each source in the list of sources to be polled.
+     * Checks the availability of each source in the list of sources to be polled that is due for a
+     * check.
      */
     @Override
     public void run() {
@@ -72,7 +114,10 @@ public void run() {
 
             if (source != null) {
 
-                checkStatus(source);
+                CachedSource cachedSource = cachedSources.get(source);
+                if (cachedSource != null && cachedSource.isCheckDue()) {
+                    checkStatus(source);
+                }
 
             }
 
@@ -80,48 +125,90 @@ public void run() {
 
     }
 
+    /**
+     * Sets the listener notified when the status of a source changes.
+     */
+    public void setStatusListener(SourceStatusListener statusListener) {
+        this.statusListener = statusListener;
+    }
+
+    @Override
+    public void querySucceeded(Source source) {
+        CachedSource cachedSource = getCachedSource(source);
+        if (cachedSource != null) {
+            cachedSource.querySucceeded();
+        }
+    }
+
+    @Override
+    public void queryFailed(Source source, Throwable cause) {
+        CachedSource cachedSource = getCachedSource(source);
+        if (cachedSource != null) {
+            if (cause instanceof UnsupportedQueryException) {
+                // the source answered, it only could not run this query
+                cachedSource.querySucceeded();
+            } else {
+                LOGGER.debug("Query of source [{}] failed.", source, cause);
+                cachedSource.queryFailed();
+            }
+        }
+    }
+
+    @Override
+    public void queryTimedOut(Source source) {
+        CachedSource cachedSource = getCachedSource(source);
+        if (cachedSource != null) {
+            cachedSource.queryTimedOut();
+        }
+    }
+
+    /**
+     * Schedules this runner on its scheduler.
+     *
+     * @param period time between the runs, which should be short compared to the intervals between
+     *               the checks of sources
+     */
+    ScheduledFuture<?> schedule(long period, TimeUnit unit) {
+        return scheduler.scheduleWithFixedDelay(this, 0, period, unit);
+    }
+
     /**
      * Checks if the specified source is available, updating the internally maintained map of
-     * sources and their status. Lock ensures only one status thread is running per source.
+     * sources and their status. A check is not submitted while the previous check of the same
+     * source is still queued or running, so a slow source holds at most one status thread.
      *
      * @param source
      *            the source to check if it is available
      */
     private void checkStatus(final Source source) {
-
-        if (pool == null) {
-            pool = Executors.newCachedThreadPool();
-
+        final AtomicBoolean inFlight = checksInFlight.get(source);
+        if (inFlight == null || !inFlight.compareAndSet(false, true)) {
+            LOGGER.debug("A status check is already in flight for Source [{}] with id [{}]",
+                    source, source.getId());
+            return;
         }
+
         final Runnable statusRunner = new Runnable() {
 
             public void run() {
-
-                final CachedSource cachedSource = cachedSources.get(source);
-                if (cachedSource != null) {
-                    Lock sourceStatusThreadLock = sourceStatusThreadLocks.get(source);
-
-                    if (sourceStatusThreadLock.tryLock()) {
-                        LOGGER.debug("Acquired lock for Source [{}] with id [{}]", source,
-                                source.getId());
-
-                        try {
-                            cachedSource.checkStatus();
-                        } finally {
-                            // release the lock acquired initially
-                            sourceStatusThreadLock.unlock();
-                            LOGGER.debug("Released lock for Source [{}] with id [{}]", source,
-                                    source.getId());
-                        }
-                    } else {
-                        LOGGER.debug("Unable to get lock for Source [{}] with id [{}]."
-                                        + "  A status thread is already running.", source,
-                                source.getId());
+                try {
+                    CachedSource cachedSource = cachedSources.get(source);
+                    if (cachedSource != null) {
+                        cachedSource.checkStatus();
                     }
+                } finally {
+                    inFlight.set(false);
                 }
             }
         };
-        pool.execute(statusRunner);
+
+        try {
+            statusExecutor.execute(statusRunner);
+        } catch (RejectedExecutionException e) {
+            inFlight.set(false);
+            LOGGER.debug("Unable to check status of Source [{}] with id [{}]", source,
+                    source.getId(), e);
+        }
     }
 
     /**
@@ -137,8 +224,9 @@ public void bind(Source source) {
         if (source != null) {
             LOGGER.debug("Marking new source {} as UNCHECKED.", source);
             sources.add(source);
-            sourceStatusThreadLocks.put(source, new ReentrantLock());
-            cachedSources.put(source, new CachedSource(source));
+            checksInFlight.put(source, new AtomicBoolean());
+            cachedSources.put(source,
+                    new CachedSource(source, statusForwarder, clock, random));
             checkStatus(source);
 
         }
@@ -156,7 +244,7 @@ public void unbind(Source source) {
         if (source != null) {
             cachedSources.remove(source);
             sources.remove(source);
-            sourceStatusThreadLocks.remove(source);
+            checksInFlight.remove(source);
         }
     }
 
@@ -180,9 +268,8 @@ public CachedSource getCachedSource(Source source) {
      */
     public void shutdown() {
         LOGGER.trace("Shutting down status threads");
-        if (pool != null) {
-            pool.shutdownNow();
-        }
+        scheduler.shutdownNow();
+        statusExecutor.shutdownNow();
         LOGGER.trace("Status threads shut down");
     }
 }
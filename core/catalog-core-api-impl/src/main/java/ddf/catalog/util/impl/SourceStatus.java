@@ -18,7 +18,6 @@
  * Provider, Federated Source, or Connected Source) can be in
  *
  */
-
-enum SourceStatus {
+public enum SourceStatus {
     UNCHECKED, AVAILABLE, UNAVAILABLE
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.util.impl;
+
+import ddf.catalog.source.Source;
+
+/**
+ * Notified when the known {@link SourceStatus} of a {@link Source} changes, either because its
+ * availability was checked or because a query of it succeeded or failed.
+ */
+public interface SourceStatusListener {
+
+    /**
+     * @param source   the source whose status changed
+     * @param previous the status it had
+     * @param current  the status it has now
+     */
+    void statusChanged(Source source, SourceStatus previous, SourceStatus current);
+}
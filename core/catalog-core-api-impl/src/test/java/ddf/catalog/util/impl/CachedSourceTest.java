@@ -0,0 +1,199 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.util.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ddf.catalog.source.Source;
+
+public class CachedSourceTest {
+
+    private final FakeClock clock = new FakeClock();
+
+    private final Source source = mock(Source.class);
+
+    private final SourceStatusListener listener = mock(SourceStatusListener.class);
+
+    private CachedSource cachedSource;
+
+    @Before
+    public void setUp() {
+        cachedSource = new CachedSource(source, listener, clock, new Random(0));
+    }
+
+    @Test
+    public void uncheckedSourceIsDueForCheck() {
+        assertEquals(SourceStatus.UNCHECKED, cachedSource.getSourceStatus());
+        assertTrue(cachedSource.isCheckDue());
+    }
+
+    @Test
+    public void healthySourceIsCheckedLessOften() {
+        when(source.isAvailable()).thenReturn(true);
+
+        cachedSource.checkStatus();
+        assertEquals(SourceStatus.AVAILABLE, cachedSource.getSourceStatus());
+        verify(listener).statusChanged(source, SourceStatus.UNCHECKED, SourceStatus.AVAILABLE);
+        assertNextCheckAround(CachedSource.DEFAULT_INTERVAL);
+
+        cachedSource.checkStatus();
+        assertNextCheckAround(2 * CachedSource.DEFAULT_INTERVAL);
+
+        for (int i = 0; i < 10; i++) {
+            cachedSource.checkStatus();
+        }
+        assertNextCheckAround(CachedSource.MAXIMUM_INTERVAL);
+    }
+
+    @Test
+    public void failingSourceIsCheckedMoreOften() {
+        when(source.isAvailable()).thenReturn(true);
+        cachedSource.checkStatus();
+        cachedSource.checkStatus();
+
+        when(source.isAvailable()).thenReturn(false);
+        cachedSource.checkStatus();
+        assertEquals(SourceStatus.UNAVAILABLE, cachedSource.getSourceStatus());
+        verify(listener).statusChanged(source, SourceStatus.AVAILABLE, SourceStatus.UNAVAILABLE);
+        assertNextCheckAround(CachedSource.MINIMUM_INTERVAL);
+
+        cachedSource.checkStatus();
+        assertNextCheckAround(2 * CachedSource.MINIMUM_INTERVAL);
+
+        for (int i = 0; i < 10; i++) {
+            cachedSource.checkStatus();
+        }
+        assertNextCheckAround(CachedSource.DEFAULT_INTERVAL);
+    }
+
+    @Test
+    public void failedQueryMakesSourceUnavailable() {
+        when(source.isAvailable()).thenReturn(true);
+        cachedSource.checkStatus();
+
+        cachedSource.queryFailed();
+
+        assertFalse(cachedSource.isAvailable());
+        assertTrue(cachedSource.getContentTypes().isEmpty());
+        verify(listener).statusChanged(source, SourceStatus.AVAILABLE, SourceStatus.UNAVAILABLE);
+        assertNextCheckAround(CachedSource.MINIMUM_INTERVAL);
+    }
+
+    @Test
+    public void successfulQueryMakesSourceAvailableAndRefreshesIt() {
+        cachedSource.checkStatus();
+        assertEquals(SourceStatus.UNAVAILABLE, cachedSource.getSourceStatus());
+        clock.advance(CachedSource.MINIMUM_INTERVAL / 2);
+        assertFalse(cachedSource.isCheckDue());
+
+        cachedSource.querySucceeded();
+
+        assertTrue(cachedSource.isAvailable());
+        assertTrue(cachedSource.isCheckDue());
+        verify(listener).statusChanged(source, SourceStatus.UNAVAILABLE, SourceStatus.AVAILABLE);
+    }
+
+    @Test
+    public void successfulQueryOfAvailableSourceChangesNothing() {
+        when(source.isAvailable()).thenReturn(true);
+        cachedSource.checkStatus();
+
+        cachedSource.querySucceeded();
+
+        assertFalse(cachedSource.isCheckDue());
+        verify(listener).statusChanged(source, SourceStatus.UNCHECKED, SourceStatus.AVAILABLE);
+        verifyNoMoreInteractions(listener);
+    }
+
+    @Test
+    public void repeatedTimeoutsMakeSourceUnavailable() {
+        when(source.isAvailable()).thenReturn(true);
+        cachedSource.checkStatus();
+
+        for (int i = 1; i < CachedSource.TIMEOUT_THRESHOLD; i++) {
+            cachedSource.queryTimedOut();
+            assertTrue(cachedSource.isAvailable());
+        }
+        // each timeout brings the next check closer
+        assertNextCheckAround(CachedSource.MINIMUM_INTERVAL);
+
+        cachedSource.queryTimedOut();
+        assertFalse(cachedSource.isAvailable());
+    }
+
+    @Test
+    public void successfulQueryResetsTimeouts() {
+        when(source.isAvailable()).thenReturn(true);
+        cachedSource.checkStatus();
+
+        for (int i = 1; i < CachedSource.TIMEOUT_THRESHOLD; i++) {
+            cachedSource.queryTimedOut();
+        }
+        cachedSource.querySucceeded();
+        cachedSource.queryTimedOut();
+
+        assertTrue(cachedSource.isAvailable());
+    }
+
+    @Test
+    public void failedCheckMakesSourceUnavailable() {
+        when(source.isAvailable()).thenThrow(new RuntimeException("unreachable"));
+
+        cachedSource.checkStatus();
+
+        assertEquals(SourceStatus.UNAVAILABLE, cachedSource.getSourceStatus());
+        verify(listener).statusChanged(source, SourceStatus.UNCHECKED, SourceStatus.UNAVAILABLE);
+    }
+
+    /**
+     * Asserts the next check is due after the given interval, give or take its jitter.
+     */
+    private void assertNextCheckAround(long interval) {
+        long start = clock.currentTimeMillis();
+        clock.set(start + (long) (interval * 0.9) - 1);
+        assertFalse(cachedSource.isCheckDue());
+        clock.set(start + (long) (interval * 1.1) + 1);
+        assertTrue(cachedSource.isCheckDue());
+        clock.set(start);
+    }
+
+    static class FakeClock implements Clock {
+
+        private long now = 1000000;
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+
+        void set(long now) {
+            this.now = now;
+        }
+
+        void advance(long millis) {
+            now += millis;
+        }
+    }
+}
@@ -14,6 +14,8 @@
 package ddf.catalog.util.impl;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -22,12 +24,17 @@
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import ddf.catalog.data.ContentType;
 import ddf.catalog.data.impl.ContentTypeImpl;
 import ddf.catalog.source.Source;
+import ddf.catalog.source.UnsupportedQueryException;
 
 public class SourcePollerRunnerTest {
 
@@ -125,4 +132,108 @@ public void testDoesntUpdateUnexpiredCachedValuesOnUnAvailableSource() {
         verify(source, never()).getDescription();
     }
 
+    @Test
+    public void testChecksOnlySourcesDueForCheck() {
+        CachedSourceTest.FakeClock clock = new CachedSourceTest.FakeClock();
+        SourcePollerRunner runner = new SourcePollerRunner(
+                mock(ScheduledExecutorService.class), inlineExecutor(), clock);
+        Source source = createDefaultFederatedSource(true, createContentTypes());
+        runner.bind(source);
+
+        runner.run();
+        verify(source, times(1)).isAvailable();
+
+        clock.advance(CachedSource.DEFAULT_INTERVAL * 2);
+        runner.run();
+        verify(source, times(2)).isAvailable();
+    }
+
+    @Test
+    public void testFailedQueryMakesSourceUnavailable() {
+        SourcePollerRunner runner = new SourcePollerRunner(
+                mock(ScheduledExecutorService.class), inlineExecutor(),
+                new CachedSourceTest.FakeClock());
+        SourceStatusListener listener = mock(SourceStatusListener.class);
+        runner.setStatusListener(listener);
+        Source source = createDefaultFederatedSource(true, createContentTypes());
+        runner.bind(source);
+
+        runner.queryFailed(source, new RuntimeException("connection refused"));
+
+        assertEquals(SourceStatus.UNAVAILABLE, runner.getCachedSource(source).getSourceStatus());
+        verify(listener).statusChanged(source, SourceStatus.UNCHECKED, SourceStatus.AVAILABLE);
+        verify(listener).statusChanged(source, SourceStatus.AVAILABLE, SourceStatus.UNAVAILABLE);
+    }
+
+    @Test
+    public void testUnsupportedQueryKeepsSourceAvailable() {
+        SourcePollerRunner runner = new SourcePollerRunner(
+                mock(ScheduledExecutorService.class), inlineExecutor(),
+                new CachedSourceTest.FakeClock());
+        Source source = createDefaultFederatedSource(true, createContentTypes());
+        runner.bind(source);
+
+        runner.queryFailed(source, new UnsupportedQueryException("unsupported"));
+
+        assertEquals(SourceStatus.AVAILABLE, runner.getCachedSource(source).getSourceStatus());
+    }
+
+    @Test
+    public void testSuccessfulQueryMakesSourceAvailable() {
+        SourcePollerRunner runner = new SourcePollerRunner(
+                mock(ScheduledExecutorService.class), inlineExecutor(),
+                new CachedSourceTest.FakeClock());
+        Source source = createDefaultFederatedSource(false, createContentTypes());
+        runner.bind(source);
+
+        runner.querySucceeded(source);
+
+        assertEquals(SourceStatus.AVAILABLE, runner.getCachedSource(source).getSourceStatus());
+    }
+
+    @Test
+    public void testChecksDoNotRunOnScheduler() {
+        ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+        SourcePollerRunner runner = new SourcePollerRunner(scheduler, inlineExecutor(),
+                new CachedSourceTest.FakeClock());
+        Source source = createDefaultFederatedSource(true, createContentTypes());
+        runner.bind(source);
+
+        runner.run();
+
+        verify(source, times(1)).isAvailable();
+        verify(scheduler, never()).execute(any(Runnable.class));
+    }
+
+    @Test
+    public void testCheckInFlightIsNotSubmittedAgain() {
+        CachedSourceTest.FakeClock clock = new CachedSourceTest.FakeClock();
+        ExecutorService statusExecutor = mock(ExecutorService.class);
+        SourcePollerRunner runner = new SourcePollerRunner(
+                mock(ScheduledExecutorService.class), statusExecutor, clock);
+        Source source = createDefaultFederatedSource(true, createContentTypes());
+        runner.bind(source);
+
+        clock.advance(CachedSource.DEFAULT_INTERVAL * 2);
+        runner.run();
+
+        // the check submitted on bind never ran
+        verify(statusExecutor, times(1)).execute(any(Runnable.class));
+        verify(source, never()).isAvailable();
+    }
+
+    /**
+     * @return an executor running the tasks it is given right away, on the calling thread
+     */
+    private ExecutorService inlineExecutor() {
+        ExecutorService executor = mock(ExecutorService.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                ((Runnable) invocation.getArguments()[0]).run();
+                return null;
+            }
+        }).when(executor).execute(any(Runnable.class));
+        return executor;
+    }
 }
@@ -137,4 +137,11 @@ public final class Constants {
 
     public static final String INGEST_LOGGER_NAME = "ingestLogger";
 
+    /**
+     * Property of a {@link ddf.catalog.operation.QueryRequest} requesting only the number of
+     * metacards matching the query. A value of {@code true} lets sources count the matches without
+     * returning any result, and sources that cannot count may return a single page as usual.
+     */
+    public static final String QUERY_HITS_ONLY = "hits-only";
+
 }
\ No newline at end of file
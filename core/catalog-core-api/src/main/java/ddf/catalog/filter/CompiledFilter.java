@@ -0,0 +1,31 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.filter;
+
+import ddf.catalog.data.Metacard;
+
+/**
+ * A {@link org.opengis.filter.Filter} compiled by a {@link FilterCompiler}. A compiled filter is
+ * immutable and may be evaluated by several threads at once.
+ */
+public interface CompiledFilter {
+
+    /**
+     * @param metacard
+     *            metacard to evaluate the filter against
+     * @return {@code true} if the metacard matches the filter
+     */
+    boolean matches(Metacard metacard);
+
+}
@@ -0,0 +1,43 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.filter;
+
+import org.opengis.filter.Filter;
+
+import ddf.catalog.source.UnsupportedQueryException;
+
+/**
+ * Compiles a {@link Filter} once into a {@link CompiledFilter} that evaluates it against
+ * {@link ddf.catalog.data.Metacard}s in memory, e.g. to match metacards against subscriptions or
+ * to post-filter results from sources that ignore parts of a filter.
+ * <p>
+ * Implementations should match the metacards the catalog provider would return for the same
+ * filter. A reference implementation is provided with the DDF Core in the Filter Proxy bundle.
+ *
+ * @see CompiledFilter
+ */
+public interface FilterCompiler {
+
+    /**
+     * Compiles a filter.
+     *
+     * @param filter
+     *            OGC Filter to compile
+     * @return a {@link CompiledFilter} evaluating the given filter
+     * @throws UnsupportedQueryException
+     *             if the filter contains operations that cannot be evaluated in memory
+     */
+    CompiledFilter compile(Filter filter) throws UnsupportedQueryException;
+
+}
@@ -0,0 +1,427 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.filter;
+
+import java.io.Serializable;
+import java.util.Map;
+
+import org.opengis.filter.And;
+import org.opengis.filter.BinaryLogicOperator;
+import org.opengis.filter.ExcludeFilter;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterVisitor;
+import org.opengis.filter.Id;
+import org.opengis.filter.IncludeFilter;
+import org.opengis.filter.Not;
+import org.opengis.filter.Or;
+import org.opengis.filter.PropertyIsBetween;
+import org.opengis.filter.PropertyIsEqualTo;
+import org.opengis.filter.PropertyIsGreaterThan;
+import org.opengis.filter.PropertyIsGreaterThanOrEqualTo;
+import org.opengis.filter.PropertyIsLessThan;
+import org.opengis.filter.PropertyIsLessThanOrEqualTo;
+import org.opengis.filter.PropertyIsLike;
+import org.opengis.filter.PropertyIsNil;
+import org.opengis.filter.PropertyIsNotEqualTo;
+import org.opengis.filter.PropertyIsNull;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.Function;
+import org.opengis.filter.expression.PropertyName;
+import org.opengis.filter.spatial.BBOX;
+import org.opengis.filter.spatial.Beyond;
+import org.opengis.filter.spatial.Contains;
+import org.opengis.filter.spatial.Crosses;
+import org.opengis.filter.spatial.DWithin;
+import org.opengis.filter.spatial.Disjoint;
+import org.opengis.filter.spatial.Equals;
+import org.opengis.filter.spatial.Intersects;
+import org.opengis.filter.spatial.Overlaps;
+import org.opengis.filter.spatial.Touches;
+import org.opengis.filter.spatial.Within;
+import org.opengis.filter.temporal.After;
+import org.opengis.filter.temporal.AnyInteracts;
+import org.opengis.filter.temporal.Before;
+import org.opengis.filter.temporal.Begins;
+import org.opengis.filter.temporal.BegunBy;
+import org.opengis.filter.temporal.During;
+import org.opengis.filter.temporal.EndedBy;
+import org.opengis.filter.temporal.Ends;
+import org.opengis.filter.temporal.Meets;
+import org.opengis.filter.temporal.MetBy;
+import org.opengis.filter.temporal.OverlappedBy;
+import org.opengis.filter.temporal.TContains;
+import org.opengis.filter.temporal.TEquals;
+import org.opengis.filter.temporal.TOverlaps;
+
+import ddf.catalog.operation.Query;
+import ddf.catalog.operation.QueryRequest;
+
+/**
+ * Classifies the kinds of criteria a {@link Filter} uses, such as spatial or temporal criteria,
+ * into a bit mask. Classifying a filter visits each of its criteria once at most, without
+ * converting literals, and stops as soon as every kind has been found.
+ * <p/>
+ * The mask of a query is stored in its request under {@link #PROPERTY}, so plugins that need it
+ * classify each query only once. The stored mask is tied to the query it was classified from, so a
+ * plugin replacing the query of a request that shares its properties gets the new query
+ * classified.
+ */
+public final class QueryTypes {
+
+    /**
+     * Property of a {@link QueryRequest} holding the kinds of criteria of its query, as classified
+     * by {@link #of(QueryRequest)}.
+     */
+    public static final String PROPERTY = "query-types";
+
+    /** Comparisons of a property with literals, including fuzzy comparisons. */
+    public static final int COMPARISON = 1;
+
+    public static final int SPATIAL = 1 << 1;
+
+    public static final int TEMPORAL = 1 << 2;
+
+    public static final int XPATH = 1 << 3;
+
+    public static final int FUZZY = 1 << 4;
+
+    public static final int ALL = COMPARISON | SPATIAL | TEMPORAL | XPATH | FUZZY;
+
+    private static final String FUZZY_FUNCTION = "fuzzy";
+
+    private QueryTypes() {
+    }
+
+    /**
+     * @return the mask of the kinds of criteria of the query of a request, classifying it and
+     * storing the mask in the request the first time, or when the query was replaced
+     */
+    public static int of(QueryRequest request) {
+        Query query = request.getQuery();
+        Map<String, Serializable> properties = request.getProperties();
+        Serializable types = properties == null ? null : properties.get(PROPERTY);
+        if (types instanceof Classification && ((Classification) types).isOf(query)) {
+            return ((Classification) types).mask;
+        }
+
+        int mask = classify(query);
+        if (properties != null) {
+            try {
+                properties.put(PROPERTY, new Classification(query, mask));
+            } catch (UnsupportedOperationException e) {
+                // the request cannot share the mask, which is classified again when needed
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * @return the mask of the kinds of criteria of a filter, or {@code 0} if it has none
+     */
+    public static int classify(Filter filter) {
+        if (filter == null) {
+            return 0;
+        }
+        Classifier classifier = new Classifier();
+        filter.accept(classifier, null);
+        return classifier.types;
+    }
+
+    /**
+     * @return whether a mask includes every kind of the given kinds
+     */
+    public static boolean includes(int mask, int kinds) {
+        return (mask & kinds) == kinds;
+    }
+
+    /**
+     * The mask of the query it was classified from.
+     */
+    private static final class Classification implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        // a deserialized copy is not tied to any query and is classified again
+        private final transient Query query;
+
+        private final int mask;
+
+        Classification(Query query, int mask) {
+            this.query = query;
+            this.mask = mask;
+        }
+
+        boolean isOf(Query query) {
+            return this.query != null && this.query == query;
+        }
+
+        @Override
+        public String toString() {
+            return Integer.toString(mask);
+        }
+    }
+
+    private static class Classifier implements FilterVisitor {
+
+        private int types;
+
+        private Object found(int kind) {
+            types |= kind;
+            return null;
+        }
+
+        private Object visitChildren(BinaryLogicOperator filter) {
+            for (Filter child : filter.getChildren()) {
+                if (types == ALL) {
+                    break;
+                }
+                if (child != null) {
+                    child.accept(this, null);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public Object visitNullFilter(Object data) {
+            return null;
+        }
+
+        @Override
+        public Object visit(ExcludeFilter filter, Object data) {
+            return null;
+        }
+
+        @Override
+        public Object visit(IncludeFilter filter, Object data) {
+            return null;
+        }
+
+        @Override
+        public Object visit(And filter, Object data) {
+            return visitChildren(filter);
+        }
+
+        @Override
+        public Object visit(Or filter, Object data) {
+            return visitChildren(filter);
+        }
+
+        @Override
+        public Object visit(Not filter, Object data) {
+            if (filter.getFilter() != null) {
+                filter.getFilter().accept(this, null);
+            }
+            return null;
+        }
+
+        @Override
+        public Object visit(Id filter, Object data) {
+            return null;
+        }
+
+        @Override
+        public Object visit(PropertyIsBetween filter, Object data) {
+            return found(COMPARISON);
+        }
+
+        @Override
+        public Object visit(PropertyIsEqualTo filter, Object data) {
+            return found(COMPARISON);
+        }
+
+        @Override
+        public Object visit(PropertyIsNotEqualTo filter, Object data) {
+            return found(COMPARISON);
+        }
+
+        @Override
+        public Object visit(PropertyIsGreaterThan filter, Object data) {
+            return found(COMPARISON);
+        }
+
+        @Override
+        public Object visit(PropertyIsGreaterThanOrEqualTo filter, Object data) {
+            return found(COMPARISON);
+        }
+
+        @Override
+        public Object visit(PropertyIsLessThan filter, Object data) {
+            return found(COMPARISON);
+        }
+
+        @Override
+        public Object visit(PropertyIsLessThanOrEqualTo filter, Object data) {
+            return found(COMPARISON);
+        }
+
+        @Override
+        public Object visit(PropertyIsNull filter, Object data) {
+            return found(COMPARISON);
+        }
+
+        @Override
+        public Object visit(PropertyIsNil filter, Object data) {
+            return null;
+        }
+
+        @Override
+        public Object visit(PropertyIsLike filter, Object data) {
+            // the same distinctions as the FilterAdapter makes between like, fuzzy and xpath
+            Expression expression = filter.getExpression();
+            boolean fuzzy = false;
+            if (expression instanceof Function
+                    && FUZZY_FUNCTION.equals(((Function) expression).getName())
+                    && !((Function) expression).getParameters().isEmpty()) {
+                expression = ((Function) expression).getParameters().get(0);
+                fuzzy = true;
+            }
+            if (!(expression instanceof PropertyName)
+                    || ((PropertyName) expression).getPropertyName() == null) {
+                return null;
+            }
+
+            String propertyName = ((PropertyName) expression).getPropertyName();
+            if (propertyName.indexOf('/') != -1 || propertyName.indexOf('@') != -1) {
+                return found(XPATH);
+            }
+            return found(fuzzy ? COMPARISON | FUZZY : COMPARISON);
+        }
+
+        @Override
+        public Object visit(BBOX filter, Object data) {
+            return null;
+        }
+
+        @Override
+        public Object visit(Beyond filter, Object data) {
+            return found(SPATIAL);
+        }
+
+        @Override
+        public Object visit(Contains filter, Object data) {
+            return found(SPATIAL);
+        }
+
+        @Override
+        public Object visit(Crosses filter, Object data) {
+            return found(SPATIAL);
+        }
+
+        @Override
+        public Object visit(Disjoint filter, Object data) {
+            return found(SPATIAL);
+        }
+
+        @Override
+        public Object visit(DWithin filter, Object data) {
+            return found(SPATIAL);
+        }
+
+        @Override
+        public Object visit(Equals filter, Object data) {
+            return null;
+        }
+
+        @Override
+        public Object visit(Intersects filter, Object data) {
+            return found(SPATIAL);
+        }
+
+        @Override
+        public Object visit(Overlaps filter, Object data) {
+            return found(SPATIAL);
+        }
+
+        @Override
+        public Object visit(Touches filter, Object data) {
+            return found(SPATIAL);
+        }
+
+        @Override
+        public Object visit(Within filter, Object data) {
+            return found(SPATIAL);
+        }
+
+        @Override
+        public Object visit(After after, Object data) {
+            return found(TEMPORAL);
+        }
+
+        @Override
+        public Object visit(Before before, Object data) {
+            return found(TEMPORAL);
+        }
+
+        @Override
+        public Object visit(During during, Object data) {
+            return found(TEMPORAL);
+        }
+
+        @Override
+        public Object visit(AnyInteracts anyInteracts, Object data) {
+            return null;
+        }
+
+        @Override
+        public Object visit(Begins begins, Object data) {
+            return null;
+        }
+
+        @Override
+        public Object visit(BegunBy begunBy, Object data) {
+            return null;
+        }
+
+        @Override
+        public Object visit(EndedBy endedBy, Object data) {
+            return null;
+        }
+
+        @Override
+        public Object visit(Ends ends, Object data) {
+            return null;
+        }
+
+        @Override
+        public Object visit(Meets meets, Object data) {
+            return null;
+        }
+
+        @Override
+        public Object visit(MetBy metBy, Object data) {
+            return null;
+        }
+
+        @Override
+        public Object visit(OverlappedBy overlappedBy, Object data) {
+            return null;
+        }
+
+        @Override
+        public Object visit(TContains contains, Object data) {
+            return null;
+        }
+
+        @Override
+        public Object visit(TEquals equals, Object data) {
+            return null;
+        }
+
+        @Override
+        public Object visit(TOverlaps contains, Object data) {
+            return null;
+        }
+    }
+}
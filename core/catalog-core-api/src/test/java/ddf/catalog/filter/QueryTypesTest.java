@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.geotools.filter.FilterFactoryImpl;
+import org.geotools.filter.FunctionExpressionImpl;
+import org.junit.Test;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory2;
+import org.opengis.filter.FilterVisitor;
+import org.opengis.filter.expression.Expression;
+
+import ddf.catalog.operation.QueryImpl;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.QueryRequestImpl;
+
+@SuppressWarnings("deprecation")
+public class QueryTypesTest {
+
+    private final FilterFactory2 filterFactory = new FilterFactoryImpl();
+
+    @Test
+    public void classifiesEachKind() {
+        assertEquals(QueryTypes.COMPARISON, QueryTypes.classify(title()));
+        assertEquals(QueryTypes.SPATIAL, QueryTypes.classify(spatial()));
+        assertEquals(QueryTypes.TEMPORAL, QueryTypes.classify(temporal()));
+        assertEquals(QueryTypes.XPATH, QueryTypes.classify(
+                filterFactory.like(filterFactory.property("//node"), "*")));
+    }
+
+    @Test
+    public void classifiesNestedFilters() {
+        Filter filter = filterFactory.and(title(), filterFactory.or(
+                filterFactory.not(spatial()), filterFactory.and(title(), temporal())));
+
+        assertEquals(QueryTypes.COMPARISON | QueryTypes.SPATIAL | QueryTypes.TEMPORAL,
+                QueryTypes.classify(filter));
+    }
+
+    @Test
+    public void stopsOnceEveryKindIsFound() {
+        CountingFilter counting = new CountingFilter();
+        List<Filter> children = new ArrayList<>();
+        children.add(filterFactory.like(filterFactory.property("//node"), "*"));
+        children.add(filterFactory.like(new Fuzzy(filterFactory.property("title")), "fuzzy"));
+        children.add(spatial());
+        children.add(temporal());
+        children.add(counting);
+
+        assertEquals(QueryTypes.ALL, QueryTypes.classify(filterFactory.and(children)));
+        assertEquals(0, counting.visits);
+    }
+
+    @Test
+    public void fuzzyComparison() {
+        assertEquals(QueryTypes.COMPARISON | QueryTypes.FUZZY, QueryTypes.classify(
+                filterFactory.like(new Fuzzy(filterFactory.property("title")), "fuzzy")));
+    }
+
+    @Test
+    public void filtersWithoutCriteria() {
+        assertEquals(0, QueryTypes.classify(null));
+        assertEquals(0, QueryTypes.classify(Filter.INCLUDE));
+        assertEquals(0, QueryTypes.classify(Filter.EXCLUDE));
+    }
+
+    @Test
+    public void includes() {
+        int mask = QueryTypes.SPATIAL | QueryTypes.TEMPORAL;
+
+        assertTrue(QueryTypes.includes(mask, QueryTypes.SPATIAL));
+        assertTrue(QueryTypes.includes(mask, QueryTypes.SPATIAL | QueryTypes.TEMPORAL));
+        assertFalse(QueryTypes.includes(mask, QueryTypes.SPATIAL | QueryTypes.XPATH));
+    }
+
+    @Test
+    public void requestKeepsMaskOfItsQuery() {
+        Map<String, Serializable> properties = new HashMap<>();
+        QueryRequest request = new QueryRequestImpl(new QueryImpl(spatial()), properties);
+
+        assertEquals(QueryTypes.SPATIAL, QueryTypes.of(request));
+        Serializable stored = properties.get(QueryTypes.PROPERTY);
+        assertEquals(QueryTypes.SPATIAL, QueryTypes.of(request));
+        assertSame(stored, properties.get(QueryTypes.PROPERTY));
+    }
+
+    @Test
+    public void replacedQueryIsClassifiedAgain() {
+        Map<String, Serializable> properties = new HashMap<>();
+        QueryTypes.of(new QueryRequestImpl(new QueryImpl(spatial()), properties));
+
+        assertEquals(QueryTypes.TEMPORAL,
+                QueryTypes.of(new QueryRequestImpl(new QueryImpl(temporal()), properties)));
+    }
+
+    private Filter title() {
+        return filterFactory.equals(filterFactory.property("title"), filterFactory.literal("x"));
+    }
+
+    private Filter spatial() {
+        return filterFactory.intersects(filterFactory.property("location"),
+                filterFactory.literal("POINT (1 1)"));
+    }
+
+    private Filter temporal() {
+        return filterFactory.after(filterFactory.property("created"),
+                filterFactory.literal(new Date()));
+    }
+
+    private static class Fuzzy extends FunctionExpressionImpl {
+
+        Fuzzy(Expression property) {
+            super("fuzzy", null);
+            this.params = Collections.singletonList(property);
+        }
+    }
+
+    private static class CountingFilter implements Filter {
+
+        private int visits;
+
+        @Override
+        public boolean evaluate(Object object) {
+            return true;
+        }
+
+        @Override
+        public Object accept(FilterVisitor visitor, Object extraData) {
+            visits++;
+            return visitor.visit(Filter.INCLUDE, extraData);
+        }
+    }
+}
@@ -19,6 +19,10 @@
 import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
@@ -42,6 +46,11 @@
  * The root backup directory and subdirectory levels can be configured in the
  * Backup Post-Ingest Plugin section in the admin console.
  * <p/>
+ * By default each metacard is written to its own file. When segmented backup is enabled,
+ * metacards are instead appended to a {@link SegmentedBackupStore} in the "segments"
+ * subdirectory of the root backup directory, which is compacted periodically in the background.
+ * Segmented backups can be restored with the catalog:restore command.
+ * <p/>
  * This feature can be installed/uninstalled with the following commands:
  * <p/>
  * ddf@local>features:install catalog-core-backupplugin
@@ -54,12 +63,32 @@ public class CatalogBackupPlugin implements PostIngestPlugin {
 
     private static final String TEMP_FILE_EXTENSION = ".tmp";
 
+    private static final String SEGMENTS_DIRECTORY = "segments";
+
+    private static final long DEFAULT_MAX_SEGMENT_SIZE_MB = 64;
+
+    private static final long DEFAULT_COMPACTION_INTERVAL_MINUTES = 10;
+
+    private static final double DEFAULT_MIN_LIVE_RATIO = 0.5;
+
     private File rootBackupDir;
 
     private int subDirLevels;
 
     private boolean enableBackupPlugin = true;
 
+    private boolean segmentedBackup = false;
+
+    private long maxSegmentSizeMb = DEFAULT_MAX_SEGMENT_SIZE_MB;
+
+    private long compactionIntervalMinutes = DEFAULT_COMPACTION_INTERVAL_MINUTES;
+
+    private double minLiveRatio = DEFAULT_MIN_LIVE_RATIO;
+
+    private SegmentedBackupStore segmentedStore;
+
+    private ScheduledExecutorService compactionExecutor;
+
     public CatalogBackupPlugin() {
         subDirLevels = 0;
     }
@@ -85,11 +114,22 @@ public CreateResponse process(CreateResponse input) throws PluginExecutionExcept
 
             List<Metacard> metacards = input.getCreatedMetacards();
 
-            for (Metacard metacard : metacards) {
+            if (segmentedBackup) {
                 try {
-                    backupMetacard(metacard);
+                    getSegmentedStore().putAll(metacards);
                 } catch (IOException e) {
-                    errors.add(metacard.getId());
+                    LOGGER.debug("Unable to back up metacards.", e);
+                    for (Metacard metacard : metacards) {
+                        errors.add(metacard.getId());
+                    }
+                }
+            } else {
+                for (Metacard metacard : metacards) {
+                    try {
+                        backupMetacard(metacard);
+                    } catch (IOException e) {
+                        errors.add(metacard.getId());
+                    }
                 }
             }
 
@@ -123,17 +163,21 @@ public UpdateResponse process(UpdateResponse input) throws PluginExecutionExcept
 
             List<Update> updates = input.getUpdatedMetacards();
 
-            for (Update update : updates) {
-                try {
-                    deleteMetacard(update.getOldMetacard());
-                } catch (IOException e) {
-                    deleteErrors.add(update.getOldMetacard().getId());
-                }
-
-                try {
-                    backupMetacard(update.getNewMetacard());
-                } catch (IOException e) {
-                    backupErrors.add(update.getNewMetacard().getId());
+            if (segmentedBackup) {
+                updateSegmentedBackup(updates, deleteErrors, backupErrors);
+            } else {
+                for (Update update : updates) {
+                    try {
+                        deleteMetacard(update.getOldMetacard());
+                    } catch (IOException e) {
+                        deleteErrors.add(update.getOldMetacard().getId());
+                    }
+
+                    try {
+                        backupMetacard(update.getNewMetacard());
+                    } catch (IOException e) {
+                        backupErrors.add(update.getNewMetacard().getId());
+                    }
                 }
             }
 
@@ -178,7 +222,14 @@ public DeleteResponse process(DeleteResponse input) throws PluginExecutionExcept
 
             for (Metacard metacard : metacards) {
                 try {
-                    deleteMetacard(metacard);
+                    if (segmentedBackup) {
+                        // a metacard that was never backed up has nothing to delete
+                        if (!getSegmentedStore().delete(metacard.getId())) {
+                            LOGGER.debug("Metacard {} was not backed up.", metacard.getId());
+                        }
+                    } else {
+                        deleteMetacard(metacard);
+                    }
                 } catch (IOException e) {
                     errors.add(metacard.getId());
                 }
@@ -197,6 +248,82 @@ public void setEnableBackupPlugin(boolean enablePlugin) {
         enableBackupPlugin = enablePlugin;
     }
 
+    /**
+     * Sets whether metacards are appended to a segmented backup log instead of being written to
+     * one file each.
+     *
+     * @param segmentedBackup true to use the segmented backup log
+     */
+    public void setSegmentedBackup(boolean segmentedBackup) {
+        this.segmentedBackup = segmentedBackup;
+        LOGGER.debug("Set segmented backup to: {}", this.segmentedBackup);
+    }
+
+    public boolean isSegmentedBackup() {
+        return segmentedBackup;
+    }
+
+    /**
+     * Sets the size, in megabytes, after which a new backup segment is started.
+     *
+     * @param maxSegmentSizeMb maximum segment size in megabytes
+     */
+    public synchronized void setMaxSegmentSizeMb(long maxSegmentSizeMb) {
+        if (maxSegmentSizeMb > 0 && maxSegmentSizeMb != this.maxSegmentSizeMb) {
+            this.maxSegmentSizeMb = maxSegmentSizeMb;
+            closeSegmentedStore();
+        }
+    }
+
+    /**
+     * Sets how often, in minutes, backup segments are checked for compaction.
+     *
+     * @param compactionIntervalMinutes compaction interval in minutes
+     */
+    public synchronized void setCompactionIntervalMinutes(long compactionIntervalMinutes) {
+        if (compactionIntervalMinutes > 0
+                && compactionIntervalMinutes != this.compactionIntervalMinutes) {
+            this.compactionIntervalMinutes = compactionIntervalMinutes;
+            closeSegmentedStore();
+        }
+    }
+
+    /**
+     * Sets the fraction of live data below which a backup segment is compacted.
+     *
+     * @param minLiveRatio value between 0 and 1
+     */
+    public void setMinLiveRatio(double minLiveRatio) {
+        this.minLiveRatio = minLiveRatio;
+    }
+
+    /**
+     * Retrieves the segmented backup store, opening it if necessary.
+     *
+     * @return the segmented backup store
+     * @throws IOException if no root backup directory is configured or the store cannot be opened
+     */
+    public synchronized SegmentedBackupStore getSegmentedStore() throws IOException {
+        if (segmentedStore == null) {
+            if (rootBackupDir == null) {
+                throw new IOException("No root backup directory configured.");
+            }
+
+            segmentedStore = new SegmentedBackupStore(
+                    new File(rootBackupDir, SEGMENTS_DIRECTORY),
+                    maxSegmentSizeMb * FileUtils.ONE_MB);
+            startCompaction(segmentedStore);
+        }
+        return segmentedStore;
+    }
+
+    /**
+     * Closes the segmented backup store. Called when the plugin is removed from the container.
+     */
+    public synchronized void destroy() {
+        closeSegmentedStore();
+    }
+
     /**
      * Sets the root file system backup directory.
      *
@@ -208,7 +335,13 @@ public void setRootBackupDir(String dir) {
             return;
         }
 
-        this.rootBackupDir = new File(dir);
+        File newRootBackupDir = new File(dir);
+        synchronized (this) {
+            if (!newRootBackupDir.equals(this.rootBackupDir)) {
+                closeSegmentedStore();
+            }
+            this.rootBackupDir = newRootBackupDir;
+        }
         LOGGER.debug("Set root backup directory to: {}", this.rootBackupDir.toString());
     }
 
@@ -223,6 +356,76 @@ public void setSubDirLevels(int levels) {
         LOGGER.debug("Set subdirectory levels to: {}", this.subDirLevels);
     }
 
+    private void updateSegmentedBackup(List<Update> updates, List<String> deleteErrors,
+            List<String> backupErrors) {
+        List<Metacard> newMetacards = new ArrayList<Metacard>(updates.size());
+
+        for (Update update : updates) {
+            String oldId = update.getOldMetacard().getId();
+            if (!StringUtils.equals(oldId, update.getNewMetacard().getId())) {
+                try {
+                    if (!getSegmentedStore().delete(oldId)) {
+                        LOGGER.debug("Metacard {} was not backed up.", oldId);
+                    }
+                } catch (IOException e) {
+                    deleteErrors.add(oldId);
+                }
+            }
+            newMetacards.add(update.getNewMetacard());
+        }
+
+        try {
+            getSegmentedStore().putAll(newMetacards);
+        } catch (IOException e) {
+            LOGGER.debug("Unable to back up updated metacards.", e);
+            for (Metacard metacard : newMetacards) {
+                backupErrors.add(metacard.getId());
+            }
+        }
+    }
+
+    private void startCompaction(final SegmentedBackupStore store) {
+        compactionExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "catalog-backup-compaction");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        compactionExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    int compacted = store.compact(minLiveRatio);
+                    if (compacted > 0) {
+                        LOGGER.debug("Compacted {} backup segment(s) in {}.", compacted,
+                                store.getDirectory());
+                    }
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.warn("Unable to compact backup segments in {}.", store.getDirectory(),
+                            e);
+                }
+            }
+        }, compactionIntervalMinutes, compactionIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    private synchronized void closeSegmentedStore() {
+        if (compactionExecutor != null) {
+            compactionExecutor.shutdownNow();
+            compactionExecutor = null;
+        }
+        if (segmentedStore != null) {
+            try {
+                segmentedStore.close();
+            } catch (IOException e) {
+                LOGGER.warn("Unable to close backup store in {}.", segmentedStore.getDirectory(),
+                        e);
+            }
+            segmentedStore = null;
+        }
+    }
+
     private void backupMetacard(Metacard metacard) throws IOException {
 
         // Write metacard to a temp file. When write is complete, rename (remove
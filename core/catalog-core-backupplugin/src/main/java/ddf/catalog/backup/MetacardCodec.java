@@ -0,0 +1,383 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.backup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.MetacardType;
+import ddf.catalog.data.impl.AttributeImpl;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.MetacardTypeImpl;
+
+/**
+ * Compact binary encoding of {@link Metacard}s used by the {@link SegmentedBackupStore}.
+ * <p/>
+ * Each metacard is written as its metacard type name, source id and the values of all of its
+ * non-null attributes, including those its metacard type does not declare, with each value
+ * prefixed by a one byte type tag. Common attribute value types are
+ * written in their binary form; any other {@link Serializable} value falls back to Java
+ * serialization. {@link MetacardType}s are written once, by name, to a separate types file next to
+ * the backup segments rather than with every metacard.
+ */
+class MetacardCodec {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetacardCodec.class);
+
+    static final String TYPES_FILE_NAME = "metacard-types.ser";
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final byte NULL = 0;
+
+    private static final byte STRING = 1;
+
+    private static final byte DATE = 2;
+
+    private static final byte LONG = 3;
+
+    private static final byte INTEGER = 4;
+
+    private static final byte SHORT = 5;
+
+    private static final byte DOUBLE = 6;
+
+    private static final byte FLOAT = 7;
+
+    private static final byte BOOLEAN = 8;
+
+    private static final byte BINARY = 9;
+
+    private static final byte SERIALIZED = 10;
+
+    private final File typesFile;
+
+    private final Map<String, MetacardType> types = new ConcurrentHashMap<>();
+
+    MetacardCodec(File directory) throws IOException {
+        this.typesFile = new File(directory, TYPES_FILE_NAME);
+        loadTypes();
+    }
+
+    byte[] encode(Metacard metacard) throws IOException {
+        MetacardType type = metacard.getMetacardType();
+        registerType(type);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeByte(FORMAT_VERSION);
+        writeNullableString(out, type.getName());
+        writeNullableString(out, metacard.getSourceId());
+
+        Map<String, Attribute> attributes = getAttributes(metacard);
+
+        out.writeInt(attributes.size());
+        for (Attribute attribute : attributes.values()) {
+            out.writeUTF(attribute.getName());
+            List<Serializable> values = attribute.getValues();
+            if (values == null) {
+                out.writeInt(0);
+                continue;
+            }
+            out.writeInt(values.size());
+            for (Serializable value : values) {
+                writeValue(out, value);
+            }
+        }
+
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    Metacard decode(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+
+        byte version = in.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported metacard encoding version " + version);
+        }
+
+        String typeName = readNullableString(in);
+        MetacardType type = typeName == null ? null : types.get(typeName);
+        MetacardImpl metacard = type == null ? new MetacardImpl() : new MetacardImpl(type);
+        metacard.setSourceId(readNullableString(in));
+
+        int attributeCount = in.readInt();
+        for (int i = 0; i < attributeCount; i++) {
+            String name = in.readUTF();
+            int valueCount = in.readInt();
+            if (valueCount == 0) {
+                continue;
+            }
+            AttributeImpl attribute = new AttributeImpl(name, readValue(in));
+            for (int j = 1; j < valueCount; j++) {
+                attribute.addValue(readValue(in));
+            }
+            metacard.setAttribute(attribute);
+        }
+
+        return metacard;
+    }
+
+    /**
+     * The {@link Metacard} interface only gives access to attributes by name, so attributes the
+     * metacard type does not declare are found through the metacard's serialized form, which
+     * includes every attribute a {@link MetacardImpl} holds.
+     *
+     * @return the non-null attributes of the metacard, by name
+     */
+    private Map<String, Attribute> getAttributes(Metacard metacard) {
+        Map<String, Attribute> attributes = new LinkedHashMap<>();
+
+        MetacardType type = metacard.getMetacardType();
+        if (type.getAttributeDescriptors() != null) {
+            for (AttributeDescriptor descriptor : type.getAttributeDescriptors()) {
+                Attribute attribute = metacard.getAttribute(descriptor.getName());
+                if (attribute != null) {
+                    attributes.put(attribute.getName(), attribute);
+                }
+            }
+        }
+
+        try (AttributeCollector collector = new AttributeCollector()) {
+            collector.writeObject(metacard);
+            for (Attribute attribute : collector.attributes) {
+                if (attribute.getName() != null && !attributes.containsKey(attribute.getName())) {
+                    attributes.put(attribute.getName(), attribute);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Unable to find undeclared attributes of metacard {}; only the attributes "
+                    + "of its metacard type are backed up", metacard.getId(), e);
+        }
+
+        return attributes;
+    }
+
+    private void writeValue(DataOutputStream out, Serializable value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Date) {
+            out.writeByte(DATE);
+            out.writeLong(((Date) value).getTime());
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Short) {
+            out.writeByte(SHORT);
+            out.writeShort((Short) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof byte[]) {
+            out.writeByte(BINARY);
+            byte[] binary = (byte[]) value;
+            out.writeInt(binary.length);
+            out.write(binary);
+        } else {
+            out.writeByte(SERIALIZED);
+            ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+            try (ObjectOutputStream oos = new ObjectOutputStream(serialized)) {
+                oos.writeObject(value);
+            }
+            out.writeInt(serialized.size());
+            serialized.writeTo(out);
+        }
+    }
+
+    private Serializable readValue(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+        case NULL:
+            return null;
+        case STRING:
+            return readString(in);
+        case DATE:
+            return new Date(in.readLong());
+        case LONG:
+            return in.readLong();
+        case INTEGER:
+            return in.readInt();
+        case SHORT:
+            return in.readShort();
+        case DOUBLE:
+            return in.readDouble();
+        case FLOAT:
+            return in.readFloat();
+        case BOOLEAN:
+            return in.readBoolean();
+        case BINARY:
+            byte[] binary = new byte[in.readInt()];
+            in.readFully(binary);
+            return binary;
+        case SERIALIZED:
+            byte[] serialized = new byte[in.readInt()];
+            in.readFully(serialized);
+            try (ObjectInputStream ois = new ObjectInputStream(
+                    new ByteArrayInputStream(serialized))) {
+                return (Serializable) ois.readObject();
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Unable to read attribute value", e);
+            }
+        default:
+            throw new IOException("Unknown attribute value tag " + tag);
+        }
+    }
+
+    /**
+     * Strings are written as UTF-8 with an int length, since metadata routinely exceeds the 64K
+     * limit of {@link DataOutputStream#writeUTF(String)}.
+     */
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            writeString(out, value);
+        }
+    }
+
+    private String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? readString(in) : null;
+    }
+
+    private void registerType(MetacardType type) throws IOException {
+        if (type == null || type.getName() == null || types.containsKey(type.getName())) {
+            return;
+        }
+
+        synchronized (types) {
+            if (types.containsKey(type.getName())) {
+                return;
+            }
+
+            // only our own MetacardType implementation is serialized, as in MetacardImpl
+            MetacardType serializableType = type;
+            if (!(type instanceof MetacardTypeImpl)) {
+                serializableType = new MetacardTypeImpl(type.getName(),
+                        type.getAttributeDescriptors());
+            }
+
+            Map<String, MetacardType> updated = new HashMap<>(types);
+            updated.put(type.getName(), serializableType);
+
+            File temp = new File(typesFile.getPath() + ".tmp");
+            try (FileOutputStream fileOut = new FileOutputStream(temp);
+                    ObjectOutputStream oos = new ObjectOutputStream(fileOut)) {
+                oos.writeObject(updated);
+                oos.flush();
+                fileOut.getFD().sync();
+            }
+            if (typesFile.exists()) {
+                FileUtils.forceDelete(typesFile);
+            }
+            FileUtils.moveFile(temp, typesFile);
+
+            types.put(type.getName(), serializableType);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void loadTypes() throws IOException {
+        if (!typesFile.exists()) {
+            return;
+        }
+
+        ObjectInputStream ois = null;
+        try {
+            ois = new ObjectInputStream(new FileInputStream(typesFile));
+            types.putAll((Map<String, MetacardType>) ois.readObject());
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unable to read metacard types from " + typesFile, e);
+        } finally {
+            IOUtils.closeQuietly(ois);
+        }
+    }
+
+    /**
+     * Collects the {@link Attribute}s written while serializing a metacard without writing them,
+     * or the metacard type, anywhere.
+     */
+    private static class AttributeCollector extends ObjectOutputStream {
+
+        private final List<Attribute> attributes = new ArrayList<>();
+
+        AttributeCollector() throws IOException {
+            super(new NullOutputStream());
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object object) throws IOException {
+            if (object instanceof Attribute) {
+                attributes.add((Attribute) object);
+                return null;
+            }
+            if (object instanceof MetacardType) {
+                return null;
+            }
+            return object;
+        }
+    }
+
+}
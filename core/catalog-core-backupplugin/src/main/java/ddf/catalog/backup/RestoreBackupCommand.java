@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.backup;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.felix.gogo.commands.Command;
+import org.apache.felix.gogo.commands.Option;
+import org.apache.karaf.shell.console.OsgiCommandSupport;
+
+import ddf.catalog.CatalogFramework;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.operation.CreateResponse;
+import ddf.catalog.operation.impl.CreateRequestImpl;
+
+/**
+ * Restores metacards from a segmented backup into the catalog. Records are streamed from the
+ * backup segments and ingested in batches, so the backup never has to fit in memory.
+ */
+@Command(scope = "catalog", name = "restore", description = "Restores metacards from a segmented backup created by the Backup Post-Ingest Plugin.")
+public class RestoreBackupCommand extends OsgiCommandSupport {
+
+    private static final int DEFAULT_BATCH_SIZE = 500;
+
+    private static final double MILLISECONDS_PER_SECOND = TimeUnit.SECONDS.toMillis(1);
+
+    @Option(name = "--directory", required = false, aliases = {"-d"}, multiValued = false, description = "Segment directory to restore from. Defaults to the segment directory of the Backup Post-Ingest Plugin.")
+    String directory = null;
+
+    @Option(name = "--batchsize", required = false, aliases = {"-b"}, multiValued = false, description = "Number of metacards to ingest per create request.")
+    int batchSize = DEFAULT_BATCH_SIZE;
+
+    protected PrintStream console = System.out;
+
+    private CatalogBackupPlugin backupPlugin;
+
+    public void setBackupPlugin(CatalogBackupPlugin backupPlugin) {
+        this.backupPlugin = backupPlugin;
+    }
+
+    @Override
+    protected Object doExecute() throws Exception {
+        if (batchSize <= 0) {
+            console.println("Batch size must be greater than 0.");
+            return null;
+        }
+
+        SegmentedBackupStore store;
+        boolean closeStore = directory != null;
+        if (closeStore) {
+            File segmentDirectory = new File(directory);
+            if (!segmentDirectory.isDirectory()) {
+                console.println("Directory [" + directory + "] does not exist.");
+                return null;
+            }
+            store = new SegmentedBackupStore(segmentDirectory, Long.MAX_VALUE, true);
+        } else if (backupPlugin != null && backupPlugin.isSegmentedBackup()) {
+            store = backupPlugin.getSegmentedStore();
+        } else {
+            console.println(
+                    "Segmented backup is not enabled. Use --directory to restore from a segment directory.");
+            return null;
+        }
+
+        try {
+            restore(store, getCatalog());
+        } finally {
+            if (closeStore) {
+                store.close();
+            }
+        }
+        return null;
+    }
+
+    protected CatalogFramework getCatalog() {
+        return getService(CatalogFramework.class);
+    }
+
+    long restore(SegmentedBackupStore store, CatalogFramework catalog) throws Exception {
+        long start = System.currentTimeMillis();
+        long restored = 0;
+        List<Metacard> batch = new ArrayList<Metacard>(batchSize);
+
+        Iterator<Metacard> metacards = store.iterator();
+        while (metacards.hasNext()) {
+            batch.add(metacards.next());
+            if (batch.size() == batchSize) {
+                restored += ingest(catalog, batch);
+                batch = new ArrayList<Metacard>(batchSize);
+                console.printf("%d metacards restored%n", restored);
+            }
+        }
+        if (!batch.isEmpty()) {
+            restored += ingest(catalog, batch);
+        }
+
+        long end = System.currentTimeMillis();
+        console.printf("%d metacards restored in %3.3f seconds%n", restored,
+                (end - start) / MILLISECONDS_PER_SECOND);
+        return restored;
+    }
+
+    private int ingest(CatalogFramework catalog, List<Metacard> batch) throws Exception {
+        CreateResponse response = catalog.create(new CreateRequestImpl(batch));
+        return response.getCreatedMetacards().size();
+    }
+}
@@ -0,0 +1,625 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.backup;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.zip.CRC32;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ddf.catalog.data.Metacard;
+
+/**
+ * Append-only, segmented backup log of metacards.
+ * <p/>
+ * Every create, update and delete is appended to the current segment file as a single record, so
+ * backing up metacards is a sequential write regardless of how many metacards are stored. When the
+ * current segment reaches the maximum segment size a new segment is started. An in-memory index
+ * maps each metacard id to the location of its latest record and is rebuilt by scanning the
+ * segments when the store is opened.
+ * <p/>
+ * Every write is forced to disk before it returns, so a backed up metacard survives a crash.
+ * <p/>
+ * Updates and deletes leave superseded records behind. {@link #compact(double)} rewrites the live
+ * records of mostly-dead segments to the end of the log and removes those segments.
+ * <p/>
+ * A store opened read-only, e.g. to restore from it, never modifies its segments: incomplete
+ * records at the end of the log are skipped rather than truncated.
+ * <p/>
+ * Record layout: {@code type (1 byte), id length (4), payload length (4), id (UTF-8), payload
+ * (see MetacardCodec), CRC32 of all preceding bytes (4)}.
+ */
+public class SegmentedBackupStore implements Closeable {
+
+    static final String SEGMENT_PREFIX = "segment-";
+
+    static final String SEGMENT_EXTENSION = ".log";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SegmentedBackupStore.class);
+
+    private static final byte PUT = 1;
+
+    private static final byte DELETE = 2;
+
+    private static final int HEADER_LENGTH = 9;
+
+    private static final int CHECKSUM_LENGTH = 4;
+
+    private final File directory;
+
+    private final long maxSegmentSize;
+
+    private final MetacardCodec codec;
+
+    private final boolean readOnly;
+
+    private final ConcurrentHashMap<String, RecordLocation> index = new ConcurrentHashMap<>();
+
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+
+    private Segment active;
+
+    private volatile boolean closed;
+
+    /**
+     * Opens the store in the given directory, creating it if necessary.
+     *
+     * @param directory      directory holding the segment files
+     * @param maxSegmentSize size in bytes after which a new segment is started
+     * @throws IOException if the directory or segments cannot be read
+     */
+    public SegmentedBackupStore(File directory, long maxSegmentSize) throws IOException {
+        this(directory, maxSegmentSize, false);
+    }
+
+    /**
+     * Opens the store in the given directory.
+     *
+     * @param directory      directory holding the segment files
+     * @param maxSegmentSize size in bytes after which a new segment is started
+     * @param readOnly       true to open the segments for reading only; the directory must exist
+     *                       and every write fails
+     * @throws IOException if the directory or segments cannot be read
+     */
+    public SegmentedBackupStore(File directory, long maxSegmentSize, boolean readOnly)
+            throws IOException {
+        this.directory = directory;
+        this.maxSegmentSize = maxSegmentSize;
+        this.readOnly = readOnly;
+        if (readOnly) {
+            if (!directory.isDirectory()) {
+                throw new IOException("Backup directory " + directory + " does not exist.");
+            }
+        } else {
+            FileUtils.forceMkdir(directory);
+        }
+        this.codec = new MetacardCodec(directory);
+        load();
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return the number of metacards in the store
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * @return the number of segment files in the store
+     */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    public boolean contains(String id) {
+        return index.containsKey(id);
+    }
+
+    public void put(Metacard metacard) throws IOException {
+        putAll(Collections.singletonList(metacard));
+    }
+
+    /**
+     * Appends all of the metacards to the log with a single write.
+     */
+    public void putAll(Collection<? extends Metacard> metacards) throws IOException {
+        // checked before encoding, which may record new metacard types
+        ensureWritable();
+
+        List<byte[]> records = new ArrayList<>(metacards.size());
+        List<String> ids = new ArrayList<>(metacards.size());
+        for (Metacard metacard : metacards) {
+            if (metacard.getId() == null) {
+                throw new IOException("Cannot back up a metacard without an id.");
+            }
+            ids.add(metacard.getId());
+            records.add(createRecord(PUT, metacard.getId(), codec.encode(metacard)));
+        }
+
+        synchronized (this) {
+            ensureWritable();
+            int length = 0;
+            for (byte[] record : records) {
+                length += record.length;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            for (byte[] record : records) {
+                buffer.put(record);
+            }
+            buffer.flip();
+
+            Segment segment = active;
+            long offset = append(buffer);
+            for (int i = 0; i < records.size(); i++) {
+                int recordLength = records.get(i).length;
+                replace(ids.get(i), new RecordLocation(segment, offset, recordLength));
+                offset += recordLength;
+            }
+            segment.channel.force(false);
+            rollIfFull();
+        }
+    }
+
+    /**
+     * Records the deletion of a metacard.
+     *
+     * @return false if the store does not contain the metacard
+     */
+    public synchronized boolean delete(String id) throws IOException {
+        ensureWritable();
+        if (!index.containsKey(id)) {
+            return false;
+        }
+
+        append(ByteBuffer.wrap(createRecord(DELETE, id, new byte[0])));
+        active.channel.force(false);
+        replace(id, null);
+        rollIfFull();
+        return true;
+    }
+
+    /**
+     * @return the latest version of the metacard, or {@code null} if the store does not contain it
+     */
+    public Metacard get(String id) throws IOException {
+        RecordLocation location = index.get(id);
+        if (location == null) {
+            return null;
+        }
+
+        try {
+            return read(location);
+        } catch (IOException e) {
+            // the record may have been moved by a concurrent compaction
+            RecordLocation current = index.get(id);
+            if (current == null || current == location) {
+                throw e;
+            }
+            return read(current);
+        }
+    }
+
+    /**
+     * Streams the latest version of every metacard in the store, in log order. The set of
+     * metacards is fixed when this method is called. Records that cannot be read are logged and
+     * skipped.
+     */
+    public Iterator<Metacard> iterator() {
+        final List<RecordLocation> locations = new ArrayList<>(index.values());
+        Collections.sort(locations, new Comparator<RecordLocation>() {
+            @Override
+            public int compare(RecordLocation first, RecordLocation second) {
+                int bySegment = Long.compare(first.segment.id, second.segment.id);
+                return bySegment != 0 ? bySegment : Long.compare(first.offset, second.offset);
+            }
+        });
+
+        return new Iterator<Metacard>() {
+            private int position = 0;
+
+            private Metacard next = advance();
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Metacard next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Metacard current = next;
+                next = advance();
+                return current;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+
+            private Metacard advance() {
+                while (position < locations.size()) {
+                    RecordLocation location = locations.get(position++);
+                    try {
+                        return read(location);
+                    } catch (IOException e) {
+                        LOGGER.warn("Unable to read backed up metacard at offset {} of {}",
+                                location.offset, location.segment.file, e);
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Rewrites the live records of every segment, other than the one currently being written,
+     * whose share of live bytes is below {@code minLiveRatio} and removes that segment. Each
+     * segment is compacted while holding the store's lock, so writes wait for at most one
+     * segment to be copied.
+     *
+     * @return the number of segments removed
+     */
+    public int compact(double minLiveRatio) throws IOException {
+        int compacted = 0;
+        for (Segment segment : new ArrayList<>(segments.values())) {
+            synchronized (this) {
+                if (closed || readOnly || segment == active
+                        || !segments.containsKey(segment.id)) {
+                    continue;
+                }
+                if (segment.size > 0 && (double) segment.liveBytes / segment.size >= minLiveRatio) {
+                    continue;
+                }
+                compact(segment);
+                compacted++;
+            }
+        }
+        return compacted;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Segment segment : segments.values()) {
+            IOUtils.closeQuietly(segment.channel);
+        }
+        segments.clear();
+        index.clear();
+    }
+
+    private void compact(Segment segment) throws IOException {
+        boolean oldest = segment.id == segments.firstKey();
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(segment.file)))) {
+            long offset = 0;
+            while (offset < segment.size) {
+                RawRecord record = readRecord(in, segment.size - offset);
+                if (record == null) {
+                    break;
+                }
+
+                if (record.type == PUT) {
+                    RecordLocation location = index.get(record.id);
+                    if (location != null && location.segment == segment
+                            && location.offset == offset) {
+                        Segment target = active;
+                        long newOffset = append(ByteBuffer.wrap(record.bytes));
+                        replace(record.id,
+                                new RecordLocation(target, newOffset, record.bytes.length));
+                        rollIfFull();
+                    }
+                } else if (!oldest && !index.containsKey(record.id)) {
+                    // older segments may still hold records this delete supersedes
+                    append(ByteBuffer.wrap(record.bytes));
+                    rollIfFull();
+                }
+
+                offset += record.bytes.length;
+            }
+        }
+
+        // the copied records must be on disk before the only other copy is removed
+        for (Segment written : segments.tailMap(segment.id, false).values()) {
+            written.channel.force(false);
+        }
+        segments.remove(segment.id);
+        IOUtils.closeQuietly(segment.channel);
+        FileUtils.forceDelete(segment.file);
+        LOGGER.debug("Compacted backup segment {}", segment.file);
+    }
+
+    /**
+     * Points the index at the new location of a metacard, or removes it if {@code location} is
+     * null, and keeps the live byte counts of the affected segments up to date.
+     */
+    private void replace(String id, RecordLocation location) {
+        RecordLocation previous =
+                location == null ? index.remove(id) : index.put(id, location);
+        if (previous != null) {
+            previous.segment.liveBytes -= previous.length;
+        }
+        if (location != null) {
+            location.segment.liveBytes += location.length;
+        }
+    }
+
+    private long append(ByteBuffer buffer) throws IOException {
+        long offset = active.size;
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            position += active.channel.write(buffer, position);
+        }
+        active.size = position;
+        return offset;
+    }
+
+    private void rollIfFull() throws IOException {
+        if (active.size >= maxSegmentSize) {
+            active.channel.force(false);
+            active = openSegment(active.id + 1);
+        }
+    }
+
+    private Metacard read(RecordLocation location) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(location.length);
+        long position = location.offset;
+        while (buffer.hasRemaining()) {
+            int read = location.segment.channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of backup segment " + location.segment.file);
+            }
+            position += read;
+        }
+
+        byte[] bytes = buffer.array();
+        if (!isChecksumValid(bytes)) {
+            throw new IOException("Corrupt record in backup segment " + location.segment.file);
+        }
+
+        ByteBuffer record = ByteBuffer.wrap(bytes);
+        record.get();
+        int idLength = record.getInt();
+        int payloadLength = record.getInt();
+        byte[] payload = new byte[payloadLength];
+        System.arraycopy(bytes, HEADER_LENGTH + idLength, payload, 0, payloadLength);
+        return codec.decode(payload);
+    }
+
+    private byte[] createRecord(byte type, String id, byte[] payload) {
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer
+                .allocate(HEADER_LENGTH + idBytes.length + payload.length + CHECKSUM_LENGTH);
+        buffer.put(type);
+        buffer.putInt(idBytes.length);
+        buffer.putInt(payload.length);
+        buffer.put(idBytes);
+        buffer.put(payload);
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        return buffer.array();
+    }
+
+    private boolean isChecksumValid(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, record.length - CHECKSUM_LENGTH);
+        return (int) crc.getValue() == ByteBuffer.wrap(record, record.length - CHECKSUM_LENGTH,
+                CHECKSUM_LENGTH).getInt();
+    }
+
+    /**
+     * @return the next complete, valid record, or {@code null} at the end of the segment or at a
+     * torn or corrupt record
+     */
+    private RawRecord readRecord(DataInputStream in, long remaining) throws IOException {
+        byte[] header = new byte[HEADER_LENGTH];
+        try {
+            in.readFully(header);
+            ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+            byte type = headerBuffer.get();
+            int idLength = headerBuffer.getInt();
+            int payloadLength = headerBuffer.getInt();
+            if ((type != PUT && type != DELETE) || idLength < 0 || payloadLength < 0
+                    || (long) HEADER_LENGTH + idLength + payloadLength + CHECKSUM_LENGTH
+                    > remaining) {
+                return null;
+            }
+
+            byte[] bytes = new byte[HEADER_LENGTH + idLength + payloadLength + CHECKSUM_LENGTH];
+            System.arraycopy(header, 0, bytes, 0, HEADER_LENGTH);
+            in.readFully(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH);
+            if (!isChecksumValid(bytes)) {
+                return null;
+            }
+
+            return new RawRecord(type, new String(bytes, HEADER_LENGTH, idLength,
+                    StandardCharsets.UTF_8), bytes);
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private void load() throws IOException {
+        File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_EXTENSION);
+            }
+        });
+
+        TreeMap<Long, File> sorted = new TreeMap<>();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                try {
+                    sorted.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_EXTENSION.length())), file);
+                } catch (NumberFormatException e) {
+                    LOGGER.warn("Ignoring unexpected file {} in backup directory", file);
+                }
+            }
+        }
+
+        for (Long id : sorted.keySet()) {
+            Segment segment = openSegment(id);
+            long validLength = scan(segment);
+            if (validLength < segment.size) {
+                if (readOnly) {
+                    LOGGER.warn("Skipping incomplete or corrupt records after offset {} of backup "
+                            + "segment {}", validLength, segment.file);
+                } else if (id.equals(sorted.lastKey())) {
+                    LOGGER.warn("Truncating incomplete records at the end of backup segment {}",
+                            segment.file);
+                    segment.channel.truncate(validLength);
+                    segment.size = validLength;
+                } else {
+                    LOGGER.warn("Backup segment {} is corrupt after offset {}", segment.file,
+                            validLength);
+                }
+            }
+            active = segment;
+        }
+
+        if (active == null && !readOnly) {
+            active = openSegment(0);
+        }
+
+        LOGGER.debug("Loaded {} backed up metacards from {} segments in {}", index.size(),
+                segments.size(), directory);
+    }
+
+    /**
+     * Adds the records of the segment to the index.
+     *
+     * @return the length of the valid records at the start of the segment
+     */
+    private long scan(Segment segment) throws IOException {
+        long offset = 0;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(segment.file)))) {
+            RawRecord record;
+            while ((record = readRecord(in, segment.size - offset)) != null) {
+                if (record.type == PUT) {
+                    replace(record.id, new RecordLocation(segment, offset, record.bytes.length));
+                } else {
+                    replace(record.id, null);
+                }
+                offset += record.bytes.length;
+            }
+        }
+        return offset;
+    }
+
+    private Segment openSegment(long id) throws IOException {
+        File file = new File(directory, String.format("%s%012d%s", SEGMENT_PREFIX, id,
+                SEGMENT_EXTENSION));
+        @SuppressWarnings("resource")
+        FileChannel channel = new RandomAccessFile(file, readOnly ? "r" : "rw").getChannel();
+        Segment segment = new Segment(id, file, channel, channel.size());
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private void ensureWritable() throws IOException {
+        if (closed) {
+            throw new IOException("Backup store " + directory + " is closed.");
+        }
+        if (readOnly) {
+            throw new IOException("Backup store " + directory + " is read-only.");
+        }
+    }
+
+    private static final class Segment {
+        private final long id;
+
+        private final File file;
+
+        private final FileChannel channel;
+
+        private long size;
+
+        private long liveBytes;
+
+        private Segment(long id, File file, FileChannel channel, long size) {
+            this.id = id;
+            this.file = file;
+            this.channel = channel;
+            this.size = size;
+        }
+    }
+
+    private static final class RecordLocation {
+        private final Segment segment;
+
+        private final long offset;
+
+        private final int length;
+
+        private RecordLocation(Segment segment, long offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private static final class RawRecord {
+        private final byte type;
+
+        private final String id;
+
+        private final byte[] bytes;
+
+        private RawRecord(byte type, String id, byte[] bytes) {
+            this.type = type;
+            this.id = id;
+            this.bytes = bytes;
+        }
+    }
+}
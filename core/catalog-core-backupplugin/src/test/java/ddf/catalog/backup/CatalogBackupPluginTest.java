@@ -220,6 +220,28 @@ public void testProcessDeleteResponseDeleteSuccessful() throws Exception {
         }
     }
 
+    @Test
+    public void testProcessDeleteResponseSegmentedUnknownMetacard() throws Exception {
+        // Setup
+        DeleteResponse mockDeleteResponse = getDeleteResponse(Arrays.asList(METACARD_IDS));
+
+        CatalogBackupPlugin catalogBackupPlugin = new CatalogBackupPlugin();
+        catalogBackupPlugin.setEnableBackupPlugin(true);
+        catalogBackupPlugin.setSegmentedBackup(true);
+        catalogBackupPlugin.setRootBackupDir(rootBackupDir.getRoot().getAbsolutePath());
+
+        try {
+            // Perform Test
+            DeleteResponse postPluginDeleteResponse = catalogBackupPlugin
+                    .process(mockDeleteResponse);
+
+            // Verify
+            assertThat(postPluginDeleteResponse, is(notNullValue()));
+        } finally {
+            catalogBackupPlugin.destroy();
+        }
+    }
+
     @Test
     public void testProcessDeleteResponseFailToDeleteAllMetacards() {
         // Setup
@@ -0,0 +1,254 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.backup;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.MetacardImpl;
+
+public class SegmentedBackupStoreTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File directory;
+
+    private SegmentedBackupStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = temporaryFolder.newFolder("segments");
+        store = new SegmentedBackupStore(directory, 1024);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        store.close();
+    }
+
+    @Test
+    public void testPutAndGet() throws Exception {
+        Date created = new Date();
+        MetacardImpl metacard = createMetacard("id1", "first");
+        metacard.setCreatedDate(created);
+        metacard.setThumbnail(new byte[] {1, 2, 3});
+
+        store.put(metacard);
+
+        Metacard restored = store.get("id1");
+        assertThat(restored.getTitle(), is("first"));
+        assertThat(restored.getCreatedDate(), is(created));
+        assertThat(restored.getThumbnail(), is(new byte[] {1, 2, 3}));
+        assertThat(restored.getSourceId(), is("source"));
+        assertThat(store.size(), is(1));
+    }
+
+    @Test
+    public void testPutReplacesPreviousVersion() throws Exception {
+        store.put(createMetacard("id1", "first"));
+        store.put(createMetacard("id1", "second"));
+
+        assertThat(store.get("id1").getTitle(), is("second"));
+        assertThat(store.size(), is(1));
+    }
+
+    @Test
+    public void testDelete() throws Exception {
+        store.put(createMetacard("id1", "first"));
+
+        assertThat(store.delete("id1"), is(true));
+        assertThat(store.delete("id1"), is(false));
+        assertThat(store.get("id1"), nullValue());
+    }
+
+    @Test
+    public void testReopen() throws Exception {
+        store.putAll(Arrays.asList(createMetacard("id1", "first"), createMetacard("id2", "second"),
+                createMetacard("id3", "third")));
+        store.delete("id2");
+        store.put(createMetacard("id3", "updated"));
+        store.close();
+
+        store = new SegmentedBackupStore(directory, 1024);
+
+        assertThat(store.size(), is(2));
+        assertThat(store.get("id1").getTitle(), is("first"));
+        assertThat(store.get("id2"), nullValue());
+        assertThat(store.get("id3").getTitle(), is("updated"));
+    }
+
+    @Test
+    public void testIteratorStreamsLatestVersions() throws Exception {
+        store.put(createMetacard("id1", "first"));
+        store.put(createMetacard("id2", "second"));
+        store.put(createMetacard("id1", "updated"));
+
+        List<String> titles = new ArrayList<>();
+        Iterator<Metacard> iterator = store.iterator();
+        while (iterator.hasNext()) {
+            titles.add(iterator.next().getTitle());
+        }
+
+        assertThat(titles, is(Arrays.asList("second", "updated")));
+    }
+
+    @Test
+    public void testCompactRemovesDeadSegments() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            store.put(createMetacard("id" + (i % 5), "title" + i));
+        }
+        int segmentsBefore = store.getSegmentCount();
+
+        int compacted = store.compact(0.5);
+
+        assertThat(compacted > 0, is(true));
+        assertThat(store.getSegmentCount() < segmentsBefore, is(true));
+        assertThat(store.size(), is(5));
+        for (int i = 45; i < 50; i++) {
+            assertThat(store.get("id" + (i % 5)).getTitle(), is("title" + i));
+        }
+
+        store.close();
+        store = new SegmentedBackupStore(directory, 1024);
+        assertThat(store.size(), is(5));
+        assertThat(store.get("id0").getTitle(), is("title45"));
+    }
+
+    @Test
+    public void testCompactKeepsDeletes() throws Exception {
+        store.put(createMetacard("id1", "first"));
+        for (int i = 0; i < 20; i++) {
+            store.put(createMetacard("other", "title" + i));
+        }
+        store.delete("id1");
+        for (int i = 0; i < 20; i++) {
+            store.put(createMetacard("other", "title" + i));
+        }
+
+        store.compact(1.0);
+        store.close();
+        store = new SegmentedBackupStore(directory, 1024);
+
+        assertThat(store.get("id1"), nullValue());
+        assertThat(store.get("other").getTitle(), is("title19"));
+    }
+
+    @Test
+    public void testTornRecordIsTruncated() throws Exception {
+        store.close();
+        store = new SegmentedBackupStore(directory, Long.MAX_VALUE);
+        store.put(createMetacard("id1", "first"));
+        store.put(createMetacard("id2", "second"));
+        store.close();
+
+        File segment = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith(SegmentedBackupStore.SEGMENT_PREFIX);
+            }
+        })[0];
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        store = new SegmentedBackupStore(directory, Long.MAX_VALUE);
+        assertThat(store.size(), is(1));
+        assertThat(store.get("id1").getTitle(), is("first"));
+
+        store.put(createMetacard("id3", "third"));
+        store.close();
+        store = new SegmentedBackupStore(directory, Long.MAX_VALUE);
+        assertThat(store.size(), is(2));
+        assertThat(store.get("id3").getTitle(), is("third"));
+    }
+
+    @Test
+    public void testUndeclaredAttributesAreBackedUp() throws Exception {
+        MetacardImpl metacard = createMetacard("id1", "first");
+        metacard.setAttribute("undeclared", "value");
+
+        store.put(metacard);
+
+        assertThat(store.get("id1").getAttribute("undeclared").getValue(),
+                is((Object) "value"));
+    }
+
+    @Test
+    public void testReadOnlyStoreDoesNotTruncate() throws Exception {
+        store.close();
+        store = new SegmentedBackupStore(directory, Long.MAX_VALUE);
+        store.put(createMetacard("id1", "first"));
+        store.put(createMetacard("id2", "second"));
+        store.close();
+
+        File segment = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith(SegmentedBackupStore.SEGMENT_PREFIX);
+            }
+        })[0];
+        long tornLength;
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.setLength(file.length() - 3);
+            tornLength = file.length();
+        }
+
+        store = new SegmentedBackupStore(directory, Long.MAX_VALUE, true);
+
+        assertThat(store.size(), is(1));
+        assertThat(store.get("id1").getTitle(), is("first"));
+        assertThat(segment.length(), is(tornLength));
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadOnlyStoreRejectsWrites() throws Exception {
+        store.put(createMetacard("id1", "first"));
+        store.close();
+
+        store = new SegmentedBackupStore(directory, 1024, true);
+        store.put(createMetacard("id2", "second"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testPutWithoutId() throws Exception {
+        store.put(new MetacardImpl());
+    }
+
+    private MetacardImpl createMetacard(String id, String title) {
+        MetacardImpl metacard = new MetacardImpl();
+        metacard.setId(id);
+        metacard.setTitle(title);
+        metacard.setSourceId("source");
+        return metacard;
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.benchmark;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.opengis.filter.Filter;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.filter.FilterBuilder;
+import ddf.catalog.filter.proxy.builder.GeotoolsFilterBuilder;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.SourceResponse;
+import ddf.catalog.operation.impl.QueryImpl;
+import ddf.catalog.operation.impl.QueryRequestImpl;
+import ddf.catalog.operation.impl.SourceResponseImpl;
+
+/**
+ * Generates the metacards, responses and filters the benchmarks run on. The same seed always
+ * generates the same data, so results of different builds are comparable.
+ */
+final class BenchmarkData {
+
+    /**
+     * Names of the filters returned by {@link #filter(String)}, from the simplest to the most
+     * complex.
+     */
+    static final String TITLE = "title";
+
+    static final String CONTEXTUAL = "contextual";
+
+    static final String SPATIAL = "spatial";
+
+    static final String TEMPORAL = "temporal";
+
+    static final String COMPOUND = "compound";
+
+    static final String NESTED = "nested";
+
+    private static final long SEED = 42;
+
+    private static final long EPOCH = 1420070400000L;
+
+    private static final String[] WORDS = {"airfield", "bridge", "convoy", "harbor", "pipeline",
+            "railway", "report", "satellite", "terrain", "weather"};
+
+    private static final String[] CONTENT_TYPES = {"image", "video", "document", "track"};
+
+    private static final FilterBuilder FILTER_BUILDER = new GeotoolsFilterBuilder();
+
+    private BenchmarkData() {
+    }
+
+    static List<Metacard> metacards(int count) {
+        Random random = new Random(SEED);
+        List<Metacard> metacards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            metacards.add(metacard(random, i));
+        }
+        return metacards;
+    }
+
+    static MetacardImpl metacard(Random random, int index) {
+        String title = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random
+                .nextInt(WORDS.length)] + " " + index;
+        Date modified = new Date(EPOCH + TimeUnit.MINUTES.toMillis(random.nextInt(500000)));
+        double lon = random.nextDouble() * 360 - 180;
+        double lat = random.nextDouble() * 180 - 90;
+
+        MetacardImpl metacard = new MetacardImpl();
+        metacard.setId(String.format("%032x", index));
+        metacard.setSourceId("source" + index % 5);
+        metacard.setTitle(title);
+        metacard.setContentTypeName(CONTENT_TYPES[random.nextInt(CONTENT_TYPES.length)]);
+        metacard.setContentTypeVersion("1.0");
+        metacard.setCreatedDate(modified);
+        metacard.setModifiedDate(modified);
+        metacard.setEffectiveDate(modified);
+        metacard.setLocation(String.format("POINT (%.6f %.6f)", lon, lat));
+        metacard.setResourceURI(URI.create("http://example.com/resources/" + index));
+        metacard.setResourceSize(Integer.toString(random.nextInt(1 << 20)));
+        metacard.setMetadata("<metadata><title>" + title + "</title><description>"
+                + WORDS[random.nextInt(WORDS.length)] + " observed at " + lat + ", " + lon
+                + "</description></metadata>");
+        return metacard;
+    }
+
+    /**
+     * @return the results of the given metacards, with descending relevance scores
+     */
+    static List<Result> results(List<Metacard> metacards) {
+        List<Result> results = new ArrayList<>(metacards.size());
+        for (int i = 0; i < metacards.size(); i++) {
+            ResultImpl result = new ResultImpl(metacards.get(i));
+            result.setRelevanceScore(1.0 - (double) i / metacards.size());
+            results.add(result);
+        }
+        return results;
+    }
+
+    static SourceResponse response(int count) {
+        QueryRequest request = new QueryRequestImpl(
+                new QueryImpl(filter(CONTEXTUAL), 1, count, null, true, 0));
+        return new SourceResponseImpl(request, results(metacards(count)), (long) count);
+    }
+
+    static Filter filter(String name) {
+        switch (name) {
+        case TITLE:
+            return FILTER_BUILDER.attribute(Metacard.TITLE).is().like().text("bridge");
+        case CONTEXTUAL:
+            return FILTER_BUILDER.anyOf(
+                    FILTER_BUILDER.attribute(Metacard.ANY_TEXT).is().like().text("convoy harbor"),
+                    FILTER_BUILDER.attribute(Metacard.ANY_TEXT).is().like()
+                            .caseSensitiveText("Satellite*"),
+                    FILTER_BUILDER.attribute(Metacard.ANY_TEXT).is().like().fuzzyText("terain"));
+        case SPATIAL:
+            return FILTER_BUILDER.attribute(Metacard.ANY_GEO).intersecting()
+                    .wkt("POLYGON ((-10 -10, 10 -10, 10 10, -10 10, -10 -10))");
+        case TEMPORAL:
+            return FILTER_BUILDER.attribute(Metacard.MODIFIED).is().during()
+                    .dates(new Date(EPOCH), new Date(EPOCH + TimeUnit.DAYS.toMillis(30)));
+        case COMPOUND:
+            return FILTER_BUILDER.allOf(filter(CONTEXTUAL),
+                    FILTER_BUILDER.anyOf(filter(SPATIAL), filter(TEMPORAL)), FILTER_BUILDER.not(
+                            FILTER_BUILDER.attribute(Metacard.CONTENT_TYPE).is().equalTo()
+                                    .text("video")));
+        case NESTED:
+            Filter filter = filter(COMPOUND);
+            for (int i = 0; i < 8; i++) {
+                filter = i % 2 == 0 ?
+                        FILTER_BUILDER.allOf(filter(TITLE), filter) :
+                        FILTER_BUILDER.anyOf(filter, filter(TEMPORAL));
+            }
+            return filter;
+        default:
+            throw new IllegalArgumentException("Unknown filter " + name);
+        }
+    }
+}
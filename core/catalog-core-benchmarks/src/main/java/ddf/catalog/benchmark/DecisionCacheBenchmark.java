@@ -0,0 +1,170 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.benchmark;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.SimpleAuthorizationInfo;
+import org.apache.shiro.mgt.DefaultSecurityManager;
+import org.apache.shiro.mgt.SecurityManager;
+import org.apache.shiro.realm.AuthorizingRealm;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.apache.shiro.subject.support.DelegatingSubject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.QueryResponse;
+import ddf.catalog.operation.impl.QueryImpl;
+import ddf.catalog.operation.impl.QueryRequestImpl;
+import ddf.catalog.operation.impl.QueryResponseImpl;
+import ddf.catalog.plugin.PluginExecutionException;
+import ddf.catalog.plugin.StopProcessingException;
+import ddf.catalog.security.filter.plugin.FilterPlugin;
+import ddf.security.SecurityConstants;
+import ddf.security.permission.KeyValueCollectionPermission;
+
+/**
+ * Measures filtering query responses by the security attributes of their metacards with the
+ * {@link FilterPlugin}, with decisions only shared within a query and with decisions remembered
+ * across queries by its decision cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecisionCacheBenchmark {
+
+    @Param({"0", "1000"})
+    public int decisionCacheSize;
+
+    @Param({"10", "100"})
+    public int combinations;
+
+    @Param({"1000"})
+    public int results;
+
+    private final FilterPlugin filterPlugin = new FilterPlugin();
+
+    private QueryRequest request;
+
+    private List<Result> securedResults;
+
+    @Setup
+    public void setUp() {
+        filterPlugin.setDecisionCacheSize(decisionCacheSize);
+
+        Map<String, List<String>> userAttributes = new HashMap<>();
+        userAttributes.put("Roles", Arrays.asList("A", "B"));
+        DefaultSecurityManager securityManager = new DefaultSecurityManager(
+                new AttributeRealm(userAttributes));
+        PrincipalCollection principals = new SimplePrincipalCollection("user",
+                AttributeRealm.NAME);
+
+        Map<String, Serializable> properties = new HashMap<>();
+        properties.put(SecurityConstants.SECURITY_SUBJECT,
+                new BenchmarkSubject(principals, securityManager));
+        request = new QueryRequestImpl(
+                new QueryImpl(BenchmarkData.filter(BenchmarkData.TITLE)), properties);
+
+        Random random = new Random(0);
+        securedResults = new ArrayList<>(results);
+        for (int i = 0; i < results; i++) {
+            int combination = random.nextInt(combinations);
+            HashMap<String, List<String>> security = new HashMap<>();
+            // every tenth combination is permitted
+            security.put("Roles", combination % 10 == 0 ?
+                    Arrays.asList("B", "A") :
+                    Arrays.asList("A", "C" + combination));
+            MetacardImpl metacard = BenchmarkData.metacard(random, i);
+            metacard.setSecurity(security);
+            securedResults.add(new ResultImpl(metacard));
+        }
+    }
+
+    @Benchmark
+    public QueryResponse filter() throws PluginExecutionException, StopProcessingException {
+        // the plugin removes the results it filters from the response
+        return filterPlugin.process(new QueryResponseImpl(request,
+                new ArrayList<>(securedResults), results));
+    }
+
+    private static class BenchmarkSubject extends DelegatingSubject
+            implements ddf.security.Subject {
+
+        BenchmarkSubject(PrincipalCollection principals, SecurityManager securityManager) {
+            super(principals, true, null, null, securityManager);
+        }
+
+        @Override
+        public boolean isAnonymous() {
+            return false;
+        }
+    }
+
+    /**
+     * Grants the same security attributes to every subject.
+     */
+    private static class AttributeRealm extends AuthorizingRealm {
+
+        static final String NAME = "benchmark";
+
+        private final AuthorizationInfo authorizationInfo;
+
+        AttributeRealm(Map<String, List<String>> attributes) {
+            SimpleAuthorizationInfo info = new SimpleAuthorizationInfo();
+            info.setObjectPermissions(Collections
+                    .<Permission>singleton(new KeyValueCollectionPermission(attributes)));
+            this.authorizationInfo = info;
+            setName(NAME);
+        }
+
+        @Override
+        protected AuthorizationInfo doGetAuthorizationInfo(PrincipalCollection principals) {
+            return authorizationInfo;
+        }
+
+        @Override
+        protected AuthenticationInfo doGetAuthenticationInfo(AuthenticationToken token) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.opengis.filter.sort.SortOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ddf.catalog.data.ContentType;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.federation.impl.SortedFederationStrategy;
+import ddf.catalog.filter.impl.SortByImpl;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.SourceResponse;
+import ddf.catalog.operation.impl.QueryImpl;
+import ddf.catalog.operation.impl.QueryRequestImpl;
+import ddf.catalog.operation.impl.SourceResponseImpl;
+import ddf.catalog.plugin.PostFederatedQueryPlugin;
+import ddf.catalog.plugin.PreFederatedQueryPlugin;
+import ddf.catalog.source.Source;
+import ddf.catalog.source.SourceMonitor;
+
+/**
+ * Measures federating a query to sources that answer immediately, which is dominated by the
+ * {@link SortedFederationStrategy} merging and sorting the results of every source.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FederationBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"1", "5", "20"})
+    public int sources;
+
+    @Param({"relevance", "temporal"})
+    public String sort;
+
+    private ExecutorService executor;
+
+    private SortedFederationStrategy strategy;
+
+    private List<Source> sourceList;
+
+    private QueryRequest request;
+
+    @Setup
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(sources + 2);
+        strategy = new SortedFederationStrategy(executor,
+                Collections.<PreFederatedQueryPlugin>emptyList(),
+                Collections.<PostFederatedQueryPlugin>emptyList());
+
+        List<Metacard> metacards = BenchmarkData.metacards(sources * PAGE_SIZE);
+        sourceList = new ArrayList<>(sources);
+        for (int i = 0; i < sources; i++) {
+            List<Result> results = BenchmarkData
+                    .results(metacards.subList(i * PAGE_SIZE, (i + 1) * PAGE_SIZE));
+            sourceList.add(new ImmediateSource("source" + i, results));
+        }
+
+        String sortProperty = "temporal".equals(sort) ? Metacard.EFFECTIVE : Result.RELEVANCE;
+        request = new QueryRequestImpl(new QueryImpl(BenchmarkData.filter(BenchmarkData.TITLE), 1,
+                PAGE_SIZE, new SortByImpl(sortProperty, SortOrder.DESCENDING), true, 0), true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public List<Result> federate() {
+        return strategy.federate(sourceList, request).getResults();
+    }
+
+    /**
+     * Source answering every query with the same results.
+     */
+    private static class ImmediateSource implements Source {
+
+        private final String id;
+
+        private final List<Result> results;
+
+        ImmediateSource(String id, List<Result> results) {
+            this.id = id;
+            this.results = results;
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public boolean isAvailable(SourceMonitor callback) {
+            return true;
+        }
+
+        @Override
+        public SourceResponse query(QueryRequest request) {
+            return new SourceResponseImpl(request, results, (long) results.size());
+        }
+
+        @Override
+        public Set<ContentType> getContentTypes() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public String getVersion() {
+            return "1.0";
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public String getTitle() {
+            return id;
+        }
+
+        @Override
+        public String getDescription() {
+            return id;
+        }
+
+        @Override
+        public String getOrganization() {
+            return "Codice";
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.common.SolrInputDocument;
+import org.opengis.filter.Filter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.filter.FilterAdapter;
+import ddf.catalog.filter.QueryTypes;
+import ddf.catalog.filter.proxy.adapter.GeotoolsFilterAdapterImpl;
+import ddf.catalog.metrics.QueryTypeFilterDelegate;
+import ddf.catalog.source.UnsupportedQueryException;
+import ddf.catalog.source.solr.DynamicSchemaResolver;
+import ddf.catalog.source.solr.SolrFilterDelegateFactoryImpl;
+
+/**
+ * Measures adapting filters to {@link ddf.catalog.filter.FilterDelegate}s: the cost of the
+ * {@link GeotoolsFilterAdapterImpl} itself with a delegate that does almost nothing, building Solr
+ * queries with the {@link ddf.catalog.source.solr.SolrFilterDelegate}, and classifying queries with
+ * {@link QueryTypes} instead of a delegate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterBenchmark {
+
+    @Param({BenchmarkData.TITLE, BenchmarkData.CONTEXTUAL, BenchmarkData.SPATIAL,
+            BenchmarkData.TEMPORAL, BenchmarkData.COMPOUND, BenchmarkData.NESTED})
+    public String filterName;
+
+    private final FilterAdapter filterAdapter = new GeotoolsFilterAdapterImpl();
+
+    private final SolrFilterDelegateFactoryImpl solrFilterDelegateFactory =
+            new SolrFilterDelegateFactoryImpl();
+
+    private final DynamicSchemaResolver resolver = new DynamicSchemaResolver();
+
+    private Filter filter;
+
+    @Setup
+    public void setUp() throws Exception {
+        filter = BenchmarkData.filter(filterName);
+
+        // registers the fields of the generated metacards, as a running Solr provider would
+        for (Metacard metacard : BenchmarkData.metacards(1)) {
+            resolver.addFields(metacard, new SolrInputDocument());
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public QueryTypeFilterDelegate adapt() throws UnsupportedQueryException {
+        QueryTypeFilterDelegate delegate = new QueryTypeFilterDelegate();
+        filterAdapter.adapt(filter, delegate);
+        return delegate;
+    }
+
+    @Benchmark
+    public SolrQuery solrQuery() throws UnsupportedQueryException {
+        return filterAdapter.adapt(filter, solrFilterDelegateFactory.newInstance(resolver));
+    }
+
+    @Benchmark
+    public int queryTypes() {
+        return QueryTypes.classify(filter);
+    }
+}
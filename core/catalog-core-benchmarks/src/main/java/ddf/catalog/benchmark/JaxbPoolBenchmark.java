@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.benchmark;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.transform.stream.StreamSource;
+
+import org.codice.ddf.spatial.ogc.catalog.common.JaxbPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ddf.catalog.data.Metacard;
+
+/**
+ * Measures marshalling and unmarshalling small documents, like the requests sent to OGC sources,
+ * with a marshaller or unmarshaller created for each document and with ones reused from a
+ * {@link JaxbPool}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JaxbPoolBenchmark {
+
+    private JAXBContext context;
+
+    private JaxbPool pool;
+
+    private Record record;
+
+    private String xml;
+
+    @Setup
+    public void setUp() throws JAXBException {
+        context = JAXBContext.newInstance(Record.class);
+        pool = new JaxbPool(context);
+
+        Metacard metacard = BenchmarkData.metacards(1).get(0);
+        record = new Record();
+        record.id = metacard.getId();
+        record.title = metacard.getTitle();
+        record.location = metacard.getLocation();
+        record.modified = metacard.getModifiedDate();
+        xml = pool.marshalToString(record);
+    }
+
+    @Benchmark
+    public String marshal() throws JAXBException {
+        // formatted, as JaxbPool.marshalToString does
+        Marshaller marshaller = context.createMarshaller();
+        marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+        StringWriter writer = new StringWriter();
+        marshaller.marshal(record, writer);
+        return writer.toString();
+    }
+
+    @Benchmark
+    public String marshalWithPool() throws JAXBException {
+        return pool.marshalToString(record);
+    }
+
+    @Benchmark
+    public Object unmarshal() throws JAXBException {
+        return context.createUnmarshaller().unmarshal(new StreamSource(new StringReader(xml)));
+    }
+
+    @Benchmark
+    public Object unmarshalWithPool() throws JAXBException {
+        return pool.unmarshal(new StreamSource(new StringReader(xml)));
+    }
+
+    @XmlRootElement
+    public static class Record {
+
+        public String id;
+
+        public String title;
+
+        public String location;
+
+        public Date modified;
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.AttributeImpl;
+import ddf.catalog.data.impl.MetacardImpl;
+
+/**
+ * Measures getting and setting the attributes of a {@link MetacardImpl}, and creating one with
+ * every basic attribute set.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetacardBenchmark {
+
+    private static final String[] ATTRIBUTES = {Metacard.ID, Metacard.TITLE, Metacard.MODIFIED,
+            Metacard.GEOGRAPHY, Metacard.CONTENT_TYPE, Metacard.METADATA, Metacard.RESOURCE_URI};
+
+    private final Random random = new Random(0);
+
+    private MetacardImpl metacard;
+
+    private Attribute title;
+
+    @Setup
+    public void setUp() {
+        metacard = BenchmarkData.metacard(random, 0);
+        title = new AttributeImpl(Metacard.TITLE, "benchmark title");
+    }
+
+    @Benchmark
+    public void getAttributes(Blackhole blackhole) {
+        for (String attribute : ATTRIBUTES) {
+            blackhole.consume(metacard.getAttribute(attribute));
+        }
+    }
+
+    @Benchmark
+    public void getTypedAttributes(Blackhole blackhole) {
+        blackhole.consume(metacard.getId());
+        blackhole.consume(metacard.getTitle());
+        blackhole.consume(metacard.getModifiedDate());
+        blackhole.consume(metacard.getLocation());
+        blackhole.consume(metacard.getContentTypeName());
+        blackhole.consume(metacard.getMetadata());
+        blackhole.consume(metacard.getResourceURI());
+    }
+
+    @Benchmark
+    public MetacardImpl setAttribute() {
+        metacard.setAttribute(title);
+        return metacard;
+    }
+
+    @Benchmark
+    public MetacardImpl create() {
+        return BenchmarkData.metacard(random, 1);
+    }
+}
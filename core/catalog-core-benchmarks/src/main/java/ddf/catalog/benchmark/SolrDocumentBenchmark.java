@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.benchmark;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.SolrInputField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.MetacardCreationException;
+import ddf.catalog.filter.proxy.adapter.GeotoolsFilterAdapterImpl;
+import ddf.catalog.source.solr.DynamicSchemaResolver;
+import ddf.catalog.source.solr.SchemaFields;
+import ddf.catalog.source.solr.SolrFilterDelegateFactoryImpl;
+import ddf.catalog.source.solr.SolrMetacardClient;
+
+/**
+ * Measures converting metacards to the Solr documents that index them, and the documents Solr
+ * returns back to metacards, with the {@link DynamicSchemaResolver}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolrDocumentBenchmark {
+
+    private final DynamicSchemaResolver resolver = new DynamicSchemaResolver();
+
+    private final SolrMetacardClient client = new SolrMetacardClient(null,
+            new GeotoolsFilterAdapterImpl(), new SolrFilterDelegateFactoryImpl(), resolver);
+
+    private Metacard metacard;
+
+    private SolrDocument document;
+
+    @Setup
+    public void setUp() throws Exception {
+        metacard = BenchmarkData.metacards(1).get(0);
+
+        SolrInputDocument inputDocument = new SolrInputDocument();
+        resolver.addFields(metacard, inputDocument);
+
+        // Solr only returns the stored fields: one per attribute, and the metacard type
+        Set<String> storedFields = new HashSet<>();
+        storedFields.add(SchemaFields.METACARD_TYPE_FIELD_NAME);
+        storedFields.add(SchemaFields.METACARD_TYPE_OBJECT_FIELD_NAME);
+        for (AttributeDescriptor descriptor : metacard.getMetacardType()
+                .getAttributeDescriptors()) {
+            storedFields.add(descriptor.getName() + resolver
+                    .getFieldSuffix(descriptor.getType().getAttributeFormat()));
+        }
+
+        document = new SolrDocument();
+        for (SolrInputField field : inputDocument) {
+            if (storedFields.contains(field.getName())) {
+                document.setField(field.getName(), field.getValue());
+            }
+        }
+    }
+
+    @Benchmark
+    public SolrInputDocument toDocument() throws MetacardCreationException {
+        SolrInputDocument inputDocument = new SolrInputDocument();
+        resolver.addFields(metacard, inputDocument);
+        return inputDocument;
+    }
+
+    @Benchmark
+    public Metacard toMetacard() throws MetacardCreationException {
+        return client.createMetacard(document);
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.benchmark;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.codice.ddf.configuration.ConfigurationManager;
+import org.codice.ddf.parser.xml.XmlParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ddf.catalog.operation.SourceResponse;
+import ddf.catalog.transform.CatalogTransformerException;
+import ddf.catalog.transformer.queryresponse.geojson.GeoJsonQueryResponseTransformer;
+import ddf.catalog.transformer.response.query.atom.AtomTransformer;
+import ddf.catalog.transformer.xml.XmlResponseQueueTransformer;
+
+/**
+ * Measures transforming query responses to XML, GeoJSON and Atom, reading the whole of each
+ * transformed response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransformerBenchmark {
+
+    @Param({"1000"})
+    public int results;
+
+    private final ForkJoinPool forkJoinPool = new ForkJoinPool();
+
+    private final XmlResponseQueueTransformer xmlTransformer = new XmlResponseQueueTransformer(
+            new XmlParser(), forkJoinPool);
+
+    private final GeoJsonQueryResponseTransformer geoJsonTransformer =
+            new GeoJsonQueryResponseTransformer();
+
+    private final AtomTransformer atomTransformer = new AtomTransformer();
+
+    private SourceResponse response;
+
+    @Setup
+    public void setUp() {
+        response = BenchmarkData.response(results);
+
+        Map<String, String> configuration = new HashMap<>();
+        configuration.put(ConfigurationManager.ORGANIZATION, "Codice");
+        configuration.put(ConfigurationManager.SITE_NAME, "benchmark");
+        configuration.put(ConfigurationManager.VERSION, "1.0");
+        atomTransformer.configurationUpdateCallback(configuration);
+    }
+
+    @TearDown
+    public void tearDown() {
+        forkJoinPool.shutdown();
+    }
+
+    @Benchmark
+    public byte[] xml() throws CatalogTransformerException, IOException {
+        return xmlTransformer.transform(response, null).getByteArray();
+    }
+
+    @Benchmark
+    public byte[] geoJson() throws CatalogTransformerException, IOException {
+        return geoJsonTransformer.transform(response, null).getByteArray();
+    }
+
+    @Benchmark
+    public byte[] atom() throws CatalogTransformerException, IOException {
+        return atomTransformer.transform(response, null).getByteArray();
+    }
+}
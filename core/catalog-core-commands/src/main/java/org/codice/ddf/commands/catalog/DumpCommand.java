@@ -122,6 +122,22 @@ public class DumpCommand extends CatalogCommands {
                     + "will be used to name each subdirectory level.")
     int dirLevel = 0;
 
+    @Option(name = "--archive", required = false, aliases = {"-a"}, multiValued = false,
+            description = "Export Metacards into a compressed, segmented archive that can be "
+                    + "loaded with catalog:ingest. Metacards are paged in order of their IDs, so "
+                    + "large catalogs are exported in linear time.")
+    boolean archive = false;
+
+    @Option(name = "--resume", required = false, aliases = {"-r"}, multiValued = false,
+            description = "Resume an interrupted archive export from its last checkpoint. The "
+                    + "same filter options must be supplied.")
+    boolean resume = false;
+
+    @Option(name = "--segmentsize", required = false, aliases = {"-s"}, multiValued = false,
+            description = "Number of Metacards to write to each archive segment. A checkpoint is "
+                    + "written after each segment.")
+    int segmentSize = 10000;
+
     @Override
     protected Object doExecute() throws Exception {
         final File dumpDir = new File(dirPath);
@@ -137,7 +153,21 @@ protected Object doExecute() throws Exception {
             return null;
         }
 
-        if (!DEFAULT_TRANSFORMER_ID.matches(transformerId)) {
+        if (resume && !archive) {
+            printErrorMessage("--resume can only be used with --archive.");
+            return null;
+        }
+
+        if (archive) {
+            if (!DEFAULT_TRANSFORMER_ID.matches(transformerId)) {
+                printErrorMessage("Archives can only be written with the default transformer.");
+                return null;
+            }
+            if (pageSize <= 0 || segmentSize <= 0) {
+                printErrorMessage("Batch size and segment size must be greater than 0.");
+                return null;
+            }
+        } else if (!DEFAULT_TRANSFORMER_ID.matches(transformerId)) {
             transformers = getTransformers();
             if (transformers == null) {
                 console.println(transformerId + " is an invalid metacard transformer.");
@@ -199,6 +229,11 @@ protected Object doExecute() throws Exception {
             filter = CQL.toFilter(cqlFilter);
         }
 
+        if (archive) {
+            dumpArchive(dumpDir, catalog, filter);
+            return null;
+        }
+
         QueryImpl query = new QueryImpl(filter);
         query.setRequestsTotalResultsCount(false);
         query.setPageSize(pageSize);
@@ -272,6 +307,51 @@ public void run() {
         return null;
     }
 
+    /**
+     * Pages through the catalog with an {@link IdCursor}, so every query costs the same regardless
+     * of how far into the catalog the dump is.
+     */
+    private void dumpArchive(File dumpDir, CatalogFacade catalog, Filter filter)
+            throws Exception {
+        Map<String, Serializable> props = new HashMap<String, Serializable>();
+        // Avoid caching all results while dumping with native query mode
+        props.put("mode", "native");
+
+        long start = System.currentTimeMillis();
+
+        try (MetacardArchive.Writer writer = new MetacardArchive.Writer(dumpDir, segmentSize,
+                resume)) {
+            if (writer.isComplete()) {
+                console.printf(" Archive in [%s] is already complete with %d metacard(s)%n",
+                        dirPath, writer.getRecordCount());
+                return;
+            }
+
+            long resultCount = writer.getRecordCount();
+            IdCursor cursor = new IdCursor(catalog, filter, pageSize, props);
+            if (writer.getLastId() != null) {
+                console.printf(" Resuming after %d metacard(s)%n", resultCount);
+                cursor.seek(writer.getLastId());
+            }
+
+            for (List<Metacard> metacards = cursor.nextPage(); metacards != null;
+                    metacards = cursor.nextPage()) {
+                for (Metacard metacard : metacards) {
+                    writer.write(metacard);
+                    printStatus(++resultCount);
+                }
+            }
+
+            writer.finish();
+
+            long end = System.currentTimeMillis();
+            String elapsedTime = timeFormatter.print(new Period(start, end).withMillis(0));
+            console.printf(" %d file(s) dumped in %s\t%n", resultCount, elapsedTime);
+            LOGGER.info("{} file(s) dumped to archive in {}", resultCount, elapsedTime);
+            console.println();
+        }
+    }
+
     private void exportMetacard(File dumpLocation, Metacard metacard)
             throws IOException, CatalogTransformerException {
 
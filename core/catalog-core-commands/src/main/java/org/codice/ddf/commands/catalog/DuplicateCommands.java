@@ -14,10 +14,15 @@
 package org.codice.ddf.commands.catalog;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -26,7 +31,14 @@
 import java.util.Collections;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -39,12 +51,14 @@
 
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.federation.FederationException;
 import ddf.catalog.filter.FilterBuilder;
 import ddf.catalog.operation.CreateRequest;
 import ddf.catalog.operation.CreateResponse;
 import ddf.catalog.operation.impl.CreateRequestImpl;
 import ddf.catalog.source.IngestException;
 import ddf.catalog.source.SourceUnavailableException;
+import ddf.catalog.source.UnsupportedQueryException;
 
 public abstract class DuplicateCommands extends CatalogCommands {
 
@@ -54,6 +68,8 @@ public abstract class DuplicateCommands extends CatalogCommands {
 
     private static final String DATE_FORMAT = "MM-dd-yyyy";
 
+    private static final long QUEUE_POLL_MILLIS = 100;
+
     protected FilterBuilder builder;
 
     protected AtomicInteger failedCount = new AtomicInteger(0);
@@ -106,29 +122,225 @@ public abstract class DuplicateCommands extends CatalogCommands {
                     + "\tComplex:   search --cql \"title like 'some text' AND modified before 2012-09-01T12:30:00Z\"")
     String cqlFilter = null;
 
-    private List<Metacard> failedMetacards = Collections
+    @Option(name = "--checkpoint", required = false, aliases = {
+            "-c"}, multiValued = false, description = "File in which to record the progress of the command. If the file already exists, the command resumes after the last page recorded in it.")
+    String checkpointFile;
+
+    protected AtomicInteger ingestCount = new AtomicInteger(0);
+
+    protected List<Metacard> failedMetacards = Collections
             .synchronizedList(new ArrayList<Metacard>());
 
     abstract List<Metacard> query(CatalogFacade facade, int startIndex, Filter filter);
 
     /**
+     * Creates the cursor the reader stage uses to page through the query results. By default,
+     * pages are read by start index using {@link #query(CatalogFacade, int, Filter)}; commands
+     * whose source supports it should page by a sort key instead, so reading a page does not get
+     * slower the further into the results it is.
      *
-     * @param queryFacade
-     *            - the CatalogFacade used for query
-     * @param ingestFacade
-     *            - the CatalogFacade used for ingest
-     * @param startIndex
-     *            - the start index of the query
-     * @param filter
-     *            - the filter to query with
-     * @return - the number of successfully created metacards.
+     * @param queryFacade   the CatalogFacade used for query
+     * @param filter        the filter to query with
+     * @param totalPossible number of results reported by the source
+     */
+    protected ResultCursor createCursor(final CatalogFacade queryFacade, final Filter filter,
+            final long totalPossible) {
+        return new ResultCursor() {
+            private int startIndex = 1;
+
+            @Override
+            public List<Metacard> nextPage() throws SourceUnavailableException {
+                if (startIndex > totalPossible) {
+                    return null;
+                }
+                List<Metacard> metacards = query(queryFacade, startIndex, filter);
+                if (metacards == null) {
+                    throw new SourceUnavailableException(
+                            "Unable to read the page at index " + startIndex + ".");
+                }
+                startIndex += batchSize;
+                return metacards;
+            }
+
+            @Override
+            public String getPosition() {
+                return Integer.toString(startIndex);
+            }
+
+            @Override
+            public void seek(String position) {
+                startIndex = Integer.parseInt(position);
+            }
+        };
+    }
+
+    /**
+     * Copies the query results into the ingest facade. A single reader pages through the results
+     * and hands each page to a bounded queue, from which {@code multithreaded} writers ingest
+     * them, so reading the next page overlaps with ingesting the previous ones. When a checkpoint
+     * file is given, the position after the last page ingested without gaps is recorded in it and
+     * a later run resumes from there.
+     * <p/>
+     * Reading stops at the first page that cannot be read, or once every writer has stopped, and
+     * the checkpoint is only marked complete when every page up to the end of the results has been
+     * ingested.
+     *
+     * @param queryFacade   the CatalogFacade used for query
+     * @param ingestFacade  the CatalogFacade used for ingest
+     * @param filter        the filter to query with
+     * @param totalPossible number of results reported by the source
+     * @param start         start time of the command, used for progress reporting
      */
-    protected int queryAndIngest(CatalogFacade queryFacade, CatalogFacade ingestFacade,
-            int startIndex, Filter filter) {
-        List<Metacard> queryMetacards = null;
-        queryMetacards = query(queryFacade, startIndex, filter);
+    protected void duplicate(CatalogFacade queryFacade, final CatalogFacade ingestFacade,
+            Filter filter, final long totalPossible, final long start)
+            throws IOException, InterruptedException {
+        ResultCursor cursor = createCursor(queryFacade, filter, totalPossible);
+
+        final Checkpoint checkpoint =
+                StringUtils.isNotBlank(checkpointFile) ? new Checkpoint(new File(checkpointFile))
+                        : null;
+        if (checkpoint != null && checkpoint.getPosition() != null) {
+            if (checkpoint.isComplete()) {
+                console.println("Checkpoint [" + checkpointFile
+                        + "] is from a completed run. Nothing to resume.");
+                return;
+            }
+            console.println("Resuming from checkpoint [" + checkpointFile + "].");
+            cursor.seek(checkpoint.getPosition());
+            ingestCount.set(checkpoint.getIngested());
+            failedCount.set(checkpoint.getFailed());
+        }
+
+        int writerCount = Math.max(1, multithreaded);
+        if (writerCount > 1) {
+            console.printf("Running %d threads during replication.%n", writerCount);
+        }
+
+        final BlockingQueue<Page> pages = new ArrayBlockingQueue<Page>(writerCount);
+        final AtomicInteger liveWriters = new AtomicInteger(writerCount);
+        ExecutorService writers = Executors.newFixedThreadPool(writerCount);
+        for (int i = 0; i < writerCount; i++) {
+            writers.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (Page page = pages.take(); page != Page.END; page = pages.take()) {
+                            int count = ingestPage(ingestFacade, page.metacards);
+                            printProgressAndFlush(start, totalPossible,
+                                    ingestCount.addAndGet(count));
+                            if (checkpoint != null) {
+                                writeCheckpoint(checkpoint, page, count);
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (RuntimeException | Error e) {
+                        LOGGER.error("Ingest thread stopped unexpectedly.", e);
+                        throw e;
+                    } finally {
+                        liveWriters.decrementAndGet();
+                    }
+                }
+            });
+        }
+        writers.shutdown();
+
+        long pagesRead = 0;
+        boolean exhausted = false;
+        try {
+            while (true) {
+                List<Metacard> metacards;
+                try {
+                    metacards = cursor.nextPage();
+                } catch (UnsupportedQueryException | SourceUnavailableException
+                        | FederationException e) {
+                    LOGGER.warn("Unable to read page {}.", pagesRead, e);
+                    printErrorMessage("Unable to read the next page of results: " + e.getMessage()
+                            + getResumeHint());
+                    break;
+                }
+                if (metacards == null) {
+                    exhausted = true;
+                    break;
+                }
+                LOGGER.debug("Read page {} at position {}", pagesRead, cursor.getPosition());
+                if (!offer(pages, new Page(pagesRead, metacards, cursor.getPosition()),
+                        liveWriters)) {
+                    printErrorMessage("All ingest threads stopped." + getResumeHint());
+                    break;
+                }
+                pagesRead++;
+            }
+        } finally {
+            stopWriters(writers, pages, liveWriters, writerCount);
+        }
+
+        if (checkpoint != null && exhausted && !checkpoint.complete(pagesRead)) {
+            printErrorMessage("Not every page was ingested." + getResumeHint());
+        }
+    }
 
-        if (queryMetacards == null || queryMetacards.isEmpty()) {
+    private String getResumeHint() {
+        return StringUtils.isNotBlank(checkpointFile) ?
+                " Run the command again with --checkpoint " + checkpointFile + " to resume." :
+                " Use --checkpoint to let a later run resume.";
+    }
+
+    /**
+     * Hands a page to the writers, waiting while the queue is full as long as a writer is left to
+     * take it.
+     *
+     * @return false if every writer has stopped
+     */
+    private boolean offer(BlockingQueue<Page> pages, Page page, AtomicInteger liveWriters)
+            throws InterruptedException {
+        while (liveWriters.get() > 0) {
+            if (pages.offer(page, QUEUE_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tells each writer still running to stop once the queued pages are ingested, and waits for
+     * them to do so.
+     */
+    private void stopWriters(ExecutorService writers, BlockingQueue<Page> pages,
+            AtomicInteger liveWriters, int writerCount) throws InterruptedException {
+        try {
+            for (int i = 0; i < writerCount; i++) {
+                if (!offer(pages, Page.END, liveWriters)) {
+                    break;
+                }
+            }
+            while (!writers.awaitTermination(QUEUE_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                LOGGER.debug("Waiting for {} ingest thread(s) to finish.", liveWriters.get());
+            }
+        } catch (InterruptedException e) {
+            writers.shutdownNow();
+            throw e;
+        }
+    }
+
+    private void writeCheckpoint(Checkpoint checkpoint, Page page, int ingested) {
+        try {
+            checkpoint.completed(page.sequence, page.position, ingested,
+                    page.metacards.size() - ingested);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to write checkpoint [{}]", checkpointFile, e);
+        }
+    }
+
+    /**
+     * Ingests a page of query results.
+     *
+     * @param ingestFacade - the CatalogFacade used for ingest
+     * @param queryMetacards - the metacards to ingest
+     * @return - the number of successfully created metacards.
+     */
+    protected int ingestPage(CatalogFacade ingestFacade, List<Metacard> queryMetacards) {
+        if (queryMetacards.isEmpty()) {
             return 0;
         }
 
@@ -288,4 +500,158 @@ protected void writeFailedMetacards(List<Metacard> failedMetacards)
         }
     }
 
+    /**
+     * Reads the results of a query one page at a time.
+     */
+    protected interface ResultCursor {
+
+        /**
+         * Reads the next page. If the page cannot be read, the cursor does not move.
+         *
+         * @return the next page of results, or {@code null} once there are no more pages to read
+         */
+        List<Metacard> nextPage()
+                throws UnsupportedQueryException, SourceUnavailableException, FederationException;
+
+        /**
+         * @return the position after the last page returned by {@link #nextPage()}
+         */
+        String getPosition();
+
+        /**
+         * Moves the cursor to a position previously returned by {@link #getPosition()}.
+         */
+        void seek(String position);
+    }
+
+    private static final class Page {
+
+        private static final Page END = new Page(-1, Collections.<Metacard>emptyList(), null);
+
+        private final long sequence;
+
+        private final List<Metacard> metacards;
+
+        private final String position;
+
+        private Page(long sequence, List<Metacard> metacards, String position) {
+            this.sequence = sequence;
+            this.metacards = metacards;
+            this.position = position;
+        }
+    }
+
+    /**
+     * Progress recorded in the checkpoint file. Writers finish pages out of order, so the
+     * checkpoint only advances past a page, and only counts its metacards, once every page read
+     * before it has been ingested.
+     */
+    private static final class Checkpoint {
+
+        private static final String POSITION = "position";
+
+        private static final String INGESTED = "ingested";
+
+        private static final String FAILED = "failed";
+
+        private static final String COMPLETE = "complete";
+
+        private final File file;
+
+        private final Properties properties = new Properties();
+
+        private final Map<Long, CompletedPage> completed = new HashMap<Long, CompletedPage>();
+
+        private long nextSequence = 0;
+
+        private int ingested;
+
+        private int failed;
+
+        private Checkpoint(File file) throws IOException {
+            this.file = file;
+            if (file.isFile()) {
+                try (InputStream in = new FileInputStream(file)) {
+                    properties.load(in);
+                }
+            }
+            ingested = Integer.parseInt(properties.getProperty(INGESTED, "0"));
+            failed = Integer.parseInt(properties.getProperty(FAILED, "0"));
+        }
+
+        private String getPosition() {
+            return properties.getProperty(POSITION);
+        }
+
+        private synchronized int getIngested() {
+            return ingested;
+        }
+
+        private synchronized int getFailed() {
+            return failed;
+        }
+
+        private boolean isComplete() {
+            return Boolean.parseBoolean(properties.getProperty(COMPLETE));
+        }
+
+        private synchronized void completed(long sequence, String position, int pageIngested,
+                int pageFailed) throws IOException {
+            completed.put(sequence, new CompletedPage(position, pageIngested, pageFailed));
+
+            String lastPosition = null;
+            while (completed.containsKey(nextSequence)) {
+                CompletedPage page = completed.remove(nextSequence++);
+                lastPosition = page.position;
+                ingested += page.ingested;
+                failed += page.failed;
+            }
+
+            if (lastPosition != null) {
+                properties.setProperty(POSITION, lastPosition);
+                write();
+            }
+        }
+
+        /**
+         * Marks the run complete if every page read has been ingested.
+         *
+         * @param pages the number of pages read
+         * @return true if the checkpoint was marked complete
+         */
+        private synchronized boolean complete(long pages) throws IOException {
+            if (nextSequence != pages) {
+                return false;
+            }
+            properties.setProperty(COMPLETE, Boolean.TRUE.toString());
+            write();
+            return true;
+        }
+
+        private void write() throws IOException {
+            properties.setProperty(INGESTED, Integer.toString(ingested));
+            properties.setProperty(FAILED, Integer.toString(failed));
+
+            File temp = new File(file.getPath() + ".tmp");
+            try (OutputStream out = new FileOutputStream(temp)) {
+                properties.store(out, null);
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static final class CompletedPage {
+
+        private final String position;
+
+        private final int ingested;
+
+        private final int failed;
+
+        private CompletedPage(String position, int ingested, int failed) {
+            this.position = position;
+            this.ingested = ingested;
+            this.failed = failed;
+        }
+    }
 }
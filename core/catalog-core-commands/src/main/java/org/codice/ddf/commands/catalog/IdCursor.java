@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.commands.catalog;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.codice.ddf.commands.catalog.facade.CatalogFacade;
+import org.geotools.filter.FilterFactoryImpl;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory;
+import org.opengis.filter.sort.SortOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.federation.FederationException;
+import ddf.catalog.filter.impl.SortByImpl;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.SourceResponse;
+import ddf.catalog.operation.impl.QueryImpl;
+import ddf.catalog.operation.impl.QueryRequestImpl;
+import ddf.catalog.source.SourceUnavailableException;
+import ddf.catalog.source.UnsupportedQueryException;
+
+/**
+ * Pages through the results of a query in ascending order of metacard ID. Each page asks for the
+ * IDs after the last one received rather than for a start index, so every page costs the same
+ * regardless of how far into the results it is.
+ */
+class IdCursor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdCursor.class);
+
+    private static final FilterFactory FILTER_FACTORY = new FilterFactoryImpl();
+
+    private final CatalogFacade catalog;
+
+    private final Filter filter;
+
+    private final int pageSize;
+
+    private final Map<String, Serializable> properties;
+
+    private String lastId;
+
+    private boolean exhausted = false;
+
+    /**
+     * @param catalog    the CatalogFacade to query
+     * @param filter     the filter to page through
+     * @param pageSize   the number of metacards to request per page
+     * @param properties the properties of each query request, may be {@code null}
+     */
+    IdCursor(CatalogFacade catalog, Filter filter, int pageSize,
+            Map<String, Serializable> properties) {
+        this.catalog = catalog;
+        this.filter = filter;
+        this.pageSize = pageSize;
+        this.properties = properties;
+    }
+
+    /**
+     * Reads the next page. If the query fails, the cursor does not move, so the same page is read
+     * again by the next call.
+     *
+     * @return the next page of metacards, or {@code null} once every page has been read
+     */
+    List<Metacard> nextPage()
+            throws UnsupportedQueryException, SourceUnavailableException, FederationException {
+        if (exhausted) {
+            return null;
+        }
+
+        Filter pageFilter = filter;
+        if (lastId != null) {
+            pageFilter = FILTER_FACTORY.and(filter, FILTER_FACTORY
+                    .greater(FILTER_FACTORY.property(Metacard.ID),
+                            FILTER_FACTORY.literal(lastId)));
+        }
+        QueryImpl query = new QueryImpl(pageFilter, 1, pageSize,
+                new SortByImpl(Metacard.ID, SortOrder.ASCENDING), false, 0);
+        LOGGER.debug("Querying after id: {}", lastId);
+
+        List<Result> results = query(new QueryRequestImpl(query, properties)).getResults();
+
+        exhausted = results.size() < pageSize;
+        if (results.isEmpty()) {
+            return null;
+        }
+
+        List<Metacard> metacards = new ArrayList<Metacard>(results.size());
+        for (Result result : results) {
+            metacards.add(result.getMetacard());
+        }
+        lastId = metacards.get(metacards.size() - 1).getId();
+        return metacards;
+    }
+
+    /**
+     * Runs the query for a single page. Subclasses can override this to reject responses the
+     * source reported problems with.
+     */
+    protected SourceResponse query(QueryRequest request)
+            throws UnsupportedQueryException, SourceUnavailableException, FederationException {
+        return catalog.query(request);
+    }
+
+    /**
+     * @return the ID of the last metacard read, or {@code null} if no page has been read
+     */
+    String getLastId() {
+        return lastId;
+    }
+
+    /**
+     * Moves the cursor so the next page starts after the given ID.
+     */
+    void seek(String id) {
+        lastId = id;
+        exhausted = false;
+    }
+}
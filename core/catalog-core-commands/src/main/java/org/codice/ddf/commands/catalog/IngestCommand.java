@@ -33,6 +33,7 @@
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.felix.gogo.commands.Argument;
@@ -86,7 +87,8 @@ public class IngestCommand extends CatalogCommands {
 
     @Argument(name = "File path or Directory path", description =
             "File path to a record or a directory of files to be ingested. Paths are absolute and must be in quotes."
-                    + " This command can only detect roughly 2 billion records in one folder. Individual operating system limits might also apply.", index = 0, multiValued = false, required = true)
+                    + " This command can only detect roughly 2 billion records in one folder. Individual operating system limits might also apply."
+                    + " A directory written by catalog:dump --archive is ingested as an archive.", index = 0, multiValued = false, required = true)
     String filePath = null;
 
     // DDF-535: Remove this argument in ddf-3.0
@@ -105,7 +107,7 @@ public class IngestCommand extends CatalogCommands {
 
     // DDF-535: remove "-d" and "Ingest Failure Directory" aliases in ddf-3.0
     @Option(name = "--failedDir", required = false, aliases = {"-d", "-f",
-            "Ingest Failure Directory"}, multiValued = false, description = "The directory to put files that failed to ingest.  Using this option will force a batch size of 1.")
+            "Ingest Failure Directory"}, multiValued = false, description = "The directory to put files that failed to ingest.  When ingesting with a single thread, using this option will force a batch size of 1.")
     String failedDir = null;
 
     @Option(name = "--batchsize", required = false, aliases = {
@@ -146,17 +148,20 @@ protected Object doExecute() throws Exception {
             }
 
             /**
-             * Batch size is always set to 1, when using an Ingest Failure Directory.  If a batch size is specified by the user, issue
-             * a warning stating that a batch size of 1 will be used.
+             * When ingesting with a single thread, batch size is always set to 1 when using an Ingest Failure Directory.  If a
+             * batch size is specified by the user, issue a warning stating that a batch size of 1 will be used.  The
+             * multithreaded pipeline keeps track of the file behind each metacard, so it can keep batching.
              */
-            if (batchSize != DEFAULT_BATCH_SIZE) {
-                console.println(
-                        "WARNING: An ingest failure directory was supplied in addition to a batch size of "
-                                + batchSize
-                                + ". When using an ingest failure directory, the batch size must be 1. Setting batch size to 1.");
-            }
+            if (multithreaded <= 1) {
+                if (batchSize != DEFAULT_BATCH_SIZE) {
+                    console.println(
+                            "WARNING: An ingest failure directory was supplied in addition to a batch size of "
+                                    + batchSize
+                                    + ". When using an ingest failure directory, the batch size must be 1. Setting batch size to 1.");
+                }
 
-            batchSize = 1;
+                batchSize = 1;
+            }
         }
 
         BlockingQueue<Runnable> blockingQueue = new ArrayBlockingQueue<Runnable>(multithreaded);
@@ -164,7 +169,14 @@ protected Object doExecute() throws Exception {
         ExecutorService executorService = new ThreadPoolExecutor(multithreaded, multithreaded, 0L,
                 TimeUnit.MILLISECONDS, blockingQueue, rejectedExecutionHandler);
 
-        if (inputFile.isDirectory()) {
+        if (inputFile.isDirectory() && MetacardArchive.isArchive(inputFile)) {
+            try {
+                ingestArchive(inputFile, catalog, executorService);
+            } finally {
+                executorService.shutdown();
+            }
+            return null;
+        } else if (inputFile.isDirectory()) {
             final long start = System.currentTimeMillis();
 
             executorService.submit(new Runnable() {
@@ -179,7 +191,6 @@ public void run() {
             IngestVisitor visitor = new IngestVisitor(start, catalog, executorService);
             try {
                 Files.walkFileTree(Paths.get(filePath), visitor);
-                visitor.done();
             } finally {
                 executorService.shutdown();
             }
@@ -192,6 +203,8 @@ public void run() {
                 }
             }
 
+            visitor.done();
+
             printProgressAndFlush(start, fileCount.get(), ingestCount.get());
 
             long end = System.currentTimeMillis();
@@ -199,6 +212,7 @@ public void run() {
             console.println();
             String elapsedTime = timeFormatter.print(new Period(start, end).withMillis(0));
             console.printf(" %d file(s) ingested in %s", ingestCount.get(), elapsedTime);
+            visitor.printStageTimes();
             LOGGER.info("{} file(s) ingested in {} [{} records/sec]", ingestCount.get(),
                     elapsedTime, calculateRecordsPerSecond(ingestCount.get(), start, end));
             INGEST_LOGGER.info("{} file(s) ingested in {} [{} records/sec]", ingestCount.get(),
@@ -277,6 +291,73 @@ public void run() {
         return null;
     }
 
+    /**
+     * Ingests an archive written by {@code catalog:dump --archive}. Segments are read in order and
+     * each batch is handed to the executor, so reading the archive overlaps with ingesting it.
+     */
+    private void ingestArchive(File archiveDirectory, final CatalogFacade catalog,
+            ExecutorService executorService) throws IOException, InterruptedException {
+        if (!MetacardArchive.isComplete(archiveDirectory)) {
+            printErrorMessage("Archive in [" + archiveDirectory.getAbsolutePath()
+                    + "] is incomplete. Only the metacards in its complete segments will be ingested.");
+        }
+
+        final long start = System.currentTimeMillis();
+        final long total = MetacardArchive.getRecordCount(archiveDirectory);
+        final AtomicInteger failedBatches = new AtomicInteger();
+
+        try (MetacardArchive.Reader reader = new MetacardArchive.Reader(archiveDirectory)) {
+            ArrayList<Metacard> metacards = new ArrayList<Metacard>(batchSize);
+            while (reader.hasNext() && !executorService.isShutdown()) {
+                metacards.add(reader.next());
+
+                if (metacards.size() == batchSize || !reader.hasNext()) {
+                    final ArrayList<Metacard> batch = metacards;
+                    metacards = new ArrayList<Metacard>(batchSize);
+
+                    Runnable ingestBatch = new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                if (!processBatch(catalog, batch)) {
+                                    failedBatches.incrementAndGet();
+                                }
+                            } catch (SourceUnavailableException e) {
+                                // Catalog framework logs these exceptions to the ingest logger so we don't have to.
+                                failedBatches.incrementAndGet();
+                            }
+                            printProgressAndFlush(start, total, ingestCount.get());
+                        }
+                    };
+
+                    if (multithreaded > 1) {
+                        executorService.submit(ingestBatch);
+                    } else {
+                        ingestBatch.run();
+                    }
+                }
+            }
+        }
+
+        executorService.shutdown();
+        executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+
+        long end = System.currentTimeMillis();
+        console.println();
+        String elapsedTime = timeFormatter.print(new Period(start, end).withMillis(0));
+        console.printf(" %d file(s) ingested in %s", ingestCount.get(), elapsedTime);
+        LOGGER.info("{} file(s) ingested from archive in {} [{} records/sec]", ingestCount.get(),
+                elapsedTime, calculateRecordsPerSecond(ingestCount.get(), start, end));
+        INGEST_LOGGER.info("{} file(s) ingested from archive in {} [{} records/sec]",
+                ingestCount.get(), elapsedTime,
+                calculateRecordsPerSecond(ingestCount.get(), start, end));
+        if (failedBatches.get() > 0) {
+            console.println();
+            printErrorMessage(failedBatches.get()
+                    + " batch(es) failed to be ingested.  See the ingest log for more details.");
+        }
+    }
+
     /**
      * Helper method to build ingest log strings
      */
@@ -504,10 +585,15 @@ private class IngestVisitor extends SimpleFileVisitor<Path> {
 
         private ArrayList<Metacard> metacards = new ArrayList<Metacard>(batchSize);
 
+        private IngestPipeline pipeline;
+
         public IngestVisitor(long start, CatalogFacade catalog, ExecutorService executorService) {
             this.start = start;
             this.catalog = catalog;
             this.executorService = executorService;
+            if (multithreaded > 1) {
+                this.pipeline = new IngestPipeline(start, catalog, executorService);
+            }
         }
 
         @Override
@@ -516,6 +602,10 @@ public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) throws IO
             final File file = path.toFile();
 
             if (multithreaded > 1) {
+                if (pipeline.isAborted()) {
+                    return FileVisitResult.TERMINATE;
+                }
+
                 executorService.submit(new Runnable() {
                     @Override
                     public void run() {
@@ -527,37 +617,15 @@ public void run() {
                             result = null;
                             logIngestException(e, file);
                             if (failedIngestDirectory == null) {
-                                executorService.shutdownNow();
+                                pipeline.abort();
                             } else {
                                 moveToFailedIngestDirectory(file);
                             }
                         }
 
-                        CreateResponse createResponse = null;
-
                         if (result != null) {
-                            try {
-                                CreateRequest createRequest = new CreateRequestImpl(result);
-                                createResponse = catalog.create(createRequest);
-                            } catch (IngestException e) {
-                                createResponse = null;
-                                if (failedIngestDirectory == null) {
-                                    executorService.shutdownNow();
-                                } else {
-                                    logIngestException(e, file);
-                                    moveToFailedIngestDirectory(file);
-                                }
-                            } catch (SourceUnavailableException e) {
-                                // Catalog framework logs these exceptions to the ingest logger so we don't have to.
-                                executorService.shutdownNow();
-                            }
+                            pipeline.put(file, result);
                         }
-
-                        if (createResponse != null) {
-                            ingestCount.getAndAdd(createResponse.getCreatedMetacards().size());
-                        }
-
-                        printProgressAndFlush(start, fileCount.get(), ingestCount.get());
                     }
                 });
             } else {
@@ -600,11 +668,228 @@ public void run() {
             return FileVisitResult.CONTINUE;
         }
 
+        /**
+         * Ingests the remaining metacards. Must be called once every file has been read.
+         */
         public void done() throws SourceUnavailableException {
-            if (metacards.size() > 0) {
+            if (pipeline != null) {
+                pipeline.finish();
+            } else if (metacards.size() > 0) {
                 processBatch(catalog, metacards);
             }
         }
+
+        public void printStageTimes() {
+            if (pipeline != null) {
+                pipeline.printStageTimes();
+            }
+        }
+    }
+
+    /**
+     * Staged ingest used when ingesting a directory with more than one thread. Files are read and
+     * transformed on the command's executor and handed to a bounded queue, from which a separate
+     * set of ingest workers build create requests of up to {@code batchSize} metacards, regardless
+     * of which file each metacard came from.
+     * <p/>
+     * The queue holds at most a few batches, so readers block once the catalog falls behind instead
+     * of holding every parsed metacard in memory. The time each stage spends waiting on the other is
+     * reported once the ingest completes, which shows whether reading or ingesting is the
+     * bottleneck.
+     */
+    class IngestPipeline {
+
+        private static final long POLL_MILLIS = 100;
+
+        private final long start;
+
+        private final CatalogFacade catalog;
+
+        private final ExecutorService readers;
+
+        private final BlockingQueue<ParsedFile> queue;
+
+        private final List<Thread> workers;
+
+        private final AtomicLong readerWaitNanos = new AtomicLong();
+
+        private final AtomicLong workerWaitNanos = new AtomicLong();
+
+        private volatile boolean finished = false;
+
+        private volatile boolean aborted = false;
+
+        public IngestPipeline(long start, CatalogFacade catalog, ExecutorService readers) {
+            this.start = start;
+            this.catalog = catalog;
+            this.readers = readers;
+
+            int workerCount = Math.max(1, multithreaded / 2);
+            this.queue = new ArrayBlockingQueue<ParsedFile>(
+                    (int) Math.min(Integer.MAX_VALUE, 2L * batchSize * workerCount));
+            this.workers = new ArrayList<Thread>(workerCount);
+            for (int i = 0; i < workerCount; i++) {
+                Thread worker = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        drain();
+                    }
+                }, "catalog-ingest-" + i);
+                worker.setDaemon(true);
+                worker.start();
+                workers.add(worker);
+            }
+        }
+
+        public boolean isAborted() {
+            return aborted;
+        }
+
+        /**
+         * Hands a metacard to the ingest workers, blocking while the queue is full.
+         */
+        public void put(File file, Metacard metacard) {
+            ParsedFile parsedFile = new ParsedFile(file, metacard);
+            long waitStart = System.nanoTime();
+            try {
+                while (!aborted && !queue.offer(parsedFile, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    // keep waiting for the ingest workers
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                readerWaitNanos.addAndGet(System.nanoTime() - waitStart);
+            }
+        }
+
+        /**
+         * Stops reading and ingesting files after the current batches complete.
+         */
+        public void abort() {
+            aborted = true;
+            readers.shutdownNow();
+        }
+
+        /**
+         * Waits for the ingest workers to ingest every queued metacard. Must be called after the
+         * readers have terminated.
+         */
+        public void finish() {
+            finished = true;
+            for (Thread worker : workers) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    abort();
+                    return;
+                }
+            }
+        }
+
+        public void printStageTimes() {
+            console.println();
+            console.printf(" Readers waited %3.3f seconds for ingest workers,"
+                            + " ingest workers waited %3.3f seconds for readers",
+                    TimeUnit.NANOSECONDS.toMillis(readerWaitNanos.get()) / MILLISECONDS_PER_SECOND,
+                    TimeUnit.NANOSECONDS.toMillis(workerWaitNanos.get()) / MILLISECONDS_PER_SECOND);
+            LOGGER.info("Ingest readers waited {} ms for ingest workers,"
+                            + " ingest workers waited {} ms for readers",
+                    TimeUnit.NANOSECONDS.toMillis(readerWaitNanos.get()),
+                    TimeUnit.NANOSECONDS.toMillis(workerWaitNanos.get()));
+        }
+
+        private void drain() {
+            List<ParsedFile> batch = new ArrayList<ParsedFile>(batchSize);
+
+            while (!aborted) {
+                ParsedFile first;
+                long waitStart = System.nanoTime();
+                try {
+                    // read before polling so nothing queued before finish() is left behind
+                    boolean readersDone = finished;
+                    first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null && readersDone) {
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                } finally {
+                    workerWaitNanos.addAndGet(System.nanoTime() - waitStart);
+                }
+
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    ingest(batch);
+                    batch.clear();
+                }
+            }
+        }
+
+        private void ingest(List<ParsedFile> batch) {
+            ArrayList<Metacard> metacards = new ArrayList<Metacard>(batch.size());
+            for (ParsedFile parsedFile : batch) {
+                metacards.add(parsedFile.metacard);
+            }
+
+            try {
+                CreateResponse createResponse = createMetacards(catalog, metacards);
+                ingestCount.getAndAdd(createResponse.getCreatedMetacards().size());
+            } catch (IngestException e) {
+                if (failedIngestDirectory == null) {
+                    printErrorMessage("Error executing command: " + e.getMessage());
+                    if (INGEST_LOGGER.isWarnEnabled()) {
+                        INGEST_LOGGER.warn("Error ingesting metacard batch {}",
+                                buildIngestLog(metacards), e);
+                    }
+                    abort();
+                } else {
+                    ingestIndividually(batch);
+                }
+            } catch (SourceUnavailableException e) {
+                // Catalog framework logs these exceptions to the ingest logger so we don't have to.
+                abort();
+            }
+
+            printProgressAndFlush(start, fileCount.get(), ingestCount.get());
+        }
+
+        /**
+         * Retries the metacards of a failed batch one at a time so only the files that actually
+         * failed are moved to the failed ingest directory.
+         */
+        private void ingestIndividually(List<ParsedFile> batch) {
+            for (ParsedFile parsedFile : batch) {
+                if (aborted) {
+                    return;
+                }
+
+                try {
+                    CreateResponse createResponse = catalog
+                            .create(new CreateRequestImpl(parsedFile.metacard));
+                    ingestCount.getAndAdd(createResponse.getCreatedMetacards().size());
+                } catch (IngestException e) {
+                    logIngestException(e, parsedFile.file);
+                    moveToFailedIngestDirectory(parsedFile.file);
+                } catch (SourceUnavailableException e) {
+                    // Catalog framework logs these exceptions to the ingest logger so we don't have to.
+                    abort();
+                }
+            }
+        }
+    }
+
+    private static class ParsedFile {
+
+        private final File file;
+
+        private final Metacard metacard;
+
+        public ParsedFile(File file, Metacard metacard) {
+            this.file = file;
+            this.metacard = metacard;
+        }
     }
 
 }
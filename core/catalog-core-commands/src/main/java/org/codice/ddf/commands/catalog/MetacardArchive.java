@@ -0,0 +1,409 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.commands.catalog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.MetacardImpl;
+
+/**
+ * Compact, resumable archive of metacards written by {@code catalog:dump --archive} and read by
+ * {@code catalog:ingest}.
+ * <p/>
+ * An archive is a directory holding a {@value #MANIFEST_FILE}, a {@value #CHECKPOINT_FILE} and a
+ * series of gzip compressed segments. Each segment is a stream of serialized {@link MetacardImpl}s
+ * terminated by {@code null}. Segments are written to a temporary file and renamed once complete,
+ * after which the checkpoint is updated with the id of the last metacard in the segment, so an
+ * interrupted dump can continue after the last complete segment.
+ */
+final class MetacardArchive {
+
+    static final String MANIFEST_FILE = "manifest.properties";
+
+    static final String CHECKPOINT_FILE = "checkpoint.properties";
+
+    static final String SEGMENT_PREFIX = "segment-";
+
+    static final String SEGMENT_EXTENSION = ".ser.gz";
+
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    private static final String FORMAT = "ddf-metacard-archive";
+
+    private static final String VERSION = "1";
+
+    private static final String FORMAT_PROPERTY = "format";
+
+    private static final String VERSION_PROPERTY = "version";
+
+    private static final String COMPLETE_PROPERTY = "complete";
+
+    private static final String SEGMENTS_PROPERTY = "segments";
+
+    private static final String RECORDS_PROPERTY = "records";
+
+    private static final String LAST_ID_PROPERTY = "lastId";
+
+    /*
+     * Resetting the object stream keeps its handle table from holding on to every metacard
+     * written to the segment.
+     */
+    private static final int RESET_INTERVAL = 100;
+
+    private MetacardArchive() {
+    }
+
+    /**
+     * @return true if the directory holds an archive written by {@link Writer}
+     */
+    static boolean isArchive(File directory) {
+        return new File(directory, MANIFEST_FILE).isFile();
+    }
+
+    /**
+     * @return the number of metacards in the archive, as recorded by its last checkpoint
+     */
+    static long getRecordCount(File directory) throws IOException {
+        return Long.parseLong(
+                readProperties(new File(directory, CHECKPOINT_FILE)).getProperty(RECORDS_PROPERTY,
+                        "0"));
+    }
+
+    /**
+     * @return true if the dump that wrote the archive ran to completion
+     */
+    static boolean isComplete(File directory) throws IOException {
+        return Boolean.parseBoolean(readProperties(new File(directory, MANIFEST_FILE))
+                .getProperty(COMPLETE_PROPERTY));
+    }
+
+    private static File[] getSegments(File directory) {
+        File[] segments = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_EXTENSION);
+            }
+        });
+        if (segments == null) {
+            return new File[0];
+        }
+        Arrays.sort(segments);
+        return segments;
+    }
+
+    private static File getSegmentFile(File directory, int segment) {
+        return new File(directory,
+                String.format("%s%06d%s", SEGMENT_PREFIX, segment, SEGMENT_EXTENSION));
+    }
+
+    private static Properties readProperties(File file) throws IOException {
+        Properties properties = new Properties();
+        if (file.isFile()) {
+            try (InputStream in = new FileInputStream(file)) {
+                properties.load(in);
+            }
+        }
+        return properties;
+    }
+
+    private static void writeProperties(File file, Properties properties) throws IOException {
+        File temp = new File(file.getPath() + TEMP_EXTENSION);
+        try (OutputStream out = new FileOutputStream(temp)) {
+            properties.store(out, null);
+        }
+        replace(temp, file);
+    }
+
+    private static void replace(File source, File target) throws IOException {
+        if (target.exists()) {
+            FileUtils.forceDelete(target);
+        }
+        FileUtils.moveFile(source, target);
+    }
+
+    /**
+     * Writes metacards to an archive, one segment at a time.
+     */
+    static final class Writer implements Closeable {
+
+        private final File directory;
+
+        private final int segmentSize;
+
+        private int segment;
+
+        private long records;
+
+        private String lastId;
+
+        private boolean complete;
+
+        private File currentFile;
+
+        private ObjectOutputStream current;
+
+        private int currentCount;
+
+        private String currentLastId;
+
+        /**
+         * @param directory   archive directory
+         * @param segmentSize number of metacards per segment
+         * @param resume      true to continue after the last checkpoint of an existing archive,
+         *                    false to replace any archive in the directory
+         */
+        Writer(File directory, int segmentSize, boolean resume) throws IOException {
+            this.directory = directory;
+            this.segmentSize = segmentSize;
+
+            for (File file : directory.listFiles()) {
+                if (file.getName().endsWith(TEMP_EXTENSION) || (!resume && (
+                        file.getName().startsWith(SEGMENT_PREFIX) || file.getName()
+                                .equals(CHECKPOINT_FILE)))) {
+                    FileUtils.forceDelete(file);
+                }
+            }
+
+            if (resume && isArchive(directory)) {
+                Properties checkpoint = readProperties(new File(directory, CHECKPOINT_FILE));
+                segment = Integer.parseInt(checkpoint.getProperty(SEGMENTS_PROPERTY, "0"));
+                records = Long.parseLong(checkpoint.getProperty(RECORDS_PROPERTY, "0"));
+                lastId = checkpoint.getProperty(LAST_ID_PROPERTY);
+                complete = isComplete(directory);
+
+                // segments written after the checkpoint will be written again
+                for (File file : getSegments(directory)) {
+                    if (file.compareTo(getSegmentFile(directory, segment)) >= 0) {
+                        FileUtils.forceDelete(file);
+                    }
+                }
+            } else {
+                writeManifest(false);
+                writeCheckpoint();
+            }
+        }
+
+        /**
+         * @return true if the archive was already completed by a previous dump
+         */
+        boolean isComplete() {
+            return complete;
+        }
+
+        /**
+         * @return the id of the last metacard in the last complete segment, or {@code null} if no
+         * segment has been completed
+         */
+        String getLastId() {
+            return lastId;
+        }
+
+        /**
+         * @return the number of metacards in complete segments
+         */
+        long getRecordCount() {
+            return records;
+        }
+
+        void write(Metacard metacard) throws IOException {
+            if (current == null) {
+                currentFile = new File(directory,
+                        getSegmentFile(directory, segment).getName() + TEMP_EXTENSION);
+                current = new ObjectOutputStream(new GZIPOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(currentFile))));
+            }
+
+            current.writeObject(new MetacardImpl(metacard));
+            currentCount++;
+            currentLastId = metacard.getId();
+            if (currentCount % RESET_INTERVAL == 0) {
+                current.reset();
+            }
+
+            if (currentCount >= segmentSize) {
+                commitSegment();
+            }
+        }
+
+        /**
+         * Completes the current segment and marks the archive as complete.
+         */
+        void finish() throws IOException {
+            commitSegment();
+            complete = true;
+            writeManifest(true);
+        }
+
+        /**
+         * Discards any incomplete segment. Complete segments and the checkpoint are kept so the
+         * dump can be resumed.
+         */
+        @Override
+        public void close() throws IOException {
+            if (current != null) {
+                IOUtils.closeQuietly(current);
+                current = null;
+                FileUtils.deleteQuietly(currentFile);
+            }
+        }
+
+        private void commitSegment() throws IOException {
+            if (current == null) {
+                return;
+            }
+
+            current.writeObject(null);
+            current.close();
+            current = null;
+            replace(currentFile, getSegmentFile(directory, segment));
+
+            segment++;
+            records += currentCount;
+            lastId = currentLastId;
+            currentCount = 0;
+            writeCheckpoint();
+        }
+
+        private void writeCheckpoint() throws IOException {
+            Properties checkpoint = new Properties();
+            checkpoint.setProperty(SEGMENTS_PROPERTY, Integer.toString(segment));
+            checkpoint.setProperty(RECORDS_PROPERTY, Long.toString(records));
+            if (lastId != null) {
+                checkpoint.setProperty(LAST_ID_PROPERTY, lastId);
+            }
+            writeProperties(new File(directory, CHECKPOINT_FILE), checkpoint);
+        }
+
+        private void writeManifest(boolean isComplete) throws IOException {
+            Properties manifest = new Properties();
+            manifest.setProperty(FORMAT_PROPERTY, FORMAT);
+            manifest.setProperty(VERSION_PROPERTY, VERSION);
+            manifest.setProperty(COMPLETE_PROPERTY, Boolean.toString(isComplete));
+            if (isComplete) {
+                manifest.setProperty(SEGMENTS_PROPERTY, Integer.toString(segment));
+                manifest.setProperty(RECORDS_PROPERTY, Long.toString(records));
+            }
+            writeProperties(new File(directory, MANIFEST_FILE), manifest);
+        }
+    }
+
+    /**
+     * Streams the metacards of every complete segment of an archive, in the order they were
+     * written.
+     */
+    static final class Reader implements Iterator<Metacard>, Closeable {
+
+        private final File[] segments;
+
+        private int segment;
+
+        private ObjectInputStream current;
+
+        private Metacard next;
+
+        Reader(File directory) throws IOException {
+            Properties manifest = readProperties(new File(directory, MANIFEST_FILE));
+            if (!FORMAT.equals(manifest.getProperty(FORMAT_PROPERTY))) {
+                throw new IOException(directory + " is not a metacard archive.");
+            }
+            if (!VERSION.equals(manifest.getProperty(VERSION_PROPERTY))) {
+                throw new IOException(
+                        "Unsupported metacard archive version " + manifest.getProperty(
+                                VERSION_PROPERTY) + ".");
+            }
+
+            this.segments = getSegments(directory);
+            this.next = advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Metacard next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+
+            Metacard result = next;
+            try {
+                next = advance();
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to read metacard archive segment "
+                        + segments[segment - 1], e);
+            }
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (current != null) {
+                current.close();
+                current = null;
+            }
+        }
+
+        private Metacard advance() throws IOException {
+            while (true) {
+                if (current == null) {
+                    if (segment >= segments.length) {
+                        return null;
+                    }
+                    current = new ObjectInputStream(new GZIPInputStream(
+                            new BufferedInputStream(new FileInputStream(segments[segment++]))));
+                }
+
+                Object object;
+                try {
+                    object = current.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException(e);
+                }
+
+                if (object != null) {
+                    return (Metacard) object;
+                }
+                close();
+            }
+        }
+    }
+}
@@ -17,13 +17,6 @@
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.RejectedExecutionHandler;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.felix.gogo.commands.Command;
 import org.codice.ddf.commands.catalog.facade.CatalogFacade;
@@ -61,10 +54,6 @@ public class MigrateCommand extends DuplicateCommands {
 
     private long start;
 
-    private AtomicInteger queryIndex = new AtomicInteger(1);
-
-    private AtomicInteger ingestCount = new AtomicInteger(0);
-
     @Override
     protected Object doExecute() throws Exception {
 
@@ -123,40 +112,7 @@ protected Object doExecute() throws Exception {
 
         console.println("Starting migration for " + totalPossible + " Records");
 
-        if (multithreaded > 1 && totalPossible > batchSize) {
-            BlockingQueue<Runnable> blockingQueue = new ArrayBlockingQueue<Runnable>(multithreaded);
-            RejectedExecutionHandler rejectedExecutionHandler = new ThreadPoolExecutor.CallerRunsPolicy();
-            final ExecutorService executorService = new ThreadPoolExecutor(multithreaded,
-                    multithreaded, 0L, TimeUnit.MILLISECONDS, blockingQueue,
-                    rejectedExecutionHandler);
-            console.printf("Running %d threads during replication.%n", multithreaded);
-
-            do {
-                LOGGER.debug("In loop at iteration {}", queryIndex.get());
-                executorService.submit(new Runnable() {
-                    @Override
-                    public void run() {
-                        int count = queryAndIngest(framework, ingestProvider, queryIndex.get(),
-                                filter);
-                        printProgressAndFlush(start, totalPossible, ingestCount.addAndGet(count));
-                    }
-                });
-            } while (queryIndex.addAndGet(batchSize) <= totalPossible);
-            executorService.shutdown();
-
-            while (!executorService.isTerminated()) {
-                try {
-                    TimeUnit.SECONDS.sleep(1);
-                } catch (InterruptedException e) {
-                    // ignore
-                }
-            }
-        } else {
-            do {
-                int count = queryAndIngest(framework, ingestProvider, queryIndex.get(), filter);
-                printProgressAndFlush(start, totalPossible, ingestCount.addAndGet(count));
-            } while (queryIndex.addAndGet(batchSize) <= totalPossible);
-        }
+        duplicate(framework, ingestProvider, filter, totalPossible, start);
 
         console.println();
         long end = System.currentTimeMillis();
@@ -176,11 +132,59 @@ protected List<Metacard> query(CatalogFacade framework, int startIndex, Filter f
         query.setRequestsTotalResultsCount(false);
         query.setPageSize(batchSize);
         query.setSortBy(new SortByImpl(Metacard.MODIFIED, SortOrder.DESCENDING));
-        QueryRequest queryRequest = new QueryRequestImpl(query);
         query.setStartIndex(startIndex);
+        LOGGER.debug("Querying with startIndex: {}", startIndex);
+        return query(framework, query);
+    }
+
+    /**
+     * Pages through the "FROM" provider with an {@link IdCursor}, so every page is a range query
+     * on the id rather than a deep offset.
+     */
+    @Override
+    protected ResultCursor createCursor(final CatalogFacade framework, final Filter filter,
+            long totalPossible) {
+        final IdCursor idCursor = new IdCursor(framework, filter, batchSize, null) {
+            @Override
+            protected SourceResponse query(QueryRequest request)
+                    throws UnsupportedQueryException, SourceUnavailableException,
+                    FederationException {
+                SourceResponse response = super.query(request);
+                if (response.getProcessingDetails() != null && !response.getProcessingDetails()
+                        .isEmpty()) {
+                    for (SourceProcessingDetails details : response.getProcessingDetails()) {
+                        LOGGER.debug("Got Issues: {}", details.getWarnings());
+                    }
+                    throw new FederationException("Query reported processing issues.");
+                }
+                return response;
+            }
+        };
+
+        return new ResultCursor() {
+            @Override
+            public List<Metacard> nextPage()
+                    throws UnsupportedQueryException, SourceUnavailableException,
+                    FederationException {
+                return idCursor.nextPage();
+            }
+
+            @Override
+            public String getPosition() {
+                return idCursor.getLastId();
+            }
+
+            @Override
+            public void seek(String position) {
+                idCursor.seek(position);
+            }
+        };
+    }
+
+    private List<Metacard> query(CatalogFacade framework, QueryImpl query) {
+        QueryRequest queryRequest = new QueryRequestImpl(query);
         SourceResponse response = null;
         try {
-            LOGGER.debug("Querying with startIndex: {}", startIndex);
             response = framework.query(queryRequest);
         } catch (UnsupportedQueryException e) {
             printErrorMessage(String.format("Received error from Framework: %s%n", e.getMessage()));
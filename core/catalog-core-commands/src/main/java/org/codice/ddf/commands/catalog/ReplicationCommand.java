@@ -15,16 +15,8 @@
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.RejectedExecutionHandler;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.felix.gogo.commands.Argument;
@@ -64,13 +56,6 @@ public class ReplicationCommand extends DuplicateCommands {
 
     private long start;
 
-    private List<Metacard> failedMetacards = Collections
-            .synchronizedList(new ArrayList<Metacard>());
-
-    private AtomicInteger queryIndex = new AtomicInteger(1);
-
-    private AtomicInteger ingestCount = new AtomicInteger(0);
-
     @Override
     protected Object doExecute() throws Exception {
         final CatalogFacade catalog = getCatalog();
@@ -123,40 +108,7 @@ protected Object doExecute() throws Exception {
 
         console.println("Starting replication for " + totalPossible + " Records");
 
-        if (multithreaded > 1 && totalPossible > batchSize) {
-            BlockingQueue<Runnable> blockingQueue = new ArrayBlockingQueue<Runnable>(multithreaded);
-            RejectedExecutionHandler rejectedExecutionHandler = new ThreadPoolExecutor.CallerRunsPolicy();
-            final ExecutorService executorService = new ThreadPoolExecutor(multithreaded,
-                    multithreaded, 0L, TimeUnit.MILLISECONDS, blockingQueue,
-                    rejectedExecutionHandler);
-            console.printf("Running %d threads during replication.%n", multithreaded);
-
-            do {
-                LOGGER.debug("In loop at iteration {}", queryIndex.get());
-                final int startIndex = queryIndex.get();
-                executorService.submit(new Runnable() {
-                    @Override
-                    public void run() {
-                        int count = queryAndIngest(framework, catalog, startIndex, filter);
-                        printProgressAndFlush(start, totalPossible, ingestCount.addAndGet(count));
-                    }
-                });
-            } while (queryIndex.addAndGet(batchSize) <= totalPossible);
-            executorService.shutdown();
-
-            while (!executorService.isTerminated()) {
-                try {
-                    TimeUnit.SECONDS.sleep(1);
-                } catch (InterruptedException e) {
-                    // ignore
-                }
-            }
-        } else {
-            do {
-                int count = queryAndIngest(framework, catalog, queryIndex.get(), filter);
-                printProgressAndFlush(start, totalPossible, ingestCount.addAndGet(count));
-            } while (queryIndex.addAndGet(batchSize) <= totalPossible);
-        }
+        duplicate(framework, catalog, filter, totalPossible, start);
 
         console.println();
         long end = System.currentTimeMillis();
@@ -14,10 +14,16 @@
 package org.codice.ddf.commands.catalog;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.startsWith;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.isA;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.codice.ddf.commands.catalog.facade.CatalogFacade;
 import org.codice.ddf.commands.catalog.facade.Framework;
@@ -27,8 +33,10 @@
 import org.junit.rules.TemporaryFolder;
 
 import ddf.catalog.CatalogFramework;
+import ddf.catalog.data.Metacard;
 import ddf.catalog.filter.FilterBuilder;
 import ddf.catalog.filter.proxy.builder.GeotoolsFilterBuilder;
+import ddf.catalog.operation.QueryRequest;
 
 /**
  * Tests the {@link DumpCommand} output.
@@ -197,4 +205,159 @@ protected FilterBuilder getFilterBuilder() throws InterruptedException {
         }
     }
 
+    /**
+     * Check that an archive dump can be read back and that resuming a complete archive does not
+     * query the catalog again.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testArchiveOperation() throws Exception {
+
+        ConsoleOutput consoleOutput = new ConsoleOutput();
+        consoleOutput.interceptSystemOut();
+
+        // given
+        final CatalogFramework catalogFramework = givenCatalogFramework(
+                getResultList("id1", "id2", "id3"));
+        File outputDirectory = testFolder.newFolder("archive");
+        DumpCommand command = givenArchiveCommand(catalogFramework, outputDirectory);
+        command.segmentSize = 2;
+
+        // when
+        command.doExecute();
+
+        // cleanup
+        consoleOutput.resetSystemOut();
+
+        // then
+        try {
+            assertThat(consoleOutput.getOutput(), containsString(" 3 file(s) dumped in "));
+            assertThat(MetacardArchive.isComplete(outputDirectory), is(true));
+            assertThat(MetacardArchive.getRecordCount(outputDirectory), is(3L));
+
+            List<String> ids = new ArrayList<String>();
+            try (MetacardArchive.Reader reader = new MetacardArchive.Reader(outputDirectory)) {
+                while (reader.hasNext()) {
+                    Metacard metacard = reader.next();
+                    ids.add(metacard.getId());
+                }
+            }
+            assertThat(ids.toString(), is("[id1, id2, id3]"));
+        } finally {
+            consoleOutput.closeBuffer();
+        }
+
+        // given
+        final CatalogFramework resumedFramework = givenCatalogFramework(getResultList("id4"));
+        DumpCommand resumed = givenArchiveCommand(resumedFramework, outputDirectory);
+        resumed.resume = true;
+        consoleOutput = new ConsoleOutput();
+        consoleOutput.interceptSystemOut();
+
+        // when
+        resumed.doExecute();
+
+        // cleanup
+        consoleOutput.resetSystemOut();
+
+        // then
+        try {
+            assertThat(consoleOutput.getOutput(), containsString("is already complete"));
+            verify(resumedFramework, never()).query(isA(QueryRequest.class));
+        } finally {
+            consoleOutput.closeBuffer();
+        }
+    }
+
+    /**
+     * Check that resuming an interrupted archive keeps its complete segments.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testArchiveResume() throws Exception {
+
+        // given an archive interrupted after its first segment
+        File outputDirectory = testFolder.newFolder("archive");
+        try (MetacardArchive.Writer writer = new MetacardArchive.Writer(outputDirectory, 1,
+                false)) {
+            writer.write(getResultList("id1").get(0).getMetacard());
+        }
+
+        ConsoleOutput consoleOutput = new ConsoleOutput();
+        consoleOutput.interceptSystemOut();
+
+        final CatalogFramework catalogFramework = givenCatalogFramework(getResultList("id2"));
+        DumpCommand command = givenArchiveCommand(catalogFramework, outputDirectory);
+        command.resume = true;
+
+        // when
+        command.doExecute();
+
+        // cleanup
+        consoleOutput.resetSystemOut();
+
+        // then
+        try {
+            assertThat(consoleOutput.getOutput(), containsString("Resuming after 1 metacard(s)"));
+            assertThat(consoleOutput.getOutput(), containsString(" 2 file(s) dumped in "));
+            assertThat(MetacardArchive.getRecordCount(outputDirectory), is(2L));
+        } finally {
+            consoleOutput.closeBuffer();
+        }
+    }
+
+    /**
+     * Check that --resume is rejected without --archive.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testResumeWithoutArchive() throws Exception {
+
+        ConsoleOutput consoleOutput = new ConsoleOutput();
+        consoleOutput.interceptSystemOut();
+
+        // given
+        final CatalogFramework catalogFramework = givenCatalogFramework(getResultList("id1"));
+        DumpCommand command = givenArchiveCommand(catalogFramework, testFolder.newFolder("dump"));
+        command.archive = false;
+        command.resume = true;
+
+        // when
+        command.doExecute();
+
+        // cleanup
+        consoleOutput.resetSystemOut();
+
+        // then
+        try {
+            String message = "--resume can only be used with --archive.";
+            String expectedPrintOut = RED_CONSOLE_COLOR + message + DEFAULT_CONSOLE_COLOR;
+            assertThat(consoleOutput.getOutput(), startsWith(expectedPrintOut));
+            verify(catalogFramework, never()).query(isA(QueryRequest.class));
+        } finally {
+            consoleOutput.closeBuffer();
+        }
+    }
+
+    private DumpCommand givenArchiveCommand(final CatalogFramework catalogFramework,
+            File outputDirectory) {
+        DumpCommand command = new DumpCommand() {
+            @Override
+            protected CatalogFacade getCatalog() throws InterruptedException {
+                return new Framework(catalogFramework);
+            }
+
+            @Override
+            protected FilterBuilder getFilterBuilder() throws InterruptedException {
+                return new GeotoolsFilterBuilder();
+            }
+        };
+        command.dirPath = outputDirectory.getAbsolutePath();
+        command.archive = true;
+        return command;
+    }
+
 }
@@ -0,0 +1,263 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.commands.catalog;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.isA;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import org.codice.ddf.commands.catalog.facade.CatalogFacade;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.operation.CreateRequest;
+import ddf.catalog.operation.CreateResponse;
+import ddf.catalog.operation.impl.CreateResponseImpl;
+import ddf.catalog.source.IngestException;
+import ddf.catalog.source.SourceUnavailableException;
+
+/**
+ * Tests the staged ingest used by {@link IngestCommand} when ingesting a directory with more than
+ * one thread.
+ */
+public class TestIngestPipeline {
+
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    private IngestCommand command;
+
+    private CatalogFacade catalog;
+
+    private ExecutorService readers;
+
+    private final List<List<String>> batches = Collections
+            .synchronizedList(new ArrayList<List<String>>());
+
+    @Before
+    public void setUp() {
+        command = new IngestCommand();
+        command.console = new PrintStream(new ByteArrayOutputStream());
+        command.batchSize = 2;
+        // a single ingest worker
+        command.multithreaded = 2;
+
+        catalog = mock(CatalogFacade.class);
+        readers = mock(ExecutorService.class);
+    }
+
+    /**
+     * Check that a single worker ingests the metacards in the order they were queued, in batches
+     * of at most the batch size.
+     *
+     * @throws Exception
+     */
+    @Test(timeout = 10000)
+    public void testMetacardsAreIngestedInOrder() throws Exception {
+
+        // given
+        givenCatalogCreates(0);
+        IngestCommand.IngestPipeline pipeline = newPipeline();
+
+        // when
+        for (int i = 0; i < 5; i++) {
+            pipeline.put(newFile("file" + i), newMetacard("id" + i));
+        }
+        pipeline.finish();
+
+        // then
+        List<String> ingested = new ArrayList<String>();
+        for (List<String> batch : batches) {
+            assertThat(batch.size(), is(lessThanOrEqualTo(2)));
+            ingested.addAll(batch);
+        }
+        assertThat(ingested, is(Arrays.asList("id0", "id1", "id2", "id3", "id4")));
+        assertThat(pipeline.isAborted(), is(false));
+        verify(readers, never()).shutdownNow();
+    }
+
+    /**
+     * Check that finish waits for every queued metacard to be ingested by every worker.
+     *
+     * @throws Exception
+     */
+    @Test(timeout = 10000)
+    public void testFinishIngestsEverythingQueued() throws Exception {
+
+        // given a slow catalog and two ingest workers
+        command.multithreaded = 4;
+        givenCatalogCreates(50);
+        IngestCommand.IngestPipeline pipeline = newPipeline();
+
+        // when
+        for (int i = 0; i < 6; i++) {
+            pipeline.put(newFile("file" + i), newMetacard("id" + i));
+        }
+        pipeline.finish();
+
+        // then
+        List<String> ingested = new ArrayList<String>();
+        for (List<String> batch : batches) {
+            ingested.addAll(batch);
+        }
+        assertThat(ingested,
+                containsInAnyOrder("id0", "id1", "id2", "id3", "id4", "id5"));
+    }
+
+    /**
+     * Check that a failed batch stops the readers when there is no failed ingest directory, and
+     * that readers no longer block once the pipeline is aborted.
+     *
+     * @throws Exception
+     */
+    @Test(timeout = 10000)
+    public void testFailedBatchAbortsIngest() throws Exception {
+
+        // given
+        when(catalog.create(isA(CreateRequest.class)))
+                .thenThrow(new IngestException("failed"));
+        IngestCommand.IngestPipeline pipeline = newPipeline();
+
+        // when
+        pipeline.put(newFile("file0"), newMetacard("id0"));
+        pipeline.finish();
+
+        // then
+        assertThat(pipeline.isAborted(), is(true));
+        verify(readers).shutdownNow();
+
+        // more metacards than the queue holds are dropped rather than blocking
+        for (int i = 1; i < 20; i++) {
+            pipeline.put(newFile("file" + i), newMetacard("id" + i));
+        }
+    }
+
+    /**
+     * Check that an unavailable catalog aborts the ingest even with a failed ingest directory.
+     *
+     * @throws Exception
+     */
+    @Test(timeout = 10000)
+    public void testSourceUnavailableAbortsIngest() throws Exception {
+
+        // given
+        command.failedIngestDirectory = testFolder.newFolder("failed");
+        when(catalog.create(isA(CreateRequest.class)))
+                .thenThrow(new SourceUnavailableException("unavailable"));
+        IngestCommand.IngestPipeline pipeline = newPipeline();
+
+        // when
+        pipeline.put(newFile("file0"), newMetacard("id0"));
+        pipeline.finish();
+
+        // then
+        assertThat(pipeline.isAborted(), is(true));
+        verify(readers).shutdownNow();
+    }
+
+    /**
+     * Check that with a failed ingest directory a failed batch is retried one metacard at a time
+     * and only the file that failed is moved.
+     *
+     * @throws Exception
+     */
+    @Test(timeout = 10000)
+    public void testFailedBatchIsRetriedIndividually() throws Exception {
+
+        // given a catalog that fails every request containing the "bad" metacard
+        File failedDirectory = testFolder.newFolder("failed");
+        command.failedIngestDirectory = failedDirectory;
+        when(catalog.create(isA(CreateRequest.class))).thenAnswer(new Answer<CreateResponse>() {
+            @Override
+            public CreateResponse answer(InvocationOnMock invocation) throws Throwable {
+                CreateRequest request = (CreateRequest) invocation.getArguments()[0];
+                for (Metacard metacard : request.getMetacards()) {
+                    if ("bad".equals(metacard.getId())) {
+                        throw new IngestException("bad metacard");
+                    }
+                }
+                return created(request);
+            }
+        });
+        IngestCommand.IngestPipeline pipeline = newPipeline();
+        File goodFile = newFile("good");
+        File badFile = newFile("bad");
+
+        // when
+        pipeline.put(goodFile, newMetacard("good"));
+        pipeline.put(badFile, newMetacard("bad"));
+        pipeline.finish();
+
+        // then
+        assertThat(pipeline.isAborted(), is(false));
+        assertThat(goodFile.exists(), is(true));
+        assertThat(badFile.exists(), is(false));
+        assertThat(new File(failedDirectory, "bad").exists(), is(true));
+        assertThat(batches, is(Arrays.asList(Arrays.asList("good"))));
+    }
+
+    private IngestCommand.IngestPipeline newPipeline() {
+        return command.new IngestPipeline(System.currentTimeMillis(), catalog, readers);
+    }
+
+    private void givenCatalogCreates(final long delayMillis) throws Exception {
+        when(catalog.create(isA(CreateRequest.class))).thenAnswer(new Answer<CreateResponse>() {
+            @Override
+            public CreateResponse answer(InvocationOnMock invocation) throws Throwable {
+                Thread.sleep(delayMillis);
+                return created((CreateRequest) invocation.getArguments()[0]);
+            }
+        });
+    }
+
+    private CreateResponse created(CreateRequest request) {
+        List<String> ids = new ArrayList<String>();
+        for (Metacard metacard : request.getMetacards()) {
+            ids.add(metacard.getId());
+        }
+        batches.add(ids);
+        return new CreateResponseImpl(request, null, request.getMetacards());
+    }
+
+    private File newFile(String name) throws Exception {
+        return testFolder.newFile(name);
+    }
+
+    private Metacard newMetacard(String id) {
+        MetacardImpl metacard = new MetacardImpl();
+        metacard.setId(id);
+        return metacard;
+    }
+}
@@ -16,6 +16,7 @@
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.mock;
@@ -23,12 +24,17 @@
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Properties;
 import java.util.Set;
 import java.util.UUID;
 
@@ -38,7 +44,9 @@
 import org.codice.ddf.commands.catalog.facade.Framework;
 import org.junit.AfterClass;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.ArgumentCaptor;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
@@ -69,6 +77,9 @@ public class TestReplicationCommand {
 
     private static ConsoleOutput consoleOutput;
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private CatalogFramework catalogFramework;
 
     private QueryResponse mockQueryResponse = mock(QueryResponse.class);
@@ -301,6 +312,106 @@ public CreateResponse answer(InvocationOnMock invocation)
         consoleOutput.reset();
     }
 
+    @Test
+    public void testResumeFromCheckpoint() throws Exception {
+        File checkpointFile = temporaryFolder.newFile("replicate.checkpoint");
+        Properties checkpoint = new Properties();
+        checkpoint.setProperty("position", "501");
+        checkpoint.setProperty("ingested", "500");
+        try (OutputStream out = new FileOutputStream(checkpointFile)) {
+            checkpoint.store(out, null);
+        }
+
+        replicationCmd.isProvider = true;
+        replicationCmd.isUseTemporal = false;
+        replicationCmd.sourceId = "sourceId1";
+        replicationCmd.batchSize = 10;
+        replicationCmd.multithreaded = 4;
+        replicationCmd.checkpointFile = checkpointFile.getAbsolutePath();
+
+        replicationCmd.doExecute();
+
+        ArgumentCaptor<QueryRequest> argument = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(catalogFramework, times(500 / replicationCmd.batchSize + 1))
+                .query(argument.capture());
+        assertThat(argument.getAllValues().get(1).getQuery().getStartIndex(), is(501));
+        assertThat(consoleOutput.getOutput(),
+                containsString("1000 record(s) replicated; 0 record(s) failed"));
+        consoleOutput.reset();
+
+        try (InputStream in = new FileInputStream(checkpointFile)) {
+            checkpoint.load(in);
+        }
+        assertThat(checkpoint.getProperty("position"), is("1001"));
+        assertThat(checkpoint.getProperty("ingested"), is("1000"));
+        assertThat(checkpoint.getProperty("complete"), is("true"));
+    }
+
+    @Test
+    public void testQueryFailureKeepsCheckpoint() throws Exception {
+        File checkpointFile = temporaryFolder.newFile("replicate.checkpoint");
+        when(catalogFramework.query(isA(QueryRequest.class)))
+                .thenAnswer(new Answer<QueryResponse>() {
+                            @Override
+                            public QueryResponse answer(InvocationOnMock invocation)
+                                    throws Throwable {
+                                QueryRequest request = (QueryRequest) invocation.getArguments()[0];
+                                if (request.getQuery().getStartIndex() == 501) {
+                                    throw new SourceUnavailableException("unavailable");
+                                }
+                                pageSize = request.getQuery().getPageSize();
+                                return mockQueryResponse;
+                            }
+                        });
+
+        replicationCmd.isProvider = true;
+        replicationCmd.isUseTemporal = false;
+        replicationCmd.sourceId = "sourceId1";
+        replicationCmd.batchSize = 100;
+        replicationCmd.checkpointFile = checkpointFile.getAbsolutePath();
+
+        replicationCmd.doExecute();
+
+        // the hits query, five pages and the page that failed
+        verify(catalogFramework, times(7)).query(isA(QueryRequest.class));
+        assertThat(consoleOutput.getOutput(),
+                containsString("500 record(s) replicated; 0 record(s) failed"));
+        consoleOutput.reset();
+
+        Properties checkpoint = new Properties();
+        try (InputStream in = new FileInputStream(checkpointFile)) {
+            checkpoint.load(in);
+        }
+        assertThat(checkpoint.getProperty("position"), is("501"));
+        assertThat(checkpoint.getProperty("ingested"), is("500"));
+        assertThat(checkpoint.getProperty("complete"), is(nullValue()));
+    }
+
+    @Test(timeout = 10000)
+    public void testStoppedIngestThreadsStopReading() throws Exception {
+        File checkpointFile = temporaryFolder.newFile("replicate.checkpoint");
+        when(catalogFramework.create(isA(CreateRequest.class)))
+                .thenThrow(new AssertionError("ingest thread failed"));
+
+        replicationCmd.isProvider = true;
+        replicationCmd.isUseTemporal = false;
+        replicationCmd.sourceId = "sourceId1";
+        replicationCmd.batchSize = 10;
+        replicationCmd.multithreaded = 2;
+        replicationCmd.checkpointFile = checkpointFile.getAbsolutePath();
+
+        replicationCmd.doExecute();
+
+        assertThat(consoleOutput.getOutput(), containsString("All ingest threads stopped."));
+        consoleOutput.reset();
+
+        Properties checkpoint = new Properties();
+        try (InputStream in = new FileInputStream(checkpointFile)) {
+            checkpoint.load(in);
+        }
+        assertThat(checkpoint.getProperty("complete"), is(nullValue()));
+    }
+
     private List<Result> getResultList(int size) {
         List<Result> results = new ArrayList<Result>();
         for (int i = 0; i < size; i++) {
@@ -13,7 +13,7 @@
  */
 package ddf.util;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import javax.xml.namespace.NamespaceContext;
@@ -24,55 +24,168 @@
 
 /**
  * This object is used to store compiled {@link XPathExpression} objects for the intention of
- * gaining performance. It retains a single {@link XPathFactory} object and a single {@link XPath}
- * object for the purpose of doing the compilation. As of now it uses a {@link HashMap} to store the
- * compiled {@link XPathExpression} objects.
+ * gaining performance. Neither {@link XPath} nor {@link XPathExpression} are thread-safe, so each
+ * thread is given its own {@link XPath} object and its own bounded, least-recently-used cache of
+ * compiled {@link XPathExpression} objects. No locking is needed to compile or evaluate an
+ * expression, which allows XPath evaluations on different threads to run in parallel.
+ * <p/>
+ * Namespace prefixes are resolved when an expression is compiled, so compiled expressions are
+ * cached per expression and {@link NamespaceContext}.
  *
  * @author Ashraf Barakat
  * @since 1.0.4
  */
 public class XPathCache {
 
-    private static final XPathFactory XPF = XPathFactory.newInstance();
+    /**
+     * Maximum number of compiled expressions retained per thread.
+     */
+    public static final int MAX_CACHED_EXPRESSIONS = 256;
 
-    private static final XPath XPATH = XPF.newXPath();
+    private static final ThreadLocal<XPathFactory> XPF = new ThreadLocal<XPathFactory>() {
+        @Override
+        protected XPathFactory initialValue() {
+            return XPathFactory.newInstance();
+        }
+    };
 
-    private static Map<String, XPathExpression> expressionMap = new HashMap<String, XPathExpression>();
+    private static final ThreadLocal<XPath> XPATH = new ThreadLocal<XPath>() {
+        @Override
+        protected XPath initialValue() {
+            return XPF.get().newXPath();
+        }
+    };
+
+    private static final ThreadLocal<Map<ExpressionKey, XPathExpression>> EXPRESSION_MAP = new ThreadLocal<Map<ExpressionKey, XPathExpression>>() {
+        @Override
+        protected Map<ExpressionKey, XPathExpression> initialValue() {
+            return new LinkedHashMap<ExpressionKey, XPathExpression>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(
+                        Map.Entry<ExpressionKey, XPathExpression> eldest) {
+                    return size() > MAX_CACHED_EXPRESSIONS;
+                }
+            };
+        }
+    };
 
-    private static NamespaceContext namespaceResolver; // = new NamespaceResolver() ;
+    private static volatile NamespaceContext namespaceResolver; // = new NamespaceResolver() ;
 
+    /**
+     * @return the {@link XPath} object owned by the calling thread
+     */
     public static XPath getXPath() {
-        return XPATH;
+        return XPATH.get();
     }
 
+    /**
+     * Retrieves the compiled expression for the calling thread, compiling it with the default
+     * {@link NamespaceContext} if it is not already cached.
+     *
+     * @param xpathExpressionkey
+     *            the XPath expression
+     * @return the compiled expression, which must only be used by the calling thread
+     * @throws XPathExpressionException
+     *             if the expression cannot be compiled
+     */
     public static XPathExpression getCompiledExpression(String xpathExpressionkey)
             throws XPathExpressionException, NullPointerException {
+        return getCompiledExpression(xpathExpressionkey, getNamespaceResolver());
+    }
+
+    /**
+     * Retrieves the compiled expression for the calling thread, compiling it with the given
+     * {@link NamespaceContext} if it is not already cached.
+     *
+     * @param xpathExpressionkey
+     *            the XPath expression
+     * @param nsContext
+     *            the namespace context used to resolve prefixes in the expression
+     * @return the compiled expression, which must only be used by the calling thread
+     * @throws XPathExpressionException
+     *             if the expression cannot be compiled
+     */
+    public static XPathExpression getCompiledExpression(String xpathExpressionkey,
+            NamespaceContext nsContext) throws XPathExpressionException, NullPointerException {
+
+        if (xpathExpressionkey == null) {
+            throw new NullPointerException("XPath expression cannot be null");
+        }
 
         // go to cache, check if we have the compiled expression
 
-        XPathExpression compiledExpression = expressionMap.get(xpathExpressionkey);
+        Map<ExpressionKey, XPathExpression> expressionMap = EXPRESSION_MAP.get();
+        ExpressionKey key = new ExpressionKey(xpathExpressionkey, nsContext);
+        XPathExpression compiledExpression = expressionMap.get(key);
 
         if (compiledExpression == null) {
 
             // must compile new expression and place in the map
 
-            compiledExpression = XPATH.compile(xpathExpressionkey);
+            XPath xpath = XPATH.get();
+            xpath.setNamespaceContext(nsContext);
+            compiledExpression = xpath.compile(xpathExpressionkey);
 
-            expressionMap.put(xpathExpressionkey, compiledExpression);
+            expressionMap.put(key, compiledExpression);
         }
 
         return compiledExpression;
     }
 
+    /**
+     * Removes all compiled expressions cached by the calling thread.
+     */
+    public static void clear() {
+        EXPRESSION_MAP.get().clear();
+    }
+
     public static NamespaceContext getNamespaceResolver() {
-        if (namespaceResolver == null) {
-            namespaceResolver = new NamespaceResolver();
+        NamespaceContext resolver = namespaceResolver;
+        if (resolver == null) {
+            synchronized (XPathCache.class) {
+                if (namespaceResolver == null) {
+                    namespaceResolver = new NamespaceResolver();
+                }
+                resolver = namespaceResolver;
+            }
         }
-        return namespaceResolver;
+        return resolver;
     }
 
     public static void setNamespaceResolver(NamespaceResolver nr) {
         namespaceResolver = nr;
     }
 
+    private static final class ExpressionKey {
+        private final String expression;
+
+        private final NamespaceContext nsContext;
+
+        private final int hashCode;
+
+        ExpressionKey(String expression, NamespaceContext nsContext) {
+            this.expression = expression;
+            this.nsContext = nsContext;
+            this.hashCode = 31 * expression.hashCode() + System.identityHashCode(nsContext);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof ExpressionKey)) {
+                return false;
+            }
+            ExpressionKey other = (ExpressionKey) obj;
+            return nsContext == other.nsContext && expression.equals(other.expression);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
 }
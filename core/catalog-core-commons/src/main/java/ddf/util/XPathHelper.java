@@ -241,6 +241,11 @@ public Object evaluate(String xpathExpressionKey, QName returnType)
     }
 
     /**
+     * Evaluates the expression against this helper's document. The compiled expression comes from
+     * the calling thread's {@link XPathCache}, so evaluations on different helpers do not contend
+     * with each other. Evaluations on the same helper are still serialized because the underlying
+     * DOM is not safe for concurrent access.
+     *
      * @param xpathExpression
      * @param returnType
      * @param nsContext
@@ -249,9 +254,8 @@ public Object evaluate(String xpathExpressionKey, QName returnType)
      */
     public synchronized Object evaluate(String xpathExpressionKey, QName returnType,
             NamespaceContext nsContext) throws XPathExpressionException {
-        XPathCache.getXPath().setNamespaceContext(nsContext);
-
-        XPathExpression compiledExpression = XPathCache.getCompiledExpression(xpathExpressionKey);
+        XPathExpression compiledExpression = XPathCache
+                .getCompiledExpression(xpathExpressionKey, nsContext);
 
         Thread thread = Thread.currentThread();
         ClassLoader loader = thread.getContextClassLoader();
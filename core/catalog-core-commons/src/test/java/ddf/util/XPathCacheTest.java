@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class XPathCacheTest {
+
+    private static final String XML = "<root><child>a</child><child>b</child></root>";
+
+    @Before
+    public void setUp() {
+        XPathCache.clear();
+    }
+
+    @Test
+    public void testSameThreadReusesCompiledExpression() throws Exception {
+        XPathExpression first = XPathCache.getCompiledExpression("count(//child)");
+        XPathExpression second = XPathCache.getCompiledExpression("count(//child)");
+
+        assertThat(first, sameInstance(second));
+    }
+
+    @Test
+    public void testThreadsGetTheirOwnCompiledExpression() throws Exception {
+        final XPathExpression local = XPathCache.getCompiledExpression("count(//child)");
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            XPathExpression other = executor.submit(new Callable<XPathExpression>() {
+                @Override
+                public XPathExpression call() throws Exception {
+                    return XPathCache.getCompiledExpression("count(//child)");
+                }
+            }).get();
+
+            assertThat(other, not(sameInstance(local)));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testLeastRecentlyUsedExpressionIsEvicted() throws Exception {
+        XPathExpression first = XPathCache.getCompiledExpression("/root/child[1]");
+
+        for (int i = 0; i < XPathCache.MAX_CACHED_EXPRESSIONS; i++) {
+            XPathCache.getCompiledExpression("/root/child[" + (i + 2) + "]");
+        }
+
+        assertThat(XPathCache.getCompiledExpression("/root/child[1]"), not(sameInstance(first)));
+    }
+
+    @Test
+    public void testConcurrentEvaluation() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Double>> results = new ArrayList<Future<Double>>();
+            for (int i = 0; i < 200; i++) {
+                results.add(executor.submit(new Callable<Double>() {
+                    @Override
+                    public Double call() throws Exception {
+                        XPathHelper helper = new XPathHelper(XML);
+                        return (Double) helper.evaluate("count(//child)", XPathConstants.NUMBER);
+                    }
+                }));
+            }
+
+            for (Future<Double> result : results) {
+                assertThat(result.get(), is(2.0));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -48,7 +48,9 @@
 import ddf.catalog.plugin.PreFederatedQueryPlugin;
 import ddf.catalog.source.Source;
 import ddf.catalog.util.impl.DistanceResultComparator;
+import ddf.catalog.util.impl.QueryOutcomeRecorder;
 import ddf.catalog.util.impl.RelevanceResultComparator;
+import ddf.catalog.util.impl.Requests;
 import ddf.catalog.util.impl.TemporalResultComparator;
 
 /**
@@ -90,7 +92,8 @@ protected Runnable createMonitor(final ExecutorService pool,
             final Map<Source, Future<SourceResponse>> futures,
             final QueryResponseImpl returnResults, final Query query) {
 
-        return new SortedQueryMonitor(pool, futures, returnResults, query);
+        return new SortedQueryMonitor(pool, futures, returnResults, query,
+                getQueryOutcomeRecorder());
     }
 
     private static class SortedQueryMonitor implements Runnable {
@@ -101,13 +104,19 @@ private static class SortedQueryMonitor implements Runnable {
 
         private Query query;
 
+        private boolean hitsOnly;
+
+        private QueryOutcomeRecorder queryOutcomeRecorder;
+
         public SortedQueryMonitor(ExecutorService pool,
                 Map<Source, Future<SourceResponse>> futuress, QueryResponseImpl returnResults,
-                Query query) {
+                Query query, QueryOutcomeRecorder queryOutcomeRecorder) {
 
             this.returnResults = returnResults;
             this.query = query;
             this.futures = futuress;
+            this.hitsOnly = Requests.isHitsOnly(returnResults.getRequest());
+            this.queryOutcomeRecorder = queryOutcomeRecorder;
         }
 
         @SuppressWarnings({"rawtypes", "unchecked"})
@@ -169,9 +178,14 @@ public void run() {
                 } catch (TimeoutException e) {
                     logger.warn("search timed out: " + new Date() + " on site " + site.getId());
                     processingDetails.add(new ProcessingDetailsImpl(site.getId(), e));
+                    if (queryOutcomeRecorder != null) {
+                        queryOutcomeRecorder.queryTimedOut(site);
+                    }
                 }
                 if (sourceResponse != null) {
-                    List<Result> sourceResults = sourceResponse.getResults();
+                    List<Result> sourceResults = hitsOnly ?
+                            Collections.<Result>emptyList() :
+                            sourceResponse.getResults();
                     resultList.addAll(sourceResults);
                     long sourceHits = sourceResponse.getHits();
 
@@ -218,7 +232,10 @@ public void run() {
             }
             logger.debug("all sites finished returning results: " + resultList.size());
 
-            Collections.sort(resultList, coreComparator);
+            // a hits only query has no results to merge
+            if (!hitsOnly) {
+                Collections.sort(resultList, coreComparator);
+            }
 
             returnResults.setHits(totalHits);
             int maxResults = query.getPageSize() > 0 ? query.getPageSize() : Integer.MAX_VALUE;
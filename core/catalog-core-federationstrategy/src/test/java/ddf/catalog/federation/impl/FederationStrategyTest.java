@@ -29,6 +29,7 @@
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -48,6 +49,7 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import ddf.catalog.Constants;
 import ddf.catalog.data.ContentType;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.Result;
@@ -617,4 +619,47 @@ public void testFederateOneSourceOffsetOnePageSizeTwo() throws Exception {
         assertNotNull(siteProperties.get(QueryResponse.TOTAL_RESULTS_RETURNED));
     }
 
+    /**
+     * Verify that a hits only query asks every source for at most one result, and returns the sum
+     * of their hits without any result, even from sources that cannot only count.
+     */
+    @Test
+    public void testFederateHitsOnly() throws Exception {
+        Query query = new QueryImpl(FILTER_FACTORY.equals(FILTER_FACTORY.property(Metacard.ID),
+                FILTER_FACTORY.literal("id")), 3, 10, null, true, LONG_TIMEOUT);
+        Map<String, Serializable> properties = new HashMap<String, Serializable>();
+        properties.put(Constants.QUERY_HITS_ONLY, true);
+        QueryRequest queryRequest = new QueryRequestImpl(query, false, null, properties);
+
+        SourceResponse countingResponse = mock(SourceResponse.class);
+        when(countingResponse.getHits()).thenReturn(5L);
+        when(countingResponse.getResults()).thenReturn(Collections.<Result>emptyList());
+        Source countingSource = mock(Source.class);
+        when(countingSource.query(any(QueryRequest.class))).thenReturn(countingResponse);
+        when(countingSource.getId()).thenReturn("counting");
+
+        SourceResponse pagingResponse = mock(SourceResponse.class);
+        when(pagingResponse.getHits()).thenReturn(7L);
+        when(pagingResponse.getResults()).thenReturn(Arrays.asList(mock(Result.class)));
+        Source pagingSource = mock(Source.class);
+        when(pagingSource.query(any(QueryRequest.class))).thenReturn(pagingResponse);
+        when(pagingSource.getId()).thenReturn("paging");
+
+        SortedFederationStrategy strategy = new SortedFederationStrategy(EXECUTOR,
+                new ArrayList<PreFederatedQueryPlugin>(),
+                new ArrayList<PostFederatedQueryPlugin>());
+
+        QueryResponse federatedResponse = strategy
+                .federate(Arrays.asList(countingSource, pagingSource), queryRequest);
+
+        assertEquals(0, federatedResponse.getResults().size());
+        assertEquals(12, federatedResponse.getHits());
+
+        ArgumentCaptor<QueryRequest> sourceRequest = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(pagingSource).query(sourceRequest.capture());
+        assertEquals(1, sourceRequest.getValue().getQuery().getStartIndex());
+        assertEquals(1, sourceRequest.getValue().getQuery().getPageSize());
+        assertEquals(true, sourceRequest.getValue().getPropertyValue(Constants.QUERY_HITS_ONLY));
+    }
+
 }
@@ -0,0 +1,636 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.filter.proxy.compiler;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.MultiPoint;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKTReader;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.filter.FilterDelegate;
+import ddf.measure.Distance;
+import ddf.measure.Distance.LinearUnit;
+
+/**
+ * Compiles filter-proxy calls into {@link Predicate}s matching the metacards the Solr catalog
+ * provider returns for the same filter.
+ * <p>
+ * Contextual searches without wildcards match phrases, and searches with wildcards match any of
+ * their whitespace separated terms. {@link Metacard#ANY_TEXT} searches the text of the metadata,
+ * split at whitespace for wildcard searches. Spatial searches for a point, and distance searches
+ * around a point, match a circle around it; distance searches around other geometries match the
+ * geometry buffered by the distance. Unlike the Solr catalog provider, case insensitive equality,
+ * "not equal" and ranges of strings are supported. XPath searches are not supported.
+ * <p>
+ * A new delegate is used for each filter compiled.
+ */
+class CompilingFilterDelegate extends FilterDelegate<Predicate> {
+
+    // Mean radius of the earth used by the Solr catalog provider to convert distances to degrees
+    private static final double EARTH_MEAN_RADIUS_KM = 6371.0087714;
+
+    private static final double DEFAULT_ERROR_IN_DEGREES = metersToDegrees(1);
+
+    private static final double NEAREST_NEIGHBOR_DISTANCE_LIMIT = metersToDegrees(
+            new Distance(1000, LinearUnit.NAUTICAL_MILE).getAs(LinearUnit.METER));
+
+    // Using quantization of 12 to reduce error below 1%
+    private static final int QUADRANT_SEGMENTS = 12;
+
+    private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+    private final WKTReader wktReader = new WKTReader(GEOMETRY_FACTORY);
+
+    private final PreparedGeometryFactory preparedGeometryFactory = new PreparedGeometryFactory();
+
+    private static double metersToDegrees(double distance) {
+        return Math.toDegrees(new Distance(distance, LinearUnit.METER).getAs(LinearUnit.KILOMETER)
+                / EARTH_MEAN_RADIUS_KM);
+    }
+
+    @Override
+    public Predicate and(List<Predicate> operands) {
+        verifyOperands(operands);
+        return operands.size() == 1 ? operands.get(0) : new AndPredicate(operands);
+    }
+
+    @Override
+    public Predicate or(List<Predicate> operands) {
+        verifyOperands(operands);
+        return operands.size() == 1 ? operands.get(0) : new OrPredicate(operands);
+    }
+
+    @Override
+    public Predicate not(Predicate operand) {
+        return new NotPredicate(operand);
+    }
+
+    @Override
+    public Predicate include() {
+        return ConstantPredicate.INCLUDE;
+    }
+
+    @Override
+    public Predicate exclude() {
+        return ConstantPredicate.EXCLUDE;
+    }
+
+    @Override
+    public Predicate propertyIsEqualTo(String propertyName, String literal,
+            boolean isCaseSensitive) {
+        verifyInputData(propertyName, literal);
+        return new EqualityPredicate(propertyName, literal, isCaseSensitive);
+    }
+
+    @Override
+    public Predicate propertyIsEqualTo(String propertyName, Date literal) {
+        return range(propertyName, literal, true, literal, true);
+    }
+
+    @Override
+    public Predicate propertyIsEqualTo(String propertyName, Date startDate, Date endDate) {
+        return range(propertyName, startDate, true, endDate, true);
+    }
+
+    @Override
+    public Predicate propertyIsEqualTo(String propertyName, int literal) {
+        return range(propertyName, literal, true, literal, true);
+    }
+
+    @Override
+    public Predicate propertyIsEqualTo(String propertyName, short literal) {
+        return range(propertyName, literal, true, literal, true);
+    }
+
+    @Override
+    public Predicate propertyIsEqualTo(String propertyName, long literal) {
+        return range(propertyName, literal, true, literal, true);
+    }
+
+    @Override
+    public Predicate propertyIsEqualTo(String propertyName, float literal) {
+        return range(propertyName, literal, true, literal, true);
+    }
+
+    @Override
+    public Predicate propertyIsEqualTo(String propertyName, double literal) {
+        return range(propertyName, literal, true, literal, true);
+    }
+
+    @Override
+    public Predicate propertyIsEqualTo(String propertyName, boolean literal) {
+        return new EqualityPredicate(propertyName, literal, true);
+    }
+
+    @Override
+    public Predicate propertyIsEqualTo(String propertyName, byte[] literal) {
+        return new EqualityPredicate(propertyName, literal, true);
+    }
+
+    @Override
+    public Predicate propertyIsEqualTo(String propertyName, Object literal) {
+        if (literal == null) {
+            throw new UnsupportedOperationException("Literal value is required for search.");
+        }
+        return new EqualityPredicate(propertyName, literal, true);
+    }
+
+    @Override
+    public Predicate propertyIsNotEqualTo(String propertyName, String literal,
+            boolean isCaseSensitive) {
+        return not(propertyIsEqualTo(propertyName, literal, isCaseSensitive));
+    }
+
+    @Override
+    public Predicate propertyIsNotEqualTo(String propertyName, Date literal) {
+        return not(propertyIsEqualTo(propertyName, literal));
+    }
+
+    @Override
+    public Predicate propertyIsNotEqualTo(String propertyName, Date startDate, Date endDate) {
+        return not(propertyIsEqualTo(propertyName, startDate, endDate));
+    }
+
+    @Override
+    public Predicate propertyIsNotEqualTo(String propertyName, int literal) {
+        return not(propertyIsEqualTo(propertyName, literal));
+    }
+
+    @Override
+    public Predicate propertyIsNotEqualTo(String propertyName, short literal) {
+        return not(propertyIsEqualTo(propertyName, literal));
+    }
+
+    @Override
+    public Predicate propertyIsNotEqualTo(String propertyName, long literal) {
+        return not(propertyIsEqualTo(propertyName, literal));
+    }
+
+    @Override
+    public Predicate propertyIsNotEqualTo(String propertyName, float literal) {
+        return not(propertyIsEqualTo(propertyName, literal));
+    }
+
+    @Override
+    public Predicate propertyIsNotEqualTo(String propertyName, double literal) {
+        return not(propertyIsEqualTo(propertyName, literal));
+    }
+
+    @Override
+    public Predicate propertyIsNotEqualTo(String propertyName, boolean literal) {
+        return not(propertyIsEqualTo(propertyName, literal));
+    }
+
+    @Override
+    public Predicate propertyIsNotEqualTo(String propertyName, byte[] literal) {
+        return not(propertyIsEqualTo(propertyName, literal));
+    }
+
+    @Override
+    public Predicate propertyIsNotEqualTo(String propertyName, Object literal) {
+        return not(propertyIsEqualTo(propertyName, literal));
+    }
+
+    @Override
+    public Predicate propertyIsGreaterThan(String propertyName, String literal) {
+        verifyInputData(propertyName, literal);
+        return range(propertyName, literal, false, null, true);
+    }
+
+    @Override
+    public Predicate propertyIsGreaterThan(String propertyName, Date literal) {
+        return range(propertyName, literal, false, null, true);
+    }
+
+    @Override
+    public Predicate propertyIsGreaterThan(String propertyName, int literal) {
+        return range(propertyName, literal, false, null, true);
+    }
+
+    @Override
+    public Predicate propertyIsGreaterThan(String propertyName, short literal) {
+        return range(propertyName, literal, false, null, true);
+    }
+
+    @Override
+    public Predicate propertyIsGreaterThan(String propertyName, long literal) {
+        return range(propertyName, literal, false, null, true);
+    }
+
+    @Override
+    public Predicate propertyIsGreaterThan(String propertyName, float literal) {
+        return range(propertyName, literal, false, null, true);
+    }
+
+    @Override
+    public Predicate propertyIsGreaterThan(String propertyName, double literal) {
+        return range(propertyName, literal, false, null, true);
+    }
+
+    @Override
+    public Predicate propertyIsGreaterThanOrEqualTo(String propertyName, String literal) {
+        verifyInputData(propertyName, literal);
+        return range(propertyName, literal, true, null, true);
+    }
+
+    @Override
+    public Predicate propertyIsGreaterThanOrEqualTo(String propertyName, Date literal) {
+        return range(propertyName, literal, true, null, true);
+    }
+
+    @Override
+    public Predicate propertyIsGreaterThanOrEqualTo(String propertyName, int literal) {
+        return range(propertyName, literal, true, null, true);
+    }
+
+    @Override
+    public Predicate propertyIsGreaterThanOrEqualTo(String propertyName, short literal) {
+        return range(propertyName, literal, true, null, true);
+    }
+
+    @Override
+    public Predicate propertyIsGreaterThanOrEqualTo(String propertyName, long literal) {
+        return range(propertyName, literal, true, null, true);
+    }
+
+    @Override
+    public Predicate propertyIsGreaterThanOrEqualTo(String propertyName, float literal) {
+        return range(propertyName, literal, true, null, true);
+    }
+
+    @Override
+    public Predicate propertyIsGreaterThanOrEqualTo(String propertyName, double literal) {
+        return range(propertyName, literal, true, null, true);
+    }
+
+    @Override
+    public Predicate propertyIsLessThan(String propertyName, String literal) {
+        verifyInputData(propertyName, literal);
+        return range(propertyName, null, true, literal, false);
+    }
+
+    @Override
+    public Predicate propertyIsLessThan(String propertyName, Date literal) {
+        return range(propertyName, null, true, literal, false);
+    }
+
+    @Override
+    public Predicate propertyIsLessThan(String propertyName, int literal) {
+        return range(propertyName, null, true, literal, false);
+    }
+
+    @Override
+    public Predicate propertyIsLessThan(String propertyName, short literal) {
+        return range(propertyName, null, true, literal, false);
+    }
+
+    @Override
+    public Predicate propertyIsLessThan(String propertyName, long literal) {
+        return range(propertyName, null, true, literal, false);
+    }
+
+    @Override
+    public Predicate propertyIsLessThan(String propertyName, float literal) {
+        return range(propertyName, null, true, literal, false);
+    }
+
+    @Override
+    public Predicate propertyIsLessThan(String propertyName, double literal) {
+        return range(propertyName, null, true, literal, false);
+    }
+
+    @Override
+    public Predicate propertyIsLessThanOrEqualTo(String propertyName, String literal) {
+        verifyInputData(propertyName, literal);
+        return range(propertyName, null, true, literal, true);
+    }
+
+    @Override
+    public Predicate propertyIsLessThanOrEqualTo(String propertyName, Date literal) {
+        return range(propertyName, null, true, literal, true);
+    }
+
+    @Override
+    public Predicate propertyIsLessThanOrEqualTo(String propertyName, int literal) {
+        return range(propertyName, null, true, literal, true);
+    }
+
+    @Override
+    public Predicate propertyIsLessThanOrEqualTo(String propertyName, short literal) {
+        return range(propertyName, null, true, literal, true);
+    }
+
+    @Override
+    public Predicate propertyIsLessThanOrEqualTo(String propertyName, long literal) {
+        return range(propertyName, null, true, literal, true);
+    }
+
+    @Override
+    public Predicate propertyIsLessThanOrEqualTo(String propertyName, float literal) {
+        return range(propertyName, null, true, literal, true);
+    }
+
+    @Override
+    public Predicate propertyIsLessThanOrEqualTo(String propertyName, double literal) {
+        return range(propertyName, null, true, literal, true);
+    }
+
+    @Override
+    public Predicate propertyIsBetween(String propertyName, String lowerBoundary,
+            String upperBoundary) {
+        return range(propertyName, lowerBoundary, true, upperBoundary, true);
+    }
+
+    @Override
+    public Predicate propertyIsBetween(String propertyName, Date lowerBoundary,
+            Date upperBoundary) {
+        return range(propertyName, lowerBoundary, true, upperBoundary, true);
+    }
+
+    @Override
+    public Predicate propertyIsBetween(String propertyName, int lowerBoundary, int upperBoundary) {
+        return range(propertyName, lowerBoundary, true, upperBoundary, true);
+    }
+
+    @Override
+    public Predicate propertyIsBetween(String propertyName, short lowerBoundary,
+            short upperBoundary) {
+        return range(propertyName, lowerBoundary, true, upperBoundary, true);
+    }
+
+    @Override
+    public Predicate propertyIsBetween(String propertyName, long lowerBoundary,
+            long upperBoundary) {
+        return range(propertyName, lowerBoundary, true, upperBoundary, true);
+    }
+
+    @Override
+    public Predicate propertyIsBetween(String propertyName, float lowerBoundary,
+            float upperBoundary) {
+        return range(propertyName, lowerBoundary, true, upperBoundary, true);
+    }
+
+    @Override
+    public Predicate propertyIsBetween(String propertyName, double lowerBoundary,
+            double upperBoundary) {
+        return range(propertyName, lowerBoundary, true, upperBoundary, true);
+    }
+
+    @Override
+    public Predicate propertyIsNull(String propertyName) {
+        verifyPropertyName(propertyName);
+        return new NullPredicate(propertyName);
+    }
+
+    @Override
+    public Predicate propertyIsLike(String propertyName, String pattern, boolean isCaseSensitive) {
+        verifyInputData(propertyName, pattern);
+
+        if (!pattern.contains(WILDCARD_CHAR) && !pattern.contains(SINGLE_CHAR)) {
+            TextAnalyzer analyzer = TextAnalyzer.get(false, isCaseSensitive);
+            return new PhrasePredicate(propertyName, analyzer, analyzer.analyze(unescape(pattern)));
+        }
+
+        TextAnalyzer analyzer = TextAnalyzer
+                .get(Metacard.ANY_TEXT.equals(propertyName), isCaseSensitive);
+        List<Pattern> patterns = new ArrayList<>();
+        for (String term : TextAnalyzer.WHITESPACE_HAS_CASE.analyze(pattern)) {
+            if (hasWildcard(term)) {
+                patterns.add(toPattern(term, analyzer));
+            } else {
+                for (String analyzedTerm : analyzer.analyze(unescape(term))) {
+                    patterns.add(Pattern.compile(Pattern.quote(analyzedTerm)));
+                }
+            }
+        }
+        return new WildcardPredicate(propertyName, analyzer, patterns);
+    }
+
+    @Override
+    public Predicate propertyIsFuzzy(String propertyName, String searchPhrase) {
+        verifyInputData(propertyName, searchPhrase);
+        // On fuzzy searches, no text analysis is performed on the search phrase. Expect fuzzy
+        // terms to be case insensitive.
+        return new FuzzyPredicate(propertyName, TextAnalyzer.WHITESPACE.analyze(searchPhrase));
+    }
+
+    @Override
+    public Predicate after(String propertyName, Date date) {
+        return range(propertyName, date, false, null, true);
+    }
+
+    @Override
+    public Predicate before(String propertyName, Date date) {
+        return range(propertyName, null, true, date, false);
+    }
+
+    @Override
+    public Predicate during(String propertyName, Date startDate, Date endDate) {
+        return range(propertyName, startDate, false, endDate, false);
+    }
+
+    @Override
+    public Predicate relative(String propertyName, long duration) {
+        verifyPropertyName(propertyName);
+        return new RelativePredicate(propertyName, duration);
+    }
+
+    @Override
+    public Predicate contains(String propertyName, String wkt) {
+        return spatial(propertyName, getGeometry(wkt), SpatialPredicate.Operation.CONTAINS);
+    }
+
+    @Override
+    public Predicate crosses(String propertyName, String wkt) {
+        return spatial(propertyName, getGeometry(wkt), SpatialPredicate.Operation.CROSSES);
+    }
+
+    @Override
+    public Predicate disjoint(String propertyName, String wkt) {
+        return spatial(propertyName, getGeometry(wkt), SpatialPredicate.Operation.DISJOINT);
+    }
+
+    @Override
+    public Predicate intersects(String propertyName, String wkt) {
+        Geometry geometry = getGeometry(wkt);
+        Point point = getPoint(geometry);
+        if (point != null) {
+            return new DistancePredicate(propertyName, point, DEFAULT_ERROR_IN_DEGREES);
+        }
+        return spatial(propertyName, geometry, SpatialPredicate.Operation.INTERSECTS);
+    }
+
+    @Override
+    public Predicate overlaps(String propertyName, String wkt) {
+        return spatial(propertyName, getGeometry(wkt), SpatialPredicate.Operation.OVERLAPS);
+    }
+
+    @Override
+    public Predicate touches(String propertyName, String wkt) {
+        return spatial(propertyName, getGeometry(wkt), SpatialPredicate.Operation.TOUCHES);
+    }
+
+    @Override
+    public Predicate within(String propertyName, String wkt) {
+        return spatial(propertyName, getGeometry(wkt), SpatialPredicate.Operation.WITHIN);
+    }
+
+    @Override
+    public Predicate dwithin(String propertyName, String wkt, double distance) {
+        Geometry geometry = getGeometry(wkt);
+        double distanceInDegrees = metersToDegrees(distance);
+        if (geometry instanceof Point) {
+            return new DistancePredicate(propertyName, (Point) geometry, distanceInDegrees);
+        }
+        return spatial(propertyName, geometry.buffer(distanceInDegrees, QUADRANT_SEGMENTS),
+                SpatialPredicate.Operation.INTERSECTS);
+    }
+
+    @Override
+    public Predicate beyond(String propertyName, String wkt, double distance) {
+        return not(dwithin(propertyName, wkt, distance));
+    }
+
+    @Override
+    public Predicate nearestNeighbor(String propertyName, String wkt) {
+        Geometry geometry = getGeometry(wkt);
+        Point point = geometry instanceof Point ? (Point) geometry : geometry.getCentroid();
+        return new DistancePredicate(propertyName, point, NEAREST_NEIGHBOR_DISTANCE_LIMIT);
+    }
+
+    private Predicate range(String propertyName, Object lower, boolean lowerInclusive,
+            Object upper, boolean upperInclusive) {
+        verifyPropertyName(propertyName);
+        return new RangePredicate(propertyName, lower, lowerInclusive, upper, upperInclusive);
+    }
+
+    private Predicate spatial(String propertyName, Geometry geometry,
+            SpatialPredicate.Operation operation) {
+        verifyPropertyName(propertyName);
+        return new SpatialPredicate(propertyName, preparedGeometryFactory.create(geometry),
+                operation);
+    }
+
+    private Geometry getGeometry(String wkt) {
+        if (wkt == null || wkt.isEmpty()) {
+            throw new UnsupportedOperationException("Wkt should not be null or empty.");
+        }
+        try {
+            return wktReader.read(wkt);
+        } catch (ParseException e) {
+            throw new UnsupportedOperationException("Unable to read given WKT: " + wkt, e);
+        }
+    }
+
+    /**
+     * @return the point of a point or single point multi point, or {@code null}
+     */
+    private Point getPoint(Geometry geometry) {
+        if (geometry instanceof Point) {
+            return (Point) geometry;
+        }
+        if (geometry instanceof MultiPoint && geometry.getCoordinates().length == 1) {
+            return GEOMETRY_FACTORY.createPoint(geometry.getCoordinate());
+        }
+        return null;
+    }
+
+    /**
+     * @return a pattern matching the terms matched by a term of a contextual search with wildcards
+     */
+    private Pattern toPattern(String term, TextAnalyzer analyzer) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < term.length(); i++) {
+            char character = term.charAt(i);
+            if (ESCAPE_CHAR.charAt(0) == character && i + 1 < term.length()) {
+                literal.append(term.charAt(++i));
+            } else if (WILDCARD_CHAR.charAt(0) == character
+                    || SINGLE_CHAR.charAt(0) == character) {
+                appendLiteral(regex, literal, analyzer);
+                regex.append(WILDCARD_CHAR.charAt(0) == character ? ".*" : ".");
+            } else {
+                literal.append(character);
+            }
+        }
+        appendLiteral(regex, literal, analyzer);
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    private void appendLiteral(StringBuilder regex, StringBuilder literal,
+            TextAnalyzer analyzer) {
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(analyzer.normalize(literal.toString())));
+            literal.setLength(0);
+        }
+    }
+
+    private boolean hasWildcard(String term) {
+        for (int i = 0; i < term.length(); i++) {
+            char character = term.charAt(i);
+            if (ESCAPE_CHAR.charAt(0) == character) {
+                i++;
+            } else if (WILDCARD_CHAR.charAt(0) == character
+                    || SINGLE_CHAR.charAt(0) == character) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String unescape(String pattern) {
+        StringBuilder unescaped = new StringBuilder(pattern.length());
+        for (int i = 0; i < pattern.length(); i++) {
+            char character = pattern.charAt(i);
+            if (ESCAPE_CHAR.charAt(0) == character && i + 1 < pattern.length()) {
+                character = pattern.charAt(++i);
+            }
+            unescaped.append(character);
+        }
+        return unescaped.toString();
+    }
+
+    private void verifyOperands(List<Predicate> operands) {
+        if (operands == null || operands.isEmpty()) {
+            throw new UnsupportedOperationException("Operation must contain 1 or more filters.");
+        }
+        for (Predicate operand : operands) {
+            if (operand == null) {
+                throw new UnsupportedOperationException("Null operand found");
+            }
+        }
+    }
+
+    private void verifyPropertyName(String propertyName) {
+        if (propertyName == null || propertyName.isEmpty()) {
+            throw new UnsupportedOperationException("PropertyName is required for search.");
+        }
+    }
+
+    private void verifyInputData(String propertyName, String literal) {
+        verifyPropertyName(propertyName);
+        if (literal == null || literal.isEmpty()) {
+            throw new UnsupportedOperationException("Literal value is required for search.");
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.filter.proxy.compiler;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.Point;
+
+/**
+ * Matches metacards with a geometry of an attribute intersecting a circle. Like the circles of the
+ * Solr catalog provider, the radius is in degrees of arc, and the distance from points to the
+ * center is measured along a great circle.
+ */
+class DistancePredicate implements Predicate {
+
+    private final String propertyName;
+
+    private final Point center;
+
+    private final double radius;
+
+    DistancePredicate(String propertyName, Point center, double radius) {
+        this.propertyName = propertyName;
+        this.center = center;
+        this.radius = radius;
+    }
+
+    @Override
+    public boolean test(MetacardValues values) {
+        for (Geometry value : values.getGeometries(propertyName)) {
+            if (value instanceof Point && !value.isEmpty()) {
+                if (distance((Point) value) <= radius) {
+                    return true;
+                }
+            } else if (value.isWithinDistance(center, radius)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the haversine distance in degrees between the center and a point
+     */
+    private double distance(Point point) {
+        double latitude = Math.toRadians(center.getY());
+        double pointLatitude = Math.toRadians(point.getY());
+        double latitudeSine = Math.sin((pointLatitude - latitude) / 2);
+        double longitudeSine = Math.sin(Math.toRadians(point.getX() - center.getX()) / 2);
+        double haversine = latitudeSine * latitudeSine
+                + Math.cos(latitude) * Math.cos(pointLatitude) * longitudeSine * longitudeSine;
+        return Math.toDegrees(2 * Math.atan2(Math.sqrt(haversine), Math.sqrt(1 - haversine)));
+    }
+}
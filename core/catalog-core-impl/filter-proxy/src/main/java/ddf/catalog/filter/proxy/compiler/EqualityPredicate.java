@@ -0,0 +1,56 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.filter.proxy.compiler;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Matches metacards with a value of an attribute equal to a literal. Numbers and dates are
+ * compared by {@link RangePredicate}s.
+ */
+class EqualityPredicate implements Predicate {
+
+    private final String propertyName;
+
+    private final Object literal;
+
+    private final boolean isCaseSensitive;
+
+    EqualityPredicate(String propertyName, Object literal, boolean isCaseSensitive) {
+        this.propertyName = propertyName;
+        this.literal = literal;
+        this.isCaseSensitive = isCaseSensitive;
+    }
+
+    @Override
+    public boolean test(MetacardValues values) {
+        for (Serializable value : values.getValues(propertyName)) {
+            if (equal(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean equal(Serializable value) {
+        if (literal instanceof String && value instanceof String && !isCaseSensitive) {
+            return ((String) literal).equalsIgnoreCase((String) value);
+        }
+        if (literal instanceof byte[] && value instanceof byte[]) {
+            return Arrays.equals((byte[]) literal, (byte[]) value);
+        }
+        return literal.equals(value);
+    }
+}
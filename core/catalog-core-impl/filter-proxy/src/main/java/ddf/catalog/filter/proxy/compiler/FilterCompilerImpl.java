@@ -0,0 +1,51 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.filter.proxy.compiler;
+
+import org.opengis.filter.Filter;
+
+import ddf.catalog.filter.CompiledFilter;
+import ddf.catalog.filter.FilterAdapter;
+import ddf.catalog.filter.FilterCompiler;
+import ddf.catalog.filter.proxy.adapter.GeotoolsFilterAdapterImpl;
+import ddf.catalog.source.UnsupportedQueryException;
+
+/**
+ * Compiles filters into trees of typed predicates with precompiled patterns for contextual
+ * searches, prepared geometries for spatial searches and parsed dates for temporal searches, which
+ * evaluate a filter against a metacard without parsing it again.
+ * <p>
+ * Compiled filters match the metacards the Solr catalog provider returns for the same filter, as
+ * far as its text analysis allows; see {@link CompilingFilterDelegate}.
+ */
+public class FilterCompilerImpl implements FilterCompiler {
+
+    private final FilterAdapter filterAdapter;
+
+    public FilterCompilerImpl() {
+        this(new GeotoolsFilterAdapterImpl());
+    }
+
+    public FilterCompilerImpl(FilterAdapter filterAdapter) {
+        this.filterAdapter = filterAdapter;
+    }
+
+    @Override
+    public CompiledFilter compile(Filter filter) throws UnsupportedQueryException {
+        if (filter == null) {
+            throw new UnsupportedQueryException("Cannot compile a null Filter.");
+        }
+        return new PredicateFilter(filterAdapter.adapt(filter, new CompilingFilterDelegate()));
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.filter.proxy.compiler;
+
+import java.util.List;
+
+/**
+ * Matches metacards with an attribute holding, for every term searched for, a term at most two
+ * edits away from it. Like Lucene's {@code FuzzyQuery}, an insertion, deletion, substitution or
+ * transposition of adjacent characters counts as one edit, and a term needs fewer edits than the
+ * length of the shorter of the two terms.
+ */
+class FuzzyPredicate implements Predicate {
+
+    private static final int MAXIMUM_EDITS = 2;
+
+    private final String propertyName;
+
+    private final String[] searchTerms;
+
+    FuzzyPredicate(String propertyName, List<String> searchTerms) {
+        this.propertyName = propertyName;
+        this.searchTerms = searchTerms.toArray(new String[searchTerms.size()]);
+    }
+
+    @Override
+    public boolean test(MetacardValues values) {
+        List<List<String>> terms = values.getTerms(propertyName, TextAnalyzer.STANDARD);
+        for (String searchTerm : searchTerms) {
+            if (!contains(terms, searchTerm)) {
+                return false;
+            }
+        }
+        return searchTerms.length > 0;
+    }
+
+    private static boolean contains(List<List<String>> terms, String searchTerm) {
+        for (List<String> valueTerms : terms) {
+            for (String term : valueTerms) {
+                int maximumEdits = Math.min(MAXIMUM_EDITS,
+                        Math.min(term.length(), searchTerm.length()) - 1);
+                if (term.equals(searchTerm) || (maximumEdits > 0
+                        && Math.abs(term.length() - searchTerm.length()) <= maximumEdits
+                        && edits(term, searchTerm, maximumEdits) <= maximumEdits)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the optimal string alignment distance between two terms, or a number greater than
+     * {@code limit} once it is certain to exceed it
+     */
+    private static int edits(String first, String second, int limit) {
+        int[] twoBefore = new int[second.length() + 1];
+        int[] before = new int[second.length() + 1];
+        int[] current = new int[second.length() + 1];
+        for (int j = 0; j <= second.length(); j++) {
+            before[j] = j;
+        }
+
+        for (int i = 1; i <= first.length(); i++) {
+            current[0] = i;
+            int rowMinimum = current[0];
+            for (int j = 1; j <= second.length(); j++) {
+                int cost = first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, before[j] + 1),
+                        before[j - 1] + cost);
+                if (i > 1 && j > 1 && first.charAt(i - 1) == second.charAt(j - 2)
+                        && first.charAt(i - 2) == second.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], twoBefore[j - 2] + 1);
+                }
+                rowMinimum = Math.min(rowMinimum, current[j]);
+            }
+            if (rowMinimum > limit) {
+                return rowMinimum;
+            }
+            int[] recycled = twoBefore;
+            twoBefore = before;
+            before = current;
+            current = recycled;
+        }
+        return before[second.length()];
+    }
+}
@@ -0,0 +1,227 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.filter.proxy.compiler;
+
+import java.io.Serializable;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKTReader;
+
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.AttributeType.AttributeFormat;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.MetacardType;
+
+/**
+ * The values of a metacard a compiled filter is evaluated against. The text terms and geometries
+ * of an attribute are derived at most once per evaluation, however many operations of the filter
+ * use them.
+ */
+class MetacardValues {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetacardValues.class);
+
+    private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    static {
+        XML_INPUT_FACTORY
+                .setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, Boolean.FALSE);
+        XML_INPUT_FACTORY
+                .setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_VALIDATING, Boolean.FALSE);
+    }
+
+    private final Metacard metacard;
+
+    private final Map<String, List<List<String>>> terms = new HashMap<>();
+
+    private final Map<String, List<Geometry>> geometries = new HashMap<>();
+
+    private WKTReader wktReader;
+
+    MetacardValues(Metacard metacard) {
+        this.metacard = metacard;
+    }
+
+    /**
+     * @return the non-null values of an attribute, with {@link Metacard#ANY_GEO} standing for the
+     * geography and {@link Metacard#ANY_DATE} for every date of the metacard
+     */
+    List<Serializable> getValues(String propertyName) {
+        if (Metacard.ANY_GEO.equals(propertyName)) {
+            return getAttributeValues(Metacard.GEOGRAPHY);
+        }
+        if (Metacard.ANY_TEXT.equals(propertyName)) {
+            return getAttributeValues(Metacard.METADATA);
+        }
+        if (Metacard.ANY_DATE.equals(propertyName)) {
+            List<Serializable> dates = new ArrayList<>();
+            MetacardType metacardType = metacard.getMetacardType();
+            if (metacardType != null && metacardType.getAttributeDescriptors() != null) {
+                for (AttributeDescriptor descriptor : metacardType.getAttributeDescriptors()) {
+                    if (AttributeFormat.DATE
+                            .equals(descriptor.getType().getAttributeFormat())) {
+                        dates.addAll(getAttributeValues(descriptor.getName()));
+                    }
+                }
+            }
+            return dates;
+        }
+        return getAttributeValues(propertyName);
+    }
+
+    /**
+     * @return the terms of each text value of an attribute. The text of XML values, including
+     * {@link Metacard#ANY_TEXT}, is their element text, CDATA and attribute values.
+     */
+    List<List<String>> getTerms(String propertyName, TextAnalyzer analyzer) {
+        String key = propertyName + '|' + analyzer;
+        List<List<String>> valueTerms = terms.get(key);
+        if (valueTerms == null) {
+            boolean isXml = isXml(propertyName);
+            valueTerms = new ArrayList<>();
+            for (Serializable value : getValues(propertyName)) {
+                if (value instanceof String) {
+                    String text = isXml ? parseTextFrom((String) value) : (String) value;
+                    valueTerms.add(analyzer.analyze(text));
+                }
+            }
+            terms.put(key, valueTerms);
+        }
+        return valueTerms;
+    }
+
+    /**
+     * @return the geometries of an attribute holding WKT
+     */
+    List<Geometry> getGeometries(String propertyName) {
+        List<Geometry> valueGeometries = geometries.get(propertyName);
+        if (valueGeometries == null) {
+            valueGeometries = new ArrayList<>();
+            for (Serializable value : getValues(propertyName)) {
+                if (value instanceof String) {
+                    try {
+                        valueGeometries.add(getWktReader().read((String) value));
+                    } catch (ParseException e) {
+                        LOGGER.debug("Unable to read WKT of attribute {} of metacard {}: {}",
+                                propertyName, metacard.getId(), value, e);
+                    }
+                }
+            }
+            geometries.put(propertyName, valueGeometries);
+        }
+        return valueGeometries;
+    }
+
+    private List<Serializable> getAttributeValues(String name) {
+        Attribute attribute = metacard.getAttribute(name);
+        if (attribute == null) {
+            return Collections.emptyList();
+        }
+        List<Serializable> values = new ArrayList<>();
+        if (attribute.getValues() != null) {
+            for (Serializable value : attribute.getValues()) {
+                if (value != null) {
+                    values.add(value);
+                }
+            }
+        } else if (attribute.getValue() != null) {
+            values.add(attribute.getValue());
+        }
+        return values;
+    }
+
+    private boolean isXml(String propertyName) {
+        if (Metacard.ANY_TEXT.equals(propertyName)) {
+            return true;
+        }
+        MetacardType metacardType = metacard.getMetacardType();
+        AttributeDescriptor descriptor =
+                metacardType == null ? null : metacardType.getAttributeDescriptor(propertyName);
+        if (descriptor == null) {
+            return Metacard.METADATA.equals(propertyName);
+        }
+        return AttributeFormat.XML.equals(descriptor.getType().getAttributeFormat());
+    }
+
+    private WKTReader getWktReader() {
+        if (wktReader == null) {
+            wktReader = new WKTReader(GEOMETRY_FACTORY);
+        }
+        return wktReader;
+    }
+
+    /**
+     * Parses the element text, CDATA and attribute values of XML, separated by one space, the
+     * way the Solr catalog provider indexes it.
+     */
+    private String parseTextFrom(String xmlData) {
+        StringBuilder builder = new StringBuilder();
+        XMLStreamReader xmlStreamReader = null;
+        try {
+            xmlStreamReader = XML_INPUT_FACTORY.createXMLStreamReader(new StringReader(xmlData));
+            while (xmlStreamReader.hasNext()) {
+                int event = xmlStreamReader.next();
+                if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                    append(builder, xmlStreamReader.getText());
+                }
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    for (int i = 0; i < xmlStreamReader.getAttributeCount(); i++) {
+                        append(builder, xmlStreamReader.getAttributeValue(i));
+                    }
+                }
+            }
+        } catch (XMLStreamException e) {
+            LOGGER.debug("Unable to parse the text of the metadata of metacard {}.",
+                    metacard.getId(), e);
+        } finally {
+            if (xmlStreamReader != null) {
+                try {
+                    xmlStreamReader.close();
+                } catch (XMLStreamException e) {
+                    LOGGER.debug("Exception closing XMLStreamReader", e);
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    private static void append(StringBuilder builder, String text) {
+        String trimmed = text == null ? "" : text.trim();
+        if (!trimmed.isEmpty()) {
+            builder.append(" ").append(trimmed);
+        }
+    }
+}
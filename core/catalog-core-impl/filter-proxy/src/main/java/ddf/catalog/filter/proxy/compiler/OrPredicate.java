@@ -0,0 +1,35 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.filter.proxy.compiler;
+
+import java.util.List;
+
+class OrPredicate implements Predicate {
+
+    private final Predicate[] operands;
+
+    OrPredicate(List<Predicate> operands) {
+        this.operands = operands.toArray(new Predicate[operands.size()]);
+    }
+
+    @Override
+    public boolean test(MetacardValues values) {
+        for (Predicate operand : operands) {
+            if (operand.test(values)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
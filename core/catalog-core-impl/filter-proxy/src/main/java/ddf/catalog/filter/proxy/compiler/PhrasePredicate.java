@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.filter.proxy.compiler;
+
+import java.util.List;
+
+/**
+ * Matches metacards with a value of an attribute containing a phrase, i.e. the terms of the phrase
+ * in order and next to each other.
+ */
+class PhrasePredicate implements Predicate {
+
+    private final String propertyName;
+
+    private final TextAnalyzer analyzer;
+
+    private final String[] phrase;
+
+    PhrasePredicate(String propertyName, TextAnalyzer analyzer, List<String> phrase) {
+        this.propertyName = propertyName;
+        this.analyzer = analyzer;
+        this.phrase = phrase.toArray(new String[phrase.size()]);
+    }
+
+    @Override
+    public boolean test(MetacardValues values) {
+        if (phrase.length == 0) {
+            return false;
+        }
+        for (List<String> terms : values.getTerms(propertyName, analyzer)) {
+            for (int start = 0; start <= terms.size() - phrase.length; start++) {
+                if (matchesAt(terms, start)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean matchesAt(List<String> terms, int start) {
+        for (int i = 0; i < phrase.length; i++) {
+            if (!phrase[i].equals(terms.get(start + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
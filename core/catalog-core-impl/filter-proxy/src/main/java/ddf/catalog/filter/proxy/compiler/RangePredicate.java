@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.filter.proxy.compiler;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Matches metacards with a value of an attribute between two bounds, either of which may be
+ * {@code null} for an open range. Numbers are compared with numbers, dates with dates and strings
+ * with strings; values of other types never match.
+ */
+class RangePredicate implements Predicate {
+
+    private final String propertyName;
+
+    private final Object lower;
+
+    private final boolean lowerInclusive;
+
+    private final Object upper;
+
+    private final boolean upperInclusive;
+
+    RangePredicate(String propertyName, Object lower, boolean lowerInclusive, Object upper,
+            boolean upperInclusive) {
+        this.propertyName = propertyName;
+        this.lower = lower;
+        this.lowerInclusive = lowerInclusive;
+        this.upper = upper;
+        this.upperInclusive = upperInclusive;
+    }
+
+    @Override
+    public boolean test(MetacardValues values) {
+        for (Serializable value : values.getValues(propertyName)) {
+            if (inRange(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean inRange(Serializable value) {
+        if (lower != null) {
+            Integer comparison = compare(value, lower);
+            if (comparison == null || comparison < 0 || (comparison == 0 && !lowerInclusive)) {
+                return false;
+            }
+        }
+        if (upper != null) {
+            Integer comparison = compare(value, upper);
+            if (comparison == null || comparison > 0 || (comparison == 0 && !upperInclusive)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the comparison of a value with a bound, or {@code null} if they cannot be compared
+     */
+    private static Integer compare(Serializable value, Object bound) {
+        if (value instanceof Number && bound instanceof Number) {
+            Number number = (Number) value;
+            Number boundNumber = (Number) bound;
+            if (isIntegral(number) && isIntegral(boundNumber)) {
+                return Long.compare(number.longValue(), boundNumber.longValue());
+            }
+            return Double.compare(number.doubleValue(), boundNumber.doubleValue());
+        }
+        if (value instanceof Date && bound instanceof Date) {
+            return Long.compare(((Date) value).getTime(), ((Date) bound).getTime());
+        }
+        if (value instanceof String && bound instanceof String) {
+            return ((String) value).compareTo((String) bound);
+        }
+        return null;
+    }
+
+    private static boolean isIntegral(Number number) {
+        return number instanceof Integer || number instanceof Long || number instanceof Short
+                || number instanceof Byte;
+    }
+}
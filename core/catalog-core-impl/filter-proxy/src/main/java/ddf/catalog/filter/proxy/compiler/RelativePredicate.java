@@ -0,0 +1,47 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.filter.proxy.compiler;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Matches metacards with a date of an attribute within a duration before the time of evaluation,
+ * so a compiled filter kept for a long time keeps selecting recent metacards.
+ */
+class RelativePredicate implements Predicate {
+
+    private final String propertyName;
+
+    private final long duration;
+
+    RelativePredicate(String propertyName, long duration) {
+        this.propertyName = propertyName;
+        this.duration = duration;
+    }
+
+    @Override
+    public boolean test(MetacardValues values) {
+        long now = System.currentTimeMillis();
+        for (Serializable value : values.getValues(propertyName)) {
+            if (value instanceof Date) {
+                long time = ((Date) value).getTime();
+                if (time >= now - duration && time <= now) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.filter.proxy.compiler;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+
+/**
+ * Matches metacards with a geometry of an attribute in a spatial relation with a prepared
+ * geometry, which indexes the query geometry once for all the metacards it is evaluated against.
+ */
+class SpatialPredicate implements Predicate {
+
+    enum Operation {
+        /** The metacard geometry contains the query geometry. */
+        CONTAINS,
+        CROSSES,
+        DISJOINT,
+        INTERSECTS,
+        OVERLAPS,
+        TOUCHES,
+        /** The metacard geometry is within the query geometry. */
+        WITHIN
+    }
+
+    private final String propertyName;
+
+    private final PreparedGeometry geometry;
+
+    private final Operation operation;
+
+    SpatialPredicate(String propertyName, PreparedGeometry geometry, Operation operation) {
+        this.propertyName = propertyName;
+        this.geometry = geometry;
+        this.operation = operation;
+    }
+
+    @Override
+    public boolean test(MetacardValues values) {
+        for (Geometry value : values.getGeometries(propertyName)) {
+            if (relates(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean relates(Geometry value) {
+        switch (operation) {
+        case CONTAINS:
+            return geometry.within(value);
+        case CROSSES:
+            return geometry.crosses(value);
+        case DISJOINT:
+            return geometry.disjoint(value);
+        case INTERSECTS:
+            return geometry.intersects(value);
+        case OVERLAPS:
+            return geometry.overlaps(value);
+        case TOUCHES:
+            return geometry.touches(value);
+        case WITHIN:
+            return geometry.contains(value);
+        default:
+            return false;
+        }
+    }
+}
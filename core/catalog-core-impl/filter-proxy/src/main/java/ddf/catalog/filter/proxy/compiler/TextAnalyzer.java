@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.filter.proxy.compiler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits text into the terms the catalog provider indexes it as. {@link #STANDARD} approximates
+ * the word boundaries of Lucene's {@code StandardTokenizer}: letters and digits form words, which
+ * are not split by a period or apostrophe between letters or digits, a colon between letters, or a
+ * comma or semicolon between digits. {@link #WHITESPACE} splits text at whitespace only.
+ */
+enum TextAnalyzer {
+
+    STANDARD(false, false),
+    STANDARD_HAS_CASE(false, true),
+    WHITESPACE(true, false),
+    WHITESPACE_HAS_CASE(true, true);
+
+    private final boolean whitespace;
+
+    private final boolean caseSensitive;
+
+    TextAnalyzer(boolean whitespace, boolean caseSensitive) {
+        this.whitespace = whitespace;
+        this.caseSensitive = caseSensitive;
+    }
+
+    static TextAnalyzer get(boolean whitespace, boolean caseSensitive) {
+        if (whitespace) {
+            return caseSensitive ? WHITESPACE_HAS_CASE : WHITESPACE;
+        }
+        return caseSensitive ? STANDARD_HAS_CASE : STANDARD;
+    }
+
+    boolean isCaseSensitive() {
+        return caseSensitive;
+    }
+
+    List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i < text.length(); i++) {
+            if (isTermCharacter(text, i)) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                terms.add(normalize(text.substring(start, i)));
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            terms.add(normalize(text.substring(start)));
+        }
+        return terms;
+    }
+
+    String normalize(String term) {
+        return caseSensitive ? term : term.toLowerCase(Locale.ROOT);
+    }
+
+    private boolean isTermCharacter(String text, int index) {
+        char character = text.charAt(index);
+        if (whitespace) {
+            return !Character.isWhitespace(character);
+        }
+        if (Character.isLetterOrDigit(character) || character == '_') {
+            return true;
+        }
+        if (index == 0 || index == text.length() - 1) {
+            return false;
+        }
+        char previous = text.charAt(index - 1);
+        char next = text.charAt(index + 1);
+        switch (character) {
+        case '.':
+        case '\'':
+            return (Character.isLetter(previous) && Character.isLetter(next)) || (
+                    Character.isDigit(previous) && Character.isDigit(next));
+        case ':':
+            return Character.isLetter(previous) && Character.isLetter(next);
+        case ',':
+        case ';':
+            return Character.isDigit(previous) && Character.isDigit(next);
+        default:
+            return false;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.filter.proxy.compiler;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Matches metacards with a term of an attribute matching any of a list of precompiled patterns.
+ */
+class WildcardPredicate implements Predicate {
+
+    private final String propertyName;
+
+    private final TextAnalyzer analyzer;
+
+    private final Pattern[] patterns;
+
+    WildcardPredicate(String propertyName, TextAnalyzer analyzer, List<Pattern> patterns) {
+        this.propertyName = propertyName;
+        this.analyzer = analyzer;
+        this.patterns = patterns.toArray(new Pattern[patterns.size()]);
+    }
+
+    @Override
+    public boolean test(MetacardValues values) {
+        for (List<String> terms : values.getTerms(propertyName, analyzer)) {
+            for (String term : terms) {
+                for (Pattern pattern : patterns) {
+                    if (pattern.matcher(term).matches()) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+}
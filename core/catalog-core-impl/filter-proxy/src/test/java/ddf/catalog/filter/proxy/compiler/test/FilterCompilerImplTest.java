@@ -0,0 +1,227 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.filter.proxy.compiler.test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.geotools.filter.FilterFactoryImpl;
+import org.junit.Before;
+import org.junit.Test;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.filter.FilterBuilder;
+import ddf.catalog.filter.FilterCompiler;
+import ddf.catalog.filter.proxy.builder.GeotoolsFilterBuilder;
+import ddf.catalog.filter.proxy.compiler.FilterCompilerImpl;
+import ddf.catalog.source.UnsupportedQueryException;
+
+public class FilterCompilerImplTest {
+
+    private static final String METADATA = "<rss version=\"2.0\"><channel>"
+            + "<title>Flagstaff Chamber of Commerce</title>"
+            + "<link>http://www.flagstaffchamber.com/arizona-cardinals</link>"
+            + "<description><![CDATA[Join the Arizona Cardinals in Flagstaff.]]></description>"
+            + "</channel></rss>";
+
+    private static final long NOW = System.currentTimeMillis();
+
+    private final FilterBuilder filterBuilder = new GeotoolsFilterBuilder();
+
+    private final FilterCompiler compiler = new FilterCompilerImpl();
+
+    private MetacardImpl metacard;
+
+    @Before
+    public void setUp() {
+        metacard = new MetacardImpl();
+        metacard.setId("id");
+        metacard.setTitle("Mary had a little lamb");
+        metacard.setMetadata(METADATA);
+        metacard.setLocation("POINT (1 0)");
+        metacard.setModifiedDate(new Date(NOW));
+        metacard.setAttribute("count", 5);
+    }
+
+    @Test
+    public void phrase() throws Exception {
+        assertMatches(filterBuilder.attribute(Metacard.TITLE).is().like().text("little LAMB"));
+        assertMatches(filterBuilder.attribute(Metacard.TITLE).is().like()
+                .caseSensitiveText("Mary had"));
+        assertNotMatches(filterBuilder.attribute(Metacard.TITLE).is().like().text("lamb little"));
+        assertNotMatches(filterBuilder.attribute(Metacard.TITLE).is().like()
+                .caseSensitiveText("mary"));
+    }
+
+    @Test
+    public void anyTextSearchesTextOfMetadata() throws Exception {
+        assertMatches(filterBuilder.attribute(Metacard.ANY_TEXT).is().like()
+                .text("arizona cardinals"));
+        assertMatches(filterBuilder.attribute(Metacard.ANY_TEXT).is().like().text("2.0"));
+        assertNotMatches(filterBuilder.attribute(Metacard.ANY_TEXT).is().like().text("channel"));
+    }
+
+    @Test
+    public void wildcard() throws Exception {
+        assertMatches(filterBuilder.attribute(Metacard.TITLE).is().like().text("LI*le"));
+        assertMatches(filterBuilder.attribute(Metacard.TITLE).is().like().text("l?mb"));
+        assertMatches(filterBuilder.attribute(Metacard.TITLE).is().like().text("goat* lamb"));
+        assertNotMatches(filterBuilder.attribute(Metacard.TITLE).is().like()
+                .caseSensitiveText("LI*le"));
+        assertNotMatches(filterBuilder.attribute(Metacard.TITLE).is().like().text("lamb?"));
+    }
+
+    @Test
+    public void anyTextWildcardMatchesWhitespaceSeparatedTerms() throws Exception {
+        assertMatches(filterBuilder.attribute(Metacard.ANY_TEXT).is().like()
+                .caseSensitiveText("http://www.flagstaffchamber.com/*"));
+        assertMatches(filterBuilder.attribute(Metacard.ANY_TEXT).is().like().text("flagstaff?"));
+        assertNotMatches(filterBuilder.attribute(Metacard.METADATA).is().like()
+                .text("flagstaff?"));
+    }
+
+    @Test
+    public void fuzzy() throws Exception {
+        assertMatches(filterBuilder.attribute(Metacard.ANY_TEXT).is().like()
+                .fuzzyText("FLAGSTAF Chambr"));
+        assertMatches(filterBuilder.attribute(Metacard.TITLE).is().like().fuzzyText("lmab"));
+        assertNotMatches(filterBuilder.attribute(Metacard.ANY_TEXT).is().like()
+                .fuzzyText("Flagstaff Igloo"));
+        assertNotMatches(filterBuilder.attribute(Metacard.TITLE).is().like().fuzzyText("ma"));
+    }
+
+    @Test
+    public void equality() throws Exception {
+        FilterFactory filterFactory = new FilterFactoryImpl();
+
+        assertMatches(filterBuilder.attribute(Metacard.TITLE).is().equalTo()
+                .text("Mary had a little lamb"));
+        assertNotMatches(filterBuilder.attribute(Metacard.TITLE).is().equalTo().text("Mary"));
+        assertMatches(filterFactory.equal(filterFactory.property(Metacard.TITLE),
+                filterFactory.literal("MARY HAD A LITTLE LAMB"), false));
+        assertMatches(filterBuilder.attribute("count").is().equalTo().number(5L));
+        assertMatches(filterBuilder.attribute("count").is().notEqualTo().number(4));
+    }
+
+    @Test
+    public void numericalRanges() throws Exception {
+        assertMatches(filterBuilder.attribute("count").is().greaterThan().number(4.5));
+        assertNotMatches(filterBuilder.attribute("count").is().greaterThan().number(5));
+        assertMatches(filterBuilder.attribute("count").is().greaterThanOrEqualTo().number(5));
+        assertNotMatches(filterBuilder.attribute("count").is().lessThan().number(5));
+        assertMatches(filterBuilder.attribute("count").is().lessThanOrEqualTo().number(5));
+        assertMatches(filterBuilder.attribute("count").is().between().numbers(5, 6));
+    }
+
+    @Test
+    public void temporalBoundsAreExclusive() throws Exception {
+        Date now = new Date(NOW);
+        Date before = new Date(NOW - 1);
+        Date after = new Date(NOW + 1);
+
+        assertMatches(filterBuilder.attribute(Metacard.MODIFIED).is().after().date(before));
+        assertNotMatches(filterBuilder.attribute(Metacard.MODIFIED).is().after().date(now));
+        assertMatches(filterBuilder.attribute(Metacard.MODIFIED).is().before().date(after));
+        assertNotMatches(filterBuilder.attribute(Metacard.MODIFIED).is().before().date(now));
+        assertMatches(filterBuilder.attribute(Metacard.MODIFIED).is().during()
+                .dates(before, after));
+        assertNotMatches(filterBuilder.attribute(Metacard.MODIFIED).is().during()
+                .dates(now, after));
+        assertMatches(filterBuilder.attribute(Metacard.MODIFIED).is().equalTo().date(now));
+        assertMatches(filterBuilder.attribute(Metacard.ANY_DATE).is().after().date(before));
+    }
+
+    @Test
+    public void relativeTimeIsEvaluatedWhenMatching() throws Exception {
+        metacard.setModifiedDate(new Date());
+
+        assertMatches(filterBuilder.attribute(Metacard.MODIFIED).is().during()
+                .last(TimeUnit.HOURS.toMillis(1)));
+
+        metacard.setModifiedDate(new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1)));
+
+        assertNotMatches(filterBuilder.attribute(Metacard.MODIFIED).is().during()
+                .last(TimeUnit.HOURS.toMillis(1)));
+    }
+
+    @Test
+    public void spatial() throws Exception {
+        String polygon = "POLYGON ((0 -1, 2 -1, 2 1, 0 1, 0 -1))";
+
+        assertMatches(filterBuilder.attribute(Metacard.ANY_GEO).intersecting()
+                .wkt("POINT (1 0.000001)"));
+        assertNotMatches(filterBuilder.attribute(Metacard.ANY_GEO).intersecting()
+                .wkt("POINT (1 0.001)"));
+        assertMatches(filterBuilder.attribute(Metacard.ANY_GEO).within().wkt(polygon));
+        assertNotMatches(filterBuilder.attribute(Metacard.ANY_GEO).containing().wkt(polygon));
+        assertMatches(filterBuilder.attribute(Metacard.ANY_GEO).withinBuffer()
+                .wkt("POINT (1 1)", 112000));
+        assertNotMatches(filterBuilder.attribute(Metacard.ANY_GEO).withinBuffer()
+                .wkt("POINT (1 1)", 110000));
+        assertMatches(filterBuilder.attribute(Metacard.ANY_GEO).beyond()
+                .wkt("POINT (1 1)", 110000));
+        assertMatches(filterBuilder.attribute(Metacard.ANY_GEO).withinBuffer()
+                .wkt("LINESTRING (0 1, 2 1)", 112000));
+
+        metacard.setLocation(polygon);
+
+        assertMatches(filterBuilder.attribute(Metacard.ANY_GEO).containing()
+                .wkt("POINT (1 0)"));
+        assertMatches(filterBuilder.attribute(Metacard.ANY_GEO).intersecting()
+                .wkt("LINESTRING (-1 0, 3 0)"));
+    }
+
+    @Test
+    public void logicalOperators() throws Exception {
+        Filter lamb = filterBuilder.attribute(Metacard.TITLE).is().like().text("lamb");
+        Filter goat = filterBuilder.attribute(Metacard.TITLE).is().like().text("goat");
+
+        assertMatches(filterBuilder.anyOf(goat, lamb));
+        assertNotMatches(filterBuilder.allOf(goat, lamb));
+        assertMatches(filterBuilder.allOf(Arrays.asList(lamb, filterBuilder.not(goat))));
+        assertMatches(Filter.INCLUDE);
+        assertNotMatches(Filter.EXCLUDE);
+    }
+
+    @Test
+    public void isNull() throws Exception {
+        assertMatches(filterBuilder.attribute(Metacard.EXPIRATION).is().empty());
+        assertNotMatches(filterBuilder.attribute(Metacard.TITLE).is().empty());
+    }
+
+    @Test
+    public void nullMetacardDoesNotMatch() throws Exception {
+        assertFalse(compiler.compile(Filter.INCLUDE).matches(null));
+    }
+
+    @Test(expected = UnsupportedQueryException.class)
+    public void xpathIsNotSupported() throws Exception {
+        compiler.compile(filterBuilder.xpath("//title").exists());
+    }
+
+    private void assertMatches(Filter filter) throws UnsupportedQueryException {
+        assertTrue(filter.toString(), compiler.compile(filter).matches(metacard));
+    }
+
+    private void assertNotMatches(Filter filter) throws UnsupportedQueryException {
+        assertFalse(filter.toString(), compiler.compile(filter).matches(metacard));
+    }
+}
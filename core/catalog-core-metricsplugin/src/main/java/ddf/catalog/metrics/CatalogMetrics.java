@@ -29,7 +29,7 @@
 import com.codahale.metrics.SlidingTimeWindowReservoir;
 
 import ddf.catalog.federation.FederationException;
-import ddf.catalog.filter.FilterAdapter;
+import ddf.catalog.filter.QueryTypes;
 import ddf.catalog.operation.CreateResponse;
 import ddf.catalog.operation.DeleteResponse;
 import ddf.catalog.operation.ProcessingDetails;
@@ -102,13 +102,9 @@
 
     protected final Meter resourceRetrival;
 
-    private FilterAdapter filterAdapter;
-
     private String localSourceId;
 
-    public CatalogMetrics(FilterAdapter filterAdapter) {
-
-        this.filterAdapter = filterAdapter;
+    public CatalogMetrics() {
 
         resultCount = metrics.register(MetricRegistry.name(QUERIES_SCOPE, "TotalResults"), new Histogram(new SlidingTimeWindowReservoir(1, TimeUnit.MINUTES)));
 
@@ -155,26 +151,22 @@ public QueryRequest process(QueryRequest input)
         }
         queries.mark();
 
-        QueryTypeFilterDelegate queryType = new QueryTypeFilterDelegate();
-        try {
-            filterAdapter.adapt(input.getQuery(), queryType);
-            if (queryType.isComparison()) {
-                comparisonQueries.mark();
-            }
-            if (queryType.isSpatial()) {
-                spatialQueries.mark();
-            }
-            if (queryType.isFuzzy()) {
-                fuzzyQueries.mark();
-            }
-            if (queryType.isXpath()) {
-                xpathQueries.mark();
-            }
-            if (queryType.isTemporal()) {
-                temporalQueries.mark();
-            }
-        } catch (UnsupportedQueryException e) {
-            // ignore filters not supported by the QueryTypeFilterDelegate
+        // classified once per request, and shared with other plugins through its properties
+        int queryTypes = QueryTypes.of(input);
+        if (QueryTypes.includes(queryTypes, QueryTypes.COMPARISON)) {
+            comparisonQueries.mark();
+        }
+        if (QueryTypes.includes(queryTypes, QueryTypes.SPATIAL)) {
+            spatialQueries.mark();
+        }
+        if (QueryTypes.includes(queryTypes, QueryTypes.FUZZY)) {
+            fuzzyQueries.mark();
+        }
+        if (QueryTypes.includes(queryTypes, QueryTypes.XPATH)) {
+            xpathQueries.mark();
+        }
+        if (QueryTypes.includes(queryTypes, QueryTypes.TEMPORAL)) {
+            temporalQueries.mark();
         }
 
         return input;
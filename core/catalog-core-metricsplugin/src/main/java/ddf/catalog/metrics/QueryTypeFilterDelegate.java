@@ -23,8 +23,11 @@
  *
  * @author Phillip Klinefelter
  * @author ddf.isgs@lmco.com
+ * @deprecated Use {@link ddf.catalog.filter.QueryTypes}, which classifies a filter without
+ *             adapting it.
  *
  */
+@Deprecated
 public class QueryTypeFilterDelegate extends FilterDelegate<Boolean> {
 
     private boolean isSpatial = false;
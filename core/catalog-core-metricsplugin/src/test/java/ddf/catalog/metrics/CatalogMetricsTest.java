@@ -15,9 +15,11 @@
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
@@ -37,9 +39,8 @@
 
 import ddf.catalog.data.Metacard;
 import ddf.catalog.federation.FederationException;
-import ddf.catalog.filter.FilterAdapter;
 import ddf.catalog.filter.FilterBuilder;
-import ddf.catalog.filter.proxy.adapter.GeotoolsFilterAdapterImpl;
+import ddf.catalog.filter.QueryTypes;
 import ddf.catalog.filter.proxy.builder.GeotoolsFilterBuilder;
 import ddf.catalog.operation.CreateResponse;
 import ddf.catalog.operation.DeleteResponse;
@@ -65,8 +66,6 @@
  */
 public class CatalogMetricsTest {
 
-    private static FilterAdapter filterAdapter = new GeotoolsFilterAdapterImpl();
-
     private static FilterBuilder filterBuilder = new GeotoolsFilterBuilder();
 
     private static Filter idFilter = filterBuilder.attribute(Metacard.ID).is().equalTo()
@@ -76,7 +75,7 @@ public class CatalogMetricsTest {
 
     @Before
     public void setup() {
-        underTest = new CatalogMetrics(filterAdapter);
+        underTest = new CatalogMetrics();
     }
 
     @After
@@ -200,6 +199,32 @@ public void catalogFuzzyQueryMetric() throws Exception {
         assertThat(underTest.fuzzyQueries.getCount(), is(1L));
     }
 
+    @Test
+    public void catalogQueryTypesSharedWithRequest() throws Exception {
+        Filter geoFilter = filterBuilder.attribute(Metacard.ANY_GEO).within()
+                .wkt("POLYGON ((1 1,2 1,2 2,1 2,1 1))");
+
+        QueryRequest query = new QueryRequestImpl(new QueryImpl(geoFilter));
+        underTest.process(query);
+
+        assertThat(query.getPropertyValue(QueryTypes.PROPERTY), is(notNullValue()));
+        assertThat(QueryTypes.of(query), is(QueryTypes.SPATIAL));
+    }
+
+    @Test
+    public void catalogQueryTypesOfReplacedQueryNotReused() throws Exception {
+        Filter geoFilter = filterBuilder.attribute(Metacard.ANY_GEO).within()
+                .wkt("POLYGON ((1 1,2 1,2 2,1 2,1 1))");
+        Map<String, Serializable> properties = new HashMap<>();
+        QueryTypes.of(new QueryRequestImpl(new QueryImpl(geoFilter), properties));
+
+        QueryRequest query = new QueryRequestImpl(new QueryImpl(idFilter), properties);
+        underTest.process(query);
+
+        assertThat(underTest.spatialQueries.getCount(), is(0L));
+        assertThat(underTest.comparisonQueries.getCount(), is(1L));
+    }
+
     @Test
     public void catalogResultCountMetric() throws Exception {
         QueryRequest query = new QueryRequestImpl(new QueryImpl(idFilter));
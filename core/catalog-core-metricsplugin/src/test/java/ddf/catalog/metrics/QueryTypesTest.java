@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.metrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.util.Date;
+
+import org.junit.Test;
+import org.opengis.filter.Filter;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.filter.FilterAdapter;
+import ddf.catalog.filter.FilterBuilder;
+import ddf.catalog.filter.QueryTypes;
+import ddf.catalog.filter.proxy.adapter.GeotoolsFilterAdapterImpl;
+import ddf.catalog.filter.proxy.builder.GeotoolsFilterBuilder;
+
+/**
+ * Checks that {@link QueryTypes} classifies deeply nested filters like the
+ * {@link QueryTypeFilterDelegate} it replaces.
+ */
+@SuppressWarnings("deprecation")
+public class QueryTypesTest {
+
+    private static final int DEPTH = 8;
+
+    private final FilterBuilder filterBuilder = new GeotoolsFilterBuilder();
+
+    private final FilterAdapter filterAdapter = new GeotoolsFilterAdapterImpl();
+
+    @Test
+    public void classifiesLikeTheFilterDelegate() throws Exception {
+        Filter[] filters = {nested(DEPTH, title()),
+                nested(DEPTH, filterBuilder.attribute(Metacard.ANY_TEXT).like().fuzzyText("x")),
+                nested(DEPTH, filterBuilder.attribute(Metacard.ANY_GEO).within()
+                        .wkt("POLYGON ((1 1,2 1,2 2,1 2,1 1))")),
+                nested(DEPTH, filterBuilder.attribute(Metacard.MODIFIED).before()
+                        .date(new Date())),
+                nested(DEPTH, filterBuilder.xpath("//node").exists())};
+
+        for (Filter filter : filters) {
+            assertThat(QueryTypes.classify(filter), is(delegate(filter)));
+        }
+    }
+
+    private int delegate(Filter filter) throws Exception {
+        QueryTypeFilterDelegate delegate = new QueryTypeFilterDelegate();
+        filterAdapter.adapt(filter, delegate);
+
+        int types = 0;
+        types |= delegate.isComparison() ? QueryTypes.COMPARISON : 0;
+        types |= delegate.isSpatial() ? QueryTypes.SPATIAL : 0;
+        types |= delegate.isTemporal() ? QueryTypes.TEMPORAL : 0;
+        types |= delegate.isXpath() ? QueryTypes.XPATH : 0;
+        types |= delegate.isFuzzy() ? QueryTypes.FUZZY : 0;
+        return types;
+    }
+
+    /**
+     * @return a filter nesting the given criterion in alternating {@code And} and {@code Or}
+     * operators, each also holding a title comparison
+     */
+    private Filter nested(int depth, Filter criterion) {
+        Filter filter = criterion;
+        for (int i = 0; i < depth; i++) {
+            filter = i % 2 == 0 ? filterBuilder.allOf(title(), filter) :
+                    filterBuilder.anyOf(filter, title());
+        }
+        return filter;
+    }
+
+    private Filter title() {
+        return filterBuilder.attribute(Metacard.TITLE).is().equalTo().text("title");
+    }
+}
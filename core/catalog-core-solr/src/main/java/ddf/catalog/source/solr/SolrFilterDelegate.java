@@ -327,6 +327,17 @@ public SolrQuery propertyIsGreaterThan(String propertyName, Date startDate) {
                 SOLR_WILDCARD_CHAR, SOLR_INCLUSIVE_END);
     }
 
+    @Override
+    public SolrQuery propertyIsGreaterThan(String propertyName, String literal) {
+        verifyInputData(propertyName, literal);
+
+        String mappedPropertyName = getMappedPropertyName(propertyName, AttributeFormat.STRING,
+                true);
+        return new SolrQuery(mappedPropertyName + SOLR_EXCLUSIVE_START + QUOTE
+                + escapeSpecialCharacters(literal) + QUOTE + TO + SOLR_WILDCARD_CHAR
+                + SOLR_INCLUSIVE_END);
+    }
+
     @Override
     public SolrQuery propertyIsGreaterThan(String propertyName, int literal) {
         return getGreaterThanQuery(propertyName, AttributeFormat.INTEGER, literal);
@@ -51,6 +51,7 @@
 import ddf.catalog.operation.impl.QueryResponseImpl;
 import ddf.catalog.operation.impl.SourceResponseImpl;
 import ddf.catalog.source.UnsupportedQueryException;
+import ddf.catalog.util.impl.Requests;
 import ddf.measure.Distance;
 
 public class SolrMetacardClient {
@@ -84,7 +85,13 @@ public SourceResponse query(QueryRequest request) throws UnsupportedQueryExcepti
         }
 
         SolrQuery query = getSolrQuery(request, filterDelegateFactory.newInstance(resolver));
-        String sortProperty = getSortProperty(request, query);
+        String sortProperty = "";
+        if (Requests.isHitsOnly(request)) {
+            // Solr counts the matches without loading or sorting any document
+            query.setRows(0);
+        } else {
+            sortProperty = getSortProperty(request, query);
+        }
 
         long totalHits;
         List<Result> results = new ArrayList<>();
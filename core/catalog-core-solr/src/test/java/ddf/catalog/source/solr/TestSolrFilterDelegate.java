@@ -99,6 +99,19 @@ public void reservedSpecialCharactersIsLike() {
                 is("testProperty_txt_index_tokenized:(\\+ \\- \\&& \\|| \\! \\( \\) \\{ \\} \\[ \\] \\^ \\\" \\~ \\: \\*?)"));
     }
 
+    @Test
+    public void propertyIsGreaterThanString() {
+        // given an exact text property
+        stub(mockResolver.getField(Metacard.ID, AttributeFormat.STRING, true))
+                .toReturn("id_txt");
+
+        // when searching for values after a string
+        SolrQuery greaterThanQuery = toTest.propertyIsGreaterThan(Metacard.ID, "abc:1");
+
+        // then return an exclusive open-ended range query
+        assertThat(greaterThanQuery.getQuery(), is("id_txt:{ \"abc\\:1\" TO * ] "));
+    }
+
     /*
       DDF-314: COmmented out until the ANY_TEXT functionality is added back
       in - then these tests can be activated.
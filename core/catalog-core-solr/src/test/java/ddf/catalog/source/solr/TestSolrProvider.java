@@ -40,6 +40,7 @@
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -74,6 +75,7 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import ddf.catalog.Constants;
 import ddf.catalog.data.AttributeDescriptor;
 import ddf.catalog.data.ContentType;
 import ddf.catalog.data.Metacard;
@@ -83,6 +85,7 @@
 import ddf.catalog.data.impl.ContentTypeImpl;
 import ddf.catalog.data.impl.MetacardImpl;
 import ddf.catalog.data.impl.MetacardTypeImpl;
+import ddf.catalog.filter.proxy.compiler.FilterCompilerImpl;
 import ddf.catalog.operation.CreateRequest;
 import ddf.catalog.operation.CreateResponse;
 import ddf.catalog.operation.DeleteRequest;
@@ -3543,6 +3546,31 @@ public void testStartIndexWithSorting() throws Exception {
         }
     }
 
+    /**
+     * Tests that a hits only query counts the matches without returning any result.
+     */
+    @Test
+    public void testHitsOnly() throws Exception {
+
+        deleteAllIn(provider);
+
+        create(Arrays.asList((Metacard) new MockMetacard(Library.getFlagstaffRecord()),
+                (Metacard) new MockMetacard(Library.getFlagstaffRecord()),
+                (Metacard) new MockMetacard(Library.getTampaRecord())));
+
+        QueryImpl query = new CommonQueryBuilder()
+                .queryByProperty(Metacard.TITLE, FLAGSTAFF_QUERY_PHRASE);
+        query.setPageSize(10);
+        query.setRequestsTotalResultsCount(true);
+
+        Map<String, Serializable> properties = new HashMap<String, Serializable>();
+        properties.put(Constants.QUERY_HITS_ONLY, true);
+        SourceResponse sourceResponse = provider.query(new QueryRequestImpl(query, properties));
+
+        assertEquals(0, sourceResponse.getResults().size());
+        assertEquals(2L, sourceResponse.getHits());
+    }
+
     /**
      * Tests the offset aka start index (startIndex) functionality.
      *
@@ -4570,6 +4598,104 @@ private void prepareXPath(boolean isXpathDisabled)
         create(list);
     }
 
+    /**
+     * Tests that the {@link FilterCompilerImpl} matches the same metacards as the provider.
+     */
+    @Test
+    public void testFilterCompilerConformance() throws Exception {
+        deleteAllIn(provider);
+
+        DateTime base = new DateTime(2014, 3, 1, 12, 0, 0, 0, DateTimeZone.UTC);
+        MockMetacard flagstaff = new MockMetacard(Library.getFlagstaffRecord());
+        flagstaff.setTitle("Mary");
+        flagstaff.setModifiedDate(base.toDate());
+        MockMetacard tampa = new MockMetacard(Library.getTampaRecord());
+        tampa.setTitle("Mary had a little");
+        tampa.setLocation("POINT (-82.5 27.9)");
+        tampa.setModifiedDate(base.plusDays(1).toDate());
+        MockMetacard showLow = new MockMetacard(Library.getShowLowRecord());
+        showLow.setTitle("Mary had a little lamb");
+        showLow.setLocation("POLYGON ((-111 33, -109 33, -109 35, -111 35, -111 33))");
+        showLow.setModifiedDate(base.plusDays(2).toDate());
+        MockMetacard purchaseOrder = new MockMetacard(Library.getPurchaseOrderRecord());
+        purchaseOrder.setTitle("Purchase order");
+        purchaseOrder.setLocation("LINESTRING (10 10, 20 20)");
+        purchaseOrder.setModifiedDate(base.plusDays(3).toDate());
+
+        List<Metacard> metacards = create(
+                Arrays.<Metacard>asList(flagstaff, tampa, showLow, purchaseOrder))
+                .getCreatedMetacards();
+
+        List<Filter> filters = new ArrayList<Filter>();
+        filters.add(filterBuilder.attribute(Metacard.METADATA).like().text("Flagstaff"));
+        filters.add(filterBuilder.attribute(Metacard.ANY_TEXT).like().text(AIRPORT_QUERY_PHRASE));
+        filters.add(filterBuilder.attribute(Metacard.ANY_TEXT).like().text("Airport TPA in FL"));
+        filters.add(filterBuilder.attribute(Metacard.METADATA).like().caseSensitiveText("Tampa"));
+        filters.add(filterBuilder.attribute(Metacard.METADATA).like().caseSensitiveText("TAmpa"));
+        filters.add(filterBuilder.attribute(Metacard.TITLE).like().text("little"));
+        filters.add(filterBuilder.attribute(Metacard.TITLE).like().text("mary"));
+        filters.add(filterBuilder.attribute(Metacard.METADATA).like().text("Flag*ff Chamber"));
+        filters.add(filterBuilder.attribute(Metacard.METADATA).like().text("*rport"));
+        filters.add(filterBuilder.attribute(Metacard.METADATA).like().text("airpo*t"));
+        filters.add(filterBuilder.attribute(Metacard.ANY_TEXT).like()
+                .caseSensitiveText("http://www.flagstaffchamber.com/arizona-cardinals*"));
+        filters.add(filterBuilder.attribute(Metacard.ANY_TEXT).like()
+                .caseSensitiveText("HTTP://www.flagstaffchamber.com/arizona-cardinals*"));
+        filters.add(filterBuilder.attribute(Metacard.METADATA).like()
+                .fuzzyText("Flagstaff Chamber"));
+        filters.add(filterBuilder.attribute(Metacard.METADATA).like().fuzzyText("FLGD"));
+        filters.add(filterBuilder.attribute(Metacard.METADATA).like().fuzzyText("Flagstaff Igloo"));
+        filters.add(filterBuilder.attribute(Metacard.TITLE).is().equalTo()
+                .text("Mary had a little"));
+        filters.add(filterBuilder.attribute(Metacard.MODIFIED).after()
+                .date(base.plusDays(1).toDate()));
+        filters.add(filterBuilder.attribute(Metacard.MODIFIED).before()
+                .date(base.plusDays(1).toDate()));
+        filters.add(filterBuilder.attribute(Metacard.MODIFIED).is().equalTo()
+                .date(base.plusDays(1).toDate()));
+        filters.add(filterBuilder.attribute(Metacard.MODIFIED).during()
+                .dates(base.toDate(), base.plusDays(2).toDate()));
+        filters.add(filterBuilder.attribute(Metacard.GEOGRAPHY).intersecting()
+                .wkt(MockMetacard.DEFAULT_LOCATION));
+        filters.add(filterBuilder.attribute(Metacard.GEOGRAPHY).within()
+                .wkt("POLYGON ((0 -1, 2 -1, 2 1, 0 1, 0 -1))"));
+        filters.add(filterBuilder.attribute(Metacard.GEOGRAPHY).within()
+                .wkt("POLYGON ((-115 30, -105 30, -105 40, -115 40, -115 30))"));
+        filters.add(filterBuilder.attribute(Metacard.GEOGRAPHY).containing()
+                .wkt("POINT (-110 34)"));
+        filters.add(filterBuilder.attribute(Metacard.GEOGRAPHY).intersecting()
+                .wkt("LINESTRING (15 0, 15 30)"));
+        filters.add(filterBuilder.attribute(Metacard.GEOGRAPHY).withinBuffer()
+                .wkt("POINT (-82 28)", 100 * METERS_PER_KM));
+        filters.add(filterBuilder.attribute(Metacard.GEOGRAPHY).withinBuffer()
+                .wkt("LINESTRING (0 5, 2 5)", 600 * METERS_PER_KM));
+        filters.add(filterBuilder.anyOf(filterBuilder.attribute(Metacard.TITLE).like().text("lamb"),
+                filterBuilder.attribute(Metacard.METADATA).like().text("Tampa")));
+        filters.add(filterBuilder.allOf(filterBuilder.attribute(Metacard.TITLE).like().text("Mary"),
+                filterBuilder.not(filterBuilder.attribute(Metacard.METADATA).like()
+                        .text("Flagstaff"))));
+
+        FilterCompilerImpl compiler = new FilterCompilerImpl();
+        for (Filter filter : filters) {
+            QueryImpl query = new QueryImpl(filter);
+            query.setPageSize(ALL_RESULTS);
+
+            Set<String> expected = new HashSet<String>();
+            for (Result result : provider.query(new QueryRequestImpl(query)).getResults()) {
+                expected.add(result.getMetacard().getId());
+            }
+
+            Set<String> actual = new HashSet<String>();
+            for (Metacard metacard : metacards) {
+                if (compiler.compile(filter).matches(metacard)) {
+                    actual.add(metacard.getId());
+                }
+            }
+
+            assertEquals(filter.toString(), expected, actual);
+        }
+    }
+
     private void assertNotFilter(Filter filter) throws UnsupportedQueryException {
         SourceResponse sourceResponse = provider.query(new QueryRequestImpl(new QueryImpl(filter)));
         assertEquals("Found a metacard and should not have.", 0,
@@ -0,0 +1,205 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.opengis.filter.BinaryComparisonOperator;
+import org.opengis.filter.BinaryLogicOperator;
+import org.opengis.filter.ExcludeFilter;
+import org.opengis.filter.Filter;
+import org.opengis.filter.Id;
+import org.opengis.filter.IncludeFilter;
+import org.opengis.filter.Not;
+import org.opengis.filter.PropertyIsBetween;
+import org.opengis.filter.PropertyIsLike;
+import org.opengis.filter.PropertyIsNull;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.Function;
+import org.opengis.filter.expression.Literal;
+import org.opengis.filter.expression.PropertyName;
+import org.opengis.filter.identity.Identifier;
+import org.opengis.filter.spatial.BinarySpatialOperator;
+import org.opengis.filter.spatial.DistanceBufferOperator;
+import org.opengis.filter.temporal.BinaryTemporalOperator;
+import org.opengis.temporal.Instant;
+import org.opengis.temporal.Period;
+import org.opengis.temporal.PeriodDuration;
+
+import ddf.catalog.operation.impl.QueryImpl;
+
+/**
+ * Writes a {@link Filter} in a canonical form, so filters that select the same metacards are
+ * written the same way even if they were built differently.
+ * <p/>
+ * The operands of {@code And} and {@code Or} are sorted. Absolute dates are written exactly, while
+ * relative windows such as "the last hour" are written with the current time rounded down to a
+ * resolution, so the same window built a few seconds apart has the same form until the time moves
+ * to the next step. Parts of a filter that are not recognized are written with their class and
+ * {@code toString()}, which at worst makes equivalent filters look different.
+ */
+class FilterCanonicalizer {
+
+    private final long temporalResolution;
+
+    /**
+     * @param temporalResolution resolution in milliseconds the end of relative windows is rounded
+     *                           down to
+     */
+    FilterCanonicalizer(long temporalResolution) {
+        this.temporalResolution = Math.max(1, temporalResolution);
+    }
+
+    String canonicalize(Filter filter) {
+        StringBuilder builder = new StringBuilder();
+        write(filter, builder);
+        return builder.toString();
+    }
+
+    private void write(Filter filter, StringBuilder builder) {
+        if (filter == null || filter instanceof IncludeFilter) {
+            builder.append("INCLUDE");
+        } else if (filter instanceof ExcludeFilter) {
+            builder.append("EXCLUDE");
+        } else if (filter instanceof QueryImpl) {
+            write(((QueryImpl) filter).getFilter(), builder);
+        } else if (filter instanceof BinaryLogicOperator) {
+            List<String> children = new ArrayList<>();
+            for (Filter child : ((BinaryLogicOperator) filter).getChildren()) {
+                children.add(canonicalize(child));
+            }
+            Collections.sort(children);
+            open(filter, builder);
+            for (String child : children) {
+                builder.append(child).append(',');
+            }
+            close(builder);
+        } else if (filter instanceof Not) {
+            open(filter, builder);
+            write(((Not) filter).getFilter(), builder);
+            close(builder);
+        } else if (filter instanceof PropertyIsLike) {
+            PropertyIsLike like = (PropertyIsLike) filter;
+            open(filter, builder);
+            write(like.getExpression(), builder);
+            builder.append(",'").append(like.getLiteral()).append("',")
+                    .append(like.getWildCard()).append(like.getSingleChar())
+                    .append(like.getEscape()).append(',').append(like.isMatchingCase());
+            close(builder);
+        } else if (filter instanceof BinaryComparisonOperator) {
+            BinaryComparisonOperator comparison = (BinaryComparisonOperator) filter;
+            open(filter, builder);
+            write(comparison.getExpression1(), builder);
+            builder.append(',');
+            write(comparison.getExpression2(), builder);
+            builder.append(',').append(comparison.isMatchingCase());
+            close(builder);
+        } else if (filter instanceof PropertyIsBetween) {
+            PropertyIsBetween between = (PropertyIsBetween) filter;
+            open(filter, builder);
+            write(between.getExpression(), builder);
+            builder.append(',');
+            write(between.getLowerBoundary(), builder);
+            builder.append(',');
+            write(between.getUpperBoundary(), builder);
+            close(builder);
+        } else if (filter instanceof PropertyIsNull) {
+            open(filter, builder);
+            write(((PropertyIsNull) filter).getExpression(), builder);
+            close(builder);
+        } else if (filter instanceof BinarySpatialOperator) {
+            BinarySpatialOperator spatial = (BinarySpatialOperator) filter;
+            open(filter, builder);
+            write(spatial.getExpression1(), builder);
+            builder.append(',');
+            write(spatial.getExpression2(), builder);
+            if (filter instanceof DistanceBufferOperator) {
+                DistanceBufferOperator distance = (DistanceBufferOperator) filter;
+                builder.append(',').append(distance.getDistance())
+                        .append(distance.getDistanceUnits());
+            }
+            close(builder);
+        } else if (filter instanceof BinaryTemporalOperator) {
+            BinaryTemporalOperator temporal = (BinaryTemporalOperator) filter;
+            open(filter, builder);
+            write(temporal.getExpression1(), builder);
+            builder.append(',');
+            write(temporal.getExpression2(), builder);
+            close(builder);
+        } else if (filter instanceof Id) {
+            List<String> ids = new ArrayList<>();
+            for (Identifier identifier : ((Id) filter).getIdentifiers()) {
+                ids.add(String.valueOf(identifier.getID()));
+            }
+            Collections.sort(ids);
+            open(filter, builder);
+            builder.append(ids);
+            close(builder);
+        } else {
+            builder.append(filter.getClass().getName()).append(filter);
+        }
+    }
+
+    private void write(Expression expression, StringBuilder builder) {
+        if (expression instanceof PropertyName) {
+            builder.append('[').append(((PropertyName) expression).getPropertyName()).append(']');
+        } else if (expression instanceof Literal) {
+            writeValue(((Literal) expression).getValue(), builder);
+        } else if (expression instanceof Function) {
+            Function function = (Function) expression;
+            builder.append(function.getName()).append('(');
+            for (Expression parameter : function.getParameters()) {
+                write(parameter, builder);
+                builder.append(',');
+            }
+            builder.append(')');
+        } else if (expression != null) {
+            builder.append(expression.getClass().getName()).append(expression);
+        }
+    }
+
+    private void writeValue(Object value, StringBuilder builder) {
+        if (value instanceof Date) {
+            builder.append(((Date) value).getTime());
+        } else if (value instanceof PeriodDuration) {
+            // a relative window ends now, so the metacards it selects change as time passes
+            builder.append('\'').append(value).append("'@")
+                    .append(round(System.currentTimeMillis()));
+        } else if (value instanceof Instant) {
+            writeValue(((Instant) value).getPosition().getDate(), builder);
+        } else if (value instanceof Period) {
+            Period period = (Period) value;
+            writeValue(period.getBeginning(), builder);
+            builder.append('/');
+            writeValue(period.getEnding(), builder);
+        } else {
+            builder.append('\'').append(value).append('\'');
+        }
+    }
+
+    private long round(long time) {
+        return time - (((time % temporalResolution) + temporalResolution) % temporalResolution);
+    }
+
+    private void open(Filter filter, StringBuilder builder) {
+        builder.append(filter.getClass().getName()).append('(');
+    }
+
+    private void close(StringBuilder builder) {
+        builder.append(')');
+    }
+}
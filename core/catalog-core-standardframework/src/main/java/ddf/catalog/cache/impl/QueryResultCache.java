@@ -0,0 +1,493 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.impl;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.Subject;
+import org.opengis.filter.sort.SortBy;
+import org.opensaml.saml2.core.AttributeStatement;
+import org.opensaml.xml.XMLObject;
+import org.opensaml.xml.schema.XSString;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.MetacardType;
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.AttributeImpl;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.federation.FederationException;
+import ddf.catalog.operation.CreateResponse;
+import ddf.catalog.operation.DeleteResponse;
+import ddf.catalog.operation.ProcessingDetails;
+import ddf.catalog.operation.Query;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.QueryResponse;
+import ddf.catalog.operation.UpdateResponse;
+import ddf.catalog.operation.impl.QueryResponseImpl;
+import ddf.catalog.plugin.PluginExecutionException;
+import ddf.catalog.plugin.PostIngestPlugin;
+import ddf.catalog.source.UnsupportedQueryException;
+import ddf.security.SecurityConstants;
+import ddf.security.SubjectUtils;
+import ddf.security.assertion.SecurityAssertion;
+
+/**
+ * Caches the pages of results of federated queries for a short time, so the same query sent again
+ * and again, e.g. by dashboards and saved searches, is only federated once per time to live.
+ * <p/>
+ * Queries are identified by the canonical form of their filter, their sort, page, sources,
+ * properties and the security attributes of the requesting subject. Identical queries received while one is
+ * being federated wait for its response instead of federating again, for up to a maximum wait.
+ * Every response gets its own copy of the cached results, since post-query plugins modify them.
+ * <p/>
+ * As a {@link PostIngestPlugin}, the cache discards the responses of queries of the local catalog
+ * whenever metacards are created, updated or deleted.
+ */
+public class QueryResultCache implements PostIngestPlugin {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueryResultCache.class);
+
+    private final ConcurrentMap<String, FutureTask<Entry>> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong coalesced = new AtomicLong();
+
+    private Map<String, Entry> entries = newEntries(1000);
+
+    private volatile boolean enabled = false;
+
+    private volatile long timeToLive = TimeUnit.SECONDS.toMillis(30);
+
+    private volatile long maximumWait = TimeUnit.SECONDS.toMillis(30);
+
+    private volatile FilterCanonicalizer canonicalizer = new FilterCanonicalizer(timeToLive);
+
+    /**
+     * Returns the response to a query from the cache, or federates it if it is not cached.
+     *
+     * @param request the query, after pre-query plugins have processed it
+     * @param local   whether the query includes the local catalog
+     * @param query   federates the query
+     * @return a response for the given request, which the caller may modify
+     */
+    public QueryResponse query(QueryRequest request, boolean local,
+            Callable<QueryResponse> query) throws UnsupportedQueryException, FederationException {
+        String key = enabled ? getKey(request) : null;
+        if (key == null) {
+            return call(query);
+        }
+
+        Entry entry = get(key);
+        if (entry != null) {
+            hits.incrementAndGet();
+            return entry.toResponse(request);
+        }
+
+        FutureTask<Entry> task = new FutureTask<>(new Load(query, local));
+        FutureTask<Entry> existing = pending.putIfAbsent(key, task);
+        if (existing != null) {
+            LOGGER.debug("Waiting for identical query to complete.");
+            coalesced.incrementAndGet();
+            Entry shared = await(existing, maximumWait);
+            if (shared == null) {
+                LOGGER.debug("Identical query did not complete in time, federating again.");
+                return call(query);
+            }
+            return shared.toResponse(request);
+        }
+
+        misses.incrementAndGet();
+        long startGeneration = generation.get();
+        try {
+            task.run();
+            entry = await(task, 0);
+            if (entry.cacheable) {
+                put(key, entry, startGeneration);
+            }
+            return entry.toResponse(request);
+        } finally {
+            pending.remove(key, task);
+        }
+    }
+
+    @Override
+    public CreateResponse process(CreateResponse input) throws PluginExecutionException {
+        invalidateLocal();
+        return input;
+    }
+
+    @Override
+    public UpdateResponse process(UpdateResponse input) throws PluginExecutionException {
+        invalidateLocal();
+        return input;
+    }
+
+    @Override
+    public DeleteResponse process(DeleteResponse input) throws PluginExecutionException {
+        invalidateLocal();
+        return input;
+    }
+
+    public void setEnabled(boolean enabled) {
+        LOGGER.debug("Setting query result cache enabled = {}", enabled);
+        this.enabled = enabled;
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    /**
+     * Sets how long responses are cached. The end of relative time windows, such as the last
+     * hour, is rounded down to the time to live, so the same window queried less than it apart
+     * shares responses.
+     */
+    public void setTimeToLiveSeconds(long timeToLiveSeconds) {
+        LOGGER.debug("Setting query result cache time to live = {} s", timeToLiveSeconds);
+        this.timeToLive = TimeUnit.SECONDS.toMillis(timeToLiveSeconds);
+        this.canonicalizer = new FilterCanonicalizer(timeToLive);
+        clear();
+    }
+
+    /**
+     * Sets how long a query waits for an identical query to complete before federating itself.
+     */
+    public void setMaximumWaitSeconds(long maximumWaitSeconds) {
+        LOGGER.debug("Setting query result cache maximum wait = {} s", maximumWaitSeconds);
+        this.maximumWait = TimeUnit.SECONDS.toMillis(maximumWaitSeconds);
+    }
+
+    public void setMaximumSize(int maximumSize) {
+        LOGGER.debug("Setting query result cache maximum size = {}", maximumSize);
+        synchronized (this) {
+            entries = newEntries(maximumSize);
+        }
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        synchronized (this) {
+            entries.clear();
+        }
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    long getCoalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * @return the key of a query, or {@code null} if it cannot be cached
+     */
+    String getKey(QueryRequest request) {
+        Query query = request.getQuery();
+        if (query == null) {
+            return null;
+        }
+
+        StringBuilder key = new StringBuilder(canonicalizer.canonicalize(query));
+        key.append('|').append(query.getStartIndex()).append('|').append(query.getPageSize())
+                .append('|').append(query.requestsTotalResultsCount());
+
+        SortBy sortBy = query.getSortBy();
+        if (sortBy != null && sortBy.getPropertyName() != null) {
+            key.append('|').append(sortBy.getPropertyName().getPropertyName()).append(' ')
+                    .append(sortBy.getSortOrder());
+        }
+
+        key.append('|').append(request.isEnterprise());
+        if (request.getSourceIds() != null) {
+            key.append(new TreeSet<>(request.getSourceIds()));
+        }
+
+        Map<String, Serializable> properties = new TreeMap<>();
+        if (request.getProperties() != null) {
+            for (Map.Entry<String, Serializable> property : request.getProperties().entrySet()) {
+                Serializable value = property.getValue();
+                if (SecurityConstants.SECURITY_SUBJECT.equals(property.getKey())) {
+                    if (value instanceof Subject) {
+                        key.append("|subject=").append(getSecurityAttributes((Subject) value));
+                    }
+                } else if (value == null || value instanceof String || value instanceof Number
+                        || value instanceof Boolean) {
+                    properties.put(property.getKey(), value);
+                }
+            }
+        }
+        key.append('|').append(properties);
+        return key.toString();
+    }
+
+    /**
+     * @return the security attributes of the subject with their names and values sorted, so
+     * subjects with the same attributes share responses, or the subject's name if it has none
+     */
+    private String getSecurityAttributes(Subject subject) {
+        Map<String, Set<String>> attributes = new TreeMap<>();
+        PrincipalCollection principals = subject.getPrincipals();
+        if (principals != null) {
+            for (SecurityAssertion assertion : principals.byType(SecurityAssertion.class)) {
+                for (AttributeStatement statement : assertion.getAttributeStatements()) {
+                    for (org.opensaml.saml2.core.Attribute attribute : statement
+                            .getAttributes()) {
+                        Set<String> values = attributes.get(attribute.getName());
+                        if (values == null) {
+                            values = new TreeSet<>();
+                            attributes.put(attribute.getName(), values);
+                        }
+                        for (XMLObject attributeValue : attribute.getAttributeValues()) {
+                            if (attributeValue instanceof XSString) {
+                                values.add(((XSString) attributeValue).getValue());
+                            } else if (attributeValue.getDOM() != null) {
+                                values.add(attributeValue.getDOM().getTextContent());
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        if (attributes.isEmpty()) {
+            return "name=" + SubjectUtils.getName(subject, "");
+        }
+        return attributes.toString();
+    }
+
+    private void invalidateLocal() {
+        generation.incrementAndGet();
+        synchronized (this) {
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().local) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.created + timeToLive < System.currentTimeMillis()) {
+            entries.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    private synchronized void put(String key, Entry entry, long startGeneration) {
+        // a response federated while the catalog changed may already be out of date
+        if (!entry.local || generation.get() == startGeneration) {
+            entries.put(key, entry);
+        }
+    }
+
+    private static Map<String, Entry> newEntries(final int maximumSize) {
+        return new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maximumSize;
+            }
+        };
+    }
+
+    private static QueryResponse call(Callable<QueryResponse> query)
+            throws UnsupportedQueryException, FederationException {
+        try {
+            return query.call();
+        } catch (UnsupportedQueryException | FederationException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new FederationException("Query could not be executed.", e);
+        }
+    }
+
+    /**
+     * @return the entry loaded by the task, or {@code null} if it did not complete in time
+     */
+    private static Entry await(FutureTask<Entry> task, long timeout)
+            throws UnsupportedQueryException, FederationException {
+        try {
+            return task.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FederationException("Interrupted while waiting for query.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UnsupportedQueryException) {
+                throw (UnsupportedQueryException) cause;
+            } else if (cause instanceof FederationException) {
+                throw (FederationException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new FederationException("Query could not be executed.", cause);
+        }
+    }
+
+    private static class Load implements Callable<Entry> {
+
+        private final Callable<QueryResponse> query;
+
+        private final boolean local;
+
+        Load(Callable<QueryResponse> query, boolean local) {
+            this.query = query;
+            this.local = local;
+        }
+
+        @Override
+        public Entry call() throws Exception {
+            QueryResponse response = query.call();
+            if (response == null) {
+                throw new UnsupportedQueryException(
+                        "CatalogProvider returned null QueryResponse Object.");
+            }
+            return new Entry(response, local);
+        }
+    }
+
+    private static class Entry {
+
+        private final List<Result> results;
+
+        private final long hits;
+
+        private final Map<String, Serializable> properties;
+
+        private final Set<ProcessingDetails> processingDetails;
+
+        private final boolean local;
+
+        private final boolean cacheable;
+
+        private final long created = System.currentTimeMillis();
+
+        Entry(QueryResponse response, boolean local) {
+            // waits for every result of the federated query
+            List<Result> responseResults = response.getResults();
+            this.results = responseResults == null ?
+                    Collections.<Result>emptyList() :
+                    Collections.unmodifiableList(new ArrayList<>(responseResults));
+            this.hits = response.getHits();
+            this.properties = response.getProperties() == null ?
+                    new HashMap<String, Serializable>() :
+                    new HashMap<>(response.getProperties());
+            this.processingDetails = response.getProcessingDetails() == null ?
+                    new HashSet<ProcessingDetails>() :
+                    new HashSet<>(response.getProcessingDetails());
+            this.local = local;
+
+            // responses missing the results of a failed source are not kept
+            boolean failed = false;
+            for (ProcessingDetails details : processingDetails) {
+                failed |= details.hasException();
+            }
+            this.cacheable = !failed;
+        }
+
+        QueryResponse toResponse(QueryRequest request) {
+            List<Result> copies = new ArrayList<>(results.size());
+            for (Result result : results) {
+                copies.add(copy(result));
+            }
+            QueryResponseImpl response = new QueryResponseImpl(request, copies, true, hits,
+                    new HashMap<>(properties));
+            response.setProcessingDetails(new HashSet<>(processingDetails));
+            return response;
+        }
+
+        private static Result copy(Result result) {
+            if (result == null) {
+                return null;
+            }
+            ResultImpl copy = new ResultImpl(copy(result.getMetacard()));
+            copy.setDistanceInMeters(result.getDistanceInMeters());
+            copy.setRelevanceScore(result.getRelevanceScore());
+            return copy;
+        }
+
+        /**
+         * Copies the attributes of a metacard declared by its type, the same ones
+         * {@link MetacardImpl} keeps when it serializes a metacard it wraps.
+         */
+        private static Metacard copy(Metacard metacard) {
+            if (metacard == null || metacard.getMetacardType() == null) {
+                return metacard;
+            }
+            MetacardType type = metacard.getMetacardType();
+            MetacardImpl copy = new MetacardImpl(type);
+            copy.setSourceId(metacard.getSourceId());
+            if (type.getAttributeDescriptors() != null) {
+                for (AttributeDescriptor descriptor : type.getAttributeDescriptors()) {
+                    Attribute attribute = metacard.getAttribute(descriptor.getName());
+                    if (attribute != null) {
+                        copy.setAttribute(copy(attribute));
+                    }
+                }
+            }
+            return copy;
+        }
+
+        private static Attribute copy(Attribute attribute) {
+            AttributeImpl copy = new AttributeImpl(attribute.getName(), (Serializable) null);
+            copy.clearValues();
+            if (attribute.getValues() != null) {
+                for (Serializable value : attribute.getValues()) {
+                    copy.addValue(value);
+                }
+            }
+            return copy;
+        }
+    }
+}
@@ -13,44 +13,72 @@
  */
 package ddf.catalog.cache.solr.impl;
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.Lists;
 
+import ddf.catalog.cache.CacheBulkProcessorMBean;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.Result;
 
 /**
  * Bulk adds metacards to the cache that are not needed immediately.
+ * <p/>
+ * Metacards the cache already holds from the same source with the same modified date are
+ * skipped, since caching them again would only rewrite identical documents, until their cached
+ * copy is old enough to need refreshing. When the backlog is full, adds wait for the backlog to be
+ * flushed before new metacards are dropped.
  */
-class CacheBulkProcessor {
+class CacheBulkProcessor implements CacheBulkProcessorMBean {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CacheBulkProcessor.class);
 
     private final ScheduledExecutorService batchScheduler = Executors
             .newSingleThreadScheduledExecutor();
 
-    private final Map<String, Metacard> metacardsToCache = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Metacard> metacardsToCache = new ConcurrentHashMap<>();
+
+    private final Object backlogLock = new Object();
+
+    private final SolrCache cache;
+
+    private final AtomicLong admittedMetacards = new AtomicLong();
+
+    private final AtomicLong skippedMetacards = new AtomicLong();
+
+    private final AtomicLong droppedMetacards = new AtomicLong();
 
     private long flushInterval = TimeUnit.SECONDS.toMillis(10);
 
     private int maximumBacklogSize = 10000;
 
+    private long maximumBacklogWait = TimeUnit.SECONDS.toMillis(1);
+
     private int batchSize = 500;
 
     private Date lastBulkAdd = new Date();
 
+    private ObjectName objectName;
+
     public CacheBulkProcessor(final SolrCache cache) {
         this(cache, 1, TimeUnit.SECONDS);
     }
@@ -64,11 +92,13 @@ public CacheBulkProcessor(final SolrCache cache) {
      * @param delayUnit units of the delay
      */
     public CacheBulkProcessor(final SolrCache cache, final long delay, final TimeUnit delayUnit) {
+        this.cache = cache;
         batchScheduler.scheduleWithFixedDelay(new Runnable() {
             @Override
             public void run() {
                 try {
-                    if (metacardsToCache.size() > 0 && (metacardsToCache.size() >= batchSize
+                    int pending = metacardsToCache.size();
+                    if (pending > 0 && (pending >= batchSize || pending >= maximumBacklogSize
                             || timeToFlush())) {
                         LOGGER.debug("{} metacards to batch add to cache", metacardsToCache.size());
 
@@ -78,7 +108,11 @@ public void run() {
                             cache.create(batch);
 
                             for (Metacard metacard : batch) {
-                                metacardsToCache.remove(metacard.getId());
+                                // keep metacards that were updated while the batch was cached
+                                metacardsToCache.remove(SolrCache.getUniqueId(metacard), metacard);
+                            }
+                            synchronized (backlogLock) {
+                                backlogLock.notifyAll();
                             }
                         }
 
@@ -89,6 +123,29 @@ public void run() {
                 }
             }
         }, delay, delay, delayUnit);
+
+        configureMBean();
+    }
+
+    private void configureMBean() {
+        MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            objectName = new ObjectName(CacheBulkProcessorMBean.OBJECTNAME);
+            try {
+                mbeanServer.registerMBean(new StandardMBean(this, CacheBulkProcessorMBean.class),
+                        objectName);
+            } catch (InstanceAlreadyExistsException e) {
+                LOGGER.info("Re-registering Cache Bulk Processor MBean");
+                mbeanServer.unregisterMBean(objectName);
+                mbeanServer.registerMBean(new StandardMBean(this, CacheBulkProcessorMBean.class),
+                        objectName);
+            }
+        } catch (MalformedObjectNameException e) {
+            LOGGER.info("Could not create object name", e);
+        } catch (Exception e) {
+            LOGGER.warn("Could not register MBean.", e);
+        }
     }
 
     private boolean timeToFlush() {
@@ -97,22 +154,80 @@ private boolean timeToFlush() {
     }
 
     /**
-     * Adds metacards to be bulk added to cache.  Metacards will be ignored if backlog grows too
-     * large.  Metacard currently in backlog will be updated if added again.
+     * Adds metacards to be bulk added to cache.  Metacards the cache already holds unchanged are
+     * skipped.  Metacard currently in backlog will be updated if added again.  If the backlog is
+     * full, waits up to the maximum backlog wait for it to be flushed, and then ignores the
+     * metacards that do not fit.
      *
      * @param results metacards to add to current batch
      */
     public void add(final List<Result> results) {
+        boolean waitForBacklog = true;
+        for (Result result : results) {
+            if (result != null) {
+                Metacard metacard = result.getMetacard();
+                if (metacard != null && !add(metacard, waitForBacklog)) {
+                    // the backlog stayed full, so the rest of the results are not waited for
+                    waitForBacklog = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return {@code false} if the metacard was dropped because the backlog was full
+     */
+    private boolean add(Metacard metacard, boolean waitForBacklog) {
+        if (cache.isCached(metacard)) {
+            skippedMetacards.incrementAndGet();
+            return true;
+        }
+
+        String key = SolrCache.getUniqueId(metacard);
+        if (metacardsToCache.replace(key, metacard) == null) {
+            if (!hasBacklogSpace(waitForBacklog)) {
+                long dropped = droppedMetacards.incrementAndGet();
+                LOGGER.debug("Cache backlog is full, {} metacards dropped so far", dropped);
+                return false;
+            }
+            metacardsToCache.put(key, metacard);
+        }
+        admittedMetacards.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Counts metacards that were dropped before they could be added, such as when there was no
+     * thread free to add them.
+     *
+     * @param results metacards that will not be cached
+     */
+    public void drop(final List<Result> results) {
+        long dropped = droppedMetacards.addAndGet(results.size());
+        LOGGER.debug("Cache is busy, {} metacards dropped so far", dropped);
+    }
+
+    private boolean hasBacklogSpace(boolean waitForBacklog) {
         if (metacardsToCache.size() < maximumBacklogSize) {
-            for (Result result : results) {
-                if (result != null) {
-                    Metacard metacard = result.getMetacard();
-                    if (metacard != null) {
-                        metacardsToCache.put(metacard.getId(), metacard);
-                    }
+            return true;
+        } else if (!waitForBacklog) {
+            return false;
+        }
+
+        long deadline = System.currentTimeMillis() + maximumBacklogWait;
+        synchronized (backlogLock) {
+            long remaining = maximumBacklogWait;
+            while (metacardsToCache.size() >= maximumBacklogSize && remaining > 0) {
+                try {
+                    backlogLock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
                 }
+                remaining = deadline - System.currentTimeMillis();
             }
         }
+        return metacardsToCache.size() < maximumBacklogSize;
     }
 
     /**
@@ -120,12 +235,40 @@ public void add(final List<Result> results) {
      */
     public void shutdown() {
         batchScheduler.shutdown();
+
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (Exception e) {
+                LOGGER.debug("Could not unregister MBean.", e);
+            }
+        }
     }
 
     int pendingMetacards() {
         return metacardsToCache.size();
     }
 
+    @Override
+    public long getAdmittedMetacards() {
+        return admittedMetacards.get();
+    }
+
+    @Override
+    public long getSkippedMetacards() {
+        return skippedMetacards.get();
+    }
+
+    @Override
+    public long getDroppedMetacards() {
+        return droppedMetacards.get();
+    }
+
+    @Override
+    public int getPendingMetacards() {
+        return pendingMetacards();
+    }
+
     public void setFlushInterval(long flushInterval) {
         this.flushInterval = flushInterval;
     }
@@ -137,4 +280,11 @@ public void setBatchSize(int batchSize) {
     public void setMaximumBacklogSize(int maximumBacklogSize) {
         this.maximumBacklogSize = maximumBacklogSize;
     }
+
+    /**
+     * @param maximumBacklogWait milliseconds an add waits for a full backlog to be flushed
+     */
+    public void setMaximumBacklogWait(long maximumBacklogWait) {
+        this.maximumBacklogWait = maximumBacklogWait;
+    }
 }
@@ -0,0 +1,484 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.solr.impl;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrServer;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrException;
+import org.opengis.filter.sort.SortBy;
+import org.opengis.filter.sort.SortOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.operation.Query;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.SourceResponse;
+import ddf.catalog.operation.impl.QueryImpl;
+import ddf.catalog.operation.impl.QueryRequestImpl;
+import ddf.catalog.operation.impl.SourceResponseImpl;
+import ddf.catalog.source.UnsupportedQueryException;
+import ddf.catalog.source.solr.SolrMetacardClient;
+import ddf.catalog.util.impl.DistanceResultComparator;
+import ddf.catalog.util.impl.RelevanceResultComparator;
+import ddf.catalog.util.impl.TemporalResultComparator;
+
+/**
+ * The cores holding the cache, one per window of time in which metacards were cached. Metacards
+ * are always written to the core of the current window, so expiring the cache removes whole cores
+ * instead of deleting documents from an index that is being queried.
+ * <p/>
+ * Queries are run against every core and the results merged, so the cache still answers queries
+ * as a single index.
+ */
+class CachePartitions {
+
+    static final String PARTITION_SEPARATOR = "_";
+
+    /** Most threads querying partitions, however many partitions there are */
+    private static final int MAXIMUM_QUERY_THREADS = Runtime.getRuntime().availableProcessors() * 2;
+
+    /** Partition queries waiting for a thread per query thread */
+    private static final int QUERY_QUEUE_SIZE_PER_THREAD = 4;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachePartitions.class);
+
+    private static final Comparator<Result> DEFAULT_COMPARATOR = new RelevanceResultComparator(
+            SortOrder.DESCENDING);
+
+    private final SolrCores cores;
+
+    private final String coreName;
+
+    private final ClientFactory clientFactory;
+
+    private final ConcurrentSkipListMap<Long, Partition> partitions = new ConcurrentSkipListMap<>();
+
+    private final ThreadPoolExecutor executor;
+
+    private volatile long intervalInMinutes;
+
+    /**
+     * @param cores             the cores of the Solr server
+     * @param coreName          name of the core of an unpartitioned cache; partitions are named
+     *                          after it followed by the minute their window starts
+     * @param clientFactory     creates the client of each partition
+     * @param intervalInMinutes length of the window of each partition
+     */
+    CachePartitions(SolrCores cores, String coreName, ClientFactory clientFactory,
+            long intervalInMinutes) {
+        this.cores = cores;
+        this.coreName = coreName;
+        this.clientFactory = clientFactory;
+        setIntervalInMinutes(intervalInMinutes);
+
+        final AtomicInteger threads = new AtomicInteger();
+        executor = new ThreadPoolExecutor(1, 1, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(
+                        MAXIMUM_QUERY_THREADS * QUERY_QUEUE_SIZE_PER_THREAD),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable,
+                                "solr-cache-query-" + threads.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                }, new RejectedExecutionHandler() {
+                    @Override
+                    public void rejectedExecution(Runnable runnable,
+                            ThreadPoolExecutor executor) {
+                        // unlike CallerRunsPolicy, also runs after shutdown, so no query waits
+                        // on a partition query that was discarded
+                        runnable.run();
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Sets the length of the window of new partitions; existing partitions keep theirs.
+     */
+    void setIntervalInMinutes(long intervalInMinutes) {
+        this.intervalInMinutes = Math.max(1, intervalInMinutes);
+    }
+
+    /**
+     * Finds the partitions already on the server. The core of an unpartitioned cache is kept as a
+     * partition that is no longer written to.
+     *
+     * @param now current time in milliseconds
+     */
+    void load(long now) throws IOException, SolrServerException {
+        long interval = TimeUnit.MINUTES.toMillis(intervalInMinutes);
+        for (String name : cores.list()) {
+            if (coreName.equals(name)) {
+                addPartition(name, 0, now - now % TimeUnit.MINUTES.toMillis(1));
+            } else if (name.startsWith(coreName + PARTITION_SEPARATOR)) {
+                String minutes = name.substring(coreName.length() + PARTITION_SEPARATOR.length());
+                if (StringUtils.isNumeric(minutes) && !minutes.isEmpty()) {
+                    long start = TimeUnit.MINUTES.toMillis(Long.parseLong(minutes));
+                    addPartition(name, start, start + interval);
+                }
+            }
+        }
+        LOGGER.debug("Found {} cache partition(s).", partitions.size());
+    }
+
+    /**
+     * Returns the partition for metacards cached at the given time, creating it if needed.
+     *
+     * @param now current time in milliseconds
+     */
+    synchronized Partition current(long now) {
+        Map.Entry<Long, Partition> latest = partitions.lastEntry();
+        if (latest != null && latest.getValue().contains(now)) {
+            return latest.getValue();
+        }
+
+        long interval = TimeUnit.MINUTES.toMillis(intervalInMinutes);
+        long start = now - now % interval;
+        if (latest != null && latest.getValue().end > start) {
+            // the window was shortened, so the new partition starts where the latest one ends
+            start = latest.getValue().end;
+        }
+        String name = coreName + PARTITION_SEPARATOR + TimeUnit.MILLISECONDS.toMinutes(start);
+        LOGGER.debug("Creating cache partition {}.", name);
+        return addPartition(name, start, start + interval);
+    }
+
+    /**
+     * @return the partitions, oldest first
+     */
+    List<Partition> list() {
+        return new ArrayList<>(partitions.values());
+    }
+
+    int size() {
+        return partitions.size();
+    }
+
+    /**
+     * Removes the partitions whose window ended at or before the given time.
+     *
+     * @return the number of partitions removed
+     */
+    int expire(long cutoff) {
+        int removed = 0;
+        for (Partition partition : list()) {
+            if (partition.end <= cutoff) {
+                remove(partition);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Removes the oldest partitions, except the current one, until the cache holds no more than
+     * the given number of metacards.
+     *
+     * @param maximumSize maximum number of metacards in the cache
+     * @return the end of the window of the last partition removed, or {@code -1} if none were
+     */
+    long evict(long maximumSize) throws IOException, SolrServerException {
+        List<Partition> oldestFirst = list();
+        List<Long> counts = new ArrayList<>(oldestFirst.size());
+        long total = 0;
+        for (Partition partition : oldestFirst) {
+            long count = count(partition);
+            counts.add(count);
+            total += count;
+        }
+
+        long evictedEnd = -1;
+        for (int i = 0; i < oldestFirst.size() - 1 && total > maximumSize; i++) {
+            Partition partition = oldestFirst.get(i);
+            LOGGER.debug("Evicting cache partition {} holding {} metacard(s).",
+                    partition.name, counts.get(i));
+            remove(partition);
+            total -= counts.get(i);
+            evictedEnd = partition.end;
+        }
+        return evictedEnd;
+    }
+
+    void removeAll() {
+        for (Partition partition : list()) {
+            remove(partition);
+        }
+    }
+
+    /**
+     * Commits the partitions changed since they were last committed.
+     */
+    void commit() throws IOException, SolrServerException {
+        for (Partition partition : list()) {
+            if (partition.dirty.compareAndSet(true, false)) {
+                partition.server.commit();
+            }
+        }
+    }
+
+    /**
+     * Queries every partition and merges the results into the requested page.
+     */
+    SourceResponse query(QueryRequest request) throws UnsupportedQueryException {
+        final List<Partition> live = list();
+        if (live.isEmpty()) {
+            return new SourceResponseImpl(request, new ArrayList<Result>(), 0L);
+        }
+        if (live.size() == 1) {
+            return live.get(0).client.query(request);
+        }
+
+        Query query = request.getQuery();
+        int startIndex = query.getStartIndex();
+        int pageSize = query.getPageSize();
+        if (startIndex < 1) {
+            throw new UnsupportedQueryException("Start index must be greater than 0");
+        }
+
+        // each partition returns every result up to the end of the requested page
+        final QueryRequest partitionRequest;
+        if (startIndex == 1) {
+            partitionRequest = request;
+        } else {
+            int partitionPageSize = pageSize < 1 ? pageSize : startIndex - 1 + pageSize;
+            partitionRequest = new QueryRequestImpl(
+                    new QueryImpl(query, 1, partitionPageSize, query.getSortBy(),
+                            query.requestsTotalResultsCount(), query.getTimeoutMillis()),
+                    request.isEnterprise(), request.getSourceIds(), request.getProperties());
+        }
+
+        List<Future<SourceResponse>> futures = new ArrayList<>(live.size());
+        for (final Partition partition : live) {
+            futures.add(executor.submit(new Callable<SourceResponse>() {
+                @Override
+                public SourceResponse call() throws UnsupportedQueryException {
+                    return partition.client.query(partitionRequest);
+                }
+            }));
+        }
+
+        List<Result> results = new ArrayList<>();
+        long hits = 0;
+        try {
+            for (Future<SourceResponse> future : futures) {
+                SourceResponse response = future.get();
+                results.addAll(response.getResults());
+                hits += response.getHits();
+            }
+        } catch (ExecutionException e) {
+            cancel(futures);
+            if (e.getCause() instanceof UnsupportedQueryException) {
+                throw (UnsupportedQueryException) e.getCause();
+            }
+            throw new UnsupportedQueryException("Unable to query cache partition.", e.getCause());
+        } catch (InterruptedException e) {
+            cancel(futures);
+            Thread.currentThread().interrupt();
+            throw new UnsupportedQueryException("Interrupted while querying the cache.", e);
+        }
+
+        Collections.sort(results, getComparator(query.getSortBy()));
+        int from = Math.min(startIndex - 1, results.size());
+        int to = pageSize < 1 ? results.size() : Math.min(from + pageSize, results.size());
+        return new SourceResponseImpl(request, new ArrayList<>(results.subList(from, to)), hits);
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+        for (Partition partition : list()) {
+            partition.server.shutdown();
+        }
+        partitions.clear();
+        cores.shutdown();
+    }
+
+    private Partition addPartition(String name, long start, long end) {
+        SolrServer server = cores.get(name);
+        Partition partition = new Partition(name, start, end, server,
+                clientFactory.newClient(server));
+        partitions.put(start, partition);
+        resizeExecutor();
+        return partition;
+    }
+
+    private void remove(Partition partition) {
+        if (partitions.remove(partition.start, partition)) {
+            LOGGER.debug("Removing cache partition {}.", partition.name);
+            resizeExecutor();
+            try {
+                cores.remove(partition.name, partition.server);
+            } catch (SolrServerException | SolrException | IOException e) {
+                LOGGER.warn("Unable to remove cache partition {}.", partition.name, e);
+            }
+        }
+    }
+
+    /**
+     * Keeps a query thread per partition, up to {@link #MAXIMUM_QUERY_THREADS}.
+     */
+    private synchronized void resizeExecutor() {
+        int threads = Math.max(1, Math.min(partitions.size(), MAXIMUM_QUERY_THREADS));
+        if (threads > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(threads);
+            executor.setCorePoolSize(threads);
+        } else {
+            executor.setCorePoolSize(threads);
+            executor.setMaximumPoolSize(threads);
+        }
+    }
+
+    private long count(Partition partition) throws IOException, SolrServerException {
+        SolrQuery query = new SolrQuery("*:*");
+        query.setRows(0);
+        return partition.server.query(query).getResults().getNumFound();
+    }
+
+    private void cancel(List<Future<SourceResponse>> futures) {
+        for (Future<SourceResponse> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Chooses the comparator the same way the federation strategy does, falling back to comparing
+     * the sorted attribute for any other property.
+     */
+    static Comparator<Result> getComparator(SortBy sortBy) {
+        if (sortBy == null || sortBy.getPropertyName() == null) {
+            return DEFAULT_COMPARATOR;
+        }
+
+        String sortType = sortBy.getPropertyName().getPropertyName();
+        SortOrder sortOrder = (sortBy.getSortOrder() == null) ?
+                SortOrder.DESCENDING :
+                sortBy.getSortOrder();
+
+        if (Metacard.EFFECTIVE.equals(sortType) || Result.TEMPORAL.equals(sortType)) {
+            return new TemporalResultComparator(sortOrder);
+        } else if (Result.DISTANCE.equals(sortType)) {
+            return new DistanceResultComparator(sortOrder);
+        } else if (Result.RELEVANCE.equals(sortType)) {
+            return new RelevanceResultComparator(sortOrder);
+        }
+        return new AttributeResultComparator(sortType, sortOrder);
+    }
+
+    /**
+     * Creates the client used to read and write a partition.
+     */
+    interface ClientFactory {
+        SolrMetacardClient newClient(SolrServer server);
+    }
+
+    static class Partition {
+
+        final String name;
+
+        final long start;
+
+        final long end;
+
+        final SolrServer server;
+
+        final SolrMetacardClient client;
+
+        final AtomicBoolean dirty = new AtomicBoolean(false);
+
+        Partition(String name, long start, long end, SolrServer server,
+                SolrMetacardClient client) {
+            this.name = name;
+            this.start = start;
+            this.end = end;
+            this.server = server;
+            this.client = client;
+        }
+
+        boolean contains(long time) {
+            return start <= time && time < end;
+        }
+    }
+
+    /**
+     * Compares results by the value of an attribute of their metacards, with results missing the
+     * attribute last.
+     */
+    private static class AttributeResultComparator implements Comparator<Result>, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String attributeName;
+
+        private final SortOrder sortOrder;
+
+        AttributeResultComparator(String attributeName, SortOrder sortOrder) {
+            this.attributeName = attributeName;
+            this.sortOrder = sortOrder;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public int compare(Result first, Result second) {
+            Serializable firstValue = getValue(first);
+            Serializable secondValue = getValue(second);
+            if (firstValue == null || secondValue == null) {
+                if (firstValue == secondValue) {
+                    return 0;
+                }
+                return firstValue == null ? 1 : -1;
+            }
+            if (!(firstValue instanceof Comparable) || !firstValue.getClass()
+                    .isInstance(secondValue)) {
+                return 0;
+            }
+
+            int comparison = ((Comparable<Object>) firstValue).compareTo(secondValue);
+            return SortOrder.DESCENDING.equals(sortOrder) ? -comparison : comparison;
+        }
+
+        private Serializable getValue(Result result) {
+            if (result == null || result.getMetacard() == null) {
+                return null;
+            }
+            Attribute attribute = result.getMetacard().getAttribute(attributeName);
+            return attribute == null ? null : attribute.getValue();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.solr.impl;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import ddf.catalog.data.Metacard;
+
+/**
+ * In-memory index of the modified date of each metacard in the cache, by source id and metacard
+ * id, used to tell whether caching a metacard again would change the cache.
+ */
+class CachedMetacardIndex {
+
+    static final int DEFAULT_MAXIMUM_SIZE = 250000;
+
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    // source ids are shared by many entries, so each is only kept once
+    private final ConcurrentMap<String, String> sourceIds = new ConcurrentHashMap<>();
+
+    private final int maximumSize;
+
+    CachedMetacardIndex() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * @param maximumSize number of metacards above which no new metacards are indexed
+     */
+    CachedMetacardIndex(int maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * @param metacard    metacard to look up
+     * @param cachedAfter time in milliseconds before which cached metacards have expired
+     * @return {@code true} if the metacard was cached after the given time from the same source
+     * and with the same modified date
+     */
+    boolean contains(Metacard metacard, long cachedAfter) {
+        Date modified = metacard.getModifiedDate();
+        if (metacard.getId() == null || metacard.getSourceId() == null || modified == null) {
+            return false;
+        }
+
+        Entry entry = entries.get(new Key(metacard.getSourceId(), metacard.getId()));
+        return entry != null && entry.cached > cachedAfter && entry.modified == modified.getTime();
+    }
+
+    /**
+     * Records that a metacard was cached.
+     */
+    void put(Metacard metacard, long cached) {
+        put(metacard.getId(), metacard.getSourceId(), metacard.getModifiedDate(), cached, false);
+    }
+
+    /**
+     * Records a metacard that was already cached, unless a more recent version of it has been
+     * recorded.
+     */
+    void putIfAbsent(String id, String sourceId, Date modified, long cached) {
+        put(id, sourceId, modified, cached, true);
+    }
+
+    /**
+     * Removes the metacards with the given ids, from every source.
+     */
+    void remove(Collection<?> ids) {
+        Set<String> removed = new HashSet<>();
+        for (Object id : ids) {
+            if (id != null) {
+                removed.add(id.toString());
+            }
+        }
+        if (removed.isEmpty()) {
+            return;
+        }
+
+        Iterator<Key> iterator = entries.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (removed.contains(iterator.next().id)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes the metacards cached at or before the given time.
+     */
+    void expire(long cachedBefore) {
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue().cached <= cachedBefore) {
+                iterator.remove();
+            }
+        }
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void put(String id, String sourceId, Date modified, long cached,
+            boolean onlyIfAbsent) {
+        if (id == null || sourceId == null) {
+            return;
+        }
+
+        String canonicalSourceId = sourceIds.putIfAbsent(sourceId, sourceId);
+        Key key = new Key(canonicalSourceId != null ? canonicalSourceId : sourceId, id);
+        if (modified == null) {
+            // metacards without a modified date are always cached again
+            entries.remove(key);
+            return;
+        }
+
+        Entry entry = new Entry(modified.getTime(), cached);
+        if (onlyIfAbsent) {
+            if (entries.size() < maximumSize) {
+                entries.putIfAbsent(key, entry);
+            }
+        } else if (entries.size() < maximumSize || entries.containsKey(key)) {
+            entries.put(key, entry);
+        }
+    }
+
+    private static class Key {
+
+        private final String sourceId;
+
+        private final String id;
+
+        Key(String sourceId, String id) {
+            this.sourceId = sourceId;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return id.equals(other.id) && sourceId.equals(other.sourceId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * sourceId.hashCode() + id.hashCode();
+        }
+    }
+
+    private static class Entry {
+
+        private final long modified;
+
+        private final long cached;
+
+        Entry(long modified, long cached) {
+            this.modified = modified;
+            this.cached = cached;
+        }
+    }
+}
@@ -22,6 +22,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
@@ -30,7 +31,9 @@
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.Phaser;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -44,6 +47,7 @@
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.Result;
 import ddf.catalog.federation.FederationStrategy;
+import ddf.catalog.impl.StageLatencies;
 import ddf.catalog.operation.CreateResponse;
 import ddf.catalog.operation.DeleteResponse;
 import ddf.catalog.operation.ProcessingDetails;
@@ -65,7 +69,9 @@
 import ddf.catalog.source.Source;
 import ddf.catalog.source.UnsupportedQueryException;
 import ddf.catalog.util.impl.DistanceResultComparator;
+import ddf.catalog.util.impl.QueryOutcomeRecorder;
 import ddf.catalog.util.impl.RelevanceResultComparator;
+import ddf.catalog.util.impl.Requests;
 import ddf.catalog.util.impl.TemporalResultComparator;
 
 /**
@@ -98,12 +104,23 @@ public class CachingFederationStrategy implements FederationStrategy, PostIngest
 
     private static final int DEFAULT_MAX_START_INDEX = 50000;
 
+    private static final int CACHE_THREADS = 8;
+
+    private static final int CACHE_QUEUE_SIZE = 64;
+
     private static XLogger logger = new XLogger(
             LoggerFactory.getLogger(CachingFederationStrategy.class));
 
     private final SolrCache cache;
 
-    private final ExecutorService cacheExecutorService = Executors.newFixedThreadPool(8);
+    /**
+     * Hands query results to the bulk processor. The queue is bounded, since adds can wait for a
+     * full backlog, so results arriving faster than they can be cached are dropped rather than
+     * queued without limit.
+     */
+    private final ExecutorService cacheExecutorService = new ThreadPoolExecutor(CACHE_THREADS,
+            CACHE_THREADS, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<Runnable>(CACHE_QUEUE_SIZE));
 
     /**
      * The {@link List} of pre-federated query plugins to execute on the query request before the
@@ -127,6 +144,10 @@ public class CachingFederationStrategy implements FederationStrategy, PostIngest
 
     private boolean isCachingEverything = false;
 
+    private volatile QueryOutcomeRecorder queryOutcomeRecorder;
+
+    private volatile StageLatencies stageLatencies;
+
     /**
      * Instantiates an {@code AbstractFederationStrategy} with the provided {@link ExecutorService}.
      *
@@ -187,17 +208,24 @@ private QueryResponse sourceFederate(List<Source> sources, final QueryRequest qu
 
         int offset = originalQuery.getStartIndex();
         final int pageSize = originalQuery.getPageSize();
+        final boolean hitsOnly = Requests.isHitsOnly(queryRequest);
 
         // limit offset to max value
         if (offset > this.maxStartIndex) {
             offset = this.maxStartIndex;
         }
 
+        // only the hits of each source are needed, no results are paged through
+        if (hitsOnly) {
+            offset = 1;
+        }
+
         final QueryResponseImpl queryResponseQueue = new QueryResponseImpl(queryRequest, null);
 
         Map<Future<SourceResponse>, Source> futures = new HashMap<Future<SourceResponse>, Source>();
 
-        Query modifiedQuery = getModifiedQuery(originalQuery, sources.size(), offset, pageSize);
+        Query modifiedQuery = getModifiedQuery(originalQuery, sources.size(), offset, pageSize,
+                hitsOnly);
         QueryRequest modifiedQueryRequest = new QueryRequestImpl(modifiedQuery,
                 queryRequest.isEnterprise(), queryRequest.getSourceIds(),
                 queryRequest.getProperties());
@@ -213,11 +241,14 @@ private QueryResponse sourceFederate(List<Source> sources, final QueryRequest qu
 
                     try {
                         for (PreFederatedQueryPlugin service : preQuery) {
+                            long start = System.nanoTime();
                             try {
                                 modifiedQueryRequest = service
                                         .process(source, modifiedQueryRequest);
                             } catch (PluginExecutionException e) {
                                 logger.warn("Error executing PreFederatedQueryPlugin", e);
+                            } finally {
+                                recordLatency(StageLatencies.PRE_FEDERATED_QUERY, service, start);
                             }
                         }
                     } catch (StopProcessingException e) {
@@ -260,10 +291,13 @@ private QueryResponse sourceFederate(List<Source> sources, final QueryRequest qu
 
         try {
             for (PostFederatedQueryPlugin service : postQuery) {
+                long start = System.nanoTime();
                 try {
                     queryResponse = service.process(queryResponse);
                 } catch (PluginExecutionException e) {
                     logger.warn("Error executing PostFederatedQueryPlugin", e);
+                } finally {
+                    recordLatency(StageLatencies.POST_FEDERATED_QUERY, service, start);
                 }
             }
         } catch (StopProcessingException e) {
@@ -275,12 +309,19 @@ private QueryResponse sourceFederate(List<Source> sources, final QueryRequest qu
     }
 
     private Query getModifiedQuery(Query originalQuery, int numberOfSources, int offset,
-            int pageSize) {
+            int pageSize, boolean hitsOnly) {
 
         Query query = null;
 
-        // If offset is not specified, our offset is 1
-        if (offset > 1 && numberOfSources > 1) {
+        if (hitsOnly) {
+            /**
+             * Sources that cannot count without returning results return a single unsorted result,
+             * which is discarded.
+             */
+            query = new QueryImpl(originalQuery, 1, 1, null, true,
+                    originalQuery.getTimeoutMillis());
+        } else if (offset > 1 && numberOfSources > 1) {
+            // If offset is not specified, our offset is 1
 
             final int modifiedOffset = 1;
             int modifiedPageSize = computeModifiedPageSize(offset, pageSize);
@@ -387,10 +428,44 @@ public void setExpirationAgeInMinutes(long expirationAgeInMinutes) {
         cache.setExpirationAgeInMinutes(expirationAgeInMinutes);
     }
 
+    public void setMaximumCacheSize(long maximumCacheSize) {
+        cache.setMaximumSize(maximumCacheSize);
+    }
+
     public void setCachingEverything(boolean cachingEverything) {
         this.isCachingEverything = cachingEverything;
     }
 
+    /**
+     * Sets the recorder of the outcome of each query of a source, so the availability of sources is
+     * updated as soon as their queries succeed, fail or time out.
+     */
+    public void setQueryOutcomeRecorder(QueryOutcomeRecorder queryOutcomeRecorder) {
+        this.queryOutcomeRecorder = queryOutcomeRecorder;
+    }
+
+    /**
+     * Sets the recorder of the latency of each federated query plugin, source query and of merging
+     * the results of sources.
+     */
+    public void setStageLatencies(StageLatencies stageLatencies) {
+        this.stageLatencies = stageLatencies;
+    }
+
+    private void recordLatency(String stage, long startNanos) {
+        StageLatencies latencies = stageLatencies;
+        if (latencies != null) {
+            latencies.record(stage, startNanos);
+        }
+    }
+
+    private void recordLatency(String kind, Object component, long startNanos) {
+        StageLatencies latencies = stageLatencies;
+        if (latencies != null) {
+            latencies.record(kind, component, startNanos);
+        }
+    }
+
     protected Runnable createMonitor(final CompletionService<SourceResponse> completionService,
             final Map<Future<SourceResponse>, Source> futures,
             final QueryResponseImpl returnResults, final QueryRequest request) {
@@ -399,6 +474,7 @@ protected Runnable createMonitor(final CompletionService<SourceResponse> complet
     }
 
     public void shutdown() {
+        cacheExecutorService.shutdown();
         cacheCommitPhaser.shutdown();
         cacheBulkProcessor.shutdown();
     }
@@ -473,23 +549,44 @@ public CallableSourceResponse(Source source, QueryRequest request) {
 
         @Override
         public SourceResponse call() throws Exception {
-            final SourceResponse sourceResponse = source
-                    .query(new QueryRequestImpl(request.getQuery(), request.getProperties()));
+            final SourceResponse sourceResponse;
+            long start = System.nanoTime();
+            try {
+                sourceResponse = source.query(
+                        new QueryRequestImpl(request.getQuery(), request.getProperties()));
+            } catch (Exception e) {
+                if (queryOutcomeRecorder != null) {
+                    queryOutcomeRecorder.queryFailed(source, e);
+                }
+                throw e;
+            } finally {
+                recordLatency(StageLatencies.SOURCE_QUERY + "." + source.getId(), start);
+            }
+            if (queryOutcomeRecorder != null) {
+                queryOutcomeRecorder.querySucceeded(source);
+            }
 
-            if (INDEX_QUERY_MODE.equals(request.getPropertyValue(QUERY_MODE))) {
+            if (Requests.isHitsOnly(request)) {
+                logger.debug("Not caching the results of a hits only query.");
+            } else if (INDEX_QUERY_MODE.equals(request.getPropertyValue(QUERY_MODE))) {
                 cacheCommitPhaser.add(sourceResponse.getResults());
             } else if (!NATIVE_QUERY_MODE.equals(request.getPropertyValue(QUERY_MODE))) {
                 if (isCachingEverything) {
-                    cacheExecutorService.submit(new Runnable() {
-                        @Override
-                        public void run() {
-                            try {
-                                cacheBulkProcessor.add(sourceResponse.getResults());
-                            } catch (Throwable throwable) {
-                                logger.warn("Unable to add results for bulk processing", throwable);
+                    try {
+                        cacheExecutorService.submit(new Runnable() {
+                            @Override
+                            public void run() {
+                                try {
+                                    cacheBulkProcessor.add(sourceResponse.getResults());
+                                } catch (Throwable throwable) {
+                                    logger.warn("Unable to add results for bulk processing",
+                                            throwable);
+                                }
                             }
-                        }
-                    });
+                        });
+                    } catch (RejectedExecutionException e) {
+                        cacheBulkProcessor.drop(sourceResponse.getResults());
+                    }
                 }
             }
 
@@ -509,6 +606,8 @@ private class SortedQueryMonitor implements Runnable {
 
         private Query query;
 
+        private boolean hitsOnly;
+
         public SortedQueryMonitor(CompletionService<SourceResponse> completionService,
                 Map<Future<SourceResponse>, Source> futures, QueryResponseImpl returnResults,
                 QueryRequest request) {
@@ -518,6 +617,7 @@ public SortedQueryMonitor(CompletionService<SourceResponse> completionService,
             this.request = request;
             this.query = request.getQuery();
             this.futures = futures;
+            this.hitsOnly = Requests.isHitsOnly(request);
         }
 
         @Override
@@ -580,7 +680,9 @@ public void run() {
                         processingDetails.add(new ProcessingDetailsImpl(sourceId,
                                 new NullPointerException()));
                     } else {
-                        resultList.addAll(sourceResponse.getResults());
+                        if (!hitsOnly) {
+                            resultList.addAll(sourceResponse.getResults());
+                        }
                         totalHits += sourceResponse.getHits();
 
                         Map<String, Serializable> properties = sourceResponse.getProperties();
@@ -599,11 +701,16 @@ public void run() {
             }
             logger.debug("All sources finished returning results: {}", resultList.size());
 
-            if (INDEX_QUERY_MODE.equals(request.getPropertyValue(QUERY_MODE))) {
+            if (hitsOnly) {
+                // a hits only query has no results to merge, nor any to find in the cache
+                returnResults.setHits(totalHits);
+                returnResults.addResults(resultList, true);
+            } else if (INDEX_QUERY_MODE.equals(request.getPropertyValue(QUERY_MODE))) {
                 QueryResponse result = queryCache(request);
                 returnResults.setHits(totalHits);
                 returnResults.addResults(result.getResults(), true);
             } else {
+                long start = System.nanoTime();
                 Collections.sort(resultList, coreComparator);
 
                 returnResults.setHits(totalHits);
@@ -615,6 +722,7 @@ public void run() {
                 returnResults.addResults(resultList.size() > maxResults ?
                         resultList.subList(0, maxResults) :
                         resultList, true);
+                recordLatency(StageLatencies.MERGE, start);
             }
         }
 
@@ -624,6 +732,9 @@ private void timeoutRemainingSources(Set<ProcessingDetails> processingDetails) {
                     logger.info("Search timed out for {}", expiredSource.getId());
                     processingDetails.add(new ProcessingDetailsImpl(expiredSource.getId(),
                             new TimeoutException()));
+                    if (queryOutcomeRecorder != null) {
+                        queryOutcomeRecorder.queryTimedOut(expiredSource);
+                    }
                 }
             }
         }
@@ -0,0 +1,66 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.solr.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.solr.client.solrj.SolrServer;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.request.CoreAdminRequest;
+import org.apache.solr.client.solrj.response.CoreAdminResponse;
+import org.codice.solr.factory.SolrServerFactory;
+
+/**
+ * Cores of a standalone Solr server, managed through its core admin API.
+ */
+class HttpSolrCores implements SolrCores {
+
+    private final String url;
+
+    private final SolrServer adminServer;
+
+    HttpSolrCores(String url) {
+        this.url = url;
+        this.adminServer = SolrServerFactory.getHttpSolrServer(url);
+    }
+
+    @Override
+    public List<String> list() throws IOException, SolrServerException {
+        CoreAdminResponse response = CoreAdminRequest.getStatus(null, adminServer);
+        List<String> coreNames = new ArrayList<>();
+        for (int i = 0; i < response.getCoreStatus().size(); i++) {
+            coreNames.add(response.getCoreStatus().getName(i));
+        }
+        return coreNames;
+    }
+
+    @Override
+    public SolrServer get(String coreName) {
+        return SolrServerFactory.getHttpSolrServer(url, coreName);
+    }
+
+    @Override
+    public void remove(String coreName, SolrServer server)
+            throws IOException, SolrServerException {
+        server.shutdown();
+        CoreAdminRequest.unloadCore(coreName, true, true, adminServer);
+    }
+
+    @Override
+    public void shutdown() {
+        adminServer.shutdown();
+    }
+}
@@ -24,7 +24,6 @@
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
 import javax.management.InstanceAlreadyExistsException;
 import javax.management.MBeanServer;
 import javax.management.MalformedObjectNameException;
@@ -36,8 +35,10 @@
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrServer;
 import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.client.solrj.response.UpdateResponse;
 import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
 import org.codice.solr.factory.SolrServerFactory;
@@ -68,6 +69,9 @@
 
 /**
  * Catalog cache implementation using Apache Solr 4
+ * <p/>
+ * The cache is split into cores by the time metacards were cached in, see {@link CachePartitions},
+ * so expiring it drops whole cores rather than deleting documents from the index being queried.
  */
 public class SolrCache implements SolrCacheMBean {
 
@@ -82,6 +86,13 @@ public class SolrCache implements SolrCacheMBean {
 
     public static final String CACHED_DATE = "cached" + SchemaFields.DATE_SUFFIX;
 
+    static final String METACARD_MODIFIED_NAME = Metacard.MODIFIED + SchemaFields.DATE_SUFFIX;
+
+    private static final int INDEX_SEED_PAGE_SIZE = 1000;
+
+    // number of partitions spanning the expiration age
+    static final int PARTITIONS_PER_EXPIRATION_AGE = 7;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(SolrCache.class);
 
     private FilterAdapter filterAdapter;
@@ -90,13 +101,11 @@ public class SolrCache implements SolrCacheMBean {
 
     private String url = SolrServerFactory.DEFAULT_HTTPS_ADDRESS;
 
-    private SolrServer server;
+    private volatile CachePartitions partitions;
 
     private SolrFilterDelegateFactory solrFilterDelegateFactory;
 
-    private SolrMetacardClient client;
-
-    private AtomicBoolean dirty = new AtomicBoolean(false);
+    private final CachedMetacardIndex cachedMetacards = new CachedMetacardIndex();
 
     private ScheduledExecutorService scheduler;
 
@@ -104,6 +113,8 @@ public class SolrCache implements SolrCacheMBean {
 
     private long expirationAgeInMinutes = TimeUnit.DAYS.toMinutes(7);
 
+    private long maximumSize = 0;
+
     private MBeanServer mbeanServer;
 
     private String protocol;
@@ -126,7 +137,23 @@ public SolrCache(FilterAdapter adapter, SolrFilterDelegateFactory solrFilterDele
         this.solrFilterDelegateFactory = solrFilterDelegateFactory;
         this.updateServer(url);
         configureCacheExpirationScheduler();
+        registerMBean();
+    }
+
+    /**
+     * Creates a cache on the given cores, such as the cores of an embedded Solr server.
+     */
+    SolrCache(FilterAdapter adapter, SolrFilterDelegateFactory solrFilterDelegateFactory,
+            SolrCores cores) {
+        this.filterAdapter = adapter;
+        this.solrFilterDelegateFactory = solrFilterDelegateFactory;
+        this.url = null;
+        this.updateCores(cores);
+        configureCacheExpirationScheduler();
+        registerMBean();
+    }
 
+    private void registerMBean() {
         try {
             objectName = new ObjectName(SolrCacheMBean.OBJECTNAME);
         } catch (MalformedObjectNameException e) {
@@ -137,7 +164,7 @@ public SolrCache(FilterAdapter adapter, SolrFilterDelegateFactory solrFilterDele
     }
 
     public SourceResponse query(QueryRequest request) throws UnsupportedQueryException {
-        return client.query(request);
+        return partitions.query(request);
     }
 
     public void create(Collection<Metacard> metacards) {
@@ -157,14 +184,50 @@ public void create(Collection<Metacard> metacards) {
             }
         }
 
+        if (updatedMetacards.isEmpty()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        CachePartitions.Partition current = partitions.current(now);
         try {
-            client.add(updatedMetacards, false);
-            dirty.set(true);
+            current.client.add(updatedMetacards, false);
+            current.dirty.set(true);
+
+            for (Metacard metacard : updatedMetacards) {
+                cachedMetacards.put(metacard, now);
+            }
         } catch (SolrServerException | SolrException | IOException | MetacardCreationException e) {
             LOGGER.warn("Solr server exception caching metacard(s)", e);
+            return;
+        }
+
+        // metacards cached again move to the current partition
+        List<String> uniqueIds = new ArrayList<>(updatedMetacards.size());
+        for (Metacard metacard : updatedMetacards) {
+            uniqueIds.add(getUniqueId(metacard));
+        }
+        for (CachePartitions.Partition partition : partitions.list()) {
+            if (partition != current) {
+                try {
+                    partition.server.deleteById(uniqueIds);
+                    partition.dirty.set(true);
+                } catch (SolrServerException | SolrException | IOException e) {
+                    LOGGER.warn("Unable to remove metacard(s) cached again from partition {}.",
+                            partition.name, e);
+                }
+            }
         }
     }
 
+    /**
+     * @return the key of the metacard in the cache, since the same ID can come from more than one
+     * source
+     */
+    static String getUniqueId(Metacard metacard) {
+        return metacard.getSourceId() + "-" + metacard.getId();
+    }
+
     public void delete(DeleteRequest deleteRequest) {
         if (deleteRequest == null) {
             return;
@@ -182,13 +245,39 @@ public void delete(DeleteRequest deleteRequest) {
         }
 
         try {
-            client.deleteByIds(fieldName, deleteRequest.getAttributeValues(), false);
-            dirty.set(true);
+            for (CachePartitions.Partition partition : partitions.list()) {
+                partition.client.deleteByIds(fieldName, deleteRequest.getAttributeValues(), false);
+                partition.dirty.set(true);
+            }
         } catch (SolrServerException | IOException e) {
             LOGGER.error("Solr server exception while deleting from cache", e);
+        } finally {
+            if (fieldName.equals(METACARD_ID_NAME)) {
+                cachedMetacards.remove(deleteRequest.getAttributeValues());
+            } else {
+                cachedMetacards.clear();
+            }
         }
     }
 
+    /**
+     * Tells whether caching a metacard again can be skipped. Once the cached copy is half way to
+     * expiring it is cached again anyway, which touches its cached date and moves it to the current
+     * partition, so metacards that keep being returned by sources do not expire.
+     *
+     * @param metacard metacard to look up
+     * @return {@code true} if the cache holds the metacard from the same source with the same
+     * modified date, cached within the last half of the expiration age
+     */
+    public boolean isCached(Metacard metacard) {
+        if (metacard == null) {
+            return false;
+        }
+        long refreshAfter = System.currentTimeMillis() - TimeUnit.MINUTES
+                .toMillis(expirationAgeInMinutes) / 2;
+        return cachedMetacards.contains(metacard, refreshAfter);
+    }
+
     public void setExpirationIntervalInMinutes(long expirationInterval) {
         this.expirationIntervalInMinutes = expirationInterval;
         configureCacheExpirationScheduler();
@@ -196,6 +285,24 @@ public void setExpirationIntervalInMinutes(long expirationInterval) {
 
     public void setExpirationAgeInMinutes(long expirationAgeInMinutes) {
         this.expirationAgeInMinutes = expirationAgeInMinutes;
+        CachePartitions currentPartitions = partitions;
+        if (currentPartitions != null) {
+            currentPartitions.setIntervalInMinutes(getPartitionIntervalInMinutes());
+        }
+    }
+
+    /**
+     * Sets the number of metacards above which the oldest partitions of the cache are removed when
+     * the cache is expired.
+     *
+     * @param maximumSize maximum number of metacards in the cache, or 0 for no maximum
+     */
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    private long getPartitionIntervalInMinutes() {
+        return expirationAgeInMinutes / PARTITIONS_PER_EXPIRATION_AGE;
     }
 
     private void configureCacheExpirationScheduler() {
@@ -254,32 +361,100 @@ public void updateServer(String newUrl) {
         LOGGER.info("New url {}", newUrl);
 
         if (newUrl != null) {
-            if (!StringUtils.equalsIgnoreCase(newUrl.trim(), url) || server == null) {
+            if (!StringUtils.equalsIgnoreCase(newUrl.trim(), url) || partitions == null) {
 
                 this.url = newUrl.trim();
-
-                if (server != null) {
-                    LOGGER.info(
-                            "Shutting down the connection manager to the Solr Server and releasing allocated resources.");
-                    server.shutdown();
-                    LOGGER.info("Shutdown complete.");
-                }
-
-                server = SolrServerFactory.getHttpSolrServer(url, METACARD_CACHE_CORE_NAME);
-                client = new CacheSolrMetacardClient(this.server, filterAdapter,
-                        solrFilterDelegateFactory);
+                updateCores(new HttpSolrCores(url));
             }
         } else {
             this.url = null;
         }
     }
 
-    public void forceCommit() {
+    private void updateCores(SolrCores cores) {
+        CachePartitions newPartitions = new CachePartitions(cores, METACARD_CACHE_CORE_NAME,
+                new CachePartitions.ClientFactory() {
+                    @Override
+                    public SolrMetacardClient newClient(SolrServer server) {
+                        return new CacheSolrMetacardClient(server, filterAdapter,
+                                solrFilterDelegateFactory);
+                    }
+                }, getPartitionIntervalInMinutes());
         try {
-            if (dirty.compareAndSet(true, false)) {
-                server.commit();
+            newPartitions.load(System.currentTimeMillis());
+        } catch (SolrServerException | SolrException | IOException e) {
+            LOGGER.warn("Unable to find the partitions already in the cache.", e);
+        }
+
+        CachePartitions oldPartitions = partitions;
+        partitions = newPartitions;
+        if (oldPartitions != null) {
+            LOGGER.info(
+                    "Shutting down the connection manager to the Solr Server and releasing allocated resources.");
+            oldPartitions.shutdown();
+            LOGGER.info("Shutdown complete.");
+        }
+
+        cachedMetacards.clear();
+        seedCachedMetacards(newPartitions);
+    }
+
+    /**
+     * Indexes the metacards already in the cache in the background, so metacards cached before a
+     * restart are not cached again unless they have changed.
+     */
+    private void seedCachedMetacards(final CachePartitions cachePartitions) {
+        Thread seeder = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                SolrQuery query = new SolrQuery("*:*");
+                query.setFields(METACARD_ID_NAME, METACARD_SOURCE_NAME, METACARD_MODIFIED_NAME,
+                        CACHED_DATE);
+                query.setRows(INDEX_SEED_PAGE_SIZE);
+
+                int indexed = 0;
+                try {
+                    for (CachePartitions.Partition partition : cachePartitions.list()) {
+                        indexed += seed(partition.server, query);
+                    }
+                    LOGGER.debug("Indexed {} cached metacards.", indexed);
+                } catch (SolrServerException | SolrException e) {
+                    LOGGER.info("Unable to index the metacards already in the cache.", e);
+                }
             }
-        } catch (SolrServerException | IOException e) {
+
+            private int seed(SolrServer solrServer, SolrQuery query) throws SolrServerException {
+                int start = 0;
+                SolrDocumentList documents;
+                do {
+                    query.setStart(start);
+                    QueryResponse response = solrServer.query(query);
+                    documents = response.getResults();
+                    for (SolrDocument document : documents) {
+                        Object id = document.getFirstValue(METACARD_ID_NAME);
+                        Object source = document.getFirstValue(METACARD_SOURCE_NAME);
+                        Object modified = document.getFirstValue(METACARD_MODIFIED_NAME);
+                        Object cached = document.getFirstValue(CACHED_DATE);
+                        if (id != null && source != null && modified instanceof Date
+                                && cached instanceof Date) {
+                            cachedMetacards.putIfAbsent(id.toString(), source.toString(),
+                                    (Date) modified, ((Date) cached).getTime());
+                        }
+                    }
+                    start += documents.size();
+                } while (!documents.isEmpty() && start < documents.getNumFound()
+                        && partitions == cachePartitions);
+                return start;
+            }
+        }, "solr-cache-index");
+        seeder.setDaemon(true);
+        seeder.start();
+    }
+
+    public void forceCommit() {
+        try {
+            partitions.commit();
+        } catch (SolrServerException | SolrException | IOException e) {
             LOGGER.warn("Unable to commit changes to cache.", e);
         }
     }
@@ -296,25 +471,35 @@ public void shutdown() {
         LOGGER.info("Shutting down cache expiration scheduler.");
         shutdownCacheExpirationScheduler();
         LOGGER.info("Shutting down solr server.");
-        server.shutdown();
+        partitions.shutdown();
     }
 
     @Override
     public void removeAll() throws IOException, SolrServerException {
-        client.deleteByQuery("*:*");
+        try {
+            partitions.removeAll();
+        } finally {
+            cachedMetacards.clear();
+        }
     }
 
     @Override
     public void removeById(String[] ids) throws IOException, SolrServerException {
         List<String> idList = Arrays.asList(ids);
-        client.deleteByIds(METACARD_ID_NAME, idList, false);
+        try {
+            for (CachePartitions.Partition partition : partitions.list()) {
+                partition.client.deleteByIds(METACARD_ID_NAME, idList, false);
+            }
+        } finally {
+            cachedMetacards.remove(idList);
+        }
     }
 
     @Override
     public List<Metacard> query(Filter filter) throws UnsupportedQueryException {
         QueryRequest queryRequest = new QueryRequestImpl(new QueryImpl(filter), true);
 
-        SourceResponse response = client.query(queryRequest);
+        SourceResponse response = partitions.query(queryRequest);
         return getMetacardsFromResponse(response);
     }
 
@@ -333,22 +518,37 @@ private class ExpirationRunner implements Runnable {
 
         @Override
         public void run() {
-            try {
-                LOGGER.debug("Expiring cache.");
-                server.deleteByQuery(CACHED_DATE + ":[* TO NOW-" + expirationAgeInMinutes
-                        + "MINUTES]");
-            } catch (SolrServerException | IOException e) {
-                LOGGER.warn("Unable to expire cache.", e);
+            CachePartitions cachePartitions = partitions;
+            long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES
+                    .toMillis(expirationAgeInMinutes);
+
+            LOGGER.debug("Expiring cache.");
+            int expired = cachePartitions.expire(cutoff);
+            cachedMetacards.expire(cutoff);
+            LOGGER.debug("Expired {} cache partition(s).", expired);
+
+            if (maximumSize > 0) {
+                try {
+                    long evictedEnd = cachePartitions.evict(maximumSize);
+                    if (evictedEnd >= 0) {
+                        cachedMetacards.expire(evictedEnd);
+                    }
+                } catch (SolrServerException | SolrException | IOException e) {
+                    LOGGER.warn("Unable to evict partitions from cache.", e);
+                }
             }
         }
     }
 
     private class CacheSolrMetacardClient extends SolrMetacardClient {
 
+        private final SolrServer server;
+
         public CacheSolrMetacardClient(SolrServer solrServer, FilterAdapter catalogFilterAdapter,
                                        SolrFilterDelegateFactory solrFilterDelegateFactory) {
             super(solrServer, catalogFilterAdapter, solrFilterDelegateFactory,
                     new DynamicSchemaResolver());
+            this.server = solrServer;
         }
 
         @Override
@@ -402,8 +602,7 @@ protected SolrInputDocument getSolrInputDocument(Metacard metacard)
 
             if (StringUtils.isNotBlank(metacard.getSourceId())) {
                 solrInputDocument.addField(METACARD_SOURCE_NAME, metacard.getSourceId());
-                solrInputDocument.setField(METACARD_UNIQUE_ID_NAME, metacard.getSourceId()
-                        + metacard.getId());
+                solrInputDocument.setField(METACARD_UNIQUE_ID_NAME, getUniqueId(metacard));
                 solrInputDocument.addField(METACARD_ID_NAME, metacard.getId());
             }
 
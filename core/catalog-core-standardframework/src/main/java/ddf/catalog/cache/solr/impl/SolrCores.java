@@ -0,0 +1,43 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.solr.impl;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.solr.client.solrj.SolrServer;
+import org.apache.solr.client.solrj.SolrServerException;
+
+/**
+ * Creates, lists and removes the Solr cores holding the partitions of the cache.
+ */
+interface SolrCores {
+
+    /**
+     * @return the names of the existing cores
+     */
+    List<String> list() throws IOException, SolrServerException;
+
+    /**
+     * Returns a server for a core, creating the core if it does not exist.
+     */
+    SolrServer get(String coreName);
+
+    /**
+     * Removes a core together with its index.
+     */
+    void remove(String coreName, SolrServer server) throws IOException, SolrServerException;
+
+    void shutdown();
+}
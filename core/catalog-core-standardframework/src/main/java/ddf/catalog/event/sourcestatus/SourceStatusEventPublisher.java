@@ -0,0 +1,66 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.event.sourcestatus;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.osgi.service.event.Event;
+import org.osgi.service.event.EventAdmin;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ddf.catalog.source.Source;
+import ddf.catalog.util.impl.SourceStatus;
+import ddf.catalog.util.impl.SourceStatusListener;
+
+/**
+ * The {@code SourceStatusEventPublisher} posts an event with the {@link EventAdmin} service each
+ * time the known status of a source changes, so consumers can react to it immediately.
+ */
+public class SourceStatusEventPublisher implements SourceStatusListener {
+
+    public static final String EVENT_TOPIC = "ddf/catalog/source/status";
+
+    // Property keys
+    public static final String SOURCE_ID = "source-id";
+
+    public static final String STATUS = "status";
+
+    public static final String PREVIOUS_STATUS = "previous-status";
+
+    public static final String TIMESTAMP = "timestamp";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SourceStatusEventPublisher.class);
+
+    private final EventAdmin eventAdmin;
+
+    public SourceStatusEventPublisher(EventAdmin eventAdmin) {
+        this.eventAdmin = eventAdmin;
+    }
+
+    @Override
+    public void statusChanged(Source source, SourceStatus previous, SourceStatus current) {
+        Map<String, Object> properties = new HashMap<>();
+        if (source.getId() != null) {
+            properties.put(SOURCE_ID, source.getId());
+        }
+        properties.put(STATUS, current.name());
+        properties.put(PREVIOUS_STATUS, previous.name());
+        properties.put(TIMESTAMP, System.currentTimeMillis());
+
+        LOGGER.debug("Posting status {} of source {}.", current, source.getId());
+        eventAdmin.postEvent(new Event(EVENT_TOPIC, properties));
+    }
+}
@@ -26,6 +26,7 @@
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -44,6 +45,7 @@
 import ddf.catalog.CatalogFramework;
 import ddf.catalog.Constants;
 import ddf.catalog.cache.impl.CacheKey;
+import ddf.catalog.cache.impl.QueryResultCache;
 import ddf.catalog.cache.impl.ResourceCache;
 import ddf.catalog.data.BinaryContent;
 import ddf.catalog.data.ContentType;
@@ -246,6 +248,10 @@ public class CatalogFrameworkImpl extends DescribableImpl
 
     private QueryResponsePostProcessor queryResponsePostProcessor;
 
+    private QueryResultCache queryResultCache;
+
+    private StageLatencies stageLatencies = new StageLatencies();
+
     /**
      * Instantiates a new CatalogFrameworkImpl
      *
@@ -396,6 +402,46 @@ public void setReliableResourceDownloadManager(ReliableResourceDownloadManager r
         this.reliableResourceDownloadManager = rrdm;
     }
 
+    public void setQueryResultCache(QueryResultCache queryResultCache) {
+        this.queryResultCache = queryResultCache;
+    }
+
+    public void setQueryResultCacheEnabled(boolean queryResultCacheEnabled) {
+        LOGGER.debug("Setting queryResultCacheEnabled = {}", queryResultCacheEnabled);
+        if (queryResultCache != null) {
+            queryResultCache.setEnabled(queryResultCacheEnabled);
+        }
+    }
+
+    public void setQueryResultCacheTimeToLiveSeconds(long timeToLiveSeconds) {
+        LOGGER.debug("Setting queryResultCacheTimeToLiveSeconds = {}", timeToLiveSeconds);
+        if (queryResultCache != null) {
+            queryResultCache.setTimeToLiveSeconds(timeToLiveSeconds);
+        }
+    }
+
+    public void setQueryResultCacheMaximumSize(int maximumSize) {
+        LOGGER.debug("Setting queryResultCacheMaximumSize = {}", maximumSize);
+        if (queryResultCache != null) {
+            queryResultCache.setMaximumSize(maximumSize);
+        }
+    }
+
+    public void setQueryResultCacheMaximumWaitSeconds(long maximumWaitSeconds) {
+        LOGGER.debug("Setting queryResultCacheMaximumWaitSeconds = {}", maximumWaitSeconds);
+        if (queryResultCache != null) {
+            queryResultCache.setMaximumWaitSeconds(maximumWaitSeconds);
+        }
+    }
+
+    /**
+     * Sets the recorder of the latency of each plugin, provider call, federated query and
+     * transformation.
+     */
+    public void setStageLatencies(StageLatencies stageLatencies) {
+        this.stageLatencies = stageLatencies;
+    }
+
     public void setProductCache(ResourceCache productCache) {
         LOGGER.debug("Injecting productCache");
         this.productCache = productCache;
@@ -812,12 +858,15 @@ public CreateResponse create(CreateRequest createRequest)
         Exception ingestError = null;
         try {
             for (PreIngestPlugin plugin : preIngest) {
+                long start = System.nanoTime();
                 try {
                     createReq = plugin.process(createReq);
                 } catch (PluginExecutionException e) {
                     LOGGER.info(
                             "Plugin processing failed. This is allowable. Skipping to next plugin.",
                             e);
+                } finally {
+                    stageLatencies.record(StageLatencies.PRE_INGEST, plugin, start);
                 }
             }
             validateCreateRequest(createReq);
@@ -825,7 +874,9 @@ public CreateResponse create(CreateRequest createRequest)
             // Call the create on the catalog
             LOGGER.debug("Calling catalog.create() with " + createReq.getMetacards().size()
                     + " entries.");
+            long start = System.nanoTime();
             createResponse = catalog.create(createRequest);
+            stageLatencies.record(StageLatencies.INGEST, catalog, start);
         } catch (IngestException iee) {
             INGEST_LOGGER.warn("Ingest error", iee);
             ingestError = iee;
@@ -848,12 +899,15 @@ public CreateResponse create(CreateRequest createRequest)
         try {
             createResponse = validateFixCreateResponse(createResponse, createReq);
             for (final PostIngestPlugin plugin : postIngest) {
+                long start = System.nanoTime();
                 try {
                     createResponse = plugin.process(createResponse);
                 } catch (PluginExecutionException e) {
                     LOGGER.info(
                             "Plugin processing failed. This is allowable. Skipping to next plugin.",
                             e);
+                } finally {
+                    stageLatencies.record(StageLatencies.POST_INGEST, plugin, start);
                 }
             }
         } catch (RuntimeException re) {
@@ -898,10 +952,13 @@ public UpdateResponse update(UpdateRequest updateRequest)
         try {
 
             for (PreIngestPlugin plugin : preIngest) {
+                long start = System.nanoTime();
                 try {
                     updateReq = plugin.process(updateReq);
                 } catch (PluginExecutionException e) {
                     LOGGER.warn("error processing update in PreIngestPlugin", e);
+                } finally {
+                    stageLatencies.record(StageLatencies.PRE_INGEST, plugin, start);
                 }
             }
             validateUpdateRequest(updateReq);
@@ -909,15 +966,20 @@ public UpdateResponse update(UpdateRequest updateRequest)
             // Call the create on the catalog
             LOGGER.debug("Calling catalog.update() with " + updateRequest.getUpdates().size()
                     + " updates.");
+            long start = System.nanoTime();
             updateResponse = catalog.update(updateReq);
+            stageLatencies.record(StageLatencies.INGEST, catalog, start);
 
             // Handle the posting of messages to pubsub
             updateResponse = validateFixUpdateResponse(updateResponse, updateReq);
             for (final PostIngestPlugin plugin : postIngest) {
+                long start = System.nanoTime();
                 try {
                     updateResponse = plugin.process(updateResponse);
                 } catch (PluginExecutionException e) {
                     LOGGER.info("Plugin exception", e);
+                } finally {
+                    stageLatencies.record(StageLatencies.POST_INGEST, plugin, start);
                 }
             }
 
@@ -959,12 +1021,15 @@ public DeleteResponse delete(DeleteRequest deleteRequest)
         DeleteResponse deleteResponse = null;
         try {
             for (PreIngestPlugin plugin : preIngest) {
+                long start = System.nanoTime();
                 try {
                     deleteRequest = plugin.process(deleteRequest);
                 } catch (PluginExecutionException e) {
                     LOGGER.info(
                             "Plugin processing failed. This is allowable. Skipping to next plugin.",
                             e);
+                } finally {
+                    stageLatencies.record(StageLatencies.PRE_INGEST, plugin, start);
                 }
             }
             validateDeleteRequest(deleteRequest);
@@ -973,15 +1038,20 @@ public DeleteResponse delete(DeleteRequest deleteRequest)
             LOGGER.debug(
                     "Calling catalog.delete() with " + deleteRequest.getAttributeValues().size()
                             + " entries.");
+            long start = System.nanoTime();
             deleteResponse = catalog.delete(deleteRequest);
+            stageLatencies.record(StageLatencies.INGEST, catalog, start);
 
             // Post results to be available for pubsub
             deleteResponse = validateFixDeleteResponse(deleteResponse, deleteRequest);
             for (final PostIngestPlugin plugin : postIngest) {
+                long start = System.nanoTime();
                 try {
                     deleteResponse = plugin.process(deleteResponse);
                 } catch (PluginExecutionException e) {
                     LOGGER.info("Plugin exception", e);
+                } finally {
+                    stageLatencies.record(StageLatencies.POST_INGEST, plugin, start);
                 }
             }
 
@@ -1055,12 +1125,15 @@ public QueryResponse query(QueryRequest queryRequest, FederationStrategy strateg
             }
 
             for (PreQueryPlugin service : preQuery) {
+                long start = System.nanoTime();
                 try {
                     queryReq = service.process(queryReq);
                 } catch (PluginExecutionException see) {
                     LOGGER.warn("Error executing PreQueryPlugin: " + see.getMessage(), see);
                 } catch (StopProcessingException e) {
                     throw new FederationException("Query could not be executed.", e);
+                } finally {
+                    stageLatencies.record(StageLatencies.PRE_QUERY, service, start);
                 }
             }
 
@@ -1079,17 +1152,35 @@ public QueryResponse query(QueryRequest queryRequest, FederationStrategy strateg
                 }
             }
 
-            queryResponse = doQuery(queryReq, fedStrategy);
+            long federationStart = System.nanoTime();
+            if (queryResultCache != null && fedStrategy == defaultFederationStrategy) {
+                final QueryRequest federatedRequest = queryReq;
+                final FederationStrategy federationStrategy = fedStrategy;
+                queryResponse = queryResultCache
+                        .query(queryReq, includesLocalCatalog(queryReq),
+                                new Callable<QueryResponse>() {
+                                    @Override
+                                    public QueryResponse call() throws FederationException {
+                                        return doQuery(federatedRequest, federationStrategy);
+                                    }
+                                });
+            } else {
+                queryResponse = doQuery(queryReq, fedStrategy);
+            }
 
             validateFixQueryResponse(queryResponse, queryReq, overrideFanoutRename);
+            stageLatencies.record(StageLatencies.FEDERATION, fedStrategy, federationStart);
 
             for (PostQueryPlugin service : postQuery) {
+                long start = System.nanoTime();
                 try {
                     queryResponse = service.process(queryResponse);
                 } catch (PluginExecutionException see) {
                     LOGGER.warn("Error executing PostQueryPlugin: " + see.getMessage(), see);
                 } catch (StopProcessingException e) {
                     throw new FederationException("Query could not be executed.", e);
+                } finally {
+                    stageLatencies.record(StageLatencies.POST_QUERY, service, start);
                 }
             }
 
@@ -1256,6 +1347,15 @@ protected QueryResponse addProcessingDetails(Set<ProcessingDetails> exceptions,
         return response;
     }
 
+    /**
+     * Determines if the specified {@link QueryRequest} includes the local catalog, so its response
+     * may change when metacards are ingested.
+     */
+    private boolean includesLocalCatalog(QueryRequest queryRequest) {
+        return !isFederated(queryRequest) || queryRequest.isEnterprise() || includesLocalSources(
+                queryRequest.getSourceIds());
+    }
+
     /**
      * Determines if the local catlog provider's source ID is included in the list of source IDs. A
      * source ID in the list of null or an empty string are treated the same as the local source's
@@ -1322,7 +1422,12 @@ public BinaryContent transform(Metacard metacard, String transformerShortname,
         } else {
             MetacardTransformer transformer = (MetacardTransformer) context.getService(refs[0]);
             if (metacard != null) {
-                return transformer.transform(metacard, arguments);
+                long start = System.nanoTime();
+                try {
+                    return transformer.transform(metacard, arguments);
+                } finally {
+                    stageLatencies.record(StageLatencies.TRANSFORM, transformer, start);
+                }
             } else {
                 throw new IllegalArgumentException("Metacard is null.");
             }
@@ -1350,7 +1455,12 @@ public BinaryContent transform(SourceResponse response, String transformerShortn
             QueryResponseTransformer transformer = (QueryResponseTransformer) context
                     .getService(refs[0]);
             if (response != null) {
-                return transformer.transform(response, arguments);
+                long start = System.nanoTime();
+                try {
+                    return transformer.transform(response, arguments);
+                } finally {
+                    stageLatencies.record(StageLatencies.TRANSFORM, transformer, start);
+                }
             } else {
                 throw new IllegalArgumentException("QueryResponse is null.");
             }
@@ -1436,12 +1546,15 @@ protected ResourceResponse getResource(ResourceRequest resourceRequest, boolean
         try {
 
             for (PreResourcePlugin plugin : preResource) {
+                long start = System.nanoTime();
                 try {
                     resourceReq = plugin.process(resourceReq);
                 } catch (PluginExecutionException e) {
                     LOGGER.info(
                             "Plugin processing failed. This is allowable. Skipping to next plugin.",
                             e);
+                } finally {
+                    stageLatencies.record(StageLatencies.PRE_RESOURCE, plugin, start);
                 }
             }
 
@@ -1555,12 +1668,15 @@ protected ResourceResponse getResource(ResourceRequest resourceRequest, boolean
             resourceResponse = validateFixGetResourceResponse(resourceResponse, resourceReq);
 
             for (PostResourcePlugin plugin : postResource) {
+                long start = System.nanoTime();
                 try {
                     resourceResponse = plugin.process(resourceResponse);
                 } catch (PluginExecutionException e) {
                     LOGGER.info(
                             "Plugin processing failed. This is allowable. Skipping to next plugin.",
                             e);
+                } finally {
+                    stageLatencies.record(StageLatencies.POST_RESOURCE, plugin, start);
                 }
             }
 
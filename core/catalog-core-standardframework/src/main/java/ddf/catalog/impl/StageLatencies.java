@@ -0,0 +1,256 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ **/
+package ddf.catalog.impl;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records the latency of each stage of catalog operations in HdrHistogram {@link Recorder}s, which
+ * record without locking. At the end of each interval, the recorded latencies are swapped out for
+ * a snapshot that is reported over JMX until the next interval ends.
+ * <p/>
+ * Stages are named by kind, such as {@code PreQuery}, followed by the plugin class name, source id
+ * or transformer the stage ran.
+ */
+public class StageLatencies implements StageLatenciesMBean {
+
+    public static final String PRE_INGEST = "PreIngest";
+
+    public static final String POST_INGEST = "PostIngest";
+
+    public static final String PRE_QUERY = "PreQuery";
+
+    public static final String POST_QUERY = "PostQuery";
+
+    public static final String PRE_RESOURCE = "PreResource";
+
+    public static final String POST_RESOURCE = "PostResource";
+
+    public static final String INGEST = "Ingest";
+
+    public static final String PRE_FEDERATED_QUERY = "PreFederatedQuery";
+
+    public static final String POST_FEDERATED_QUERY = "PostFederatedQuery";
+
+    public static final String SOURCE_QUERY = "SourceQuery";
+
+    public static final String FEDERATION = "Federation";
+
+    public static final String MERGE = "Merge";
+
+    public static final String TRANSFORM = "Transform";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StageLatencies.class);
+
+    // latencies are recorded in microseconds, up to ten minutes
+    private static final long LOWEST_LATENCY = 1;
+
+    private static final long HIGHEST_LATENCY = TimeUnit.MINUTES.toMicros(10);
+
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final ConcurrentMap<String, Stage> stages = new ConcurrentHashMap<>();
+
+    private volatile long intervalSeconds = 60;
+
+    private ScheduledExecutorService scheduler;
+
+    private ObjectName objectName;
+
+    /**
+     * Registers the MBean and starts swapping out the recorded latencies at each interval.
+     */
+    public void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "stageLatencies");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                snapshot();
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        configureMBean();
+    }
+
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (Exception e) {
+                LOGGER.debug("Could not unregister MBean.", e);
+            }
+        }
+    }
+
+    public void setIntervalSeconds(long intervalSeconds) {
+        this.intervalSeconds = Math.max(1, intervalSeconds);
+    }
+
+    /**
+     * Records the latency of a stage that started at the given time.
+     *
+     * @param stage      name of the stage
+     * @param startNanos value of {@link System#nanoTime()} when the stage started
+     */
+    public void record(String stage, long startNanos) {
+        long latency = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        getStage(stage).recorder
+                .recordValue(Math.max(LOWEST_LATENCY, Math.min(latency, HIGHEST_LATENCY)));
+    }
+
+    /**
+     * Records the latency of a stage run by a plugin or other component, named after its class.
+     */
+    public void record(String kind, Object component, long startNanos) {
+        record(kind + "." + component.getClass().getName(), startNanos);
+    }
+
+    /**
+     * Swaps out the latencies recorded since the last snapshot, making them the ones reported.
+     */
+    void snapshot() {
+        for (Stage stage : stages.values()) {
+            stage.snapshot = stage.recorder.getIntervalHistogram();
+        }
+    }
+
+    @Override
+    public String[] getStages() {
+        return new TreeMap<>(stages).keySet().toArray(new String[stages.size()]);
+    }
+
+    @Override
+    public long getIntervalSeconds() {
+        return intervalSeconds;
+    }
+
+    @Override
+    public long getCount(String stage) {
+        Histogram snapshot = getSnapshot(stage);
+        return snapshot == null ? 0 : snapshot.getTotalCount();
+    }
+
+    @Override
+    public double getMeanMillis(String stage) {
+        Histogram snapshot = getSnapshot(stage);
+        return snapshot == null ? 0 : toMillis(snapshot.getMean());
+    }
+
+    @Override
+    public double getMaxMillis(String stage) {
+        Histogram snapshot = getSnapshot(stage);
+        return snapshot == null ? 0 : toMillis(snapshot.getMaxValue());
+    }
+
+    @Override
+    public double getPercentileMillis(String stage, double percentile) {
+        Histogram snapshot = getSnapshot(stage);
+        return snapshot == null ? 0 : toMillis(snapshot.getValueAtPercentile(percentile));
+    }
+
+    @Override
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder();
+        for (Map.Entry<String, Stage> entry : new TreeMap<>(stages).entrySet()) {
+            Histogram snapshot = entry.getValue().snapshot;
+            if (snapshot != null && snapshot.getTotalCount() > 0) {
+                summary.append(String.format("%s count=%d p50=%.3fms p99=%.3fms max=%.3fms%n",
+                        entry.getKey(), snapshot.getTotalCount(),
+                        toMillis(snapshot.getValueAtPercentile(50)),
+                        toMillis(snapshot.getValueAtPercentile(99)),
+                        toMillis(snapshot.getMaxValue())));
+            }
+        }
+        return summary.toString();
+    }
+
+    private Stage getStage(String name) {
+        Stage stage = stages.get(name);
+        if (stage == null) {
+            Stage newStage = new Stage();
+            stage = stages.putIfAbsent(name, newStage);
+            if (stage == null) {
+                stage = newStage;
+            }
+        }
+        return stage;
+    }
+
+    private Histogram getSnapshot(String name) {
+        Stage stage = stages.get(name);
+        return stage == null ? null : stage.snapshot;
+    }
+
+    private static double toMillis(double micros) {
+        return micros / 1000;
+    }
+
+    private void configureMBean() {
+        MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            objectName = new ObjectName(StageLatenciesMBean.OBJECTNAME);
+            try {
+                mbeanServer.registerMBean(new StandardMBean(this, StageLatenciesMBean.class),
+                        objectName);
+            } catch (InstanceAlreadyExistsException e) {
+                LOGGER.info("Re-registering Stage Latencies MBean");
+                mbeanServer.unregisterMBean(objectName);
+                mbeanServer.registerMBean(new StandardMBean(this, StageLatenciesMBean.class),
+                        objectName);
+            }
+        } catch (MalformedObjectNameException e) {
+            LOGGER.info("Could not create object name", e);
+        } catch (Exception e) {
+            LOGGER.warn("Could not register MBean.", e);
+        }
+    }
+
+    private static class Stage {
+
+        private final Recorder recorder = new Recorder(LOWEST_LATENCY, HIGHEST_LATENCY,
+                SIGNIFICANT_DIGITS);
+
+        // latencies of the last completed interval, replaced rather than modified
+        private volatile Histogram snapshot;
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ **/
+package ddf.catalog.impl;
+
+/**
+ * Latencies of the stages of catalog operations, such as each plugin, source query and
+ * transformation, over the last completed interval.
+ */
+public interface StageLatenciesMBean {
+
+    public static final String OBJECTNAME = "ddf.catalog.impl.StageLatencies:service=stage-latencies";
+
+    /**
+     * @return names of the stages recorded so far
+     */
+    String[] getStages();
+
+    /**
+     * @return seconds covered by each interval the latencies are reported for
+     */
+    long getIntervalSeconds();
+
+    /**
+     * @return number of times the stage ran in the last interval
+     */
+    long getCount(String stage);
+
+    /**
+     * @return mean latency of the stage in the last interval, in milliseconds
+     */
+    double getMeanMillis(String stage);
+
+    /**
+     * @return maximum latency of the stage in the last interval, in milliseconds
+     */
+    double getMaxMillis(String stage);
+
+    /**
+     * @param percentile percentile between 0 and 100, such as 99.9
+     * @return latency of the stage at the percentile in the last interval, in milliseconds
+     */
+    double getPercentileMillis(String stage, double percentile);
+
+    /**
+     * @return one line per stage with its count, median, 99th percentile and maximum in the last
+     * interval
+     */
+    String getSummary();
+
+}
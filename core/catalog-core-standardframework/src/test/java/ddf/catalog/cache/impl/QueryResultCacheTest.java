@@ -0,0 +1,353 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.Subject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opengis.filter.Filter;
+import org.opensaml.saml2.core.Attribute;
+import org.opensaml.saml2.core.AttributeStatement;
+import org.opensaml.xml.XMLObject;
+import org.opensaml.xml.schema.XSString;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.filter.FilterBuilder;
+import ddf.catalog.filter.proxy.builder.GeotoolsFilterBuilder;
+import ddf.catalog.operation.CreateResponse;
+import ddf.catalog.operation.ProcessingDetails;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.QueryResponse;
+import ddf.catalog.operation.impl.ProcessingDetailsImpl;
+import ddf.catalog.operation.impl.QueryImpl;
+import ddf.catalog.operation.impl.QueryRequestImpl;
+import ddf.catalog.operation.impl.QueryResponseImpl;
+import ddf.security.SecurityConstants;
+import ddf.security.assertion.SecurityAssertion;
+
+public class QueryResultCacheTest {
+
+    private final FilterBuilder filterBuilder = new GeotoolsFilterBuilder();
+
+    private final QueryResultCache cache = new QueryResultCache();
+
+    private final AtomicInteger federated = new AtomicInteger();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @Before
+    public void setUp() {
+        cache.setEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void identicalQueryIsFederatedOnce() throws Exception {
+        QueryRequest first = request(title("dashboard"));
+        QueryRequest second = request(title("dashboard"));
+
+        QueryResponse firstResponse = cache.query(first, true, federate());
+        QueryResponse secondResponse = cache.query(second, true, federate());
+
+        assertThat(federated.get()).isEqualTo(1);
+        assertThat(secondResponse.getRequest()).isSameAs(second);
+        assertThat(secondResponse.getResults()).hasSize(1);
+        assertThat(secondResponse.getHits()).isEqualTo(1);
+        assertThat(secondResponse).isNotSameAs(firstResponse);
+        assertThat(cache.getHits()).isEqualTo(1);
+    }
+
+    @Test
+    public void operandOrderDoesNotMatter() throws Exception {
+        Filter title = title("dashboard");
+        Filter type = filterBuilder.attribute(Metacard.CONTENT_TYPE).is().equalTo().text("image");
+
+        cache.query(request(filterBuilder.allOf(title, type)), true, federate());
+        cache.query(request(filterBuilder.allOf(type, title)), true, federate());
+
+        assertThat(federated.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void relativeTimeWindowsShareResponses() throws Exception {
+        long hour = TimeUnit.HOURS.toMillis(1);
+        cache.setTimeToLiveSeconds(TimeUnit.DAYS.toSeconds(1));
+
+        cache.query(request(filterBuilder.attribute(Metacard.MODIFIED).is().during().last(hour)),
+                true, federate());
+        cache.query(request(filterBuilder.attribute(Metacard.MODIFIED).is().during().last(hour)),
+                true, federate());
+
+        assertThat(federated.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void absoluteDatesAreNotRounded() throws Exception {
+        long day = TimeUnit.DAYS.toMillis(1);
+        Date date = new Date(20 * day + 1000);
+        Date secondLater = new Date(20 * day + 2000);
+        cache.setTimeToLiveSeconds(TimeUnit.DAYS.toSeconds(1));
+
+        cache.query(request(filterBuilder.attribute(Metacard.MODIFIED).is().after().date(date)),
+                true, federate());
+        cache.query(
+                request(filterBuilder.attribute(Metacard.MODIFIED).is().after().date(secondLater)),
+                true, federate());
+
+        assertThat(federated.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void subjectsWithSameAttributesShareResponses() throws Exception {
+        cache.query(request(title("dashboard"), subject("A", "B")), true, federate());
+        cache.query(request(title("dashboard"), subject("B", "A")), true, federate());
+
+        assertThat(federated.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void subjectsWithDifferentAttributesAreFederatedSeparately() throws Exception {
+        cache.query(request(title("dashboard"), subject("A")), true, federate());
+        cache.query(request(title("dashboard"), subject("A", "B")), true, federate());
+
+        assertThat(federated.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void differentPagesAreFederatedSeparately() throws Exception {
+        cache.query(new QueryRequestImpl(new QueryImpl(title("dashboard"), 1, 10, null, true, 0)),
+                true, federate());
+        cache.query(new QueryRequestImpl(new QueryImpl(title("dashboard"), 11, 10, null, true, 0)),
+                true, federate());
+
+        assertThat(federated.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void ingestDiscardsLocalResponses() throws Exception {
+        QueryRequest local = request(title("local"));
+        QueryRequest remote = request(title("remote"));
+        cache.query(local, true, federate());
+        cache.query(remote, false, federate());
+
+        cache.process((CreateResponse) null);
+        cache.query(local, true, federate());
+        cache.query(remote, false, federate());
+
+        assertThat(federated.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void failedSourcesAreNotCached() throws Exception {
+        Callable<QueryResponse> partial = new Callable<QueryResponse>() {
+            @Override
+            public QueryResponse call() {
+                federated.incrementAndGet();
+                QueryResponseImpl response = new QueryResponseImpl(null,
+                        Collections.<Result>emptyList(), true, 0);
+                response.setProcessingDetails(Collections.<ProcessingDetails>singleton(
+                        new ProcessingDetailsImpl("remote", new Exception("unavailable"))));
+                return response;
+            }
+        };
+
+        QueryResponse response = cache.query(request(title("dashboard")), false, partial);
+        cache.query(request(title("dashboard")), false, partial);
+
+        assertThat(response.getProcessingDetails()).hasSize(1);
+        assertThat(federated.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void disabledCacheAlwaysFederates() throws Exception {
+        cache.setEnabled(false);
+
+        cache.query(request(title("dashboard")), true, federate());
+        cache.query(request(title("dashboard")), true, federate());
+
+        assertThat(federated.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void concurrentIdenticalQueriesShareOneFederation() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Callable<QueryResponse> slow = new Callable<QueryResponse>() {
+            @Override
+            public QueryResponse call() throws Exception {
+                started.countDown();
+                release.await();
+                return federate().call();
+            }
+        };
+
+        Future<QueryResponse> first = executor.submit(new Callable<QueryResponse>() {
+            @Override
+            public QueryResponse call() throws Exception {
+                return cache.query(request(title("dashboard")), true, slow);
+            }
+        });
+        started.await();
+
+        ExecutorService waiter = Executors.newSingleThreadExecutor();
+        try {
+            Future<QueryResponse> second = waiter.submit(new Callable<QueryResponse>() {
+                @Override
+                public QueryResponse call() throws Exception {
+                    return cache.query(request(title("dashboard")), true, federate());
+                }
+            });
+            while (cache.getCoalesced() == 0) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+
+            assertThat(first.get().getResults()).hasSize(1);
+            assertThat(second.get().getResults()).hasSize(1);
+            assertThat(federated.get()).isEqualTo(1);
+        } finally {
+            waiter.shutdownNow();
+        }
+    }
+
+    @Test
+    public void responsesDoNotShareMetacards() throws Exception {
+        QueryResponse firstResponse = cache.query(request(title("dashboard")), true, federate());
+        firstResponse.getResults().get(0).getMetacard().setAttribute(Metacard.TITLE, "redacted");
+
+        QueryResponse secondResponse = cache.query(request(title("dashboard")), true, federate());
+
+        Metacard metacard = secondResponse.getResults().get(0).getMetacard();
+        assertThat(metacard).isNotSameAs(firstResponse.getResults().get(0).getMetacard());
+        assertThat(metacard.getId()).isEqualTo("id");
+        assertThat(metacard.getTitle()).isNull();
+        assertThat(federated.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void waitForIdenticalQueryIsBounded() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Callable<QueryResponse> stuck = new Callable<QueryResponse>() {
+            @Override
+            public QueryResponse call() throws Exception {
+                started.countDown();
+                release.await();
+                return federate().call();
+            }
+        };
+        cache.setMaximumWaitSeconds(0);
+
+        executor.submit(new Callable<QueryResponse>() {
+            @Override
+            public QueryResponse call() throws Exception {
+                return cache.query(request(title("dashboard")), true, stuck);
+            }
+        });
+        started.await();
+
+        try {
+            QueryResponse response = cache.query(request(title("dashboard")), true, federate());
+
+            assertThat(response.getResults()).hasSize(1);
+            assertThat(cache.getCoalesced()).isEqualTo(1);
+            assertThat(federated.get()).isEqualTo(1);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private Filter title(String title) {
+        return filterBuilder.attribute(Metacard.TITLE).is().like().text(title);
+    }
+
+    private QueryRequest request(Filter filter) {
+        return new QueryRequestImpl(new QueryImpl(filter), true);
+    }
+
+    private QueryRequest request(Filter filter, Subject subject) {
+        Map<String, Serializable> properties = new HashMap<>();
+        properties.put(SecurityConstants.SECURITY_SUBJECT, (Serializable) subject);
+        return new QueryRequestImpl(new QueryImpl(filter), true, null, properties);
+    }
+
+    /**
+     * @return a subject whose assertion has the given values of a single attribute
+     */
+    private Subject subject(String... roles) {
+        List<XMLObject> values = new ArrayList<>();
+        for (String role : roles) {
+            XSString value = mock(XSString.class);
+            when(value.getValue()).thenReturn(role);
+            values.add(value);
+        }
+        Attribute attribute = mock(Attribute.class);
+        when(attribute.getName()).thenReturn("role");
+        when(attribute.getAttributeValues()).thenReturn(values);
+        AttributeStatement statement = mock(AttributeStatement.class);
+        when(statement.getAttributes()).thenReturn(Collections.singletonList(attribute));
+        SecurityAssertion assertion = mock(SecurityAssertion.class);
+        when(assertion.getAttributeStatements())
+                .thenReturn(Collections.singletonList(statement));
+        PrincipalCollection principals = mock(PrincipalCollection.class);
+        when(principals.byType(SecurityAssertion.class))
+                .thenReturn(Collections.singletonList(assertion));
+
+        Subject subject = mock(Subject.class, withSettings().extraInterfaces(Serializable.class));
+        when(subject.getPrincipals()).thenReturn(principals);
+        return subject;
+    }
+
+    private Callable<QueryResponse> federate() {
+        return new Callable<QueryResponse>() {
+            @Override
+            public QueryResponse call() {
+                federated.incrementAndGet();
+                MetacardImpl metacard = new MetacardImpl();
+                metacard.setId("id");
+                return new QueryResponseImpl(null,
+                        Collections.<Result>singletonList(new ResultImpl(metacard)), true, 1);
+            }
+        };
+    }
+}
@@ -14,6 +14,7 @@
 package ddf.catalog.cache.solr.impl;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyCollectionOf;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.doThrow;
@@ -114,6 +115,80 @@ public void exceedsBacklog() throws Exception {
         verify(mockSolrCache, never()).create(anyCollectionOf(Metacard.class));
     }
 
+    @Test
+    public void exceedsBacklogCountsDropped() throws Exception {
+        cacheBulkProcessor.setMaximumBacklogSize(0);
+        cacheBulkProcessor.setMaximumBacklogWait(1);
+        cacheBulkProcessor.add(getMockResults(10));
+
+        assertThat(cacheBulkProcessor.getDroppedMetacards()).isEqualTo(10);
+        assertThat(cacheBulkProcessor.getAdmittedMetacards()).isEqualTo(0);
+    }
+
+    @Test
+    public void fullBacklogAcceptsUpdates() throws Exception {
+        cacheBulkProcessor.setFlushInterval(TimeUnit.MINUTES.toMillis(1));
+        cacheBulkProcessor.setBatchSize(100);
+        cacheBulkProcessor.setMaximumBacklogSize(5);
+        cacheBulkProcessor.setMaximumBacklogWait(1);
+        doThrow(new RuntimeException()).when(mockSolrCache)
+                .create(anyCollectionOf(Metacard.class));
+        List<Result> mockResults = getMockResults(5);
+
+        cacheBulkProcessor.add(mockResults);
+        cacheBulkProcessor.add(mockResults);
+
+        assertThat(cacheBulkProcessor.getDroppedMetacards()).isEqualTo(0);
+        assertThat(cacheBulkProcessor.getAdmittedMetacards()).isEqualTo(10);
+        assertThat(cacheBulkProcessor.pendingMetacards()).isEqualTo(5);
+    }
+
+    @Test
+    public void skipsUnchangedMetacards() throws Exception {
+        when(mockSolrCache.isCached(any(Metacard.class))).thenReturn(true);
+
+        cacheBulkProcessor.add(getMockResults(10));
+
+        assertThat(cacheBulkProcessor.getSkippedMetacards()).isEqualTo(10);
+        assertThat(cacheBulkProcessor.pendingMetacards()).isEqualTo(0);
+        verify(mockSolrCache, never()).create(anyCollectionOf(Metacard.class));
+    }
+
+    @Test
+    public void sameIdFromDifferentSources() throws Exception {
+        cacheBulkProcessor.setFlushInterval(TimeUnit.MINUTES.toMillis(1));
+        Result first = getMockResults(1).get(0);
+        Result second = getMockResults(1).get(0);
+        when(first.getMetacard().getSourceId()).thenReturn("first");
+        when(second.getMetacard().getSourceId()).thenReturn("second");
+
+        cacheBulkProcessor.add(Lists.newArrayList(first, second));
+
+        assertThat(cacheBulkProcessor.pendingMetacards()).isEqualTo(2);
+    }
+
+    @Test
+    public void sourceAndIdDoNotRunTogether() throws Exception {
+        cacheBulkProcessor.setFlushInterval(TimeUnit.MINUTES.toMillis(1));
+        Result first = getMockResults(1).get(0);
+        Result second = getMockResults(1).get(0);
+        when(first.getMetacard().getSourceId()).thenReturn("source");
+        when(first.getMetacard().getId()).thenReturn("11");
+        when(second.getMetacard().getSourceId()).thenReturn("source1");
+        when(second.getMetacard().getId()).thenReturn("1");
+
+        cacheBulkProcessor.add(Lists.newArrayList(first, second));
+
+        assertThat(cacheBulkProcessor.pendingMetacards()).isEqualTo(2);
+    }
+
+    @Test
+    public void droppedResultsAreCounted() throws Exception {
+        cacheBulkProcessor.drop(getMockResults(3));
+
+        assertThat(cacheBulkProcessor.getDroppedMetacards()).isEqualTo(3);
+    }
+
     @Test
     public void cacheThrowsExcpetion() throws Exception {
         doThrow(new RuntimeException()).doNothing().when(mockSolrCache)
@@ -0,0 +1,206 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.solr.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.solr.client.solrj.SolrServer;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.SolrParams;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.opengis.filter.Filter;
+
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.SourceResponse;
+import ddf.catalog.operation.impl.QueryImpl;
+import ddf.catalog.operation.impl.QueryRequestImpl;
+import ddf.catalog.operation.impl.SourceResponseImpl;
+import ddf.catalog.source.solr.SolrMetacardClient;
+
+public class CachePartitionsTest {
+
+    private static final String CORE = "metacard_cache";
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    private final SolrCores cores = mock(SolrCores.class);
+
+    private final Map<SolrServer, SolrMetacardClient> clients = new HashMap<>();
+
+    private CachePartitions partitions;
+
+    @Before
+    public void setUp() throws Exception {
+        when(cores.get(anyString())).thenAnswer(new Answer<SolrServer>() {
+            @Override
+            public SolrServer answer(InvocationOnMock invocation) {
+                return mock(SolrServer.class);
+            }
+        });
+        partitions = new CachePartitions(cores, CORE, new CachePartitions.ClientFactory() {
+            @Override
+            public SolrMetacardClient newClient(SolrServer server) {
+                SolrMetacardClient client = mock(SolrMetacardClient.class);
+                clients.put(server, client);
+                return client;
+            }
+        }, TimeUnit.DAYS.toMinutes(1));
+    }
+
+    @Test
+    public void loadsExistingPartitions() throws Exception {
+        when(cores.list()).thenReturn(
+                Arrays.asList(CORE, CORE + "_" + TimeUnit.DAYS.toMinutes(2), "other", CORE + "_x"));
+
+        partitions.load(3 * DAY);
+
+        List<CachePartitions.Partition> list = partitions.list();
+        assertThat(list).hasSize(2);
+        assertThat(list.get(0).name).isEqualTo(CORE);
+        assertThat(list.get(0).end).isEqualTo(3 * DAY);
+        assertThat(list.get(1).start).isEqualTo(2 * DAY);
+        assertThat(list.get(1).end).isEqualTo(3 * DAY);
+    }
+
+    @Test
+    public void currentPartitionCoversItsWindow() throws Exception {
+        CachePartitions.Partition first = partitions.current(DAY + 10);
+
+        assertThat(first.name).isEqualTo(CORE + "_" + TimeUnit.DAYS.toMinutes(1));
+        assertThat(partitions.current(2 * DAY - 1)).isSameAs(first);
+
+        CachePartitions.Partition second = partitions.current(2 * DAY);
+        assertThat(second).isNotSameAs(first);
+        assertThat(partitions.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void expiresWholePartitions() throws Exception {
+        CachePartitions.Partition old = partitions.current(DAY);
+        partitions.current(2 * DAY);
+
+        assertThat(partitions.expire(2 * DAY - 1)).isEqualTo(0);
+        assertThat(partitions.expire(2 * DAY)).isEqualTo(1);
+
+        verify(cores).remove(old.name, old.server);
+        assertThat(partitions.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void evictsOldestPartitionsButNotTheCurrentOne() throws Exception {
+        CachePartitions.Partition oldest = partitions.current(DAY);
+        CachePartitions.Partition older = partitions.current(2 * DAY);
+        CachePartitions.Partition current = partitions.current(3 * DAY);
+        count(oldest, 10);
+        count(older, 10);
+        count(current, 30);
+
+        assertThat(partitions.evict(15)).isEqualTo(older.end);
+
+        verify(cores).remove(oldest.name, oldest.server);
+        verify(cores).remove(older.name, older.server);
+        verify(cores, never()).remove(current.name, current.server);
+    }
+
+    @Test
+    public void mergesPagesOfEveryPartition() throws Exception {
+        CachePartitions.Partition first = partitions.current(DAY);
+        CachePartitions.Partition second = partitions.current(2 * DAY);
+        QueryRequest request = new QueryRequestImpl(
+                new QueryImpl(Filter.INCLUDE, 2, 2, null, true, 0));
+        when(clients.get(first.server).query(any(QueryRequest.class)))
+                .thenReturn(response(request, 5, 0.9, 0.5, 0.1));
+        when(clients.get(second.server).query(any(QueryRequest.class)))
+                .thenReturn(response(request, 7, 0.8, 0.7, 0.2));
+
+        SourceResponse response = partitions.query(request);
+
+        assertThat(response.getHits()).isEqualTo(12);
+        assertThat(scores(response)).containsExactly(0.8, 0.7);
+
+        ArgumentCaptor<QueryRequest> partitionRequest = ArgumentCaptor
+                .forClass(QueryRequest.class);
+        verify(clients.get(first.server)).query(partitionRequest.capture());
+        assertThat(partitionRequest.getValue().getQuery().getStartIndex()).isEqualTo(1);
+        assertThat(partitionRequest.getValue().getQuery().getPageSize()).isEqualTo(3);
+    }
+
+    @Test
+    public void singlePartitionIsQueriedDirectly() throws Exception {
+        CachePartitions.Partition partition = partitions.current(DAY);
+        QueryRequest request = new QueryRequestImpl(
+                new QueryImpl(Filter.INCLUDE, 3, 2, null, true, 0));
+        SourceResponse expected = response(request, 1, 0.5);
+        when(clients.get(partition.server).query(request)).thenReturn(expected);
+
+        assertThat(partitions.query(request)).isSameAs(expected);
+    }
+
+    @Test
+    public void emptyCache() throws Exception {
+        QueryRequest request = new QueryRequestImpl(new QueryImpl(Filter.INCLUDE));
+
+        SourceResponse response = partitions.query(request);
+
+        assertThat(response.getHits()).isEqualTo(0);
+        assertThat(response.getResults()).isEmpty();
+    }
+
+    private void count(CachePartitions.Partition partition, long count) throws Exception {
+        SolrDocumentList documents = new SolrDocumentList();
+        documents.setNumFound(count);
+        QueryResponse response = mock(QueryResponse.class);
+        when(response.getResults()).thenReturn(documents);
+        when(partition.server.query(any(SolrParams.class))).thenReturn(response);
+    }
+
+    private SourceResponse response(QueryRequest request, long hits, double... scores) {
+        List<Result> results = new ArrayList<>();
+        for (double score : scores) {
+            ResultImpl result = new ResultImpl(new MetacardImpl());
+            result.setRelevanceScore(score);
+            results.add(result);
+        }
+        return new SourceResponseImpl(request, results, hits);
+    }
+
+    private List<Double> scores(SourceResponse response) {
+        List<Double> scores = new ArrayList<>();
+        for (Result result : response.getResults()) {
+            scores.add(result.getRelevanceScore());
+        }
+        return scores;
+    }
+}
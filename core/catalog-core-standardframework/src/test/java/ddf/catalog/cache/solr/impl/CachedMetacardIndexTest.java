@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.solr.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.Date;
+
+import org.junit.Test;
+
+import ddf.catalog.data.impl.MetacardImpl;
+
+public class CachedMetacardIndexTest {
+
+    private final CachedMetacardIndex index = new CachedMetacardIndex(2);
+
+    @Test
+    public void unchangedMetacard() throws Exception {
+        index.put(metacard("1", "source", 1000), 50);
+
+        assertThat(index.contains(metacard("1", "source", 1000), 0)).isTrue();
+    }
+
+    @Test
+    public void changedMetacard() throws Exception {
+        index.put(metacard("1", "source", 1000), 50);
+
+        assertThat(index.contains(metacard("1", "source", 2000), 0)).isFalse();
+        assertThat(index.contains(metacard("1", "other", 1000), 0)).isFalse();
+        assertThat(index.contains(metacard("2", "source", 1000), 0)).isFalse();
+    }
+
+    @Test
+    public void metacardWithoutModifiedDate() throws Exception {
+        MetacardImpl metacard = metacard("1", "source", 1000);
+        index.put(metacard, 50);
+        metacard.setModifiedDate(null);
+        index.put(metacard, 60);
+
+        assertThat(index.contains(metacard, 0)).isFalse();
+        assertThat(index.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void expiredMetacard() throws Exception {
+        index.put(metacard("1", "source", 1000), 50);
+
+        assertThat(index.contains(metacard("1", "source", 1000), 50)).isFalse();
+
+        index.expire(50);
+        assertThat(index.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void seededMetacardDoesNotReplaceCachedMetacard() throws Exception {
+        index.put(metacard("1", "source", 2000), 50);
+        index.putIfAbsent("1", "source", new Date(1000), 40);
+
+        assertThat(index.contains(metacard("1", "source", 2000), 0)).isTrue();
+    }
+
+    @Test
+    public void removedMetacard() throws Exception {
+        index.put(metacard("1", "source", 1000), 50);
+        index.remove(Collections.singletonList("1"));
+
+        assertThat(index.contains(metacard("1", "source", 1000), 0)).isFalse();
+    }
+
+    @Test
+    public void sameIdFromDifferentSources() throws Exception {
+        index.put(metacard("1", "source", 1000), 50);
+        index.put(metacard("1", "other", 2000), 50);
+
+        assertThat(index.contains(metacard("1", "source", 1000), 0)).isTrue();
+        assertThat(index.contains(metacard("1", "other", 2000), 0)).isTrue();
+
+        index.remove(Collections.singletonList("1"));
+        assertThat(index.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void maximumSize() throws Exception {
+        index.put(metacard("1", "source", 1000), 50);
+        index.put(metacard("2", "source", 1000), 50);
+        index.put(metacard("3", "source", 1000), 50);
+        index.put(metacard("1", "source", 2000), 50);
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.contains(metacard("3", "source", 1000), 0)).isFalse();
+        assertThat(index.contains(metacard("1", "source", 2000), 0)).isTrue();
+    }
+
+    private MetacardImpl metacard(String id, String sourceId, long modified) {
+        MetacardImpl metacard = new MetacardImpl();
+        metacard.setId(id);
+        metacard.setSourceId(sourceId);
+        metacard.setModifiedDate(new Date(modified));
+        return metacard;
+    }
+}
@@ -0,0 +1,229 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.solr.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.solr.client.solrj.SolrServer;
+import org.codice.solr.factory.ConfigurationFileProxy;
+import org.codice.solr.factory.ConfigurationStore;
+import org.codice.solr.factory.SolrServerFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.filter.FilterBuilder;
+import ddf.catalog.filter.proxy.adapter.GeotoolsFilterAdapterImpl;
+import ddf.catalog.filter.proxy.builder.GeotoolsFilterBuilder;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.impl.QueryImpl;
+import ddf.catalog.operation.impl.QueryRequestImpl;
+import ddf.catalog.source.solr.DynamicSchemaResolver;
+import ddf.catalog.source.solr.SolrFilterDelegateFactoryImpl;
+import ddf.catalog.source.solr.SolrMetacardClient;
+
+/**
+ * Measures the latency of cache queries on embedded Solr servers while the oldest partitions of
+ * the cache are expired.
+ */
+public class SolrCachePartitionIntegrationTest {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(SolrCachePartitionIntegrationTest.class);
+
+    private static final String DATA_DIRECTORY = "target/solr/cache";
+
+    private static final int PARTITIONS = 7;
+
+    private static final int METACARDS_PER_PARTITION = 2000;
+
+    private static final int QUERY_THREADS = 4;
+
+    private static final long INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+    private final FilterBuilder filterBuilder = new GeotoolsFilterBuilder();
+
+    private EmbeddedSolrCores cores;
+
+    private CachePartitions partitions;
+
+    @Before
+    public void setUp() throws Exception {
+        cores = new EmbeddedSolrCores(DATA_DIRECTORY);
+        partitions = new CachePartitions(cores, SolrCache.METACARD_CACHE_CORE_NAME,
+                new CachePartitions.ClientFactory() {
+                    @Override
+                    public SolrMetacardClient newClient(SolrServer server) {
+                        return new SolrMetacardClient(server, new GeotoolsFilterAdapterImpl(),
+                                new SolrFilterDelegateFactoryImpl(), new DynamicSchemaResolver());
+                    }
+                }, TimeUnit.MILLISECONDS.toMinutes(INTERVAL));
+
+        for (int i = 0; i < PARTITIONS; i++) {
+            CachePartitions.Partition partition = partitions.current(i * INTERVAL);
+            List<Metacard> metacards = new ArrayList<>(METACARDS_PER_PARTITION);
+            for (int j = 0; j < METACARDS_PER_PARTITION; j++) {
+                MetacardImpl metacard = new MetacardImpl();
+                metacard.setId(i + "-" + j);
+                metacard.setSourceId("source");
+                metacard.setTitle("cached metacard " + j);
+                metacard.setModifiedDate(new Date());
+                metacards.add(metacard);
+            }
+            partition.client.add(metacards, false);
+            partition.server.commit();
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        partitions.shutdown();
+        FileUtils.deleteDirectory(new File(DATA_DIRECTORY));
+    }
+
+    @Test
+    public void queryLatencyWhileExpiring() throws Exception {
+        List<Long> baseline = measure(null);
+        List<Long> expiring = measure(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 1; i < PARTITIONS; i++) {
+                    partitions.expire(i * INTERVAL);
+                }
+            }
+        });
+
+        long baselineP99 = percentile(baseline, 99);
+        long expiringP99 = percentile(expiring, 99);
+        LOGGER.info("Query p99 of {} ms without expiration and {} ms while expiring.",
+                TimeUnit.NANOSECONDS.toMillis(baselineP99),
+                TimeUnit.NANOSECONDS.toMillis(expiringP99));
+
+        // latency depends too much on the machine to assert; the p99s are logged for comparison
+        assertThat(partitions.size()).isEqualTo(1);
+    }
+
+    /**
+     * Runs queries on several threads, running the given task once they have started.
+     *
+     * @return the latency of each query in nanoseconds
+     */
+    private List<Long> measure(Runnable task) throws Exception {
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final QueryRequest request = new QueryRequestImpl(new QueryImpl(
+                filterBuilder.attribute(Metacard.TITLE).is().like().text("cached"), 1, 20, null,
+                true, 0));
+
+        ExecutorService executor = Executors.newFixedThreadPool(QUERY_THREADS);
+        List<Future<List<Long>>> futures = new ArrayList<>();
+        for (int i = 0; i < QUERY_THREADS; i++) {
+            futures.add(executor.submit(new Callable<List<Long>>() {
+                @Override
+                public List<Long> call() throws Exception {
+                    List<Long> latencies = new ArrayList<>();
+                    while (running.get() || latencies.size() < 50) {
+                        long start = System.nanoTime();
+                        partitions.query(request);
+                        latencies.add(System.nanoTime() - start);
+                    }
+                    return latencies;
+                }
+            }));
+        }
+
+        Thread.sleep(500);
+        if (task != null) {
+            task.run();
+        }
+        running.set(false);
+
+        List<Long> latencies = new ArrayList<>();
+        for (Future<List<Long>> future : futures) {
+            latencies.addAll(future.get());
+        }
+        executor.shutdown();
+        return latencies;
+    }
+
+    private long percentile(List<Long> latencies, int percentile) {
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index));
+    }
+
+    /**
+     * Cores of embedded Solr servers, each in its own directory.
+     */
+    private static class EmbeddedSolrCores implements SolrCores {
+
+        private final String dataDirectory;
+
+        private final Map<String, SolrServer> servers = new ConcurrentHashMap<>();
+
+        EmbeddedSolrCores(String dataDirectory) {
+            this.dataDirectory = dataDirectory;
+        }
+
+        @Override
+        public List<String> list() {
+            return new ArrayList<>(servers.keySet());
+        }
+
+        @Override
+        public synchronized SolrServer get(String coreName) {
+            SolrServer server = servers.get(coreName);
+            if (server == null) {
+                ConfigurationStore configurationStore = ConfigurationStore.getInstance();
+                configurationStore.setDataDirectoryPath(dataDirectory + "/" + coreName);
+                server = SolrServerFactory.getEmbeddedSolrServer("solrconfig.xml", "schema.xml",
+                        new ConfigurationFileProxy(configurationStore));
+                servers.put(coreName, server);
+            }
+            return server;
+        }
+
+        @Override
+        public void remove(String coreName, SolrServer server) throws IOException {
+            servers.remove(coreName);
+            server.shutdown();
+            FileUtils.deleteDirectory(new File(dataDirectory, coreName));
+        }
+
+        @Override
+        public void shutdown() {
+            servers.clear();
+        }
+    }
+}
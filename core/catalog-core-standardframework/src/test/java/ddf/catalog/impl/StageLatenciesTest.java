@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class StageLatenciesTest {
+
+    private final StageLatencies latencies = new StageLatencies();
+
+    @Test
+    public void reportsLatenciesOfLastInterval() {
+        for (int i = 1; i <= 100; i++) {
+            latencies.record("stage", System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        assertThat(latencies.getCount("stage")).isEqualTo(0);
+
+        latencies.snapshot();
+
+        assertThat(latencies.getCount("stage")).isEqualTo(100);
+        assertThat(latencies.getPercentileMillis("stage", 50)).isBetween(49.0, 52.0);
+        assertThat(latencies.getPercentileMillis("stage", 99)).isBetween(98.0, 101.0);
+        assertThat(latencies.getMaxMillis("stage")).isBetween(99.0, 102.0);
+        assertThat(latencies.getSummary()).startsWith("stage count=100 ");
+
+        latencies.snapshot();
+
+        assertThat(latencies.getCount("stage")).isEqualTo(0);
+    }
+
+    @Test
+    public void namesStagesAfterComponentClass() {
+        latencies.record(StageLatencies.PRE_QUERY, this, System.nanoTime());
+
+        assertThat(latencies.getStages())
+                .containsExactly("PreQuery." + StageLatenciesTest.class.getName());
+    }
+
+    @Test
+    public void unknownStage() {
+        assertThat(latencies.getCount("unknown")).isEqualTo(0);
+        assertThat(latencies.getPercentileMillis("unknown", 99)).isEqualTo(0);
+    }
+
+    @Test
+    public void clampsLatenciesAboveHighestTrackable() {
+        latencies.record("stage", System.nanoTime() - TimeUnit.HOURS.toNanos(1));
+        latencies.snapshot();
+
+        assertThat(latencies.getCount("stage")).isEqualTo(1);
+        assertThat(latencies.getMaxMillis("stage"))
+                .isGreaterThanOrEqualTo(TimeUnit.MINUTES.toMillis(9));
+    }
+}
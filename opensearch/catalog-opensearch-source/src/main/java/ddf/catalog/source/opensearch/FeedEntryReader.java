@@ -0,0 +1,354 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.opensearch;
+
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the entries of an Atom feed or an RSS channel one at a time with StAX, so each entry can
+ * be converted to a result as soon as it has been read instead of building the whole feed in
+ * memory first.
+ */
+class FeedEntryReader {
+
+    static final String ATOM_NAMESPACE = "http://www.w3.org/2005/Atom";
+
+    static final String RSS_CONTENT_NAMESPACE = "http://purl.org/rss/1.0/modules/content/";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FeedEntryReader.class);
+
+    private final XMLStreamReader reader;
+
+    private final XMLOutputFactory xmlOutputFactory;
+
+    private int entries;
+
+    private Long totalResults;
+
+    private boolean done;
+
+    /**
+     * @param xmlInputFactory  factory for the reader of the feed
+     * @param xmlOutputFactory factory for the writers of XML entry content; should repair
+     *                         namespaces so the content keeps the namespaces declared on the feed
+     * @param in               the feed; not closed by this reader
+     */
+    FeedEntryReader(XMLInputFactory xmlInputFactory, XMLOutputFactory xmlOutputFactory,
+            InputStream in) throws XMLStreamException {
+        this.reader = xmlInputFactory.createXMLStreamReader(in);
+        this.xmlOutputFactory = xmlOutputFactory;
+    }
+
+    /**
+     * Reads the next entry of the feed.
+     *
+     * @return the entry, or {@code null} if there are no more entries
+     * @throws XMLStreamException if the feed is not well-formed
+     */
+    FeedEntry nextEntry() throws XMLStreamException {
+        while (!done && reader.hasNext()) {
+            if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+
+            String localName = reader.getLocalName();
+            if ("feed".equals(localName) || "rss".equals(localName) || "channel"
+                    .equals(localName)) {
+                continue;
+            }
+
+            if ("entry".equals(localName) || "item".equals(localName)) {
+                entries++;
+                return readEntry();
+            } else if ("totalResults".equals(localName)) {
+                readTotalResults();
+            } else {
+                skipElement();
+            }
+        }
+
+        close();
+        return null;
+    }
+
+    /**
+     * @return the total number of results of the query, as given by the feed; the number of
+     * entries read if the feed does not give it
+     */
+    long getTotalResults() {
+        return totalResults != null ? totalResults : entries;
+    }
+
+    void close() {
+        if (!done) {
+            done = true;
+            try {
+                reader.close();
+            } catch (XMLStreamException e) {
+                LOGGER.debug("Unable to close feed reader.", e);
+            }
+        }
+    }
+
+    private FeedEntry readEntry() throws XMLStreamException {
+        FeedEntry entry = new FeedEntry();
+        int event;
+        while ((event = reader.next()) != XMLStreamConstants.END_ELEMENT) {
+            if (event == XMLStreamConstants.END_DOCUMENT) {
+                throw new XMLStreamException("Unexpected end of feed.");
+            } else if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+
+            String localName = reader.getLocalName();
+            String namespace = StringUtils.defaultString(reader.getNamespaceURI());
+            boolean feedElement = namespace.isEmpty() || ATOM_NAMESPACE.equals(namespace);
+
+            if (("id".equals(localName) && feedElement) || "guid".equals(localName)) {
+                entry.id = readText();
+            } else if ("title".equals(localName) && feedElement) {
+                entry.title = readText();
+            } else if ("category".equals(localName) && feedElement) {
+                String term = reader.getAttributeValue(null, "term");
+                String text = readText();
+                entry.categories.add(StringUtils.isNotEmpty(term) ? term : text);
+            } else if (("content".equals(localName) && ATOM_NAMESPACE.equals(namespace)) || (
+                    "encoded".equals(localName) && RSS_CONTENT_NAMESPACE.equals(namespace))) {
+                entry.contents.add(readContent());
+            } else if ("score".equals(localName) && !feedElement) {
+                entry.score = readText();
+            } else {
+                skipElement();
+            }
+        }
+        return entry;
+    }
+
+    private void readTotalResults() throws XMLStreamException {
+        String text = readText();
+        try {
+            totalResults = Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            LOGGER.debug("Received invalid number of results.", e);
+        }
+    }
+
+    /**
+     * Reads the text of the current element, ignoring any child elements.
+     */
+    private String readText() throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int depth = 1;
+        while (depth > 0) {
+            switch (reader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                depth++;
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                depth--;
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+            case XMLStreamConstants.ENTITY_REFERENCE:
+                text.append(reader.getText());
+                break;
+            case XMLStreamConstants.END_DOCUMENT:
+                throw new XMLStreamException("Unexpected end of feed.");
+            default:
+                break;
+            }
+        }
+        return text.toString().trim();
+    }
+
+    /**
+     * Reads the content of an entry, which is either XML, returned with the namespace of its
+     * first element, or text, which may be escaped XML.
+     */
+    private FeedEntry.Content readContent() throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        StringWriter xml = new StringWriter();
+        XMLStreamWriter writer = xmlOutputFactory.createXMLStreamWriter(xml);
+        String namespace = null;
+        int depth = 1;
+        try {
+            while (depth > 0) {
+                switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    if (namespace == null) {
+                        namespace = StringUtils.defaultString(reader.getNamespaceURI());
+                    }
+                    depth++;
+                    writeStartElement(writer);
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    depth--;
+                    if (depth > 0) {
+                        writer.writeEndElement();
+                    }
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    text.append(reader.getText());
+                    writer.writeCharacters(reader.getText());
+                    break;
+                case XMLStreamConstants.ENTITY_REFERENCE:
+                    text.append(reader.getText());
+                    writer.writeEntityRef(reader.getLocalName());
+                    break;
+                case XMLStreamConstants.END_DOCUMENT:
+                    throw new XMLStreamException("Unexpected end of feed.");
+                default:
+                    break;
+                }
+            }
+            writer.flush();
+        } finally {
+            writer.close();
+        }
+
+        if (namespace == null) {
+            return new FeedEntry.Content(text.toString().trim(), null);
+        }
+        return new FeedEntry.Content(xml.toString().trim(), StringUtils.defaultIfEmpty(namespace, null));
+    }
+
+    private void writeStartElement(XMLStreamWriter writer) throws XMLStreamException {
+        String namespace = reader.getNamespaceURI();
+        if (StringUtils.isEmpty(namespace)) {
+            writer.writeStartElement("", reader.getLocalName(), "");
+        } else {
+            writer.writeStartElement(StringUtils.defaultString(reader.getPrefix()),
+                    reader.getLocalName(), namespace);
+        }
+
+        for (int i = 0; i < reader.getNamespaceCount(); i++) {
+            String prefix = reader.getNamespacePrefix(i);
+            String uri = StringUtils.defaultString(reader.getNamespaceURI(i));
+            if (StringUtils.isEmpty(prefix)) {
+                writer.writeDefaultNamespace(uri);
+            } else {
+                writer.writeNamespace(prefix, uri);
+            }
+        }
+
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String attributeNamespace = reader.getAttributeNamespace(i);
+            if (StringUtils.isEmpty(attributeNamespace)) {
+                writer.writeAttribute(reader.getAttributeLocalName(i),
+                        reader.getAttributeValue(i));
+            } else {
+                writer.writeAttribute(StringUtils.defaultString(reader.getAttributePrefix(i)),
+                        attributeNamespace, reader.getAttributeLocalName(i),
+                        reader.getAttributeValue(i));
+            }
+        }
+    }
+
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            switch (reader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                depth++;
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                depth--;
+                break;
+            case XMLStreamConstants.END_DOCUMENT:
+                throw new XMLStreamException("Unexpected end of feed.");
+            default:
+                break;
+            }
+        }
+    }
+
+    /**
+     * The parts of an Atom entry or RSS item that are converted to results.
+     */
+    static class FeedEntry {
+
+        private final List<Content> contents = new ArrayList<>();
+
+        private final List<String> categories = new ArrayList<>();
+
+        private String id;
+
+        private String title;
+
+        private String score;
+
+        String getId() {
+            return id;
+        }
+
+        String getTitle() {
+            return title;
+        }
+
+        /**
+         * @return the relevance score of the entry, or {@code null} if it has none
+         */
+        String getScore() {
+            return score;
+        }
+
+        List<Content> getContents() {
+            return contents;
+        }
+
+        List<String> getCategories() {
+            return categories;
+        }
+
+        static class Content {
+
+            private final String value;
+
+            private final String namespace;
+
+            Content(String value, String namespace) {
+                this.value = value;
+                this.namespace = namespace;
+            }
+
+            String getValue() {
+                return value;
+            }
+
+            /**
+             * @return the namespace of the XML content, or {@code null} if the content is text
+             */
+            String getNamespace() {
+                return namespace;
+            }
+        }
+    }
+}
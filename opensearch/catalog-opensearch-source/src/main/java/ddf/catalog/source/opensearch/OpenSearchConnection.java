@@ -20,11 +20,10 @@
 import org.apache.cxf.configuration.jsse.TLSClientParameters;
 import org.apache.cxf.jaxrs.client.Client;
 import org.apache.cxf.jaxrs.client.ClientConfiguration;
-import org.apache.cxf.jaxrs.client.JAXRSClientFactory;
 import org.apache.cxf.jaxrs.client.WebClient;
 import org.apache.cxf.transport.http.HTTPConduit;
-import org.codice.ddf.endpoints.OpenSearch;
-import org.codice.ddf.endpoints.rest.RESTService;
+import org.apache.cxf.transports.http.configuration.ConnectionType;
+import org.apache.cxf.transports.http.configuration.HTTPClientPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,19 +36,19 @@
  * This class wraps the CXF JAXRS code to make it easier to use and also easier to test. Most of
  * the CXF code uses static methods to construct the web clients, which is inherently difficult to
  * mock up when testing.
+ * <p/>
+ * The OpenSearch web client is created once per connection and is thread safe, so every query
+ * of a source shares the same {@link HTTPConduit} and its keep-alive connections instead of
+ * configuring a new client per query.
  */
 public class OpenSearchConnection {
 
     private static final transient Logger LOGGER = LoggerFactory
             .getLogger(OpenSearchConnection.class);
 
-    protected OpenSearch openSearch;
-
-    protected RESTService restService;
-
-    protected Client openSearchClient;
+    protected WebClient openSearchClient;
 
-    protected Client restServiceClient;
+    protected WebClient restServiceClient;
 
     private FilterAdapter filterAdapter;
 
@@ -73,18 +72,13 @@ public OpenSearchConnection(String endpointUrl, FilterAdapter filterAdapter,
         this.username = username;
         this.password = password;
         this.securitySettingsService = securitySettings;
-        openSearch = JAXRSClientFactory.create(endpointUrl, OpenSearch.class);
-        openSearchClient = WebClient.client(openSearch);
+        openSearchClient = WebClient.create(endpointUrl, true);
+        configureConduit(openSearchClient, endpointUrl);
 
         RestUrl restUrl = newRestUrl(endpointUrl);
         if (restUrl != null) {
-            restService = JAXRSClientFactory.create(restUrl.buildUrl(), RESTService.class);
-            restServiceClient = WebClient.client(restService);
-
-            if (StringUtils.startsWithIgnoreCase(endpointUrl, "https")) {
-                setTLSOptions(openSearchClient);
-                setTLSOptions(restServiceClient);
-            }
+            restServiceClient = WebClient.create(restUrl.buildUrl());
+            configureConduit(restServiceClient, endpointUrl);
         }
     }
 
@@ -137,11 +131,14 @@ private RestUrl newRestUrl(String url) {
     }
 
     /**
-     * Returns the OpenSearch {@link org.apache.cxf.jaxrs.client.WebClient}
+     * Returns the OpenSearch {@link org.apache.cxf.jaxrs.client.WebClient}. The client is shared by
+     * all callers, but its request state is kept per thread and is reset before it is returned, so
+     * callers must not hand it to other threads.
      * @return {@link org.apache.cxf.jaxrs.client.WebClient}
      */
     public WebClient getOpenSearchWebClient() {
-        return WebClient.fromClient(openSearchClient);
+        openSearchClient.reset();
+        return openSearchClient;
     }
 
     /**
@@ -170,11 +167,8 @@ public WebClient getWebClientFromClient(Client client) {
      * @return {@link org.apache.cxf.jaxrs.client.Client}
      */
     public Client newOpenSearchClient(String url) {
-        OpenSearch proxy = JAXRSClientFactory.create(url, OpenSearch.class);
-        Client tmp = WebClient.client(proxy);
-        if (StringUtils.startsWithIgnoreCase(url, "https")) {
-            setTLSOptions(tmp);
-        }
+        WebClient tmp = WebClient.create(url);
+        configureConduit(tmp, url);
         return tmp;
     }
 
@@ -202,17 +196,34 @@ public Client newRestClient(String url, Query query, String metacardId,
                 url = restUrl.buildUrl();
             }
         }
-        Client tmp = null;
+        WebClient tmp = null;
         if (url != null) {
-            RESTService proxy = JAXRSClientFactory.create(url, RESTService.class);
-            tmp = WebClient.client(proxy);
-            if (StringUtils.startsWithIgnoreCase(url, "https")) {
-                setTLSOptions(tmp);
-            }
+            tmp = WebClient.create(url);
+            configureConduit(tmp, url);
         }
         return tmp;
     }
 
+    /**
+     * Keeps the connections of the client alive between requests and, for HTTPS URLs, adds the
+     * TLS and Basic Auth settings.
+     * @param client
+     * @param url - URL the client connects to
+     */
+    private void configureConduit(Client client, String url) {
+        HTTPConduit httpConduit = WebClient.getConfig(client).getHttpConduit();
+        HTTPClientPolicy httpClientPolicy = httpConduit.getClient();
+        if (httpClientPolicy == null) {
+            httpClientPolicy = new HTTPClientPolicy();
+            httpConduit.setClient(httpClientPolicy);
+        }
+        httpClientPolicy.setConnection(ConnectionType.KEEP_ALIVE);
+
+        if (StringUtils.startsWithIgnoreCase(url, "https")) {
+            setTLSOptions(client);
+        }
+    }
+
     /**
      * Add TLS and Basic Auth credentials to the underlying {@link org.apache.cxf.transport.http.HTTPConduit}
      * @param client
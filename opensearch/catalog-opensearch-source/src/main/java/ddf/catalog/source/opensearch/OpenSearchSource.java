@@ -13,10 +13,10 @@
  */
 package ddf.catalog.source.opensearch;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.Serializable;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
@@ -35,19 +35,21 @@
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.TransformerException;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.commons.lang.StringUtils;
 import org.apache.cxf.jaxrs.client.Client;
 import org.apache.cxf.jaxrs.client.WebClient;
 import org.codehaus.stax2.XMLInputFactory2;
+import org.codehaus.stax2.XMLOutputFactory2;
 import org.codice.ddf.security.common.jaxrs.RestSecurity;
 import org.geotools.filter.FilterTransformer;
-import org.jdom2.Element;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.FrameworkUtil;
@@ -56,14 +58,6 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.io.FileBackedOutputStream;
-import com.rometools.rome.feed.synd.SyndCategory;
-import com.rometools.rome.feed.synd.SyndContent;
-import com.rometools.rome.feed.synd.SyndEntry;
-import com.rometools.rome.feed.synd.SyndFeed;
-import com.rometools.rome.io.FeedException;
-import com.rometools.rome.io.SyndFeedInput;
-
 import ddf.catalog.data.ContentType;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.Result;
@@ -129,6 +123,11 @@ public class OpenSearchSource implements FederatedSource, ConfiguredService {
 
     private static final String BYTES_EQUAL = "bytes=";
 
+    /**
+     * Number of bytes of a REST response that are read to find its {@link InputTransformer}.
+     */
+    private static final int TRANSFORMER_LOOKUP_LIMIT = 1000000;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(OpenSearchSource.class);
 
     protected OpenSearchConnection openSearchConnection;
@@ -164,6 +163,8 @@ public class OpenSearchSource implements FederatedSource, ConfiguredService {
 
     private XMLInputFactory xmlInputFactory;
 
+    private XMLOutputFactory xmlOutputFactory;
+
     /**
      * Creates an OpenSearch Site instance. Sets an initial default endpointUrl that can be
      * overwritten using the setter methods.
@@ -190,6 +191,8 @@ private void configureXmlInputFactory() {
         xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
         xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
 
+        xmlOutputFactory = XMLOutputFactory2.newInstance();
+        xmlOutputFactory.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, Boolean.TRUE);
     }
 
     public void destroy() {
@@ -214,6 +217,8 @@ public boolean isAvailable() {
                 response = client.head();
             } catch (Exception e) {
                 LOGGER.warn("Web Client was unable to connect to endpoint.", e);
+            } finally {
+                client.reset();
             }
 
             if (response != null && !(response.getStatus() >= 404 || response.getStatus() == 400
@@ -249,83 +254,91 @@ public SourceResponse query(QueryRequest queryRequest) throws UnsupportedQueryEx
 
         WebClient openSearchWebClient = openSearchConnection.getOpenSearchWebClient();
 
-        Subject subject = null;
-        if (queryRequest.hasProperties()) {
-            Object subjectObj = queryRequest.getProperties()
-                    .get(SecurityConstants.SECURITY_SUBJECT);
-            subject = (Subject) subjectObj;
-            RestSecurity.setSubjectOnClient(subject, openSearchWebClient);
-        }
+        try {
+            Subject subject = null;
+            if (queryRequest.hasProperties()) {
+                Object subjectObj = queryRequest.getProperties()
+                        .get(SecurityConstants.SECURITY_SUBJECT);
+                subject = (Subject) subjectObj;
+                RestSecurity.setSubjectOnClient(subject, openSearchWebClient);
+            }
 
-        Query query = queryRequest.getQuery();
+            Query query = queryRequest.getQuery();
 
-        if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug("Received query: " + query);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Received query: " + query);
+            }
+
+            boolean canDoOpenSearch = setOpenSearchParameters(query, subject,
+                    openSearchWebClient);
+
+            if (canDoOpenSearch) {
+
+                response = new SourceResponseImpl(queryRequest, new ArrayList<Result>());
+
+                // the response is closed so its connection can be reused by the next query
+                try (InputStream responseStream = performRequest(openSearchWebClient)) {
+                    if (responseStream != null) {
+                        response = processResponse(responseStream, queryRequest);
+                    }
+                } catch (IOException e) {
+                    LOGGER.debug("Unable to close OpenSearch response.", e);
+                }
+            } else {
+                response = queryRest(queryRequest, (String) metacardId, response);
+            }
+        } finally {
+            openSearchWebClient.reset();
         }
 
-        boolean canDoOpenSearch = setOpenSearchParameters(query, subject, openSearchWebClient);
+        LOGGER.trace(methodName);
 
-        if (canDoOpenSearch) {
+        return response;
+    }
 
-            InputStream responseStream = performRequest(openSearchWebClient);
+    private SourceResponseImpl queryRest(QueryRequest queryRequest, String metacardId,
+            SourceResponseImpl response) throws UnsupportedQueryException {
+        Client restClient = openSearchConnection
+                .newRestClient(endpointUrl, queryRequest.getQuery(), metacardId, false);
 
-            response = new SourceResponseImpl(queryRequest, new ArrayList<Result>());
+        if (restClient != null) {
+            WebClient restWebClient = openSearchConnection.getWebClientFromClient(restClient);
 
-            if (responseStream != null) {
-                response = processResponse(responseStream, queryRequest);
+            if (queryRequest.hasProperties()) {
+                Object subjectObj = queryRequest.getProperties()
+                        .get(SecurityConstants.SECURITY_SUBJECT);
+                RestSecurity.setSubjectOnClient((Subject) subjectObj, restWebClient);
             }
-        } else {
-            Client restClient = openSearchConnection
-                    .newRestClient(endpointUrl, queryRequest.getQuery(), (String) metacardId,
-                            false);
 
-            if (restClient != null) {
-                WebClient restWebClient = openSearchConnection.getWebClientFromClient(restClient);
-
-                if (queryRequest.hasProperties()) {
-                    Object subjectObj = queryRequest.getProperties()
-                            .get(SecurityConstants.SECURITY_SUBJECT);
-                    subject = (Subject) subjectObj;
-                    RestSecurity.setSubjectOnClient(subject, restWebClient);
-                }
+            InputStream responseStream = performRequest(restWebClient);
 
-                InputStream responseStream = performRequest(restWebClient);
-
-                Metacard metacard = null;
-                List<Result> resultQueue = new ArrayList<Result>();
-                try (FileBackedOutputStream fileBackedOutputStream = new FileBackedOutputStream(
-                        1000000)) {
-                    IOUtils.copyLarge(responseStream, fileBackedOutputStream);
-                    InputTransformer inputTransformer = null;
-                    try (InputStream inputStream = fileBackedOutputStream.asByteSource()
-                            .openStream()) {
-                        inputTransformer = getInputTransformer(inputStream);
-                    } catch (IOException e) {
-                        LOGGER.debug("Problem with transformation.", e);
-                    }
+            Metacard metacard = null;
+            List<Result> resultQueue = new ArrayList<Result>();
+            if (responseStream != null) {
+                // the transformer is looked up from the start of the response, which is then
+                // read again from the buffer instead of copying the whole response first
+                try (InputStream inputStream = new BufferedInputStream(responseStream)) {
+                    inputStream.mark(TRANSFORMER_LOOKUP_LIMIT);
+                    BoundedInputStream lookupStream = new BoundedInputStream(inputStream,
+                            TRANSFORMER_LOOKUP_LIMIT);
+                    lookupStream.setPropagateClose(false);
+                    InputTransformer inputTransformer = getInputTransformer(lookupStream);
+                    inputStream.reset();
                     if (inputTransformer != null) {
-                        try (InputStream inputStream = fileBackedOutputStream.asByteSource()
-                                .openStream()) {
-                            metacard = inputTransformer.transform(inputStream);
-                        } catch (IOException e) {
-                            LOGGER.debug("Problem with transformation.", e);
-                        }
+                        metacard = inputTransformer.transform(inputStream);
                     }
                 } catch (IOException | CatalogTransformerException e) {
                     LOGGER.debug("Problem with transformation.", e);
                 }
-                if (metacard != null) {
-                    metacard.setSourceId(getId());
-                    ResultImpl result = new ResultImpl(metacard);
-                    resultQueue.add(result);
-                    response = new SourceResponseImpl(queryRequest, resultQueue);
-                    response.setHits(resultQueue.size());
-                }
+            }
+            if (metacard != null) {
+                metacard.setSourceId(getId());
+                ResultImpl result = new ResultImpl(metacard);
+                resultQueue.add(result);
+                response = new SourceResponseImpl(queryRequest, resultQueue);
+                response.setHits(resultQueue.size());
             }
         }
-
-        LOGGER.trace(methodName);
-
         return response;
     }
 
@@ -430,6 +443,8 @@ protected boolean setOpenSearchParameters(Query query, Subject subject, WebClien
     }
 
     /**
+     * Converts the entries of an Atom or RSS response to results as they are read.
+     *
      * @param is
      * @param queryRequest
      * @return
@@ -439,32 +454,20 @@ private SourceResponseImpl processResponse(InputStream is, QueryRequest queryReq
             throws UnsupportedQueryException {
         List<Result> resultQueue = new ArrayList<>();
 
-        SyndFeedInput syndFeedInput = new SyndFeedInput();
-        SyndFeed syndFeed = null;
-        try {
-            syndFeed = syndFeedInput.build(new InputStreamReader(is));
-        } catch (FeedException e) {
-            LOGGER.error("Unable to read RSS/Atom feed.", e);
-        }
-
-        List<SyndEntry> entries = null;
         long totalResults = 0;
-        if (syndFeed != null) {
-            entries = syndFeed.getEntries();
-            for (SyndEntry entry : entries) {
+        FeedEntryReader feedReader = null;
+        try {
+            feedReader = new FeedEntryReader(xmlInputFactory, xmlOutputFactory, is);
+            FeedEntryReader.FeedEntry entry;
+            while ((entry = feedReader.nextEntry()) != null) {
                 resultQueue.addAll(createResponseFromEntry(entry));
             }
-            totalResults = entries.size();
-            List<Element> foreignMarkup = syndFeed.getForeignMarkup();
-            for (Element element : foreignMarkup) {
-                if (element.getName().equals("totalResults")) {
-                    try {
-                        totalResults = Long.parseLong(element.getContent(0).getValue());
-                    } catch (NumberFormatException | IndexOutOfBoundsException e) {
-                        // totalResults is already initialized to the correct value, so don't change it here.
-                        LOGGER.debug("Received invalid number of results.", e);
-                    }
-                }
+        } catch (XMLStreamException e) {
+            LOGGER.error("Unable to read RSS/Atom feed.", e);
+        } finally {
+            if (feedReader != null) {
+                feedReader.close();
+                totalResults = feedReader.getTotalResults();
             }
         }
 
@@ -475,34 +478,29 @@ private SourceResponseImpl processResponse(InputStream is, QueryRequest queryReq
     }
 
     /**
-     * Creates a single response from input parameters. Performs XPath operations on the document to
-     * retrieve data not passed in.
+     * Creates the results of a single feed entry.
      *
      * @param entry
-     *            a single Atom entry
-     * @return single response
+     *            a single Atom entry or RSS item
+     * @return results of the entry
      * @throws ddf.catalog.source.UnsupportedQueryException
      */
-    private List<Result> createResponseFromEntry(SyndEntry entry) throws UnsupportedQueryException {
-        String id = entry.getUri();
+    private List<Result> createResponseFromEntry(FeedEntryReader.FeedEntry entry)
+            throws UnsupportedQueryException {
+        String id = entry.getId();
         if (id != null && !id.isEmpty()) {
             id = id.substring(id.lastIndexOf(':') + 1);
         }
 
-        List<SyndContent> contents = entry.getContents();
-        List<SyndCategory> categories = entry.getCategories();
+        List<FeedEntryReader.FeedEntry.Content> contents = entry.getContents();
+        List<String> categories = entry.getCategories();
         List<Metacard> metacards = new ArrayList<>();
-        List<Element> foreignMarkup = entry.getForeignMarkup();
-        String relevance = "";
+        String relevance = entry.getScore();
         String source = "";
-        for (Element element : foreignMarkup) {
-            if (element.getName().equals("score")) {
-                relevance = element.getContent(0).getValue();
-            }
-        }
         //we currently do not support downloading content via an RSS enclosure, this support can be added at a later date if we decide to include it
-        for (SyndContent content : contents) {
-            MetacardImpl metacard = getMetacardImpl(parseContent(content.getValue(), id));
+        for (FeedEntryReader.FeedEntry.Content content : contents) {
+            MetacardImpl metacard = getMetacardImpl(
+                    parseContent(content.getValue(), content.getNamespace(), id));
             metacard.setSourceId(this.shortname);
             String title = metacard.getTitle();
             if (StringUtils.isEmpty(title)) {
@@ -514,10 +512,10 @@ private List<Result> createResponseFromEntry(SyndEntry entry) throws Unsupported
             metacards.add(metacard);
         }
         for (int i = 0; i < categories.size() && i < metacards.size(); i++) {
-            SyndCategory category = categories.get(i);
+            String category = categories.get(i);
             Metacard metacard = metacards.get(i);
             if (StringUtils.isBlank(metacard.getContentTypeName())) {
-                ((MetacardImpl) metacard).setContentTypeName(category.getName());
+                ((MetacardImpl) metacard).setContentTypeName(category);
             }
         }
 
@@ -556,14 +554,27 @@ private void constructRangeHeader(WebClient webClient, Long bytesToSkip) {
         webClient.header(HEADER_RANGE, headerValue.toString());
     }
 
-    private Metacard parseContent(String content, String id) {
-        if (content != null) {
-            InputTransformer inputTransformer = getInputTransformer(
-                    new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
-            if (inputTransformer != null && !content.isEmpty()) {
+    /**
+     * @param namespace namespace of the XML content, used to look up its transformer without
+     *                  parsing the content twice; {@code null} to look it up from the content
+     */
+    private Metacard parseContent(String content, String namespace, String id) {
+        if (content != null && !content.isEmpty()) {
+            byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+            InputTransformer inputTransformer = null;
+            if (namespace != null) {
+                try {
+                    inputTransformer = lookupTransformerReference(namespace);
+                } catch (InvalidSyntaxException e) {
+                    LOGGER.error("Failed to parse transformer namespace", e);
+                }
+            }
+            if (inputTransformer == null) {
+                inputTransformer = getInputTransformer(new ByteArrayInputStream(bytes));
+            }
+            if (inputTransformer != null) {
                 try {
-                    return inputTransformer.transform(
-                            new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), id);
+                    return inputTransformer.transform(new ByteArrayInputStream(bytes), id);
                 } catch (IOException e) {
                     LOGGER.warn("Unable to read metacard content from Atom feed.", e);
                 } catch (CatalogTransformerException e) {
@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.opensearch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.stream.XMLOutputFactory;
+
+import org.codehaus.stax2.XMLInputFactory2;
+import org.codehaus.stax2.XMLOutputFactory2;
+import org.junit.Test;
+
+public class TestFeedEntryReader {
+
+    private static final String ATOM_FEED =
+            "<feed xmlns=\"http://www.w3.org/2005/Atom\" xmlns:os=\"http://a9.com/-/spec/opensearch/1.1/\""
+                    + " xmlns:relevance=\"http://a9.com/-/opensearch/extensions/relevance/1.0/\""
+                    + " xmlns:m=\"urn:catalog:metacard\">"
+                    + "<id>urn:uuid:feed</id><title>Query Response</title>"
+                    + "<os:totalResults>12</os:totalResults>"
+                    + "<entry><relevance:score>0.5</relevance:score><id>urn:catalog:id:first</id>"
+                    + "<title>First</title><category term=\"Resource\"/>"
+                    + "<content type=\"application/xml\"><m:metacard><m:type>ddf.metacard</m:type>"
+                    + "</m:metacard></content></entry>"
+                    + "<entry><id>urn:catalog:id:second</id><title>Second</title>"
+                    + "<content type=\"text\">&lt;m:metacard/&gt;</content></entry></feed>";
+
+    private static final String RSS_FEED =
+            "<rss version=\"2.0\" xmlns:content=\"http://purl.org/rss/1.0/modules/content/\">"
+                    + "<channel><title>Query Response</title>"
+                    + "<item><guid>urn:catalog:id:item</guid><title>Item</title>"
+                    + "<category>Resource</category>"
+                    + "<content:encoded><![CDATA[<metacard/>]]></content:encoded></item>"
+                    + "</channel></rss>";
+
+    @Test
+    public void testAtomEntries() throws Exception {
+        FeedEntryReader reader = newReader(ATOM_FEED);
+
+        FeedEntryReader.FeedEntry first = reader.nextEntry();
+        assertThat(first.getId(), is("urn:catalog:id:first"));
+        assertThat(first.getTitle(), is("First"));
+        assertThat(first.getScore(), is("0.5"));
+        assertThat(first.getCategories(), contains("Resource"));
+        assertThat(first.getContents().size(), is(1));
+        FeedEntryReader.FeedEntry.Content content = first.getContents().get(0);
+        assertThat(content.getNamespace(), is("urn:catalog:metacard"));
+        assertThat(content.getValue(), containsString("xmlns:m=\"urn:catalog:metacard\""));
+        assertThat(content.getValue(), containsString("<m:type>ddf.metacard</m:type>"));
+
+        FeedEntryReader.FeedEntry second = reader.nextEntry();
+        assertThat(second.getId(), is("urn:catalog:id:second"));
+        assertThat(second.getScore(), nullValue());
+        assertThat(second.getContents().get(0).getNamespace(), nullValue());
+        assertThat(second.getContents().get(0).getValue(), is("<m:metacard/>"));
+
+        assertThat(reader.nextEntry(), nullValue());
+        assertThat(reader.getTotalResults(), is(12L));
+    }
+
+    @Test
+    public void testRssItems() throws Exception {
+        FeedEntryReader reader = newReader(RSS_FEED);
+
+        FeedEntryReader.FeedEntry item = reader.nextEntry();
+        assertThat(item.getId(), is("urn:catalog:id:item"));
+        assertThat(item.getTitle(), is("Item"));
+        assertThat(item.getCategories(), contains("Resource"));
+        assertThat(item.getContents().get(0).getValue(), is("<metacard/>"));
+
+        assertThat(reader.nextEntry(), nullValue());
+        assertThat(reader.getTotalResults(), is(1L));
+    }
+
+    private FeedEntryReader newReader(String feed) throws Exception {
+        XMLOutputFactory xmlOutputFactory = XMLOutputFactory2.newInstance();
+        xmlOutputFactory.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, Boolean.TRUE);
+        return new FeedEntryReader(XMLInputFactory2.newInstance(), xmlOutputFactory,
+                new ByteArrayInputStream(feed.getBytes(StandardCharsets.UTF_8)));
+    }
+}
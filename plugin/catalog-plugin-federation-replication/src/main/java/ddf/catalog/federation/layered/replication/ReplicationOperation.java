@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.federation.layered.replication;
+
+/**
+ * A create, update or delete waiting in the {@link ReplicationOutbox} to be sent to the parent.
+ */
+class ReplicationOperation {
+
+    enum Type {
+        CREATE, UPDATE, DELETE
+    }
+
+    private final Type type;
+
+    private final String id;
+
+    private final String mimeType;
+
+    private final byte[] payload;
+
+    private final long createdTime;
+
+    private long sequence;
+
+    private int attempts;
+
+    private long nextAttemptTime;
+
+    private boolean inFlight;
+
+    ReplicationOperation(Type type, String id, String mimeType, byte[] payload,
+            long createdTime) {
+        this.type = type;
+        this.id = id;
+        this.mimeType = mimeType;
+        this.payload = payload;
+        this.createdTime = createdTime;
+    }
+
+    Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the id of the metacard this operation applies to, or {@code null} for a create whose
+     *         metacard has no id
+     */
+    String getId() {
+        return id;
+    }
+
+    String getMimeType() {
+        return mimeType;
+    }
+
+    byte[] getPayload() {
+        return payload;
+    }
+
+    long getCreatedTime() {
+        return createdTime;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    int getAttempts() {
+        return attempts;
+    }
+
+    void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    long getNextAttemptTime() {
+        return nextAttemptTime;
+    }
+
+    void setNextAttemptTime(long nextAttemptTime) {
+        this.nextAttemptTime = nextAttemptTime;
+    }
+
+    boolean isInFlight() {
+        return inFlight;
+    }
+
+    void setInFlight(boolean inFlight) {
+        this.inFlight = inFlight;
+    }
+
+    /**
+     * Operations with the same ordering key must be delivered in sequence.
+     */
+    String getOrderingKey() {
+        return id != null ? id : "#" + sequence;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + id + " (sequence " + sequence + ", attempts " + attempts + ")";
+    }
+}
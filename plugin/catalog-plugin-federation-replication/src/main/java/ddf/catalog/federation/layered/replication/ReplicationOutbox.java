@@ -0,0 +1,301 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.federation.layered.replication;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Durable, ordered store of the operations that still have to be replicated to the parent. Each
+ * operation is written and synced to its own file in the outbox directory before ingest returns,
+ * so pending operations survive a restart or crash and an unreachable parent never blocks or
+ * fails ingest.
+ * <p/>
+ * Operations on the same metacard are handed out strictly in the order they were added: an
+ * operation is not returned by {@link #nextBatch(int, long)} while an earlier operation on the
+ * same metacard is in flight or waiting to be retried.
+ */
+class ReplicationOutbox {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicationOutbox.class);
+
+    private static final String FILE_EXTENSION = ".op";
+
+    private static final String TEMP_FILE_EXTENSION = ".tmp";
+
+    private final File directory;
+
+    private final TreeMap<Long, ReplicationOperation> operations = new TreeMap<>();
+
+    private long nextSequence;
+
+    ReplicationOutbox(File directory) throws IOException {
+        this.directory = directory;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create replication outbox " + directory);
+        }
+        load();
+    }
+
+    /**
+     * Persists the operation and queues it for delivery.
+     */
+    synchronized void add(ReplicationOperation operation) throws IOException {
+        operation.setSequence(nextSequence++);
+
+        File temp = new File(directory, fileName(operation.getSequence()) + TEMP_FILE_EXTENSION);
+        FileOutputStream fileOut = null;
+        DataOutputStream out = null;
+        try {
+            fileOut = new FileOutputStream(temp);
+            out = new DataOutputStream(new BufferedOutputStream(fileOut));
+            out.writeUTF(operation.getType().name());
+            out.writeBoolean(operation.getId() != null);
+            if (operation.getId() != null) {
+                out.writeUTF(operation.getId());
+            }
+            out.writeBoolean(operation.getMimeType() != null);
+            if (operation.getMimeType() != null) {
+                out.writeUTF(operation.getMimeType());
+            }
+            out.writeLong(operation.getCreatedTime());
+            byte[] payload = operation.getPayload();
+            out.writeInt(payload == null ? -1 : payload.length);
+            if (payload != null) {
+                out.write(payload);
+            }
+            out.flush();
+            fileOut.getFD().sync();
+        } finally {
+            IOUtils.closeQuietly(out);
+            IOUtils.closeQuietly(fileOut);
+        }
+
+        if (!temp.renameTo(getFile(operation))) {
+            temp.delete();
+            throw new IOException("Unable to write replication operation " + operation);
+        }
+        syncDirectory();
+
+        operations.put(operation.getSequence(), operation);
+    }
+
+    /**
+     * Retrieves up to {@code max} operations that are ready to be sent and marks them as in
+     * flight. Each returned operation must later be passed to {@link #complete} or
+     * {@link #retryLater}.
+     */
+    synchronized List<ReplicationOperation> nextBatch(int max, long now) {
+        List<ReplicationOperation> batch = new ArrayList<>();
+        Set<String> blocked = new HashSet<>();
+
+        for (ReplicationOperation operation : operations.values()) {
+            if (batch.size() >= max) {
+                break;
+            }
+
+            String key = operation.getOrderingKey();
+            if (blocked.contains(key)) {
+                continue;
+            }
+
+            if (operation.isInFlight() || operation.getNextAttemptTime() > now) {
+                blocked.add(key);
+                continue;
+            }
+
+            operation.setInFlight(true);
+            batch.add(operation);
+        }
+
+        return batch;
+    }
+
+    /**
+     * Removes a delivered operation from the outbox.
+     */
+    synchronized void complete(ReplicationOperation operation) {
+        operations.remove(operation.getSequence());
+        File file = getFile(operation);
+        if (file.exists() && !file.delete()) {
+            LOGGER.warn("Unable to remove replicated operation {} from {}", operation, directory);
+        }
+    }
+
+    /**
+     * Returns an operation that could not be delivered to the outbox so it is retried no earlier
+     * than {@code nextAttemptTime}.
+     */
+    synchronized void retryLater(ReplicationOperation operation, long nextAttemptTime) {
+        operation.setAttempts(operation.getAttempts() + 1);
+        operation.setNextAttemptTime(nextAttemptTime);
+        operation.setInFlight(false);
+    }
+
+    /**
+     * Returns an operation that was handed out but not attempted. It stays behind any earlier
+     * operation on the same metacard that is waiting to be retried.
+     */
+    synchronized void release(ReplicationOperation operation) {
+        operation.setInFlight(false);
+    }
+
+    /**
+     * Returns every operation that is in flight, e.g. because delivery was stopped before it
+     * completed, so it is handed out again.
+     */
+    synchronized void releaseInFlight() {
+        for (ReplicationOperation operation : operations.values()) {
+            operation.setInFlight(false);
+        }
+    }
+
+    synchronized int size() {
+        return operations.size();
+    }
+
+    /**
+     * @return the creation time of the oldest pending operation, or {@code -1} if the outbox is
+     *         empty
+     */
+    synchronized long getOldestCreatedTime() {
+        long oldest = -1;
+        for (ReplicationOperation operation : operations.values()) {
+            if (oldest < 0 || operation.getCreatedTime() < oldest) {
+                oldest = operation.getCreatedTime();
+            }
+        }
+        return oldest;
+    }
+
+    File getDirectory() {
+        return directory;
+    }
+
+    private void load() {
+        File[] tempFiles = directory.listFiles(new ExtensionFilter(TEMP_FILE_EXTENSION));
+        if (tempFiles != null) {
+            for (File file : tempFiles) {
+                file.delete();
+            }
+        }
+
+        File[] files = directory.listFiles(new ExtensionFilter(FILE_EXTENSION));
+        if (files == null) {
+            return;
+        }
+
+        Map<Long, File> sorted = new TreeMap<>();
+        for (File file : files) {
+            String name = file.getName();
+            try {
+                sorted.put(Long.parseLong(name.substring(0, name.length() - FILE_EXTENSION.length())),
+                        file);
+            } catch (NumberFormatException e) {
+                LOGGER.warn("Ignoring unexpected file {} in replication outbox", file);
+            }
+        }
+
+        for (Map.Entry<Long, File> entry : sorted.entrySet()) {
+            try {
+                ReplicationOperation operation = read(entry.getValue());
+                operation.setSequence(entry.getKey());
+                operations.put(entry.getKey(), operation);
+                nextSequence = entry.getKey() + 1;
+            } catch (IOException e) {
+                LOGGER.warn("Unable to read replication operation from {}", entry.getValue(), e);
+            }
+        }
+
+        if (!operations.isEmpty()) {
+            LOGGER.info("Loaded {} pending replication operations from {}", operations.size(),
+                    directory);
+        }
+    }
+
+    /**
+     * Syncs the directory so the rename of a new operation's file survives a crash. Not every
+     * platform allows a directory to be opened, in which case the rename is left to the OS.
+     */
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory.toPath(),
+                StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            LOGGER.debug("Unable to sync replication outbox {}", directory, e);
+        }
+    }
+
+    private ReplicationOperation read(File file) throws IOException {
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            ReplicationOperation.Type type = ReplicationOperation.Type.valueOf(in.readUTF());
+            String id = in.readBoolean() ? in.readUTF() : null;
+            String mimeType = in.readBoolean() ? in.readUTF() : null;
+            long createdTime = in.readLong();
+            int length = in.readInt();
+            byte[] payload = null;
+            if (length >= 0) {
+                payload = new byte[length];
+                in.readFully(payload);
+            }
+            return new ReplicationOperation(type, id, mimeType, payload, createdTime);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown replication operation type", e);
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    private File getFile(ReplicationOperation operation) {
+        return new File(directory, fileName(operation.getSequence()));
+    }
+
+    private String fileName(long sequence) {
+        return String.format("%019d", sequence) + FILE_EXTENSION;
+    }
+
+    private static class ExtensionFilter implements FilenameFilter {
+        private final String extension;
+
+        ExtensionFilter(String extension) {
+            this.extension = extension;
+        }
+
+        @Override
+        public boolean accept(File dir, String name) {
+            return name.endsWith(extension);
+        }
+    }
+}
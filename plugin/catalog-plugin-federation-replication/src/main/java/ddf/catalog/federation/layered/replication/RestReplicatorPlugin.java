@@ -13,18 +13,34 @@
  */
 package ddf.catalog.federation.layered.replication;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
-import org.apache.commons.lang.builder.ToStringBuilder;
 import org.apache.cxf.jaxrs.client.WebClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.JmxReporter;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+
 import ddf.catalog.data.BinaryContent;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.operation.CreateResponse;
@@ -37,10 +53,35 @@
 import ddf.catalog.transform.CatalogTransformerException;
 import ddf.catalog.transform.MetacardTransformer;
 
+/**
+ * Replicates created, updated and deleted metacards to a parent catalog's REST endpoint.
+ * <p/>
+ * Metacards are transformed on the ingest thread, but they are only written to a durable
+ * {@link ReplicationOutbox} there. A background dispatcher drains the outbox in batches, sending up
+ * to {@code maxConcurrentRequests} requests to the parent at once, and retries failed deliveries
+ * with exponential backoff. A slow or unavailable parent therefore neither blocks nor fails ingest.
+ * The outbox size and replication lag are exported over JMX.
+ */
 public class RestReplicatorPlugin implements PostIngestPlugin {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RestReplicatorPlugin.class);
 
+    private static final String DEFAULT_OUTBOX_DIRECTORY = "data/replication/outbox";
+
+    private static final int DEFAULT_BATCH_SIZE = 50;
+
+    private static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
+
+    private static final long DEFAULT_INITIAL_RETRY_DELAY = TimeUnit.SECONDS.toMillis(1);
+
+    private static final long DEFAULT_MAX_RETRY_DELAY = TimeUnit.MINUTES.toMillis(5);
+
+    private static final long DISPATCH_INTERVAL = 250;
+
+    private static final long SHUTDOWN_TIMEOUT = TimeUnit.SECONDS.toMillis(5);
+
+    private static final String METRICS_SCOPE = "Replication";
+
     /**
      * A configurable property of parent's location.
      */
@@ -48,10 +89,103 @@ public class RestReplicatorPlugin implements PostIngestPlugin {
 
     private MetacardTransformer transformer = null;
 
-    private WebClient client;
+    private volatile WebClient client;
+
+    private String outboxDirectory = DEFAULT_OUTBOX_DIRECTORY;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    private int maxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+
+    private long initialRetryDelay = DEFAULT_INITIAL_RETRY_DELAY;
+
+    private long maxRetryDelay = DEFAULT_MAX_RETRY_DELAY;
+
+    private ReplicationOutbox outbox;
+
+    private ScheduledExecutorService dispatcher;
+
+    private ExecutorService senders;
+
+    private final MetricRegistry metrics = new MetricRegistry();
+
+    private final JmxReporter reporter = JmxReporter.forRegistry(metrics)
+            .inDomain("ddf.metrics.catalog").build();
+
+    private final Meter replicated = metrics.meter(MetricRegistry.name(METRICS_SCOPE,
+            "Replicated"));
+
+    private final Meter retries = metrics.meter(MetricRegistry.name(METRICS_SCOPE, "Retries"));
+
+    private final Meter rejected = metrics.meter(MetricRegistry.name(METRICS_SCOPE, "Rejected"));
 
     public RestReplicatorPlugin(String endpointAddress) {
         setParentAddress(endpointAddress);
+
+        metrics.register(MetricRegistry.name(METRICS_SCOPE, "Pending"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                ReplicationOutbox current = outbox;
+                return current == null ? 0 : current.size();
+            }
+        });
+        metrics.register(MetricRegistry.name(METRICS_SCOPE, "LagMillis"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getReplicationLag();
+            }
+        });
+    }
+
+    /**
+     * Loads any operations left in the outbox and starts delivering them to the parent.
+     */
+    public synchronized void init() throws IOException {
+        // nothing is being delivered yet, so operations left in flight were never completed
+        getOutbox().releaseInFlight();
+
+        if (dispatcher == null) {
+            senders = Executors.newFixedThreadPool(maxConcurrentRequests,
+                    new NamedThreadFactory("replication-sender"));
+            dispatcher = Executors.newSingleThreadScheduledExecutor(
+                    new NamedThreadFactory("replication-dispatcher"));
+            dispatcher.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        deliverPending();
+                    } catch (RuntimeException e) {
+                        LOGGER.warn("Unexpected error replicating to parent {}", parentAddress, e);
+                    }
+                }
+            }, DISPATCH_INTERVAL, DISPATCH_INTERVAL, TimeUnit.MILLISECONDS);
+            reporter.start();
+        }
+    }
+
+    /**
+     * Stops delivering operations. Undelivered operations remain in the outbox, including those
+     * that were being sent, and are delivered again once the plugin is restarted.
+     */
+    public synchronized void destroy() {
+        if (dispatcher != null) {
+            dispatcher.shutdownNow();
+            senders.shutdownNow();
+            try {
+                if (!senders.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                    LOGGER.warn("Replication to parent {} did not stop within {} ms",
+                            parentAddress, SHUTDOWN_TIMEOUT);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            dispatcher = null;
+            senders = null;
+            reporter.stop();
+        }
+        if (outbox != null) {
+            outbox.releaseInFlight();
+        }
     }
 
     @Override
@@ -59,15 +193,13 @@ public CreateResponse process(CreateResponse input) throws PluginExecutionExcept
 
         if (client != null && transformer != null) {
 
-            for (Metacard m : input.getCreatedMetacards()) {
-
-                String data = transform(m, client);
+            List<ReplicationOperation> operations = new ArrayList<>();
 
-                Response r = client.post(data);
-
-                LOGGER.debug("Posted the following GeoJSON: {}\n", data);
-                LOGGER.debug("RESPONSE: [{}]", ToStringBuilder.reflectionToString(r));
+            for (Metacard m : input.getCreatedMetacards()) {
+                operations.add(transform(ReplicationOperation.Type.CREATE, m.getId(), m));
             }
+
+            enqueue(operations);
         }
 
         return input;
@@ -78,10 +210,6 @@ public UpdateResponse process(UpdateResponse input) throws PluginExecutionExcept
 
         if (client != null && transformer != null) {
 
-            WebClient updateClient = WebClient.fromClient(client);
-
-            updateClient.type(MediaType.APPLICATION_JSON);
-
             List<Update> updates = input.getUpdatedMetacards();
 
             if (updates == null) {
@@ -94,6 +222,8 @@ public UpdateResponse process(UpdateResponse input) throws PluginExecutionExcept
                         "Cannot replicate records that are not updated by " + Metacard.ID));
             }
 
+            List<ReplicationOperation> operations = new ArrayList<>();
+
             for (int i = 0; i < updates.size(); i++) {
 
                 Update update = updates.get(i);
@@ -102,18 +232,14 @@ public UpdateResponse process(UpdateResponse input) throws PluginExecutionExcept
                         && request.getUpdates().get(i) != null
                         && request.getUpdates().get(i).getKey() != null) {
 
-                    updateClient.path(request.getUpdates().get(i).getKey());
-
-                    Metacard newMetacard = update.getNewMetacard();
-
-                    String newData = transform(newMetacard, updateClient);
-
-                    Response r = updateClient.put(newData);
-
-                    LOGGER.debug("RESPONSE: [{}]", ToStringBuilder.reflectionToString(r));
+                    operations.add(transform(ReplicationOperation.Type.UPDATE,
+                            request.getUpdates().get(i).getKey().toString(),
+                            update.getNewMetacard()));
                 }
 
             }
+
+            enqueue(operations);
         }
 
         return input;
@@ -124,29 +250,23 @@ public DeleteResponse process(DeleteResponse input) throws PluginExecutionExcept
 
         if (client != null) {
 
-            WebClient updateClient = WebClient.fromClient(client);
-
-            updateClient.type(MediaType.APPLICATION_JSON);
-
             if (input == null || input.getDeletedMetacards() == null || input.getDeletedMetacards()
                     .isEmpty()) {
                 return input;
             }
 
-            for (int i = 0; i < input.getDeletedMetacards().size(); i++) {
+            List<ReplicationOperation> operations = new ArrayList<>();
 
-                Metacard metacard = input.getDeletedMetacards().get(i);
+            for (Metacard metacard : input.getDeletedMetacards()) {
 
                 if (metacard != null && metacard.getId() != null) {
-
-                    updateClient.path(metacard.getId());
-
-                    Response r = updateClient.delete();
-
-                    LOGGER.debug("RESPONSE: [{}]", ToStringBuilder.reflectionToString(r));
+                    operations.add(new ReplicationOperation(ReplicationOperation.Type.DELETE,
+                            metacard.getId(), null, null, System.currentTimeMillis()));
                 }
 
             }
+
+            enqueue(operations);
         }
 
         return input;
@@ -187,13 +307,208 @@ public void setTransformer(MetacardTransformer transformer) {
         LOGGER.debug("Changed transformer to [{}]", this.transformer);
     }
 
-    private String transform(Metacard m, WebClient client) throws PluginExecutionException {
+    public String getOutboxDirectory() {
+        return outboxDirectory;
+    }
+
+    public synchronized void setOutboxDirectory(String outboxDirectory) {
+        if (outboxDirectory != null && !outboxDirectory.equals(this.outboxDirectory)) {
+            this.outboxDirectory = outboxDirectory;
+            if (outbox != null) {
+                LOGGER.info("Replication outbox changed to {}; operations pending in {} will be "
+                        + "delivered after a restart", outboxDirectory, outbox.getDirectory());
+                outbox = null;
+            }
+        }
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    /**
+     * Takes effect the next time the plugin is started.
+     */
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        this.maxConcurrentRequests = Math.max(1, maxConcurrentRequests);
+    }
+
+    public long getInitialRetryDelay() {
+        return initialRetryDelay;
+    }
+
+    public void setInitialRetryDelay(long initialRetryDelay) {
+        this.initialRetryDelay = Math.max(1, initialRetryDelay);
+    }
+
+    public long getMaxRetryDelay() {
+        return maxRetryDelay;
+    }
+
+    public void setMaxRetryDelay(long maxRetryDelay) {
+        this.maxRetryDelay = Math.max(1, maxRetryDelay);
+    }
+
+    /**
+     * @return the number of operations waiting to be replicated to the parent
+     */
+    public int getPendingCount() {
+        ReplicationOutbox current = outbox;
+        return current == null ? 0 : current.size();
+    }
+
+    /**
+     * @return the age in milliseconds of the oldest operation waiting to be replicated, or 0 if
+     *         replication is caught up
+     */
+    public long getReplicationLag() {
+        ReplicationOutbox current = outbox;
+        if (current == null) {
+            return 0;
+        }
+        long oldest = current.getOldestCreatedTime();
+        return oldest < 0 ? 0 : System.currentTimeMillis() - oldest;
+    }
+
+    /**
+     * Sends the next batch of pending operations to the parent. Operations on different metacards
+     * are sent concurrently; operations on the same metacard are sent in order, and the remaining
+     * ones are held back as soon as one of them fails.
+     */
+    void deliverPending() {
+        ReplicationOutbox current = outbox;
+        WebClient parent = client;
+        if (current == null || parent == null) {
+            return;
+        }
+
+        List<ReplicationOperation> batch = current.nextBatch(batchSize,
+                System.currentTimeMillis());
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<ReplicationOperation>> byMetacard = new LinkedHashMap<>();
+        for (ReplicationOperation operation : batch) {
+            List<ReplicationOperation> operations = byMetacard.get(operation.getOrderingKey());
+            if (operations == null) {
+                operations = new ArrayList<>();
+                byMetacard.put(operation.getOrderingKey(), operations);
+            }
+            operations.add(operation);
+        }
+
+        List<Future<?>> inFlight = new ArrayList<>();
+        for (List<ReplicationOperation> operations : byMetacard.values()) {
+            inFlight.add(senders.submit(new Delivery(current, parent, operations)));
+        }
+
+        for (Future<?> future : inFlight) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                LOGGER.warn("Unexpected error replicating to parent {}", parentAddress,
+                        e.getCause());
+            }
+        }
+    }
+
+    /**
+     * @return true if the operation no longer needs to be sent
+     */
+    private boolean send(WebClient parent, ReplicationOperation operation) {
+        WebClient operationClient = WebClient.fromClient(parent);
+        Response response;
+
+        try {
+            switch (operation.getType()) {
+            case CREATE:
+                operationClient.type(getValidMimeType(operation.getMimeType()));
+                response = operationClient
+                        .post(new String(operation.getPayload(), StandardCharsets.UTF_8));
+                break;
+            case UPDATE:
+                operationClient.path(operation.getId());
+                operationClient.type(getValidMimeType(operation.getMimeType()));
+                response = operationClient
+                        .put(new String(operation.getPayload(), StandardCharsets.UTF_8));
+                break;
+            default:
+                operationClient.path(operation.getId());
+                operationClient.type(MediaType.APPLICATION_JSON);
+                response = operationClient.delete();
+                break;
+            }
+        } catch (RuntimeException e) {
+            LOGGER.debug("Unable to replicate {} to parent {}", operation, parentAddress, e);
+            return false;
+        }
+
+        int status = response.getStatus();
+        LOGGER.debug("RESPONSE: [{}] for {}", status, operation);
+
+        if (status < 400) {
+            replicated.mark();
+            return true;
+        }
+
+        if (status < 500 && status != 408 && status != 429) {
+            // the parent will never accept this request, so retrying would only block the queue
+            LOGGER.warn("Parent {} rejected {} with status {}", parentAddress, operation, status);
+            rejected.mark();
+            return true;
+        }
+
+        return false;
+    }
+
+    private long getRetryDelay(int attempts) {
+        long delay = initialRetryDelay << Math.min(attempts, 30);
+        return delay <= 0 || delay > maxRetryDelay ? maxRetryDelay : delay;
+    }
+
+    private void enqueue(List<ReplicationOperation> operations) throws PluginExecutionException {
+        if (operations.isEmpty()) {
+            return;
+        }
+
+        try {
+            ReplicationOutbox current = getOutbox();
+            for (ReplicationOperation operation : operations) {
+                current.add(operation);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Could not queue metacards for replication.", e);
+            throw new PluginExecutionException("Could not send metacard.");
+        }
+    }
+
+    synchronized ReplicationOutbox getOutbox() throws IOException {
+        if (outbox == null) {
+            outbox = new ReplicationOutbox(new File(outboxDirectory));
+        }
+        return outbox;
+    }
+
+    private ReplicationOperation transform(ReplicationOperation.Type type, String id, Metacard m)
+            throws PluginExecutionException {
 
         BinaryContent binaryContent;
         try {
             binaryContent = transformer.transform(m, null);
-            client.type(getValidMimeType(binaryContent.getMimeTypeValue()));
-            return new String(binaryContent.getByteArray(), StandardCharsets.UTF_8);
+            return new ReplicationOperation(type, id, binaryContent.getMimeTypeValue(),
+                    binaryContent.getByteArray(), System.currentTimeMillis());
         } catch (IOException e) {
             LOGGER.warn("Could not understand metacard.", e);
             throw new PluginExecutionException("Could not send metacard.");
@@ -209,4 +524,57 @@ private String getValidMimeType(String mimeTypeValue) {
         }
         return mimeTypeValue;
     }
+
+    private class Delivery implements Runnable {
+
+        private final ReplicationOutbox outbox;
+
+        private final WebClient parent;
+
+        private final List<ReplicationOperation> operations;
+
+        Delivery(ReplicationOutbox outbox, WebClient parent,
+                List<ReplicationOperation> operations) {
+            this.outbox = outbox;
+            this.parent = parent;
+            this.operations = operations;
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < operations.size(); i++) {
+                ReplicationOperation operation = operations.get(i);
+                if (send(parent, operation)) {
+                    outbox.complete(operation);
+                } else {
+                    long nextAttempt = System.currentTimeMillis() + getRetryDelay(
+                            operation.getAttempts());
+                    outbox.retryLater(operation, nextAttempt);
+                    for (int j = i + 1; j < operations.size(); j++) {
+                        outbox.release(operations.get(j));
+                    }
+                    retries.mark();
+                    return;
+                }
+            }
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.federation.layered.replication;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestReplicationOutbox {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File directory;
+
+    private ReplicationOutbox outbox;
+
+    @Before
+    public void setup() throws Exception {
+        directory = new File(temporaryFolder.getRoot(), "outbox");
+        outbox = new ReplicationOutbox(directory);
+    }
+
+    @Test
+    public void testOperationsSurviveRestart() throws Exception {
+        outbox.add(create("1", "first"));
+        outbox.add(delete("2"));
+
+        ReplicationOutbox reloaded = new ReplicationOutbox(directory);
+
+        assertThat(reloaded.size(), is(2));
+        List<ReplicationOperation> batch = reloaded.nextBatch(10, System.currentTimeMillis());
+        assertThat(batch.size(), is(2));
+        assertThat(batch.get(0).getType(), is(ReplicationOperation.Type.CREATE));
+        assertThat(batch.get(0).getId(), is("1"));
+        assertThat(batch.get(0).getMimeType(), is("application/json"));
+        assertThat(new String(batch.get(0).getPayload(), StandardCharsets.UTF_8), is("first"));
+        assertThat(batch.get(1).getType(), is(ReplicationOperation.Type.DELETE));
+        assertThat(batch.get(1).getPayload(), nullValue());
+    }
+
+    @Test
+    public void testCompletedOperationsAreRemoved() throws Exception {
+        outbox.add(create("1", "first"));
+
+        List<ReplicationOperation> batch = outbox.nextBatch(10, System.currentTimeMillis());
+        outbox.complete(batch.get(0));
+
+        assertThat(outbox.size(), is(0));
+        assertThat(new ReplicationOutbox(directory).size(), is(0));
+    }
+
+    @Test
+    public void testOperationsOnSameMetacardAreOrdered() throws Exception {
+        outbox.add(create("1", "first"));
+        outbox.add(update("1", "second"));
+        outbox.add(create("2", "other"));
+
+        long now = System.currentTimeMillis();
+        List<ReplicationOperation> batch = outbox.nextBatch(10, now);
+
+        assertThat(batch.size(), is(2));
+        assertThat(batch.get(0).getId(), is("1"));
+        assertThat(batch.get(1).getId(), is("2"));
+
+        // the update cannot be sent while the create is in flight
+        assertThat(outbox.nextBatch(10, now).size(), is(0));
+
+        outbox.complete(batch.get(0));
+        List<ReplicationOperation> next = outbox.nextBatch(10, now);
+        assertThat(next.size(), is(1));
+        assertThat(next.get(0).getType(), is(ReplicationOperation.Type.UPDATE));
+    }
+
+    @Test
+    public void testFailedOperationIsRetriedAfterDelay() throws Exception {
+        outbox.add(create("1", "first"));
+        outbox.add(update("1", "second"));
+
+        long now = System.currentTimeMillis();
+        ReplicationOperation failed = outbox.nextBatch(10, now).get(0);
+        outbox.retryLater(failed, now + 1000);
+
+        assertThat(failed.getAttempts(), is(1));
+        assertThat(outbox.nextBatch(10, now + 999).size(), is(0));
+
+        List<ReplicationOperation> retry = outbox.nextBatch(10, now + 1000);
+        assertThat(retry.size(), is(1));
+        assertThat(retry.get(0).getType(), is(ReplicationOperation.Type.CREATE));
+    }
+
+    @Test
+    public void testInFlightOperationsAreReleased() throws Exception {
+        outbox.add(create("1", "first"));
+
+        long now = System.currentTimeMillis();
+        assertThat(outbox.nextBatch(10, now).size(), is(1));
+        assertThat(outbox.nextBatch(10, now).size(), is(0));
+
+        outbox.releaseInFlight();
+
+        assertThat(outbox.nextBatch(10, now).size(), is(1));
+    }
+
+    @Test
+    public void testBatchSizeIsHonored() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            outbox.add(delete(Integer.toString(i)));
+        }
+
+        assertThat(outbox.nextBatch(3, System.currentTimeMillis()).size(), is(3));
+    }
+
+    private ReplicationOperation create(String id, String payload) {
+        return new ReplicationOperation(ReplicationOperation.Type.CREATE, id, "application/json",
+                payload.getBytes(StandardCharsets.UTF_8), System.currentTimeMillis());
+    }
+
+    private ReplicationOperation update(String id, String payload) {
+        return new ReplicationOperation(ReplicationOperation.Type.UPDATE, id, "application/json",
+                payload.getBytes(StandardCharsets.UTF_8), System.currentTimeMillis());
+    }
+
+    private ReplicationOperation delete(String id) {
+        return new ReplicationOperation(ReplicationOperation.Type.DELETE, id, null, null,
+                System.currentTimeMillis());
+    }
+}
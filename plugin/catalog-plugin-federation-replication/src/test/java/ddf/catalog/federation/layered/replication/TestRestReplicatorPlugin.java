@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.federation.layered.replication;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.isA;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import ddf.catalog.data.BinaryContent;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.operation.CreateResponse;
+import ddf.catalog.operation.DeleteResponse;
+import ddf.catalog.operation.impl.CreateRequestImpl;
+import ddf.catalog.operation.impl.CreateResponseImpl;
+import ddf.catalog.operation.impl.DeleteResponseImpl;
+import ddf.catalog.transform.MetacardTransformer;
+
+public class TestRestReplicatorPlugin {
+
+    // nothing listens on this port, so every delivery fails
+    private static final String UNREACHABLE_PARENT = "http://localhost:1/services/catalog";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File directory;
+
+    private RestReplicatorPlugin plugin;
+
+    private Metacard metacard;
+
+    @Before
+    public void setup() throws Exception {
+        directory = new File(temporaryFolder.getRoot(), "outbox");
+
+        MetacardTransformer transformer = mock(MetacardTransformer.class);
+        BinaryContent content = mock(BinaryContent.class);
+        when(content.getByteArray()).thenReturn("<xml/>".getBytes(StandardCharsets.UTF_8));
+        when(content.getMimeTypeValue()).thenReturn("text/xml");
+        when(transformer.transform(isA(Metacard.class), isNull(Map.class))).thenReturn(content);
+
+        plugin = new RestReplicatorPlugin(UNREACHABLE_PARENT);
+        plugin.setTransformer(transformer);
+        plugin.setOutboxDirectory(directory.getPath());
+        plugin.setInitialRetryDelay(1);
+        plugin.setMaxRetryDelay(1);
+
+        metacard = mock(Metacard.class);
+        when(metacard.getId()).thenReturn("23");
+    }
+
+    @After
+    public void tearDown() {
+        plugin.destroy();
+    }
+
+    @Test
+    public void testCreateIsWrittenToOutbox() throws Exception {
+        CreateResponse createResponse = new CreateResponseImpl(new CreateRequestImpl(metacard),
+                null, Arrays.asList(metacard));
+
+        CreateResponse response = plugin.process(createResponse);
+
+        assertThat(response, sameInstance(createResponse));
+        assertThat(plugin.getPendingCount(), is(1));
+
+        List<ReplicationOperation> pending = new ReplicationOutbox(directory)
+                .nextBatch(10, System.currentTimeMillis());
+        assertThat(pending.size(), is(1));
+        assertThat(pending.get(0).getType(), is(ReplicationOperation.Type.CREATE));
+        assertThat(pending.get(0).getId(), is("23"));
+        assertThat(pending.get(0).getMimeType(), is("text/xml"));
+        assertThat(new String(pending.get(0).getPayload(), StandardCharsets.UTF_8), is("<xml/>"));
+    }
+
+    @Test
+    public void testDeleteIsWrittenToOutbox() throws Exception {
+        DeleteResponse deleteResponse = new DeleteResponseImpl(null, null,
+                Arrays.asList(metacard));
+
+        plugin.process(deleteResponse);
+
+        List<ReplicationOperation> pending = new ReplicationOutbox(directory)
+                .nextBatch(10, System.currentTimeMillis());
+        assertThat(pending.size(), is(1));
+        assertThat(pending.get(0).getType(), is(ReplicationOperation.Type.DELETE));
+        assertThat(pending.get(0).getId(), is("23"));
+    }
+
+    @Test
+    public void testUndeliveredOperationsStayPending() throws Exception {
+        plugin.init();
+        plugin.process(new CreateResponseImpl(new CreateRequestImpl(metacard), null,
+                Arrays.asList(metacard)));
+
+        plugin.deliverPending();
+
+        assertThat(plugin.getPendingCount(), is(1));
+        assertThat(new ReplicationOutbox(directory).size(), is(1));
+    }
+
+    @Test
+    public void testInFlightOperationsAreSentAgainAfterRestart() throws Exception {
+        plugin.process(new CreateResponseImpl(new CreateRequestImpl(metacard), null,
+                Arrays.asList(metacard)));
+
+        ReplicationOutbox outbox = plugin.getOutbox();
+        long now = System.currentTimeMillis();
+        assertThat(outbox.nextBatch(10, now).size(), is(1));
+
+        plugin.destroy();
+
+        assertThat(outbox.nextBatch(10, now).size(), is(1));
+    }
+}
@@ -18,7 +18,20 @@
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.Vector;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.ErrorListener;
@@ -39,6 +52,11 @@
 import org.slf4j.LoggerFactory;
 
 import ddf.catalog.data.Metacard;
+import ddf.catalog.operation.CreateRequest;
+import ddf.catalog.operation.DeleteRequest;
+import ddf.catalog.operation.UpdateRequest;
+import ddf.catalog.plugin.PluginExecutionException;
+import ddf.catalog.plugin.PreIngestPlugin;
 import ddf.catalog.plugin.StopProcessingException;
 import ddf.catalog.validation.MetacardValidator;
 import ddf.catalog.validation.ValidationException;
@@ -66,16 +84,30 @@
  * XML document, validating it against the "compiled" Schematron schema file.
  *
  * This service is using the SVRL script, hence the output of the validation will be an
- * SVRL-formatted XML document.
+ * SVRL-formatted XML document. The SVRL output is parsed as it is streamed from the transformer
+ * (see {@link StreamingSvrlReport}) rather than being built into a DOM.
+ *
+ * The {@link Transformer} instances created from the compiled Schematron schema are pooled and
+ * reused across validations. When registered as a {@link PreIngestPlugin}, all metacards of a
+ * {@link CreateRequest} are validated in parallel using {@link #validate(CreateRequest)}.
  *
  * @see <a href="http://www.schematron.com">Schematron</a>
  *
  * @author rodgersh
  *
  */
-public class SchematronValidationService implements MetacardValidator {
+public class SchematronValidationService implements MetacardValidator, PreIngestPlugin {
     private static final int DEFAULT_PRIORITY = 100;
 
+    /** Maximum number of idle transformers retained for reuse */
+    private static final int TRANSFORMER_POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+
+    /** Number of threads validating the metacards of a {@link CreateRequest} */
+    private static final int VALIDATION_THREADS = Runtime.getRuntime().availableProcessors();
+
+    /** Maximum number of metacards waiting for a validation thread */
+    private static final int VALIDATION_QUEUE_SIZE = VALIDATION_THREADS * 16;
+
     private static final String CLASS_NAME = SchematronValidationService.class.getName();
 
     /** ISO Schematron XSLT to expand inclusions in provided Schematron schema file */
@@ -128,8 +160,21 @@ public class SchematronValidationService implements MetacardValidator {
     /** Generated xsl:messages from the preprocessor */
     private Vector<String> warnings = new Vector<String>();
 
-    /** Report generated during transformation/validation of input XML against precompiled .sch file */
-    private SchematronReport report;
+    /** Idle transformers created from {@link #validator}, ready to be reused */
+    private final BlockingQueue<Transformer> transformerPool = new LinkedBlockingQueue<>(
+            TRANSFORMER_POOL_SIZE);
+
+    /**
+     * Report generated during the calling thread's last transformation/validation of input XML
+     * against precompiled .sch file
+     */
+    private final ThreadLocal<SchematronReport> report = new ThreadLocal<>();
+
+    /**
+     * Validates the metacards of a {@link CreateRequest} in parallel. Metacards that do not fit
+     * in its queue are validated by the calling thread.
+     */
+    private final ExecutorService validationExecutor = createValidationExecutor();
 
     /**
      * @param bundle
@@ -407,22 +452,17 @@ public void performSchematronValidation(int catalogEntryNum, Metacard catalogEnt
         try {
             // Using the precompiled/stored Schematron validator, validate the catalog entry's
             // contents
-            Transformer transformer = validator.newTransformer();
-            DOMResult schematronResult = new DOMResult();
-            transformer.transform(new StreamSource(entryDocumentReader), schematronResult);
-            this.report = new SvrlReport(schematronResult);
-
-            LOGGER.trace("SVRL Report:\n\n{}", report.getReportAsText());
+            SchematronReport report = generateReport(entryDocumentReader);
 
             // If the Schematron validation failed, then throw an exception with details of the
             // errors
             // and warnings from the Schematron report included in the exception that is thrown to
             // the client.
-            if (!this.report.isValid(this.suppressWarnings)) {
+            if (!report.isValid(this.suppressWarnings)) {
                 StringBuffer errorMessage = new StringBuffer(
                         "Schematron validation failed for catalog entry #" + catalogEntryNum
                                 + ".\n\n");
-                List<String> errors = this.report.getErrors();
+                List<String> errors = report.getErrors();
                 LOGGER.debug("errors.size() = {}", errors.size());
                 for (String error : errors) {
                     errorMessage.append(error);
@@ -432,7 +472,7 @@ public void performSchematronValidation(int catalogEntryNum, Metacard catalogEnt
                 // If warnings are to be included from the Schematron report as part of the errors
                 // message
                 if (!this.suppressWarnings) {
-                    List<String> warnings = this.report.getWarnings();
+                    List<String> warnings = report.getWarnings();
                     LOGGER.debug("warnings.size() = {}", warnings.size());
                     for (String warning : warnings) {
                         LOGGER.debug("warning = {}", warning);
@@ -455,12 +495,13 @@ public void performSchematronValidation(int catalogEntryNum, Metacard catalogEnt
     }
 
     /**
-     * Retrieve the Schematron validation results.
+     * Retrieve the Schematron validation results of the last validation performed by the calling
+     * thread.
      *
      * @return Schematron validation output report
      */
     public SchematronReport getSchematronReport() {
-        return this.report;
+        return this.report.get();
     }
 
     /**
@@ -502,6 +543,23 @@ public void setSuppressWarnings(boolean suppressWarnings) {
         LOGGER.debug("EXITING: setSuppressWarnings");
     }
 
+    /**
+     * Stops the threads validating metacards. Metacards validated after this service is
+     * destroyed are validated by the calling thread.
+     */
+    public void destroy() {
+        validationExecutor.shutdownNow();
+    }
+
+    private static ExecutorService createValidationExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(VALIDATION_THREADS,
+                VALIDATION_THREADS, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(VALIDATION_QUEUE_SIZE));
+        // idle services do not hold on to their threads
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     /**
      * Retrieve the priority of this validation service.
      *
@@ -550,12 +608,7 @@ public void validate(Metacard metacard) throws ValidationException {
                 // Using the precompiled/stored Schematron validator, validate
                 // the catalog entry's
                 // contents
-                Transformer transformer = validator.newTransformer();
-                DOMResult schematronResult = new DOMResult();
-                transformer.transform(new StreamSource(metadataReader), schematronResult);
-                this.report = new SvrlReport(schematronResult);
-
-                LOGGER.trace("SVRL Report:\n\n{}", report.getReportAsText());
+                SchematronReport report = generateReport(metadataReader);
 
                 // If the Schematron validation failed, then throw an exception
                 // with details of the
@@ -563,12 +616,12 @@ public void validate(Metacard metacard) throws ValidationException {
                 // and warnings from the Schematron report included in the
                 // exception that is thrown to
                 // the client.
-                if (!this.report.isValid(this.suppressWarnings)) {
+                if (!report.isValid(this.suppressWarnings)) {
                     List<String> warnings = new ArrayList<String>();
 
                     StringBuffer errorMessage = new StringBuffer(
                             "Schematron validation failed.\n\n");
-                    List<String> errors = this.report.getErrors();
+                    List<String> errors = report.getErrors();
 
                     List<String> trimmedErrors = new ArrayList<>();
                     LOGGER.debug("errors.size() = {}", errors.size());
@@ -582,7 +635,7 @@ public void validate(Metacard metacard) throws ValidationException {
                     // message
                     List<String> trimmedWarnings = new ArrayList<>();
                     if (!this.suppressWarnings) {
-                        warnings = this.report.getWarnings();
+                        warnings = report.getWarnings();
                         LOGGER.debug("warnings.size() = {}", warnings.size());
                         for (String warning : warnings) {
                             LOGGER.debug("warning = {}", warning);
@@ -607,6 +660,165 @@ public void validate(Metacard metacard) throws ValidationException {
         }
     }
 
+    /**
+     * Validates all of the metacards in the {@link CreateRequest} in parallel.
+     *
+     * @param createRequest
+     *            request containing the metacards to validate
+     * @return the {@link ValidationException} for each metacard that failed validation, keyed by
+     *         the metacard's position in {@link CreateRequest#getMetacards()}. The map is empty if
+     *         all of the metacards are valid.
+     */
+    public Map<Integer, ValidationException> validate(CreateRequest createRequest) {
+        Map<Integer, ValidationException> failures = new TreeMap<>();
+
+        if (createRequest == null || createRequest.getMetacards() == null) {
+            return failures;
+        }
+
+        List<Metacard> metacards = createRequest.getMetacards();
+        if (metacards.size() == 1) {
+            ValidationException failure = validateQuietly(metacards.get(0));
+            if (failure != null) {
+                failures.put(0, failure);
+            }
+            return failures;
+        }
+
+        List<Future<ValidationException>> futures = new ArrayList<>(metacards.size());
+        for (final Metacard metacard : metacards) {
+            Callable<ValidationException> validation = new Callable<ValidationException>() {
+                @Override
+                public ValidationException call() {
+                    return validateQuietly(metacard);
+                }
+            };
+            try {
+                futures.add(validationExecutor.submit(validation));
+            } catch (RejectedExecutionException e) {
+                LOGGER.debug("Validating metacard on the calling thread", e);
+                FutureTask<ValidationException> task = new FutureTask<>(validation);
+                task.run();
+                futures.add(task);
+            }
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            ValidationException failure;
+            try {
+                failure = futures.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (Future<ValidationException> future : futures.subList(i, futures.size())) {
+                    future.cancel(true);
+                }
+                failure = new SchematronValidationException(
+                        "Schematron validation interrupted.", e);
+            } catch (ExecutionException e) {
+                LOGGER.warn("Unable to validate metacard", e.getCause());
+                failure = new SchematronValidationException(
+                        "Could not setup validator to perform validation.", e.getCause());
+            } catch (CancellationException e) {
+                failure = new SchematronValidationException(
+                        "Schematron validation interrupted.", e);
+            }
+            if (failure != null) {
+                failures.put(i, failure);
+            }
+        }
+
+        return failures;
+    }
+
+    /**
+     * Validates all of the metacards in the {@link CreateRequest} in parallel, stopping the
+     * ingest if any of them is invalid.
+     */
+    @Override
+    public CreateRequest process(CreateRequest input)
+            throws PluginExecutionException, StopProcessingException {
+        Map<Integer, ValidationException> failures = validate(input);
+        if (!failures.isEmpty()) {
+            StringBuilder errorMessage = new StringBuilder();
+            for (Map.Entry<Integer, ValidationException> failure : failures.entrySet()) {
+                errorMessage.append("Schematron validation failed for catalog entry #")
+                        .append(failure.getKey() + 1).append(".\n\n");
+                ValidationException exception = failure.getValue();
+                if (!appendLines(errorMessage, exception.getErrors())
+                        & !appendLines(errorMessage, exception.getWarnings())) {
+                    errorMessage.append(exception.getMessage()).append("\n");
+                }
+            }
+            throw new StopProcessingException(errorMessage.toString());
+        }
+        return input;
+    }
+
+    @Override
+    public UpdateRequest process(UpdateRequest input)
+            throws PluginExecutionException, StopProcessingException {
+        return input;
+    }
+
+    @Override
+    public DeleteRequest process(DeleteRequest input)
+            throws PluginExecutionException, StopProcessingException {
+        return input;
+    }
+
+    /**
+     * @return true if any lines were appended
+     */
+    private static boolean appendLines(StringBuilder builder, List<String> lines) {
+        if (lines == null || lines.isEmpty()) {
+            return false;
+        }
+        for (String line : lines) {
+            builder.append(line).append("\n");
+        }
+        return true;
+    }
+
+    private ValidationException validateQuietly(Metacard metacard) {
+        try {
+            validate(metacard);
+            return null;
+        } catch (ValidationException e) {
+            return e;
+        }
+    }
+
+    /**
+     * Runs the precompiled Schematron validator against the document using a pooled
+     * {@link Transformer}, parsing the SVRL output as it is produced.
+     */
+    private SchematronReport generateReport(StringReader document) throws TransformerException {
+        Transformer transformer = transformerPool.poll();
+        if (transformer == null) {
+            transformer = validator.newTransformer();
+        }
+
+        StreamingSvrlReport svrlReport = new StreamingSvrlReport();
+        boolean reusable = false;
+        try {
+            transformer.transform(new StreamSource(document), svrlReport.getResult());
+            reusable = true;
+        } finally {
+            if (reusable) {
+                transformer.reset();
+                transformerPool.offer(transformer);
+            }
+        }
+
+        this.report.set(svrlReport);
+
+        if (LOGGER.isTraceEnabled()) {
+            LOGGER.trace("SVRL Report:\n\n{}", svrlReport.getReportAsText());
+        }
+
+        return svrlReport;
+    }
+
     /**
      * The Listener class which catches Saxon configuration errors.
      *
@@ -0,0 +1,269 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.services.schematron;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamResult;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Schematron Validation Report Language (SVRL) report that is built while the Schematron
+ * transformation is streaming its output, rather than from a DOM of the whole report.
+ *
+ * Only the svrl:failed-assert and svrl:failed-report elements are retained. A DOM containing just
+ * those elements is built lazily if {@link #getAllAssertMessages()},
+ * {@link #getAllReportMessages()} or {@link #getReportAsText()} is called.
+ */
+public class StreamingSvrlReport implements SchematronReport {
+
+    static final String SVRL_NAMESPACE = "http://purl.oclc.org/dsdl/svrl";
+
+    private static final String SVRL_PREFIX = "svrl:";
+
+    private static final String ROOT_TAG = "schematron-output";
+
+    private static final String ASSERT_FAIL_TAG = "failed-assert";
+
+    private static final String REPORT_FAIL_TAG = "failed-report";
+
+    private static final String TEXT_TAG = "text";
+
+    private static final String FLAG_ATTR = "flag";
+
+    private static final String WARNING_FLAG_ATTR_TEXT = "warning";
+
+    private static final String ERROR_FLAG_ATTR_TEXT = "error";
+
+    private final List<Failure> failures = new ArrayList<Failure>();
+
+    private Document document;
+
+    /**
+     * @return a {@link SAXResult} that populates this report as the SVRL output is written to it
+     */
+    public SAXResult getResult() {
+        return new SAXResult(new SvrlHandler());
+    }
+
+    @Override
+    public boolean isValid(boolean suppressWarnings) {
+        for (Failure failure : failures) {
+            if (ERROR_FLAG_ATTR_TEXT.equals(failure.flag)) {
+                return false;
+            }
+            if (!suppressWarnings && WARNING_FLAG_ATTR_TEXT.equals(failure.flag)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public NodeList getAllAssertMessages() {
+        return getDocument().getElementsByTagName(SVRL_PREFIX + ASSERT_FAIL_TAG);
+    }
+
+    @Override
+    public NodeList getAllReportMessages() {
+        return getDocument().getElementsByTagName(SVRL_PREFIX + REPORT_FAIL_TAG);
+    }
+
+    @Override
+    public List<String> getErrors() {
+        return getMessages(ERROR_FLAG_ATTR_TEXT);
+    }
+
+    @Override
+    public List<String> getWarnings() {
+        return getMessages(WARNING_FLAG_ATTR_TEXT);
+    }
+
+    @Override
+    public String getReportAsText() throws TransformerException {
+        Writer sw = new StringWriter();
+        PrintWriter out = new PrintWriter(sw);
+
+        TransformerFactory tfactory = TransformerFactory.newInstance();
+        Transformer transformer = tfactory.newTransformer();
+        Properties props = new Properties();
+        props.put("method", "xml");
+        props.put("indent", "yes");
+        transformer.setOutputProperties(props);
+        transformer.transform(new DOMSource(getDocument()), new StreamResult(out));
+        out.close();
+
+        return sw.toString();
+    }
+
+    /**
+     * Assertion messages are listed before report messages to match the ordering of
+     * {@link SvrlReport}.
+     */
+    private List<String> getMessages(String flag) {
+        List<String> messages = new ArrayList<String>();
+        for (Failure failure : failures) {
+            if (failure.isAssert && flag.equals(failure.flag)) {
+                messages.add(failure.text);
+            }
+        }
+        for (Failure failure : failures) {
+            if (!failure.isAssert && flag.equals(failure.flag)) {
+                messages.add(failure.text);
+            }
+        }
+        return messages;
+    }
+
+    private synchronized Document getDocument() {
+        if (document == null) {
+            try {
+                DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+                factory.setNamespaceAware(true);
+                Document doc = factory.newDocumentBuilder().newDocument();
+                Element root = doc.createElementNS(SVRL_NAMESPACE, SVRL_PREFIX + ROOT_TAG);
+                doc.appendChild(root);
+
+                for (Failure failure : failures) {
+                    Element element = doc.createElementNS(SVRL_NAMESPACE,
+                            SVRL_PREFIX + (failure.isAssert ? ASSERT_FAIL_TAG : REPORT_FAIL_TAG));
+                    for (Map.Entry<String, String> attribute : failure.attributes.entrySet()) {
+                        element.setAttribute(attribute.getKey(), attribute.getValue());
+                    }
+                    Element text = doc.createElementNS(SVRL_NAMESPACE, SVRL_PREFIX + TEXT_TAG);
+                    text.setTextContent(failure.text);
+                    element.appendChild(text);
+                    root.appendChild(element);
+                }
+                document = doc;
+            } catch (ParserConfigurationException e) {
+                throw new IllegalStateException("Unable to build SVRL report document", e);
+            }
+        }
+        return document;
+    }
+
+    private static final class Failure {
+        private final boolean isAssert;
+
+        private final String flag;
+
+        private final Map<String, String> attributes;
+
+        private String text = "";
+
+        private Failure(boolean isAssert, String flag, Map<String, String> attributes) {
+            this.isAssert = isAssert;
+            this.flag = flag;
+            this.attributes = attributes;
+        }
+    }
+
+    /**
+     * Collects the failed assertions and reports from the SVRL output. The text of a failure is
+     * the text of its first child element (svrl:text), or all of its text when it has no child
+     * elements.
+     */
+    private class SvrlHandler extends DefaultHandler {
+
+        private Failure current;
+
+        private int depth;
+
+        private boolean inFirstChild;
+
+        private boolean seenChildElement;
+
+        private StringBuilder text = new StringBuilder();
+
+        @Override
+        public void startElement(String uri, String localName, String qName,
+                Attributes attributes) {
+            if (current != null) {
+                depth++;
+                if (depth == 1 && !seenChildElement) {
+                    seenChildElement = true;
+                    inFirstChild = true;
+                    text.setLength(0);
+                }
+                return;
+            }
+
+            if (SVRL_NAMESPACE.equals(uri)
+                    && (ASSERT_FAIL_TAG.equals(localName) || REPORT_FAIL_TAG.equals(localName))) {
+                Map<String, String> attributeMap = new LinkedHashMap<String, String>();
+                for (int i = 0; i < attributes.getLength(); i++) {
+                    attributeMap.put(attributes.getQName(i), attributes.getValue(i));
+                }
+                current = new Failure(ASSERT_FAIL_TAG.equals(localName),
+                        attributes.getValue(FLAG_ATTR),
+                        Collections.unmodifiableMap(attributeMap));
+                depth = 0;
+                inFirstChild = false;
+                seenChildElement = false;
+                text.setLength(0);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            if (current == null) {
+                return;
+            }
+
+            if (depth == 0) {
+                if (!seenChildElement) {
+                    current.text = text.toString();
+                }
+                failures.add(current);
+                current = null;
+                return;
+            }
+
+            if (depth == 1 && inFirstChild) {
+                current.text = text.toString();
+                inFirstChild = false;
+            }
+            depth--;
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (current != null && (inFirstChild || !seenChildElement)) {
+                text.append(ch, start, length);
+            }
+        }
+    }
+}
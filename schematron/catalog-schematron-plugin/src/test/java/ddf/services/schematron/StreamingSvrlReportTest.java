@@ -0,0 +1,155 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.services.schematron;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringReader;
+import java.util.Arrays;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+public class StreamingSvrlReportTest {
+
+    private static final String SVRL =
+            "<svrl:schematron-output xmlns:svrl=\"http://purl.oclc.org/dsdl/svrl\">"
+                    + "<svrl:active-pattern id=\"pattern\"/>"
+                    + "<svrl:fired-rule context=\"/root\"/>"
+                    + "<svrl:failed-assert test=\"title\" flag=\"error\" location=\"/root\">"
+                    + "<svrl:text>Title is missing.</svrl:text>"
+                    + "<svrl:diagnostic-reference diagnostic=\"d\">ignored</svrl:diagnostic-reference>"
+                    + "</svrl:failed-assert>"
+                    + "<svrl:failed-report test=\"old\" flag=\"error\" location=\"/root/old\">"
+                    + "<svrl:text>Old element is present.</svrl:text>"
+                    + "</svrl:failed-report>"
+                    + "<svrl:failed-assert test=\"date\" flag=\"warning\" location=\"/root\">"
+                    + "<svrl:text>Date should be present.</svrl:text>"
+                    + "</svrl:failed-assert>"
+                    + "<svrl:failed-assert test=\"unflagged\" location=\"/root\">"
+                    + "<svrl:text>Not flagged.</svrl:text>"
+                    + "</svrl:failed-assert>"
+                    + "</svrl:schematron-output>";
+
+    private static final String WARNINGS_ONLY_SVRL =
+            "<svrl:schematron-output xmlns:svrl=\"http://purl.oclc.org/dsdl/svrl\">"
+                    + "<svrl:failed-report test=\"x\" flag=\"warning\">"
+                    + "<svrl:text>First warning.</svrl:text>"
+                    + "</svrl:failed-report>"
+                    + "<svrl:failed-assert test=\"y\" flag=\"warning\">"
+                    + "<svrl:text>Second warning.</svrl:text>"
+                    + "</svrl:failed-assert>"
+                    + "</svrl:schematron-output>";
+
+    @Test
+    public void parsesErrorsAndWarnings() throws Exception {
+        StreamingSvrlReport report = parse(SVRL);
+
+        assertEquals(Arrays.asList("Title is missing.", "Old element is present."),
+                report.getErrors());
+        assertEquals(Arrays.asList("Date should be present."), report.getWarnings());
+        assertThat(report.isValid(true), is(false));
+        assertThat(report.isValid(false), is(false));
+    }
+
+    @Test
+    public void listsAssertionsBeforeReports() throws Exception {
+        StreamingSvrlReport report = parse(WARNINGS_ONLY_SVRL);
+
+        assertEquals(Arrays.asList("Second warning.", "First warning."), report.getWarnings());
+        assertThat(report.getErrors(), is(empty()));
+    }
+
+    @Test
+    public void warningsOnlyAreValidWhenSuppressed() throws Exception {
+        StreamingSvrlReport report = parse(WARNINGS_ONLY_SVRL);
+
+        assertThat(report.isValid(true), is(true));
+        assertThat(report.isValid(false), is(false));
+    }
+
+    @Test
+    public void emptyOutputIsValid() throws Exception {
+        StreamingSvrlReport report = parse(
+                "<svrl:schematron-output xmlns:svrl=\"http://purl.oclc.org/dsdl/svrl\"/>");
+
+        assertThat(report.getErrors(), is(empty()));
+        assertThat(report.getWarnings(), is(empty()));
+        assertThat(report.isValid(false), is(true));
+        assertThat(report.getAllAssertMessages().getLength(), is(0));
+    }
+
+    @Test
+    public void textWithoutChildElementIsUsed() throws Exception {
+        StreamingSvrlReport report = parse(
+                "<svrl:schematron-output xmlns:svrl=\"http://purl.oclc.org/dsdl/svrl\">"
+                        + "<svrl:failed-assert flag=\"error\">Bare text.</svrl:failed-assert>"
+                        + "</svrl:schematron-output>");
+
+        assertEquals(Arrays.asList("Bare text."), report.getErrors());
+    }
+
+    @Test
+    public void elementsOutsideSvrlNamespaceAreIgnored() throws Exception {
+        StreamingSvrlReport report = parse(
+                "<svrl:schematron-output xmlns:svrl=\"http://purl.oclc.org/dsdl/svrl\">"
+                        + "<failed-assert flag=\"error\"><text>Not SVRL.</text></failed-assert>"
+                        + "</svrl:schematron-output>");
+
+        assertThat(report.getErrors(), is(empty()));
+    }
+
+    @Test
+    public void failuresAreAvailableAsNodes() throws Exception {
+        StreamingSvrlReport report = parse(SVRL);
+
+        assertThat(report.getAllAssertMessages().getLength(), is(3));
+        assertThat(report.getAllReportMessages().getLength(), is(1));
+        assertThat(report.getReportAsText(), containsString("Old element is present."));
+        assertThat(report.getReportAsText(), containsString("location=\"/root/old\""));
+    }
+
+    @Test
+    public void matchesDomReport() throws Exception {
+        DOMResult domResult = new DOMResult();
+        transform(SVRL, domResult);
+        SvrlReport domReport = new SvrlReport(domResult);
+
+        StreamingSvrlReport report = parse(SVRL);
+
+        assertEquals(domReport.getErrors(), report.getErrors());
+        assertEquals(domReport.getWarnings(), report.getWarnings());
+        assertEquals(domReport.isValid(true), report.isValid(true));
+        assertEquals(domReport.isValid(false), report.isValid(false));
+    }
+
+    private StreamingSvrlReport parse(String svrl) throws Exception {
+        StreamingSvrlReport report = new StreamingSvrlReport();
+        transform(svrl, report.getResult());
+        return report;
+    }
+
+    private void transform(String svrl, Result result) throws Exception {
+        TransformerFactory.newInstance().newTransformer()
+                .transform(new StreamSource(new StringReader(svrl)), result);
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.security.filter.plugin;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.shiro.subject.PrincipalCollection;
+
+/**
+ * Remembers for a limited time whether the subjects with some principals were permitted to see
+ * metacards with some security attributes, so the same decision is not made again for each query.
+ * <p/>
+ * Decisions are keyed by the principals themselves rather than a hash of them, so subjects never
+ * share decisions. The cache is disabled while its maximum size is 0.
+ */
+public class DecisionCache {
+
+    private Map<Key, Decision> decisions = newDecisions(0);
+
+    private int maximumSize = 0;
+
+    private long timeToLive = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * @return whether the principals were permitted to see metacards with the given canonical
+     * security attributes, or {@code null} if it is not known
+     */
+    public synchronized Boolean get(PrincipalCollection principals,
+            Map<String, List<String>> attributes) {
+        if (maximumSize < 1 || principals == null) {
+            return null;
+        }
+
+        Key key = new Key(principals, attributes);
+        Decision decision = decisions.get(key);
+        if (decision != null && decision.expires < System.currentTimeMillis()) {
+            decisions.remove(key);
+            return null;
+        }
+        return decision == null ? null : decision.permitted;
+    }
+
+    public synchronized void put(PrincipalCollection principals,
+            Map<String, List<String>> attributes, boolean permitted) {
+        if (maximumSize > 0 && principals != null) {
+            decisions.put(new Key(principals, attributes),
+                    new Decision(permitted, System.currentTimeMillis() + timeToLive));
+        }
+    }
+
+    public synchronized void setMaximumSize(int maximumSize) {
+        this.maximumSize = maximumSize;
+        decisions = newDecisions(maximumSize);
+    }
+
+    public synchronized void setTimeToLiveSeconds(long timeToLiveSeconds) {
+        this.timeToLive = TimeUnit.SECONDS.toMillis(timeToLiveSeconds);
+        decisions.clear();
+    }
+
+    public synchronized int size() {
+        return decisions.size();
+    }
+
+    private static Map<Key, Decision> newDecisions(final int maximumSize) {
+        return new LinkedHashMap<Key, Decision>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Decision> eldest) {
+                return size() > maximumSize;
+            }
+        };
+    }
+
+    private static class Key {
+
+        private final PrincipalCollection principals;
+
+        private final Map<String, List<String>> attributes;
+
+        private final int hashCode;
+
+        Key(PrincipalCollection principals, Map<String, List<String>> attributes) {
+            this.principals = principals;
+            this.attributes = attributes;
+            this.hashCode = 31 * principals.hashCode() + attributes.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return hashCode == key.hashCode && principals.equals(key.principals) && attributes
+                    .equals(key.attributes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static class Decision {
+
+        private final boolean permitted;
+
+        private final long expires;
+
+        Decision(boolean permitted, long expires) {
+            this.permitted = permitted;
+            this.expires = expires;
+        }
+    }
+}
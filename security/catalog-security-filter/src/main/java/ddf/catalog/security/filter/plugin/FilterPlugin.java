@@ -14,9 +14,14 @@
 package ddf.catalog.security.filter.plugin;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
+import org.apache.shiro.subject.PrincipalCollection;
 import org.apache.shiro.subject.Subject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,6 +46,8 @@ public class FilterPlugin implements PostQueryPlugin {
 
     private final Logger logger = LoggerFactory.getLogger(FilterPlugin.class);
 
+    private final DecisionCache decisionCache = new DecisionCache();
+
     /**
      * Processes a {@link ddf.catalog.operation.QueryResponse} after the execution of the
      * {@link ddf.catalog.operation.Query}.
@@ -78,7 +85,8 @@ public QueryResponse process(QueryResponse input)
         List<Result> results = input.getResults();
         List<Result> newResults = new ArrayList<Result>(results.size());
         Metacard metacard;
-        KeyValueCollectionPermission securityPermission = new KeyValueCollectionPermission();
+        // results share few combinations of security attributes, each is only decided once
+        Map<Map<String, List<String>>, Boolean> decisions = new HashMap<>();
         for (Result result : results) {
             metacard = result.getMetacard();
             Attribute attr = metacard.getAttribute(Metacard.SECURITY);
@@ -86,11 +94,13 @@ public QueryResponse process(QueryResponse input)
             if (null != attr) {
                 map = (Map<String, List<String>>) attr.getValue();
             }
-            securityPermission.clear();
-            if (map != null) {
-                securityPermission.addAll(map);
+            Map<String, List<String>> attributes = canonicalize(map);
+            Boolean permitted = decisions.get(attributes);
+            if (permitted == null) {
+                permitted = isPermitted(subject, attributes);
+                decisions.put(attributes, permitted);
             }
-            if (!subject.isPermitted(securityPermission)) {
+            if (!permitted) {
                 logger.debug("Filtering metacard {}", metacard.getId());
                 SecurityLogger.logInfo("Filtering metacard " + metacard.getId());
             } else {
@@ -105,4 +115,55 @@ public QueryResponse process(QueryResponse input)
         newResults = null;
         return input;
     }
+
+    /**
+     * Sets how many decisions are remembered across queries. Decisions are not remembered across
+     * queries when set to 0.
+     */
+    public void setDecisionCacheSize(int decisionCacheSize) {
+        logger.debug("Setting decision cache size = {}", decisionCacheSize);
+        decisionCache.setMaximumSize(decisionCacheSize);
+    }
+
+    /**
+     * Sets how long decisions are remembered across queries, which bounds how long a change of the
+     * attributes or policy of a subject may go unnoticed.
+     */
+    public void setDecisionCacheTimeToLiveSeconds(long decisionCacheTimeToLiveSeconds) {
+        logger.debug("Setting decision cache time to live = {} s", decisionCacheTimeToLiveSeconds);
+        decisionCache.setTimeToLiveSeconds(decisionCacheTimeToLiveSeconds);
+    }
+
+    private boolean isPermitted(Subject subject, Map<String, List<String>> attributes) {
+        PrincipalCollection principals = subject.getPrincipals();
+        Boolean permitted = decisionCache.get(principals, attributes);
+        if (permitted == null) {
+            permitted = subject.isPermitted(new KeyValueCollectionPermission(attributes));
+            decisionCache.put(principals, attributes, permitted);
+        }
+        return permitted;
+    }
+
+    /**
+     * @return the security attributes of a metacard with their keys and values sorted and without
+     * duplicate values, so equivalent attributes are equal
+     */
+    private Map<String, List<String>> canonicalize(Map<String, List<String>> map) {
+        Map<String, List<String>> attributes = new TreeMap<String, List<String>>();
+        if (map != null) {
+            for (Map.Entry<String, List<String>> entry : map.entrySet()) {
+                Set<String> values = new TreeSet<String>();
+                if (entry.getValue() != null) {
+                    for (String value : entry.getValue()) {
+                        // null values cannot be sorted, so they are left out
+                        if (value != null) {
+                            values.add(value);
+                        }
+                    }
+                }
+                attributes.put(entry.getKey(), new ArrayList<String>(values));
+            }
+        }
+        return attributes;
+    }
 }
@@ -16,6 +16,8 @@
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.Serializable;
@@ -76,13 +78,15 @@ public class FilterPluginTest {
 
     QueryResponseImpl incomingResponse;
 
+    AuthorizingRealm realm;
+
     @Before
     public void setup() {
         plugin = new FilterPlugin();
         QueryRequestImpl request = getSampleRequest();
         Map<String, Serializable> properties = new HashMap<String, Serializable>();
 
-        AuthorizingRealm realm = mock(AuthorizingRealm.class);
+        realm = mock(AuthorizingRealm.class);
 
         when(realm.getName()).thenReturn("mockRealm");
         when(realm.isPermitted(any(PrincipalCollection.class), any(Permission.class)))
@@ -154,6 +158,62 @@ public void testPluginFilter() {
         }
     }
 
+    @Test
+    public void testEachSecurityCombinationIsDecidedOnce() throws Exception {
+        QueryResponseImpl response = new QueryResponseImpl(incomingResponse.getRequest());
+        for (int i = 0; i < 1000; i++) {
+            MetacardImpl metacard = new MetacardImpl();
+            HashMap<String, List<String>> security = new HashMap<String, List<String>>();
+            // the same roles in a different order are the same combination
+            String role = i % 10 == 0 ? "B" : "C" + i % 10;
+            security.put("Roles", i % 2 == 0 ?
+                    Arrays.asList("A", role) :
+                    Arrays.asList(role, "A"));
+            metacard.setSecurity(security);
+            response.addResult(new ResultImpl(metacard), i == 999);
+        }
+
+        plugin.process(response);
+
+        Assert.assertEquals(100, response.getResults().size());
+        verify(realm, times(10)).isPermitted(any(PrincipalCollection.class),
+                any(Permission.class));
+    }
+
+    @Test
+    public void testDecisionCacheRemembersDecisionsAcrossQueries() throws Exception {
+        plugin.setDecisionCacheSize(100);
+        plugin.process(incomingResponse);
+
+        QueryResponseImpl response = new QueryResponseImpl(incomingResponse.getRequest());
+        response.addResult(new ResultImpl(getMoreRolesMetacard()), false);
+        response.addResult(new ResultImpl(getMissingRolesMetacard()), false);
+        response.addResult(new ResultImpl(getExactRolesMetacard()), false);
+        response.addResult(new ResultImpl(getNoRolesMetacard()), false);
+        response.addResult(new ResultImpl(getNoSecurityAttributeMetacard()), true);
+        plugin.process(response);
+        verifyFilterResponse(response);
+
+        // four combinations were decided for the first query only
+
+        verify(realm, times(4)).isPermitted(any(PrincipalCollection.class),
+                any(Permission.class));
+    }
+
+    @Test
+    public void testNullSecurityValuesAreIgnored() throws Exception {
+        QueryResponseImpl response = new QueryResponseImpl(incomingResponse.getRequest());
+        MetacardImpl metacard = new MetacardImpl();
+        HashMap<String, List<String>> security = new HashMap<String, List<String>>();
+        security.put("Roles", Arrays.asList("A", null, "B"));
+        metacard.setSecurity(security);
+        response.addResult(new ResultImpl(metacard), true);
+
+        plugin.process(response);
+
+        Assert.assertEquals(1, response.getResults().size());
+    }
+
     @Test(expected = StopProcessingException.class)
     public void testNoSubject() throws Exception {
         QueryResponseImpl response = new QueryResponseImpl(getSampleRequest());
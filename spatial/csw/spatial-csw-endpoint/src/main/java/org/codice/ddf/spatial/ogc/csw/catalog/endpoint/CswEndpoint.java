@@ -18,8 +18,6 @@
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.StringWriter;
-import java.io.Writer;
 import java.math.BigInteger;
 import java.net.URL;
 import java.util.ArrayList;
@@ -43,7 +41,6 @@
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Marshaller;
 import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -53,6 +50,7 @@
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.cxf.common.util.CollectionUtils;
+import org.codice.ddf.spatial.ogc.catalog.common.JaxbPool;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.Csw;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswConstants;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswException;
@@ -88,6 +86,7 @@
 import com.vividsolutions.jts.io.WKTReader;
 
 import ddf.catalog.CatalogFramework;
+import ddf.catalog.Constants;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.Result;
 import ddf.catalog.federation.FederationException;
@@ -199,7 +198,9 @@ public class CswEndpoint implements Csw {
 
     private static Map<String, Element> documentElements = new HashMap<String, Element>();
 
-    private static JAXBContext jaxBContext;
+    private static volatile JAXBContext jaxBContext;
+
+    private static volatile JaxbPool jaxbPool;
 
     private final TransformerManager mimeTypeTransformerManager;
 
@@ -235,13 +236,34 @@ public CswEndpoint(BundleContext context, CatalogFramework ddf, FilterBuilder fi
         this.uri = uri;
     }
 
-    public static synchronized JAXBContext getJaxBContext() throws JAXBException {
-        if (jaxBContext == null) {
+    public static JAXBContext getJaxBContext() throws JAXBException {
+        JAXBContext context = jaxBContext;
+        if (context == null) {
+            synchronized (CswEndpoint.class) {
+                context = jaxBContext;
+                if (context == null) {
+                    context = JAXBContext.newInstance("net.opengis.cat.csw.v_2_0_2:"
+                            + "net.opengis.filter.v_1_1_0:net.opengis.gml.v_3_1_1:"
+                            + "net.opengis.ows.v_1_0_0");
+                    jaxBContext = context;
+                }
+            }
+        }
+        return context;
+    }
 
-            jaxBContext = JAXBContext.newInstance("net.opengis.cat.csw.v_2_0_2:"
-                    + "net.opengis.filter.v_1_1_0:net.opengis.gml.v_3_1_1:net.opengis.ows.v_1_0_0");
+    private static JaxbPool getJaxbPool() throws JAXBException {
+        JaxbPool pool = jaxbPool;
+        if (pool == null) {
+            synchronized (CswEndpoint.class) {
+                pool = jaxbPool;
+                if (pool == null) {
+                    pool = new JaxbPool(getJaxBContext());
+                    jaxbPool = pool;
+                }
+            }
         }
-        return jaxBContext;
+        return pool;
     }
 
     @Override
@@ -683,19 +705,16 @@ private DescribeRecordResponseType buildDescribeRecordResponseFromTypes(List<QNa
     private CswRecordCollection queryCsw(GetRecordsType request) throws CswException {
         if (LOGGER.isDebugEnabled()) {
             try {
-                Writer writer = new StringWriter();
+                String xml = "";
                 try {
-                    Marshaller marshaller = getJaxBContext().createMarshaller();
-                    marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
-
                     JAXBElement<GetRecordsType> jaxbElement = new ObjectFactory()
                             .createGetRecords(request);
-                    marshaller.marshal(jaxbElement, writer);
+                    xml = getJaxbPool().marshalToString(jaxbElement);
                 } catch (JAXBException e) {
                     LOGGER.debug("Unable to marshall {} to XML.  Exception {}",
                             GetRecordsType.class, e);
                 }
-                LOGGER.debug(writer.toString());
+                LOGGER.debug(xml);
             } catch (Exception e) {
                 LOGGER.debug("Unable to create debug message for getRecordsType: {}", e);
             }
@@ -739,6 +758,11 @@ private CswRecordCollection queryCsw(GetRecordsType request) throws CswException
                 queryRequest = new QueryRequestImpl(frameworkQuery, false);
             }
 
+            if (ResultType.HITS.equals(request.getResultType())) {
+                // let the sources count the matching records without returning any of them
+                queryRequest.getProperties().put(Constants.QUERY_HITS_ONLY, true);
+            }
+
             try {
                 QueryResponse queryResponse = framework.query(queryRequest);
                 response.setSourceResponse(queryResponse);
@@ -1225,7 +1249,7 @@ private CswException createUnknownSchemaException(final String schema) {
 
     private InputStream marshalJaxB(JAXBElement<?> filterElement) throws JAXBException {
         ByteArrayOutputStream os = new ByteArrayOutputStream();
-        getJaxBContext().createMarshaller().marshal(filterElement, os);
+        getJaxbPool().marshal(filterElement, os, null);
         ByteArrayInputStream input = new ByteArrayInputStream(os.toByteArray());
         IOUtils.closeQuietly(os);
 
@@ -30,6 +30,7 @@
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.io.Serializable;
 import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -105,6 +106,7 @@
 import com.vividsolutions.jts.io.WKTReader;
 
 import ddf.catalog.CatalogFramework;
+import ddf.catalog.Constants;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.Result;
 import ddf.catalog.data.impl.MetacardImpl;
@@ -1509,6 +1511,8 @@ public void testPostGetRecordsHits()
 
         assertThat(collection.getCswRecords(), is(empty()));
         assertThat(collection.getResultType(), is(ResultType.HITS));
+        assertThat(argument.getValue().getPropertyValue(Constants.QUERY_HITS_ONLY),
+                is((Serializable) true));
     }
 
     @Test
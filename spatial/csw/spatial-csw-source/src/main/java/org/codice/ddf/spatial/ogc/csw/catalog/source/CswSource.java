@@ -17,8 +17,6 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
-import java.io.StringWriter;
-import java.io.Writer;
 import java.math.BigInteger;
 import java.net.URI;
 import java.util.ArrayList;
@@ -44,7 +42,6 @@
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Marshaller;
 import javax.xml.namespace.QName;
 
 import org.apache.commons.lang.StringUtils;
@@ -52,6 +49,7 @@
 import org.codice.ddf.spatial.ogc.catalog.MetadataTransformer;
 import org.codice.ddf.spatial.ogc.catalog.common.AvailabilityCommand;
 import org.codice.ddf.spatial.ogc.catalog.common.AvailabilityTask;
+import org.codice.ddf.spatial.ogc.catalog.common.JaxbPool;
 import org.codice.ddf.spatial.ogc.catalog.common.TrustedRemoteSource;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswConstants;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswException;
@@ -191,6 +189,9 @@ public class CswSource extends MaskableImpl implements FederatedSource, Connecte
 
     private static final JAXBContext JAXB_CONTEXT = initJaxbContext();
 
+    private static final JaxbPool JAXB_POOL =
+            JAXB_CONTEXT == null ? null : new JaxbPool(JAXB_CONTEXT);
+
     private static final String USE_POS_LIST_PROPERTY = "usePosList";
 
     private static Properties describableProperties = new Properties();
@@ -1081,20 +1082,16 @@ protected MetadataTransformer lookupMetadataTransformer(String transformerId) {
     }
 
     private String getGetRecordsTypeAsXml(GetRecordsType getRecordsType) {
-        Writer writer = new StringWriter();
         try {
-            Marshaller marshaller = JAXB_CONTEXT.createMarshaller();
-            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
-
             JAXBElement<GetRecordsType> jaxbElement = new JAXBElement<GetRecordsType>(
                     new QName(CswConstants.CSW_OUTPUT_SCHEMA, CswConstants.GET_RECORDS),
                     GetRecordsType.class, getRecordsType);
-            marshaller.marshal(jaxbElement, writer);
+            return JAXB_POOL.marshalToString(jaxbElement);
         } catch (JAXBException e) {
             LOGGER.error("{}: Unable to marshall {} to XML.", cswSourceConfiguration.getId(),
                     GetRecordsType.class, e);
         }
-        return writer.toString();
+        return "";
     }
 
     protected CapabilitiesType getCapabilities() {
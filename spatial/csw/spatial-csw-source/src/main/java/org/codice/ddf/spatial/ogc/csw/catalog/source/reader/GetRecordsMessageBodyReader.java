@@ -14,12 +14,29 @@
  **/
 package org.codice.ddf.spatial.ogc.csw.catalog.source.reader;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
@@ -27,8 +44,15 @@
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.ext.MessageBodyReader;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswConstants;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswRecordCollection;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswSourceConfiguration;
@@ -51,13 +75,72 @@
 /**
  * Custom JAX-RS MessageBodyReader for parsing a CSW GetRecords response, extracting the search
  * results and CSW records.
+ * <p/>
+ * The response is read with StAX, one record at a time. Each record is converted to a metacard on a
+ * shared pool of threads while the rest of the response is still being read, so neither the whole
+ * response nor more than a few records of XML are held in memory at once. Records are converted
+ * by the same XStream converters that parse a whole response, each one wrapped in the root and
+ * {@code SearchResults} elements of the response so it is parsed with the same namespaces.
  */
 public class GetRecordsMessageBodyReader implements MessageBodyReader<CswRecordCollection> {
     private static final Logger LOGGER = LoggerFactory.getLogger(GetRecordsMessageBodyReader.class);
 
+    private static final String SEARCH_RESULTS = "SearchResults";
+
+    private static final String NUMBER_OF_RECORDS_MATCHED = "numberOfRecordsMatched";
+
+    private static final String NUMBER_OF_RECORDS_RETURNED = "numberOfRecordsReturned";
+
+    /*
+     * Responses that are not a GetRecordsResponse, such as an ExceptionReport, are read again
+     * from the start, as long as the root element is found within this many bytes.
+     */
+    private static final int MARK_LIMIT = 64 * 1024;
+
+    private static final int CONVERTER_THREADS = Runtime.getRuntime().availableProcessors();
+
+    private static final int MAX_RECORDS_IN_PROGRESS = 2 * CONVERTER_THREADS;
+
+    private static final XMLInputFactory XML_INPUT_FACTORY;
+
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY;
+
+    private static final ThreadPoolExecutor CONVERTER_POOL;
+
+    static {
+        ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+        try {
+            Thread.currentThread()
+                    .setContextClassLoader(GetRecordsMessageBodyReader.class.getClassLoader());
+
+            XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+            XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+            XML_INPUT_FACTORY
+                    .setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+            XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+            XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+        } finally {
+            Thread.currentThread().setContextClassLoader(tccl);
+        }
+
+        CONVERTER_POOL = new ThreadPoolExecutor(CONVERTER_THREADS, CONVERTER_THREADS, 60L,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable,
+                        "csw-record-converter-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        CONVERTER_POOL.allowCoreThreadTimeOut(true);
+    }
+
     private XStream xstream;
 
-    private DataHolder argumentHolder;
+    private Map<String, Object> arguments;
 
     public GetRecordsMessageBodyReader(Converter provider, CswSourceConfiguration configuration) {
         xstream = new XStream(new XppDriver());
@@ -71,12 +154,23 @@ public GetRecordsMessageBodyReader(Converter provider, CswSourceConfiguration co
     }
 
     private void buildArguments(CswSourceConfiguration configuration) {
-        argumentHolder = xstream.newDataHolder();
-        argumentHolder.put(CswConstants.OUTPUT_SCHEMA_PARAMETER, configuration.getOutputSchema());
-        argumentHolder.put(CswConstants.CSW_MAPPING, configuration.getMetacardCswMappings());
-        argumentHolder.put(CswConstants.IS_LON_LAT_ORDER_PROPERTY, configuration.isLonLatOrder());
-        argumentHolder.put(Metacard.RESOURCE_URI, configuration.getResourceUriMapping());
-        argumentHolder.put(Metacard.THUMBNAIL, configuration.getThumbnailMapping());
+        arguments = new HashMap<>();
+        arguments.put(CswConstants.OUTPUT_SCHEMA_PARAMETER, configuration.getOutputSchema());
+        arguments.put(CswConstants.CSW_MAPPING, configuration.getMetacardCswMappings());
+        arguments.put(CswConstants.IS_LON_LAT_ORDER_PROPERTY, configuration.isLonLatOrder());
+        arguments.put(Metacard.RESOURCE_URI, configuration.getResourceUriMapping());
+        arguments.put(Metacard.THUMBNAIL, configuration.getThumbnailMapping());
+    }
+
+    /*
+     * The converters add to the data holder while unmarshalling, so each unmarshal gets its own.
+     */
+    private DataHolder newArgumentHolder() {
+        DataHolder argumentHolder = xstream.newDataHolder();
+        for (Map.Entry<String, Object> entry : arguments.entrySet()) {
+            argumentHolder.put(entry.getKey(), entry.getValue());
+        }
+        return argumentHolder;
     }
 
     @Override
@@ -91,43 +185,316 @@ public CswRecordCollection readFrom(Class<CswRecordCollection> type, Type generi
             MultivaluedMap<String, String> httpHeaders, InputStream inStream) throws IOException,
             WebApplicationException {
 
-        // Save original input stream for any exception message that might need to be
-        // created
-        String originalInputStream = IOUtils.toString(inStream, "UTF-8");
-        LOGGER.debug("Converting to CswRecordCollection: \n {}", originalInputStream);
+        BufferedInputStream in = new BufferedInputStream(inStream);
+        in.mark(MARK_LIMIT);
+
+        XMLStreamReader xmlReader = null;
+        try {
+            xmlReader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+            xmlReader.nextTag();
+
+            if (!CswConstants.GET_RECORDS_RESPONSE.equals(xmlReader.getLocalName())) {
+                // If an ExceptionReport is sent from the remote CSW site it will be sent with an
+                // JAX-RS "OK" status, hence the ErrorResponse exception mapper will not fire.
+                // Unmarshalling the whole response fails for it, and that failure is turned into
+                // a WebApplicationException with the ExceptionReport for the CswSource to log.
+                LOGGER.debug("Response is a {}, not a {}", xmlReader.getLocalName(),
+                        CswConstants.GET_RECORDS_RESPONSE);
+                return unmarshal(readFromMark(in));
+            }
+
+            return readRecords(xmlReader);
+        } catch (XMLStreamException e) {
+            String response;
+            try {
+                response = readFromMark(in);
+            } catch (IOException ioe) {
+                LOGGER.debug("Unable to read the start of the invalid response again", ioe);
+                response = String.valueOf(e.getMessage());
+            }
+            throw createWebApplicationException(e, response);
+        } finally {
+            closeQuietly(xmlReader);
+            IOUtils.closeQuietly(inStream);
+        }
+    }
+
+    private CswRecordCollection readRecords(XMLStreamReader xmlReader)
+            throws XMLStreamException, IOException {
+        CswRecordCollection cswRecords = new CswRecordCollection();
+        List<Metacard> metacards = cswRecords.getCswRecords();
+        Deque<RecordConversion> inProgress = new ArrayDeque<>();
+        ElementStart root = new ElementStart(xmlReader);
+        Long numberOfRecordsMatched = null;
+        Long numberOfRecordsReturned = null;
+
+        try {
+            while (xmlReader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                if (!SEARCH_RESULTS.equals(xmlReader.getLocalName())) {
+                    skipElement(xmlReader);
+                    continue;
+                }
+
+                numberOfRecordsMatched = parseCount(xmlReader, NUMBER_OF_RECORDS_MATCHED);
+                numberOfRecordsReturned = parseCount(xmlReader, NUMBER_OF_RECORDS_RETURNED);
+                ElementStart searchResults = new ElementStart(xmlReader);
+
+                while (xmlReader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                    String record = copyRecord(root, searchResults, xmlReader);
+                    inProgress.add(new RecordConversion(record));
+                    if (inProgress.size() >= MAX_RECORDS_IN_PROGRESS) {
+                        metacards.add(inProgress.poll().getMetacard());
+                    }
+                }
+            }
+
+            while (!inProgress.isEmpty()) {
+                metacards.add(inProgress.poll().getMetacard());
+            }
+        } finally {
+            for (RecordConversion conversion : inProgress) {
+                conversion.cancel();
+            }
+        }
+
+        // counts the response left out or garbled fall back to the records actually read
+        cswRecords.setNumberOfRecordsMatched(numberOfRecordsMatched != null ?
+                numberOfRecordsMatched :
+                metacards.size());
+        cswRecords.setNumberOfRecordsReturned(numberOfRecordsReturned != null ?
+                numberOfRecordsReturned :
+                metacards.size());
+
+        LOGGER.debug("Unmarshalled {} metacards", metacards.size());
+        return cswRecords;
+    }
+
+    /**
+     * Copies the record at the reader into a document of its own, nested in the root and
+     * {@code SearchResults} elements of the response. Leaves the reader at the end of the record.
+     */
+    private String copyRecord(ElementStart root, ElementStart searchResults,
+            XMLStreamReader xmlReader) throws XMLStreamException {
+        StringWriter record = new StringWriter();
+        XMLStreamWriter xmlWriter = XML_OUTPUT_FACTORY.createXMLStreamWriter(record);
+        try {
+            root.write(xmlWriter);
+            searchResults.write(xmlWriter);
+
+            int depth = 0;
+            do {
+                switch (xmlReader.getEventType()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    new ElementStart(xmlReader).write(xmlWriter);
+                    depth++;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    xmlWriter.writeEndElement();
+                    depth--;
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.SPACE:
+                    xmlWriter.writeCharacters(xmlReader.getTextCharacters(),
+                            xmlReader.getTextStart(), xmlReader.getTextLength());
+                    break;
+                case XMLStreamConstants.CDATA:
+                    xmlWriter.writeCData(xmlReader.getText());
+                    break;
+                default:
+                    break;
+                }
+                if (depth > 0) {
+                    xmlReader.next();
+                }
+            } while (depth > 0);
 
-        // Re-create the input stream (since it has already been read for potential
-        // exception message creation)
-        inStream = new ByteArrayInputStream(originalInputStream.getBytes("UTF-8"));
+            xmlWriter.writeEndElement();
+            xmlWriter.writeEndElement();
+            xmlWriter.flush();
+        } finally {
+            xmlWriter.close();
+        }
+        return record.toString();
+    }
+
+    private void skipElement(XMLStreamReader xmlReader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = xmlReader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private Metacard convertRecord(String record) throws XmlPullParserException {
+        LOGGER.debug("Converting record to a metacard: \n {}", record);
+        HierarchicalStreamReader reader = new XppReader(new StringReader(record),
+                XmlPullParserFactory.newInstance().newPullParser());
+        CswRecordCollection cswRecords = (CswRecordCollection) xstream
+                .unmarshal(reader, null, newArgumentHolder());
+        List<Metacard> metacards = cswRecords.getCswRecords();
+        return metacards.isEmpty() ? null : metacards.get(0);
+    }
+
+    private CswRecordCollection unmarshal(String originalInputStream) {
+        LOGGER.debug("Converting to CswRecordCollection: \n {}", originalInputStream);
 
         CswRecordCollection cswRecords = null;
 
         try {
-            HierarchicalStreamReader reader = new XppReader(new InputStreamReader(inStream),
+            HierarchicalStreamReader reader = new XppReader(new StringReader(originalInputStream),
                     XmlPullParserFactory.newInstance().newPullParser());
-            cswRecords = (CswRecordCollection) xstream.unmarshal(reader, null, argumentHolder);
+            cswRecords = (CswRecordCollection) xstream
+                    .unmarshal(reader, null, newArgumentHolder());
         } catch (XmlPullParserException e) {
             LOGGER.error("Unable to create XmlPullParser, and cannot parse CSW Response.", e);
         } catch (XStreamException e) {
-            // If an ExceptionReport is sent from the remote CSW site it will be sent with an
-            // JAX-RS "OK" status, hence the ErrorResponse exception mapper will not fire.
-            // Instead the ExceptionReport will come here and be treated like a GetRecords
-            // response, resulting in an XStreamException since ExceptionReport cannot be
-            // unmarshalled. So this catch clause is responsible for catching that XStream
-            // exception and creating a JAX-RS response containing the original stream
-            // (with the ExceptionReport) and rethrowing it as a WebApplicatioNException,
-            // which CXF will wrap as a ClientException that the CswSource catches, converts
-            // to a CswException, and logs.
-            ByteArrayInputStream bis = new ByteArrayInputStream(originalInputStream.getBytes());
-            ResponseBuilder responseBuilder = Response.ok(bis);
-            responseBuilder.type("text/xml");
-            Response response = responseBuilder.build();
-            throw new WebApplicationException(e, response);
-        } finally {
-            IOUtils.closeQuietly(inStream);
+            throw createWebApplicationException(e, originalInputStream);
         }
 
         return cswRecords;
     }
 
+    /**
+     * Creates a JAX-RS response containing the original response (such as an ExceptionReport) and
+     * wraps it in a WebApplicationException, which CXF will wrap as a ClientException that the
+     * CswSource catches, converts to a CswException, and logs.
+     */
+    private WebApplicationException createWebApplicationException(Exception e, String content) {
+        ByteArrayInputStream bis = new ByteArrayInputStream(content.getBytes());
+        ResponseBuilder responseBuilder = Response.ok(bis);
+        responseBuilder.type("text/xml");
+        Response response = responseBuilder.build();
+        return new WebApplicationException(e, response);
+    }
+
+    private String readFromMark(BufferedInputStream in) throws IOException {
+        in.reset();
+        return IOUtils.toString(in, "UTF-8");
+    }
+
+    /**
+     * @return the count in the attribute of the current element, or {@code null} if it is
+     * missing or not a number
+     */
+    private Long parseCount(XMLStreamReader xmlReader, String attribute) {
+        String value = xmlReader.getAttributeValue(null, attribute);
+        if (StringUtils.isBlank(value)) {
+            LOGGER.debug("Response has no {}; using the number of records read", attribute);
+            return null;
+        }
+        try {
+            return Long.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Invalid {} [{}]; using the number of records read", attribute, value, e);
+            return null;
+        }
+    }
+
+    private void closeQuietly(XMLStreamReader xmlReader) {
+        if (xmlReader != null) {
+            try {
+                xmlReader.close();
+            } catch (XMLStreamException e) {
+                LOGGER.debug("Unable to close XML stream reader", e);
+            }
+        }
+    }
+
+    /**
+     * A record being converted to a metacard on the converter pool.
+     */
+    private class RecordConversion {
+
+        private final String record;
+
+        private final Future<Metacard> metacard;
+
+        RecordConversion(final String record) {
+            this.record = record;
+            this.metacard = CONVERTER_POOL.submit(new Callable<Metacard>() {
+                @Override
+                public Metacard call() throws XmlPullParserException {
+                    return convertRecord(record);
+                }
+            });
+        }
+
+        Metacard getMetacard() throws IOException {
+            try {
+                return metacard.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while converting CSW records");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof XStreamException) {
+                    throw createWebApplicationException((XStreamException) cause, record);
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IOException("Unable to convert CSW record to a metacard", cause);
+            }
+        }
+
+        void cancel() {
+            metacard.cancel(true);
+        }
+    }
+
+    /**
+     * Name, namespace declarations and attributes of an element, so its start tag can be written
+     * again after the reader has moved past it.
+     */
+    private static class ElementStart {
+
+        private final String prefix;
+
+        private final String localName;
+
+        private final String namespaceUri;
+
+        private final List<String[]> namespaces = new ArrayList<>();
+
+        private final List<String[]> attributes = new ArrayList<>();
+
+        ElementStart(XMLStreamReader xmlReader) {
+            prefix = StringUtils.defaultString(xmlReader.getPrefix());
+            localName = xmlReader.getLocalName();
+            namespaceUri = StringUtils.defaultString(xmlReader.getNamespaceURI());
+            for (int i = 0; i < xmlReader.getNamespaceCount(); i++) {
+                namespaces.add(new String[] {
+                        StringUtils.defaultString(xmlReader.getNamespacePrefix(i)),
+                        StringUtils.defaultString(xmlReader.getNamespaceURI(i))});
+            }
+            for (int i = 0; i < xmlReader.getAttributeCount(); i++) {
+                attributes.add(new String[] {
+                        StringUtils.defaultString(xmlReader.getAttributePrefix(i)),
+                        StringUtils.defaultString(xmlReader.getAttributeNamespace(i)),
+                        xmlReader.getAttributeLocalName(i), xmlReader.getAttributeValue(i)});
+            }
+        }
+
+        void write(XMLStreamWriter xmlWriter) throws XMLStreamException {
+            xmlWriter.writeStartElement(prefix, localName, namespaceUri);
+            for (String[] namespace : namespaces) {
+                if (namespace[0].isEmpty()) {
+                    xmlWriter.writeDefaultNamespace(namespace[1]);
+                } else {
+                    xmlWriter.writeNamespace(namespace[0], namespace[1]);
+                }
+            }
+            for (String[] attribute : attributes) {
+                if (attribute[0].isEmpty()) {
+                    xmlWriter.writeAttribute(attribute[2], attribute[3]);
+                } else {
+                    xmlWriter.writeAttribute(attribute[0], attribute[1], attribute[2],
+                            attribute[3]);
+                }
+            }
+        }
+    }
 }
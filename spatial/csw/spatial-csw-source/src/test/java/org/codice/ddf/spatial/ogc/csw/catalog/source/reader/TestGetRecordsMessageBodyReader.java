@@ -17,6 +17,7 @@
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
@@ -28,6 +29,7 @@
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Date;
@@ -35,6 +37,9 @@
 import java.util.List;
 import java.util.Map;
 
+import javax.ws.rs.WebApplicationException;
+
+import org.apache.commons.io.IOUtils;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswConstants;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswRecordCollection;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswRecordMetacardType;
@@ -45,6 +50,7 @@
 import org.codice.ddf.spatial.ogc.csw.catalog.transformer.TransformerManager;
 import org.joda.time.format.DateTimeFormatter;
 import org.joda.time.format.ISODateTimeFormat;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -223,6 +229,48 @@ public void testGetMultipleMetacardsWithForeignText() throws Exception {
         assertThat(metacards.size(), equalTo(10));
     }
 
+    @Test
+    public void testExceptionReport() throws Exception {
+        CswSourceConfiguration config = new CswSourceConfiguration();
+        config.setOutputSchema(CswConstants.CSW_OUTPUT_SCHEMA);
+        GetRecordsMessageBodyReader reader = new GetRecordsMessageBodyReader(mockProvider, config);
+
+        String exceptionReport = "<ows:ExceptionReport version=\"1.2.0\" "
+                + "xmlns:ows=\"http://www.opengis.net/ows\">"
+                + "<ows:Exception exceptionCode=\"OPERATION_NOT_SUPPORTED\">"
+                + "<ows:ExceptionText>The XML request is not valid.</ows:ExceptionText>"
+                + "</ows:Exception></ows:ExceptionReport>";
+
+        try {
+            reader.readFrom(CswRecordCollection.class, null, null, null, null,
+                    new ByteArrayInputStream(exceptionReport.getBytes("UTF-8")));
+            Assert.fail("Expected a WebApplicationException for the ExceptionReport");
+        } catch (WebApplicationException e) {
+            // The ExceptionReport is passed on for the CswResponseExceptionMapper
+            String entity = IOUtils.toString((InputStream) e.getResponse().getEntity());
+            assertThat(entity, containsString("The XML request is not valid."));
+        }
+    }
+
+    @Test
+    public void testInvalidRecordCountsFallBackToRecordsRead() throws Exception {
+        CswSourceConfiguration config = new CswSourceConfiguration();
+        config.setOutputSchema(CswConstants.CSW_OUTPUT_SCHEMA);
+        GetRecordsMessageBodyReader reader = new GetRecordsMessageBodyReader(mockProvider, config);
+
+        String response = IOUtils.toString(TestGetRecordsMessageBodyReader.class
+                .getResourceAsStream("/getRecordsResponse.xml"), "UTF-8")
+                .replace("numberOfRecordsMatched=\"479\"", "numberOfRecordsMatched=\"many\"")
+                .replace("numberOfRecordsReturned=\"10\"", "");
+
+        CswRecordCollection cswRecords = reader.readFrom(CswRecordCollection.class, null, null,
+                null, null, new ByteArrayInputStream(response.getBytes("UTF-8")));
+
+        assertThat(cswRecords.getCswRecords().size(), equalTo(3));
+        assertThat(cswRecords.getNumberOfRecordsMatched(), equalTo(3L));
+        assertThat(cswRecords.getNumberOfRecordsReturned(), equalTo(3L));
+    }
+
     // //////////////////////////////////////////////////////////////////////////////////////////////////////
 
     private void assertMetacard(Metacard mc, Map<String, Object> expectedValues) {
@@ -21,6 +21,7 @@
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.GregorianCalendar;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -33,6 +34,7 @@
 import javax.xml.datatype.DatatypeFactory;
 import javax.xml.namespace.QName;
 
+import org.codice.ddf.spatial.ogc.catalog.common.JaxbPool;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswConstants;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswRecordCollection;
 import org.codice.ddf.spatial.ogc.csw.catalog.converter.GetRecordsResponseConverter;
@@ -65,6 +67,10 @@ public class CswQueryResponseTransformer implements QueryResponseTransformer {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CswQueryResponseTransformer.class);
 
+    private static volatile JAXBContext jaxBContext;
+
+    private static volatile JaxbPool jaxbPool;
+
     private XStream xstreamGetRecordsResponse;
 
     private XStream xstreamGetRecordByIdResponse;
@@ -199,11 +205,6 @@ private XStream initXstream(final String elementName, GetRecordsResponseConverte
     private void writeAcknowledgement(GetRecordsType request, OutputStream outStream) throws
             IOException {
         try {
-            JAXBContext jaxBContext = JAXBContext.newInstance("net.opengis.cat.csw.v_2_0_2:"
-                    + "net.opengis.filter.v_1_1_0:net.opengis.gml.v_3_1_1:net.opengis.ows.v_1_0_0");
-            Marshaller marshaller = jaxBContext.createMarshaller();
-            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
-
             AcknowledgementType ack = new AcknowledgementType();
             EchoedRequestType echoedRequest = new EchoedRequestType();
             JAXBElement<GetRecordsType> jaxBRequest = new ObjectFactory().createGetRecords(request);
@@ -218,9 +219,41 @@ private void writeAcknowledgement(GetRecordsType request, OutputStream outStream
 
             JAXBElement<AcknowledgementType> jaxBAck = new ObjectFactory()
                     .createAcknowledgement(ack);
-            marshaller.marshal(jaxBAck, outStream);
+            Map<String, Object> properties = new HashMap<>();
+            properties.put(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+            getJaxbPool().marshal(jaxBAck, outStream, properties);
         } catch (JAXBException e) {
             throw new IOException(e);
         }
     }
+
+    private static JAXBContext getJaxBContext() throws JAXBException {
+        JAXBContext context = jaxBContext;
+        if (context == null) {
+            synchronized (CswQueryResponseTransformer.class) {
+                context = jaxBContext;
+                if (context == null) {
+                    context = JAXBContext.newInstance("net.opengis.cat.csw.v_2_0_2:"
+                            + "net.opengis.filter.v_1_1_0:net.opengis.gml.v_3_1_1:"
+                            + "net.opengis.ows.v_1_0_0");
+                    jaxBContext = context;
+                }
+            }
+        }
+        return context;
+    }
+
+    private static JaxbPool getJaxbPool() throws JAXBException {
+        JaxbPool pool = jaxbPool;
+        if (pool == null) {
+            synchronized (CswQueryResponseTransformer.class) {
+                pool = jaxbPool;
+                if (pool == null) {
+                    pool = new JaxbPool(getJaxBContext());
+                    jaxbPool = pool;
+                }
+            }
+        }
+        return pool;
+    }
 }
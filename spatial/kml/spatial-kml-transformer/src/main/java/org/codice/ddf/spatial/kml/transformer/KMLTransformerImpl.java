@@ -43,6 +43,7 @@
 import javax.xml.transform.stream.StreamSource;
 
 import org.apache.commons.lang3.StringUtils;
+import org.codice.ddf.spatial.ogc.catalog.common.JaxbPool;
 import org.osgi.framework.BundleContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -118,6 +119,8 @@ public class KMLTransformerImpl implements KMLTransformer {
 
     private JAXBContext jaxbContext;
 
+    private JaxbPool jaxbPool;
+
     private ClassPathTemplateLoader templateLoader;
 
     private Map<String, String> platformConfiguration;
@@ -134,29 +137,32 @@ public KMLTransformerImpl(BundleContext bundleContext, String defaultStylingName
 
         URL stylingUrl = context.getBundle().getResource(defaultStylingName);
 
-        Unmarshaller unmarshaller = null;
         try {
             this.jaxbContext = JAXBContext.newInstance(Kml.class);
-            unmarshaller = jaxbContext.createUnmarshaller();
         } catch (JAXBException e) {
             LOGGER.error("Unable to create JAXB Context.  Setting to null.");
             this.jaxbContext = null;
         }
 
-        try {
-            if (unmarshaller != null) {
+        if (jaxbContext != null) {
+            jaxbPool = new JaxbPool(jaxbContext);
+            Unmarshaller unmarshaller = null;
+            try {
                 LOGGER.debug("Reading in KML Style");
+                unmarshaller = jaxbPool.acquireUnmarshaller();
                 JAXBElement<Kml> jaxbKmlStyle = unmarshaller
                         .unmarshal(new StreamSource(stylingUrl.openStream()), Kml.class);
                 Kml kml = jaxbKmlStyle.getValue();
                 if (kml.getFeature() != null) {
                     defaultStyle = kml.getFeature().getStyleSelector();
                 }
+            } catch (JAXBException e) {
+                LOGGER.warn("Exception while unmarshalling default style resource.", e);
+            } catch (IOException e) {
+                LOGGER.warn("Exception while opening default style resource.", e);
+            } finally {
+                jaxbPool.releaseUnmarshaller(unmarshaller);
             }
-        } catch (JAXBException e) {
-            LOGGER.warn("Exception while unmarshalling default style resource.", e);
-        } catch (IOException e) {
-            LOGGER.warn("Exception while opening default style resource.", e);
         }
 
         templateLoader = new ClassPathTemplateLoader();
@@ -467,10 +473,10 @@ private String marshalKml(Kml kmlResult) {
         StringWriter writer = new StringWriter();
 
         try {
-            Marshaller marshaller = jaxbContext.createMarshaller();
-            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.FALSE);
-            marshaller.setProperty(Marshaller.JAXB_ENCODING, UTF_8);
-            marshaller.marshal(kmlResult, writer);
+            Map<String, Object> properties = new HashMap<>();
+            properties.put(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.FALSE);
+            properties.put(Marshaller.JAXB_ENCODING, UTF_8);
+            jaxbPool.marshal(kmlResult, writer, properties);
         } catch (JAXBException e) {
             LOGGER.warn("Failed to marshal KML: ", e);
         }
@@ -0,0 +1,223 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.catalog.common;
+
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.PropertyException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.transform.Source;
+
+/**
+ * Pool of the {@link Marshaller}s and {@link Unmarshaller}s of a {@link JAXBContext}.
+ * <p/>
+ * A {@link JAXBContext} is thread safe but its marshallers and unmarshallers are not, and creating
+ * one for every request is a noticeable part of the cost of marshalling small documents. The pool
+ * lets threads reuse them without locking. A pool is held by the component that owns the context,
+ * so both are released with it rather than kept by a global registry that would pin the
+ * component's class loader.
+ * <p/>
+ * Marshallers and unmarshallers are returned to the pool without a schema, event handler,
+ * listener or attachment handler, and properties set through
+ * {@link #marshal(Object, OutputStream, Map)} only apply to that call. Callers using
+ * {@link #acquireMarshaller()} directly must restore any other property they change before
+ * releasing it.
+ */
+public final class JaxbPool {
+
+    private static final int MAX_IDLE = 2 * Runtime.getRuntime().availableProcessors();
+
+    private final JAXBContext context;
+
+    private final Queue<Marshaller> marshallers = new ConcurrentLinkedQueue<>();
+
+    private final Queue<Unmarshaller> unmarshallers = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger idleMarshallers = new AtomicInteger();
+
+    private final AtomicInteger idleUnmarshallers = new AtomicInteger();
+
+    /**
+     * @param context the context to pool the marshallers and unmarshallers of
+     */
+    public JaxbPool(JAXBContext context) {
+        this.context = context;
+    }
+
+    public JAXBContext getContext() {
+        return context;
+    }
+
+    /**
+     * Marshals an object with the given marshaller properties.
+     *
+     * @param jaxbElement object to marshal
+     * @param out         stream to write the XML to
+     * @param properties  marshaller properties for this call, may be {@code null}
+     */
+    public void marshal(Object jaxbElement, OutputStream out, Map<String, Object> properties)
+            throws JAXBException {
+        Marshaller marshaller = acquireMarshaller();
+        Map<String, Object> defaults = setProperties(marshaller, properties);
+        try {
+            marshaller.marshal(jaxbElement, out);
+        } finally {
+            releaseMarshaller(marshaller, defaults);
+        }
+    }
+
+    /**
+     * Marshals an object with the given marshaller properties.
+     *
+     * @param jaxbElement object to marshal
+     * @param writer      writer to write the XML to
+     * @param properties  marshaller properties for this call, may be {@code null}
+     */
+    public void marshal(Object jaxbElement, Writer writer, Map<String, Object> properties)
+            throws JAXBException {
+        Marshaller marshaller = acquireMarshaller();
+        Map<String, Object> defaults = setProperties(marshaller, properties);
+        try {
+            marshaller.marshal(jaxbElement, writer);
+        } finally {
+            releaseMarshaller(marshaller, defaults);
+        }
+    }
+
+    /**
+     * @return the object marshalled as formatted XML
+     */
+    public String marshalToString(Object jaxbElement) throws JAXBException {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+        StringWriter writer = new StringWriter();
+        marshal(jaxbElement, writer, properties);
+        return writer.toString();
+    }
+
+    public Object unmarshal(Source source) throws JAXBException {
+        Unmarshaller unmarshaller = acquireUnmarshaller();
+        try {
+            return unmarshaller.unmarshal(source);
+        } finally {
+            releaseUnmarshaller(unmarshaller);
+        }
+    }
+
+    /**
+     * @return an idle marshaller of the context, or a new one if none is idle
+     */
+    public Marshaller acquireMarshaller() throws JAXBException {
+        Marshaller marshaller = marshallers.poll();
+        if (marshaller == null) {
+            return context.createMarshaller();
+        }
+        idleMarshallers.decrementAndGet();
+        return marshaller;
+    }
+
+    /**
+     * Returns a marshaller acquired from this pool. The marshaller must not be used afterwards.
+     */
+    public void releaseMarshaller(Marshaller marshaller) {
+        if (marshaller == null) {
+            return;
+        }
+        try {
+            marshaller.setSchema(null);
+            marshaller.setEventHandler(null);
+            marshaller.setListener(null);
+            marshaller.setAttachmentMarshaller(null);
+        } catch (JAXBException | RuntimeException e) {
+            // not returned to the pool since its state is unknown
+            return;
+        }
+        if (idleMarshallers.incrementAndGet() <= MAX_IDLE) {
+            marshallers.offer(marshaller);
+        } else {
+            idleMarshallers.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return an idle unmarshaller of the context, or a new one if none is idle
+     */
+    public Unmarshaller acquireUnmarshaller() throws JAXBException {
+        Unmarshaller unmarshaller = unmarshallers.poll();
+        if (unmarshaller == null) {
+            return context.createUnmarshaller();
+        }
+        idleUnmarshallers.decrementAndGet();
+        return unmarshaller;
+    }
+
+    /**
+     * Returns an unmarshaller acquired from this pool. The unmarshaller must not be used
+     * afterwards.
+     */
+    public void releaseUnmarshaller(Unmarshaller unmarshaller) {
+        if (unmarshaller == null) {
+            return;
+        }
+        try {
+            unmarshaller.setSchema(null);
+            unmarshaller.setEventHandler(null);
+            unmarshaller.setListener(null);
+            unmarshaller.setAttachmentUnmarshaller(null);
+        } catch (JAXBException | RuntimeException e) {
+            // not returned to the pool since its state is unknown
+            return;
+        }
+        if (idleUnmarshallers.incrementAndGet() <= MAX_IDLE) {
+            unmarshallers.offer(unmarshaller);
+        } else {
+            idleUnmarshallers.decrementAndGet();
+        }
+    }
+
+    private Map<String, Object> setProperties(Marshaller marshaller,
+            Map<String, Object> properties) throws JAXBException {
+        Map<String, Object> defaults = new HashMap<>();
+        if (properties != null) {
+            for (Map.Entry<String, Object> property : properties.entrySet()) {
+                defaults.put(property.getKey(), marshaller.getProperty(property.getKey()));
+                marshaller.setProperty(property.getKey(), property.getValue());
+            }
+        }
+        return defaults;
+    }
+
+    private void releaseMarshaller(Marshaller marshaller, Map<String, Object> defaults) {
+        try {
+            for (Map.Entry<String, Object> property : defaults.entrySet()) {
+                marshaller.setProperty(property.getKey(), property.getValue());
+            }
+        } catch (PropertyException e) {
+            // not returned to the pool since its state is unknown
+            return;
+        }
+        releaseMarshaller(marshaller);
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.catalog.common;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.ValidationEvent;
+import javax.xml.bind.ValidationEventHandler;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+public class TestJaxbPool {
+
+    @Test
+    public void testPoolUsesItsContext() throws Exception {
+        JAXBContext context = JAXBContext.newInstance(Item.class);
+
+        assertThat(new JaxbPool(context).getContext(), sameInstance(context));
+    }
+
+    @Test
+    public void testReleasedMarshallerIsReused() throws Exception {
+        JaxbPool pool = new JaxbPool(JAXBContext.newInstance(Item.class));
+
+        Marshaller marshaller = pool.acquireMarshaller();
+        pool.releaseMarshaller(marshaller);
+
+        assertThat(pool.acquireMarshaller(), sameInstance(marshaller));
+    }
+
+    @Test
+    public void testMarshalPropertiesDoNotLeak() throws Exception {
+        JaxbPool pool = new JaxbPool(JAXBContext.newInstance(Item.class));
+        Item item = new Item();
+        item.name = "pooled";
+
+        assertThat(pool.marshalToString(item), containsString("\n"));
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+        StringWriter writer = new StringWriter();
+        pool.marshal(item, writer, properties);
+
+        assertThat(writer.toString(), not(containsString("\n")));
+        assertThat(writer.toString(), not(containsString("<?xml")));
+        assertThat(pool.acquireMarshaller().getProperty(Marshaller.JAXB_FRAGMENT),
+                is((Object) Boolean.FALSE));
+    }
+
+    @Test
+    public void testUnmarshal() throws Exception {
+        JaxbPool pool = new JaxbPool(JAXBContext.newInstance(Item.class));
+
+        Item item = (Item) pool
+                .unmarshal(new StreamSource(new StringReader("<item><name>a</name></item>")));
+
+        assertThat(item.name, is("a"));
+    }
+
+    @Test
+    public void testReleasedUnmarshallerIsReset() throws Exception {
+        JaxbPool pool = new JaxbPool(JAXBContext.newInstance(Item.class));
+
+        Unmarshaller unmarshaller = pool.acquireUnmarshaller();
+        unmarshaller.setListener(new Unmarshaller.Listener() {
+        });
+        pool.releaseUnmarshaller(unmarshaller);
+
+        Unmarshaller reused = pool.acquireUnmarshaller();
+        assertThat(reused, sameInstance(unmarshaller));
+        assertThat(reused.getListener() == null, is(true));
+    }
+
+    @Test
+    public void testReleasedMarshallerIsReset() throws Exception {
+        JaxbPool pool = new JaxbPool(JAXBContext.newInstance(Item.class));
+        ValidationEventHandler handler = new ValidationEventHandler() {
+            @Override
+            public boolean handleEvent(ValidationEvent event) {
+                return false;
+            }
+        };
+
+        Marshaller marshaller = pool.acquireMarshaller();
+        marshaller.setListener(new Marshaller.Listener() {
+        });
+        marshaller.setEventHandler(handler);
+        pool.releaseMarshaller(marshaller);
+
+        Marshaller reused = pool.acquireMarshaller();
+        assertThat(reused, sameInstance(marshaller));
+        assertThat(reused.getListener() == null, is(true));
+        assertThat(reused.getEventHandler() == handler, is(false));
+    }
+
+    @XmlRootElement(name = "item")
+    public static class Item {
+        public String name;
+    }
+}
@@ -17,7 +17,6 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
-import java.io.StringWriter;
 import java.math.BigInteger;
 import java.net.URI;
 import java.util.ArrayList;
@@ -41,7 +40,6 @@
 import javax.ws.rs.core.Response;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Marshaller;
 import javax.xml.namespace.QName;
 
 import org.apache.commons.io.IOUtils;
@@ -52,6 +50,7 @@
 import org.codice.ddf.spatial.ogc.catalog.common.AvailabilityCommand;
 import org.codice.ddf.spatial.ogc.catalog.common.AvailabilityTask;
 import org.codice.ddf.spatial.ogc.catalog.common.ContentTypeFilterDelegate;
+import org.codice.ddf.spatial.ogc.catalog.common.JaxbPool;
 import org.codice.ddf.spatial.ogc.catalog.common.TrustedRemoteSource;
 import org.codice.ddf.spatial.ogc.wfs.catalog.common.FeatureMetacardType;
 import org.codice.ddf.spatial.ogc.wfs.catalog.common.WfsException;
@@ -116,6 +115,8 @@ public class WfsSource extends MaskableImpl implements FederatedSource, Connecte
 
     private static final Logger LOGGER = LoggerFactory.getLogger(WfsSource.class);
 
+    private static volatile JaxbPool getFeaturePool;
+
     private static final String DESCRIBABLE_PROPERTIES_FILE = "/describable.properties";
 
     private static final String DESCRIPTION = "description";
@@ -941,20 +942,29 @@ private String handleClientException(Exception ce) {
     private void logMessage(GetFeatureType getFeature) {
         if (LOGGER.isDebugEnabled()) {
             try {
-                StringWriter writer = new StringWriter();
-                JAXBContext contextObj = JAXBContext.newInstance(GetFeatureType.class);
-
-                Marshaller marshallerObj = contextObj.createMarshaller();
-                marshallerObj.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-
-                marshallerObj.marshal(new ObjectFactory().createGetFeature(getFeature), writer);
-                LOGGER.debug("WfsSource {}: {}", getId(), writer.toString());
+                LOGGER.debug("WfsSource {}: {}", getId(), getGetFeaturePool()
+                        .marshalToString(new ObjectFactory().createGetFeature(getFeature)));
             } catch (JAXBException e) {
                 LOGGER.debug("An error occurred debugging the GetFeature request", e);
             }
         }
     }
 
+    private static JaxbPool getGetFeaturePool() throws JAXBException {
+        JaxbPool pool = getFeaturePool;
+        if (pool == null) {
+            synchronized (WfsSource.class) {
+                pool = getFeaturePool;
+                if (pool == null) {
+                    JAXBContext context = JAXBContext.newInstance(GetFeatureType.class);
+                    pool = new JaxbPool(context);
+                    getFeaturePool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
     private void debugResult(Result result) {
         if (LOGGER.isDebugEnabled()) {
             if (result != null && result.getMetacard() != null) {
@@ -14,7 +14,6 @@
  **/
 package org.codice.ddf.spatial.ogc.wfs.v1_0_0.catalog.source.reader;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.annotation.Annotation;
@@ -26,8 +25,6 @@
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
-import javax.ws.rs.core.Response;
-import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.ext.MessageBodyReader;
 import javax.ws.rs.ext.Provider;
 
@@ -36,6 +33,7 @@
 import org.codice.ddf.spatial.ogc.wfs.catalog.converter.FeatureConverter;
 import org.codice.ddf.spatial.ogc.wfs.catalog.converter.impl.GmlEnvelopeConverter;
 import org.codice.ddf.spatial.ogc.wfs.catalog.converter.impl.GmlGeometryConverter;
+import org.codice.ddf.spatial.ogc.wfs.catalog.source.ResponseRootElement;
 import org.codice.ddf.spatial.ogc.wfs.v1_0_0.catalog.converter.impl.FeatureCollectionConverterWfs10;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,6 +52,8 @@
     private static final Logger LOGGER = LoggerFactory
             .getLogger(FeatureCollectionMessageBodyReaderWfs10.class);
 
+    private static final String FEATURE_COLLECTION = "FeatureCollection";
+
     protected XStream xstream;
 
     protected FeatureCollectionConverterWfs10 featureCollectionConverter;
@@ -65,7 +65,7 @@ public FeatureCollectionMessageBodyReaderWfs10() {
         xstream.setClassLoader(this.getClass().getClassLoader());
         xstream.registerConverter(new GmlGeometryConverter());
         xstream.registerConverter(new GmlEnvelopeConverter());
-        xstream.alias("FeatureCollection", WfsFeatureCollection.class);
+        xstream.alias(FEATURE_COLLECTION, WfsFeatureCollection.class);
 
         featureCollectionConverter = new FeatureCollectionConverterWfs10();
         featureCollectionConverter.setFeatureConverterMap(featureConverterMap);
@@ -86,36 +86,31 @@ public WfsFeatureCollection readFrom(Class<WfsFeatureCollection> clazz, Type typ
             Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, String> headers,
             InputStream inStream) throws IOException, WebApplicationException {
 
-        // Save original input stream for any exception message that might need to be
-        // created
-        String originalInputStream = IOUtils.toString(inStream, "UTF-8");
+        // The response is streamed through XStream so each feature member is converted as it is
+        // read, rather than holding the whole response in memory.
+        InputStream in = ResponseRootElement.markable(inStream);
+        ResponseRootElement root = ResponseRootElement.read(in);
 
-        // Re-create the input stream (since it has already been read for potential
-        // exception message creation)
-        inStream = new ByteArrayInputStream(originalInputStream.getBytes("UTF-8"));
+        if (root == null || !FEATURE_COLLECTION.equals(root.getLocalName())) {
+            // If a ServiceExceptionReport is sent from the remote WFS site it will be sent with an
+            // JAX-RS "OK" status, hence the ErrorResponse exception mapper will not fire.
+            // Instead the ServiceExceptionReport will come here, so it is returned in a JAX-RS
+            // response and rethrown as a WebApplicationException, which CXF will wrap as a
+            // ClientException that the WfsSource catches, converts to a WfsException, and logs.
+            LOGGER.warn("Response root element {} is not a {}.",
+                    root == null ? null : root.getLocalName(), FEATURE_COLLECTION);
+            throw ResponseRootElement.toWebApplicationException(null, in);
+        }
 
         WfsFeatureCollection featureCollection = null;
 
         try {
-            featureCollection = (WfsFeatureCollection) xstream.fromXML(inStream);
+            featureCollection = (WfsFeatureCollection) xstream.fromXML(in);
         } catch (XStreamException e) {
-            // If a ServiceExceptionReport is sent from the remote WFS site it will be sent with an
-            // JAX-RS "OK" status, hence the ErrorResponse exception mapper will not fire.
-            // Instead the ServiceExceptionReport will come here and be treated like a GetFeature
-            // response, resulting in an XStreamException since ExceptionReport cannot be
-            // unmarshalled. So this catch clause is responsible for catching that XStream
-            // exception and creating a JAX-RS response containing the original stream
-            // (with the ExceptionReport) and rethrowing it as a WebApplicationException,
-            // which CXF will wrap as a ClientException that the WfsSource catches, converts
-            // to a WfsException, and logs.
             LOGGER.error("Exception unmarshalling {}", e);
-            ByteArrayInputStream bis = new ByteArrayInputStream(originalInputStream.getBytes());
-            ResponseBuilder responseBuilder = Response.ok(bis);
-            responseBuilder.type("text/xml");
-            Response response = responseBuilder.build();
-            throw new WebApplicationException(e, response);
+            throw new WebApplicationException(e);
         } finally {
-            IOUtils.closeQuietly(inStream);
+            IOUtils.closeQuietly(in);
         }
 
         return featureCollection;
@@ -0,0 +1,155 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ **/
+package org.codice.ddf.spatial.ogc.wfs.v2_0_0.catalog.source;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.codice.ddf.spatial.ogc.wfs.v2_0_0.catalog.common.Wfs20FeatureCollection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fetches the next page of a GetFeature request in the background while a client pages through
+ * the results of a query. Requests are identified by their XML, so a prefetched page is only used
+ * for a request identical to the one it was fetched with.
+ * <p/>
+ * A page is only prefetched once a client has asked for the page following the previous request,
+ * so queries that only look at their first page do not cost the server a second request. A page
+ * that is not asked for within {@link #DEFAULT_MAX_AGE_MILLIS} of being prefetched is dropped,
+ * so clients are not given features that have since changed on the server.
+ */
+class FeaturePagePrefetcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FeaturePagePrefetcher.class);
+
+    static final long DEFAULT_MAX_AGE_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final ExecutorService executor;
+
+    private final long maxAgeNanos;
+
+    private String expectedRequest;
+
+    private String prefetchedRequest;
+
+    private Future<Wfs20FeatureCollection> prefetched;
+
+    private long prefetchedAt;
+
+    FeaturePagePrefetcher(String sourceId) {
+        this(sourceId, DEFAULT_MAX_AGE_MILLIS);
+    }
+
+    /**
+     * @param sourceId     ID of the source the pages are fetched for
+     * @param maxAgeMillis  time after which a prefetched page that was not asked for is dropped
+     */
+    FeaturePagePrefetcher(final String sourceId, long maxAgeMillis) {
+        maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxAgeMillis);
+        executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "wfs-page-prefetch-" + sourceId);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Returns the prefetched page for a request, waiting for it if it is still being fetched.
+     *
+     * @param request XML of the GetFeature request
+     * @return the page, or {@code null} if it was not prefetched, is older than the maximum age
+     * or could not be fetched
+     */
+    Wfs20FeatureCollection take(String request) {
+        Future<Wfs20FeatureCollection> future;
+        synchronized (this) {
+            if (prefetched != null && System.nanoTime() - prefetchedAt > maxAgeNanos) {
+                LOGGER.debug("Dropping a prefetched page that was not used in time.");
+                cancel();
+            }
+            if (prefetched == null || !request.equals(prefetchedRequest)) {
+                return null;
+            }
+            future = prefetched;
+            prefetched = null;
+            prefetchedRequest = null;
+        }
+
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            LOGGER.debug("Unable to prefetch page, fetching it again.", e.getCause());
+            return null;
+        } catch (CancellationException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Records that a request was answered and prefetches the next page if the request was for the
+     * page following the previous one.
+     *
+     * @param request     XML of the GetFeature request that was answered
+     * @param nextRequest XML of the GetFeature request for the next page, or {@code null} if
+     *                    there is no next page
+     * @param fetch       fetches the next page
+     */
+    synchronized void completed(String request, String nextRequest,
+            Callable<Wfs20FeatureCollection> fetch) {
+        boolean sequential = request.equals(expectedRequest);
+        expectedRequest = nextRequest;
+
+        if (!sequential || nextRequest == null || nextRequest.equals(prefetchedRequest)) {
+            return;
+        }
+
+        cancel();
+        LOGGER.debug("Prefetching the next page of a sequentially paged query.");
+        try {
+            prefetched = executor.submit(fetch);
+            prefetchedRequest = nextRequest;
+            prefetchedAt = System.nanoTime();
+        } catch (RejectedExecutionException e) {
+            LOGGER.debug("Prefetching is shut down.", e);
+        }
+    }
+
+    synchronized void shutdown() {
+        cancel();
+        expectedRequest = null;
+        executor.shutdownNow();
+    }
+
+    private void cancel() {
+        if (prefetched != null) {
+            prefetched.cancel(true);
+            prefetched = null;
+            prefetchedRequest = null;
+        }
+    }
+}
@@ -16,7 +16,7 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
-import java.io.StringWriter;
+import java.io.StringReader;
 import java.math.BigInteger;
 import java.net.URI;
 import java.util.ArrayList;
@@ -31,6 +31,7 @@
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -42,8 +43,9 @@
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Marshaller;
+import javax.xml.bind.JAXBIntrospector;
 import javax.xml.namespace.QName;
+import javax.xml.transform.stream.StreamSource;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.io.IOUtils;
@@ -53,6 +55,7 @@
 import org.codice.ddf.spatial.ogc.catalog.common.AvailabilityCommand;
 import org.codice.ddf.spatial.ogc.catalog.common.AvailabilityTask;
 import org.codice.ddf.spatial.ogc.catalog.common.ContentTypeFilterDelegate;
+import org.codice.ddf.spatial.ogc.catalog.common.JaxbPool;
 import org.codice.ddf.spatial.ogc.catalog.common.TrustedRemoteSource;
 import org.codice.ddf.spatial.ogc.wfs.catalog.common.FeatureMetacardType;
 import org.codice.ddf.spatial.ogc.wfs.catalog.common.WfsConstants;
@@ -75,6 +78,7 @@
 import org.slf4j.LoggerFactory;
 
 import ddf.catalog.Constants;
+import ddf.catalog.data.AttributeDescriptor;
 import ddf.catalog.data.ContentType;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.MetacardType;
@@ -123,6 +127,8 @@ public class WfsSource extends MaskableImpl implements FederatedSource, Connecte
 
     private static final Logger LOGGER = LoggerFactory.getLogger(WfsSource.class);
 
+    private static volatile JaxbPool getFeaturePool;
+
     private static final String DESCRIBABLE_PROPERTIES_FILE = "/describable.properties";
 
     private static final String DESCRIPTION = "description";
@@ -163,6 +169,8 @@ public class WfsSource extends MaskableImpl implements FederatedSource, Connecte
 
     private static final String POLL_INTERVAL_PROPERTY = "pollInterval";
 
+    private static final String PREFETCH_NEXT_PAGE_PROPERTY = "prefetchNextPage";
+
     private static Properties describableProperties = new Properties();
 
     static {
@@ -222,6 +230,12 @@ public class WfsSource extends MaskableImpl implements FederatedSource, Connecte
 
     private SecuritySettingsService securitySettingsService;
 
+    private boolean prefetchNextPage;
+
+    private FeaturePagePrefetcher pagePrefetcher;
+
+    private Map<QName, String> filterDelegateFingerprints = new HashMap<QName, String>();
+
     public WfsSource(RemoteWfs remoteWfs, FilterAdapter filterAdapter, BundleContext context,
             AvailabilityTask task) {
         this.remoteWfs = remoteWfs;
@@ -255,6 +269,7 @@ public void destroy() {
         unregisterAllMetacardTypes();
         availabilityPollFuture.cancel(true);
         scheduler.shutdownNow();
+        setPrefetchNextPage(false);
     }
 
     /**
@@ -274,6 +289,7 @@ public void refresh(Map<String, Object> configuration) {
                 .get(TrustedRemoteSource.DISABLE_CN_CHECK_PROPERTY);
         String coordinateOrder = (String) configuration.get(COORDINATE_ORDER);
         boolean disableSorting = (Boolean) configuration.get(DISABLE_SORTING);
+        Boolean prefetchNextPage = (Boolean) configuration.get(PREFETCH_NEXT_PAGE_PROPERTY);
         String id = (String) configuration.get(ID_PROPERTY);
 
         setConnectionTimeout((Integer) configuration.get(CONNECTION_TIMEOUT_PROPERTY));
@@ -296,6 +312,7 @@ public void refresh(Map<String, Object> configuration) {
         this.coordinateOrder = coordinateOrder;
         this.disableSorting = disableSorting;
         this.forceSpatialFilter = (String) configuration.get(SPATIAL_FILTER_PROPERTY);
+        setPrefetchNextPage(Boolean.TRUE.equals(prefetchNextPage));
 
         connectToRemoteWfs();
         configureWfsFeatures();
@@ -432,7 +449,12 @@ private void buildFeatureFilters(List<FeatureTypeType> featureTypes,
         // Use local Map for metacardtype registrations and once they are populated with latest
         // MetacardTypes, then do actual registration
         Map<String, MetacardTypeRegistration> mcTypeRegs = new HashMap<String, MetacardTypeRegistration>();
-        this.featureTypeFilters.clear();
+
+        // The filters are swapped in once built, so queries running meanwhile keep using the
+        // previous ones. Filter delegates whose inputs did not change are reused.
+        Map<QName, WfsFilterDelegate> filters = new HashMap<QName, WfsFilterDelegate>();
+        Map<QName, String> fingerprints = new HashMap<QName, String>();
+        String filterCapabilitiesXml = toXml(filterCapabilities);
 
         for (FeatureTypeType featureTypeType : featureTypes) {
             String ftSimpleName = featureTypeType.getName().getLocalPart();
@@ -461,10 +483,22 @@ private void buildFeatureFilters(List<FeatureTypeType> featureTypes,
                     MetacardMapper metacardAttributeToFeaturePropertyMapper = lookupMetacardAttributeToFeaturePropertyMapper(
                             featureMetacardType.getFeatureType());
 
-                    this.featureTypeFilters.put(featureMetacardType.getFeatureType(),
-                            new WfsFilterDelegate(featureMetacardType, filterCapabilities,
-                                    registration.getSrs(), metacardAttributeToFeaturePropertyMapper,
-                                    coordinateOrder));
+                    QName featureType = featureMetacardType.getFeatureType();
+                    String fingerprint = getFilterDelegateFingerprint(featureMetacardType,
+                            filterCapabilitiesXml, registration.getSrs(),
+                            metacardAttributeToFeaturePropertyMapper);
+                    WfsFilterDelegate delegate = featureTypeFilters.get(featureType);
+                    if (delegate == null || fingerprint == null || !fingerprint
+                            .equals(filterDelegateFingerprints.get(featureType))) {
+                        delegate = new WfsFilterDelegate(featureMetacardType, filterCapabilities,
+                                registration.getSrs(), metacardAttributeToFeaturePropertyMapper,
+                                coordinateOrder);
+                    } else {
+                        LOGGER.debug("WfsSource {}: Reusing filter delegate for {}.", getId(),
+                                featureType);
+                    }
+                    filters.put(featureType, delegate);
+                    fingerprints.put(featureType, fingerprint);
                 }
             } catch (WfsException wfse) {
                 LOGGER.warn(WFS_ERROR_MESSAGE, wfse);
@@ -475,6 +509,9 @@ private void buildFeatureFilters(List<FeatureTypeType> featureTypes,
             }
         }
 
+        this.featureTypeFilters = filters;
+        this.filterDelegateFingerprints = fingerprints;
+
         registerFeatureMetacardTypes(mcTypeRegs);
 
         if (featureTypeFilters.isEmpty()) {
@@ -486,6 +523,38 @@ private void buildFeatureFilters(List<FeatureTypeType> featureTypes,
                 filterCapabilities.getSpatialCapabilities().getSpatialOperators());
     }
 
+    /**
+     * Returns a description of everything a filter delegate is built from, so a delegate can be
+     * reused while its feature type, the filter capabilities, the source configuration and the
+     * mapping of the feature type's attributes to feature properties are unchanged.
+     */
+    private String getFilterDelegateFingerprint(FeatureMetacardType featureMetacardType,
+            String filterCapabilitiesXml, String srs, MetacardMapper mapper) {
+        if (filterCapabilitiesXml == null) {
+            return null;
+        }
+
+        List<String> attributes = new ArrayList<String>();
+        for (AttributeDescriptor descriptor : featureMetacardType.getAttributeDescriptors()) {
+            String featureProperty =
+                    mapper == null ? null : mapper.getFeatureProperty(descriptor.getName());
+            attributes.add(descriptor.getName() + ":" + descriptor.getType().getAttributeFormat()
+                    + ":" + descriptor.isIndexed() + ":" + featureProperty);
+        }
+        Collections.sort(attributes);
+
+        String mapping = null;
+        if (mapper != null) {
+            mapping = StringUtils.join(new Object[] {mapper.getFeatureType(),
+                    mapper.getSortByTemporalFeatureProperty(),
+                    mapper.getSortByRelevanceFeatureProperty(),
+                    mapper.getSortByDistanceFeatureProperty(), mapper.getDataUnit()}, ":");
+        }
+
+        return StringUtils.join(new Object[] {srs, coordinateOrder, forceSpatialFilter, mapping,
+                attributes, filterCapabilitiesXml}, "|");
+    }
+
     private void registerFeatureMetacardTypes(Map<String, MetacardTypeRegistration> mcTypeRegs) {
         // Unregister all MetacardType services - the DescribeFeatureTypeRequest should
         // have returned all of the most current metacard types that will now be registered.
@@ -629,7 +698,7 @@ public SourceResponse query(QueryRequest request) throws UnsupportedQueryExcepti
 
         try {
             LOGGER.debug("WFS Source {}: Sending query ...", getId());
-            Wfs20FeatureCollection featureCollection = remoteWfs.getFeature(getFeature);
+            Wfs20FeatureCollection featureCollection = getFeature(getFeature);
             int numResults = -1;
 
             if (featureCollection == null) {
@@ -687,6 +756,95 @@ public SourceResponse query(QueryRequest request) throws UnsupportedQueryExcepti
         return simpleResponse;
     }
 
+    private Wfs20FeatureCollection getFeature(GetFeatureType getFeature) throws WfsException {
+        FeaturePagePrefetcher prefetcher = getPagePrefetcher();
+        String request = prefetcher == null ? null : toXml(toElement(getFeature));
+        if (request == null) {
+            return remoteWfs.getFeature(getFeature);
+        }
+
+        Wfs20FeatureCollection featureCollection = prefetcher.take(request);
+        if (featureCollection == null) {
+            featureCollection = remoteWfs.getFeature(getFeature);
+        } else {
+            LOGGER.debug("WFS Source {}: Using prefetched page.", getId());
+        }
+
+        String nextRequest = null;
+        GetFeatureType next = null;
+        if (hasNextPage(getFeature, featureCollection)) {
+            // the caller's request is left as it is, the next page is requested with a copy
+            next = copyGetFeature(request);
+            if (next != null) {
+                next.setStartIndex(getFeature.getStartIndex().add(getFeature.getCount()));
+                nextRequest = toXml(toElement(next));
+            }
+        }
+
+        final RemoteWfs wfs = remoteWfs;
+        final GetFeatureType nextGetFeature = next;
+        prefetcher.completed(request, nextRequest, new Callable<Wfs20FeatureCollection>() {
+            @Override
+            public Wfs20FeatureCollection call() throws WfsException {
+                return wfs.getFeature(nextGetFeature);
+            }
+        });
+
+        return featureCollection;
+    }
+
+    private boolean hasNextPage(GetFeatureType getFeature,
+            Wfs20FeatureCollection featureCollection) {
+        if (featureCollection == null || getFeature.getCount() == null
+                || getFeature.getStartIndex() == null) {
+            return false;
+        }
+        if (featureCollection.getMembers().size() < getFeature.getCount().intValue()) {
+            return false;
+        }
+
+        String numberMatched = featureCollection.getNumberMatched();
+        if (StringUtils.isNumeric(numberMatched) && StringUtils.isNotEmpty(numberMatched)) {
+            return getFeature.getStartIndex().add(getFeature.getCount())
+                    .compareTo(new BigInteger(numberMatched)) < 0;
+        }
+        return true;
+    }
+
+    private synchronized FeaturePagePrefetcher getPagePrefetcher() {
+        if (prefetchNextPage && pagePrefetcher == null) {
+            pagePrefetcher = new FeaturePagePrefetcher(getId());
+        }
+        return pagePrefetcher;
+    }
+
+    private JAXBElement<GetFeatureType> toElement(GetFeatureType getFeature) {
+        return new net.opengis.wfs.v_2_0_0.ObjectFactory().createGetFeature(getFeature);
+    }
+
+    /**
+     * @return a deep copy of the GetFeature request, or {@code null} if it could not be read
+     */
+    private GetFeatureType copyGetFeature(String request) {
+        try {
+            Object copy = getGetFeaturePool()
+                    .unmarshal(new StreamSource(new StringReader(request)));
+            return (GetFeatureType) JAXBIntrospector.getValue(copy);
+        } catch (JAXBException | ClassCastException e) {
+            LOGGER.debug("WfsSource {}: Unable to copy GetFeature request.", getId(), e);
+            return null;
+        }
+    }
+
+    private String toXml(Object jaxbElement) {
+        try {
+            return getGetFeaturePool().marshalToString(jaxbElement);
+        } catch (JAXBException e) {
+            LOGGER.debug("WfsSource {}: Unable to marshal {}.", getId(), jaxbElement, e);
+            return null;
+        }
+    }
+
     protected GetFeatureType buildGetFeatureRequest(Query query) throws UnsupportedQueryException {
         List<ContentType> contentTypes = getContentTypesFromQuery(query);
 
@@ -1105,6 +1263,18 @@ public void setCoordinateOrder(String coordinateOrder) {
         this.coordinateOrder = coordinateOrder;
     }
 
+    /**
+     * Sets whether the next page of a query is fetched in the background while a client pages
+     * through its results sequentially.
+     */
+    public synchronized void setPrefetchNextPage(boolean prefetchNextPage) {
+        this.prefetchNextPage = prefetchNextPage;
+        if (!prefetchNextPage && pagePrefetcher != null) {
+            pagePrefetcher.shutdown();
+            pagePrefetcher = null;
+        }
+    }
+
     public void setDisableSorting(boolean disableSorting) {
         this.disableSorting = disableSorting;
     }
@@ -1132,26 +1302,37 @@ private String handleClientException(Exception ce) {
     private void logMessage(GetFeatureType getFeature) {
         if (LOGGER.isDebugEnabled()) {
             try {
-                StringWriter writer = new StringWriter();
-                String context = StringUtils.join(new String[] {Wfs20Constants.OGC_FILTER_PACKAGE,
-                        Wfs20Constants.OGC_GML_PACKAGE, Wfs20Constants.OGC_OWS_PACKAGE,
-                        Wfs20Constants.OGC_WFS_PACKAGE}, ":");
-                JAXBContext contextObj = JAXBContext
-                        .newInstance(context, WfsSource.class.getClassLoader());
-
-                Marshaller marshallerObj = contextObj.createMarshaller();
-                marshallerObj.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-
-                marshallerObj.marshal(
-                        new net.opengis.wfs.v_2_0_0.ObjectFactory().createGetFeature(getFeature),
-                        writer);
-                LOGGER.debug("WfsSource {}: {}", getId(), writer.toString());
+                LOGGER.debug("WfsSource {}: {}", getId(),
+                        getGetFeaturePool().marshalToString(
+                                new net.opengis.wfs.v_2_0_0.ObjectFactory()
+                                        .createGetFeature(getFeature)));
             } catch (JAXBException e) {
                 LOGGER.debug("An error occurred debugging the GetFeature request", e);
             }
         }
     }
 
+    private static JaxbPool getGetFeaturePool() throws JAXBException {
+        JaxbPool pool = getFeaturePool;
+        if (pool == null) {
+            synchronized (WfsSource.class) {
+                pool = getFeaturePool;
+                if (pool == null) {
+                    String contextPath = StringUtils.join(
+                            new String[] {Wfs20Constants.OGC_FILTER_PACKAGE,
+                                    Wfs20Constants.OGC_GML_PACKAGE,
+                                    Wfs20Constants.OGC_OWS_PACKAGE,
+                                    Wfs20Constants.OGC_WFS_PACKAGE}, ":");
+                    JAXBContext context = JAXBContext
+                            .newInstance(contextPath, WfsSource.class.getClassLoader());
+                    pool = new JaxbPool(context);
+                    getFeaturePool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
     private void debugResult(Result result) {
         if (LOGGER.isDebugEnabled()) {
             if (result != null && result.getMetacard() != null) {
@@ -13,11 +13,8 @@
  **/
 package org.codice.ddf.spatial.ogc.wfs.v2_0_0.catalog.source.reader;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.Reader;
-import java.io.StringReader;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 import java.math.BigInteger;
@@ -28,21 +25,14 @@
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
-import javax.ws.rs.core.Response;
-import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.ext.MessageBodyReader;
 import javax.ws.rs.ext.Provider;
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.JAXBElement;
-import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
 
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang.StringUtils;
 import org.codice.ddf.spatial.ogc.wfs.catalog.converter.FeatureConverter;
 import org.codice.ddf.spatial.ogc.wfs.catalog.converter.impl.GmlEnvelopeConverter;
 import org.codice.ddf.spatial.ogc.wfs.catalog.converter.impl.GmlGeometryConverter;
-import org.codice.ddf.spatial.ogc.wfs.v2_0_0.catalog.common.Wfs20Constants;
+import org.codice.ddf.spatial.ogc.wfs.catalog.source.ResponseRootElement;
 import org.codice.ddf.spatial.ogc.wfs.v2_0_0.catalog.common.Wfs20FeatureCollection;
 import org.codice.ddf.spatial.ogc.wfs.v2_0_0.catalog.converter.impl.FeatureCollectionConverterWfs20;
 import org.slf4j.Logger;
@@ -53,7 +43,6 @@
 import com.thoughtworks.xstream.io.xml.WstxDriver;
 
 import ddf.catalog.data.Metacard;
-import net.opengis.wfs.v_2_0_0.FeatureCollectionType;
 
 @Consumes({MediaType.TEXT_XML, MediaType.APPLICATION_XML})
 @Provider
@@ -63,7 +52,11 @@
     private static final Logger LOGGER = LoggerFactory
             .getLogger(FeatureCollectionMessageBodyReaderWfs20.class);
 
-    private static final JAXBContext JAXB_CONTEXT = initJaxbContext();
+    private static final String FEATURE_COLLECTION = "FeatureCollection";
+
+    private static final String NUMBER_MATCHED = "numberMatched";
+
+    private static final String NUMBER_RETURNED = "numberReturned";
 
     protected XStream xstream;
 
@@ -79,25 +72,7 @@ public FeatureCollectionMessageBodyReaderWfs20() {
         featureCollectionConverter = new FeatureCollectionConverterWfs20();
         featureCollectionConverter.setFeatureConverterMap(featureConverterMap);
         xstream.registerConverter(featureCollectionConverter);
-        xstream.alias("FeatureCollection", Wfs20FeatureCollection.class);
-    }
-
-    private static JAXBContext initJaxbContext() {
-        JAXBContext jaxbContext = null;
-
-        // JAXB context path
-        String contextPath = StringUtils.join(new String[] {Wfs20Constants.OGC_WFS_PACKAGE,
-                Wfs20Constants.OGC_FILTER_PACKAGE, Wfs20Constants.OGC_GML_PACKAGE,
-                Wfs20Constants.OGC_OWS_PACKAGE}, ":");
-
-        try {
-            jaxbContext = JAXBContext.newInstance(contextPath,
-                    FeatureCollectionMessageBodyReaderWfs20.class.getClassLoader());
-        } catch (JAXBException e) {
-            LOGGER.error("Unable to create JAXB context using contextPath: {}.", contextPath, e);
-        }
-
-        return jaxbContext;
+        xstream.alias(FEATURE_COLLECTION, Wfs20FeatureCollection.class);
     }
 
     @Override
@@ -109,77 +84,54 @@ public boolean isReadable(Class<?> clazz, Type type, Annotation[] annotations,
         return Wfs20FeatureCollection.class.isAssignableFrom(clazz);
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public Wfs20FeatureCollection readFrom(Class<Wfs20FeatureCollection> clazz, Type type,
             Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, String> headers,
             InputStream inStream) throws IOException, WebApplicationException {
 
-        // Save original input stream for any exception message that might need to be
-        // created and additional attributes
-        String originalInputStream = IOUtils.toString(inStream, "UTF-8");
-        LOGGER.debug("{}", originalInputStream);
+        // The response is streamed through XStream so each member is converted as it is read,
+        // rather than holding the whole response, and a JAXB tree of it, in memory.
+        InputStream in = ResponseRootElement.markable(inStream);
+        ResponseRootElement root;
+        try {
+            root = ResponseRootElement.read(in);
+        } catch (IOException e) {
+            LOGGER.error("Error in retrieving feature collection.", e);
+            return null;
+        }
+
+        if (root == null || !FEATURE_COLLECTION.equals(root.getLocalName())) {
+            LOGGER.warn("Response root element {} is not a {}, could be an OWS Exception Report "
+                            + "from server.", root == null ? null : root.getLocalName(),
+                    FEATURE_COLLECTION);
+
+            // If an ExceptionReport is sent from the remote WFS site it will be sent with an
+            // JAX-RS "OK" status, hence the ErrorResponse exception mapper will not fire.
+            // Instead the ExceptionReport will come here, so it is returned in a JAX-RS response
+            // and rethrown as a WebApplicationException, which CXF will wrap as a
+            // ClientException that the WfsSource catches, converts to a WfsException, and logs.
+            throw ResponseRootElement.toWebApplicationException(null, in);
+        }
 
         ClassLoader ccl = Thread.currentThread().getContextClassLoader();
 
         try {
             Thread.currentThread().setContextClassLoader(
                     FeatureCollectionMessageBodyReaderWfs20.class.getClassLoader());
-            //Fetch FeatureCollection attributes
-            Unmarshaller unmarshaller = null;
-            JAXBElement<FeatureCollectionType> wfsFeatureCollectionType = null;
+
+            Wfs20FeatureCollection featureCollection = null;
             try {
-                unmarshaller = JAXB_CONTEXT.createUnmarshaller();
-                Reader reader = new StringReader(originalInputStream);
-                wfsFeatureCollectionType = (JAXBElement<FeatureCollectionType>) unmarshaller
-                        .unmarshal(reader);
-            } catch (ClassCastException e1) {
-                LOGGER.warn(
-                        "Exception unmarshalling {}, could be an OWS Exception Report from server.",
-                        e1.getMessage());
-
-                // If an ExceptionReport is sent from the remote WFS site it will be sent with an
-                // JAX-RS "OK" status, hence the ErrorResponse exception mapper will not fire.
-                // Instead the ServiceExceptionReport will come here and be treated like a GetFeature
-                // response, resulting in an XStreamException since ExceptionReport cannot be
-                // unmarshalled. So this catch clause is responsible for catching that XStream
-                // exception and creating a JAX-RS response containing the original stream
-                // (with the ExceptionReport) and rethrowing it as a WebApplicationException,
-                // which CXF will wrap as a ClientException that the WfsSource catches, converts
-                // to a WfsException, and logs.
-
-                ByteArrayInputStream bis = new ByteArrayInputStream(originalInputStream.getBytes());
-                ResponseBuilder responseBuilder = Response.ok(bis);
-                responseBuilder.type("text/xml");
-                Response response = responseBuilder.build();
-                throw new WebApplicationException(e1, response);
-            } catch (JAXBException e1) {
-                LOGGER.error("Error in retrieving feature collection.", e1);
+                featureCollection = (Wfs20FeatureCollection) xstream.fromXML(in);
+                featureCollection.setNumberMatched(root.getAttribute(NUMBER_MATCHED));
+                featureCollection.setNumberReturned(parseBigInteger(
+                        root.getAttribute(NUMBER_RETURNED)));
+            } catch (XStreamException e) {
+                LOGGER.error("Exception unmarshalling {}", e);
             } catch (RuntimeException | Error e) {
                 LOGGER.error("Error processing collection", e);
                 throw e;
-            }
-
-            Wfs20FeatureCollection featureCollection = null;
-
-            if (null != wfsFeatureCollectionType && null != wfsFeatureCollectionType.getValue()) {
-                BigInteger numberReturned = wfsFeatureCollectionType.getValue().getNumberReturned();
-                String numberMatched = wfsFeatureCollectionType.getValue().getNumberMatched();
-
-                // Re-create the input stream (since it has already been read for potential
-                // exception message creation)
-                inStream = new ByteArrayInputStream(originalInputStream.getBytes("UTF-8"));
-
-                try {
-                    featureCollection = (Wfs20FeatureCollection) xstream.fromXML(inStream);
-                    featureCollection.setNumberMatched(numberMatched);
-                    featureCollection.setNumberReturned(numberReturned);
-
-                } catch (XStreamException e) {
-                    LOGGER.error("Exception unmarshalling {}", e);
-                } finally {
-                    IOUtils.closeQuietly(inStream);
-                }
+            } finally {
+                IOUtils.closeQuietly(in);
             }
 
             return featureCollection;
@@ -188,6 +140,18 @@ public Wfs20FeatureCollection readFrom(Class<Wfs20FeatureCollection> clazz, Type
         }
     }
 
+    private BigInteger parseBigInteger(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return new BigInteger(value.trim());
+        } catch (NumberFormatException e) {
+            LOGGER.debug("Invalid {} value {}", NUMBER_RETURNED, value);
+            return null;
+        }
+    }
+
     public void registerConverter(FeatureConverter converter) {
         featureConverterMap.put(converter.getMetacardType().getName(), converter);
         xstream.registerConverter(converter);
@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ **/
+package org.codice.ddf.spatial.ogc.wfs.v2_0_0.catalog.source;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codice.ddf.spatial.ogc.wfs.v2_0_0.catalog.common.Wfs20FeatureCollection;
+import org.junit.After;
+import org.junit.Test;
+
+public class TestFeaturePagePrefetcher {
+
+    private final FeaturePagePrefetcher prefetcher = new FeaturePagePrefetcher("test");
+
+    private final AtomicInteger fetches = new AtomicInteger();
+
+    private final Wfs20FeatureCollection page = new Wfs20FeatureCollection();
+
+    private final Callable<Wfs20FeatureCollection> fetch = new Callable<Wfs20FeatureCollection>() {
+        @Override
+        public Wfs20FeatureCollection call() {
+            fetches.incrementAndGet();
+            return page;
+        }
+    };
+
+    @After
+    public void tearDown() {
+        prefetcher.shutdown();
+    }
+
+    @Test
+    public void testFirstPageIsNotPrefetched() {
+        prefetcher.completed("page1", "page2", fetch);
+
+        assertThat(prefetcher.take("page2"), nullValue());
+        assertThat(fetches.get(), is(0));
+    }
+
+    @Test
+    public void testSequentialPageIsPrefetched() {
+        prefetcher.completed("page1", "page2", fetch);
+        prefetcher.completed("page2", "page3", fetch);
+
+        assertThat(prefetcher.take("page3"), sameInstance(page));
+        assertThat(fetches.get(), is(1));
+        assertThat(prefetcher.take("page3"), nullValue());
+    }
+
+    @Test
+    public void testPrefetchedPageIsOnlyUsedForSameRequest() {
+        prefetcher.completed("page1", "page2", fetch);
+        prefetcher.completed("page2", "page3", fetch);
+
+        assertThat(prefetcher.take("other"), nullValue());
+        assertThat(prefetcher.take("page3"), sameInstance(page));
+    }
+
+    @Test
+    public void testLastPageIsNotFollowedByPrefetch() {
+        prefetcher.completed("page1", "page2", fetch);
+        prefetcher.completed("page2", null, fetch);
+
+        assertThat(fetches.get(), is(0));
+    }
+
+    @Test
+    public void testStalePrefetchIsDropped() throws Exception {
+        FeaturePagePrefetcher expiring = new FeaturePagePrefetcher("test", 0);
+        try {
+            expiring.completed("page1", "page2", fetch);
+            expiring.completed("page2", "page3", fetch);
+            Thread.sleep(10);
+
+            assertThat(expiring.take("page3"), nullValue());
+        } finally {
+            expiring.shutdown();
+        }
+    }
+
+    @Test
+    public void testFailedPrefetchIsIgnored() {
+        prefetcher.completed("page1", "page2", fetch);
+        prefetcher.completed("page2", "page3", new Callable<Wfs20FeatureCollection>() {
+            @Override
+            public Wfs20FeatureCollection call() throws Exception {
+                throw new Exception("unavailable");
+            }
+        });
+
+        assertThat(prefetcher.take("page3"), nullValue());
+    }
+}
@@ -507,6 +507,21 @@ public void testPagingPageSizeNegative() throws WfsException, TransformerConfigu
         GetFeatureType featureType = source.buildGetFeatureRequest(query);
     }
 
+    @Test
+    public void testPrefetchDoesNotChangeRequest() throws Exception {
+        WfsSource source = getWfsSource(ONE_TEXT_PROPERTY_SCHEMA,
+                MockWfsServer.getFilterCapabilities(), Wfs20Constants.EPSG_4326_URN, 10, false);
+        source.setPrefetchNextPage(true);
+        Filter filter = builder.attribute(Metacard.ANY_TEXT).is().like().text(LITERAL);
+
+        source.query(new QueryRequestImpl(new QueryImpl(filter, 1, 4, null, false, 0)));
+
+        ArgumentCaptor<GetFeatureType> captor = ArgumentCaptor.forClass(GetFeatureType.class);
+        verify(mockWfs).getFeature(captor.capture());
+        assertThat(captor.getValue().getStartIndex().intValue(), is(0));
+        source.setPrefetchNextPage(false);
+    }
+
     @Test
     public void testResultNumReturnedNegative() throws WfsException,
             TransformerConfigurationException, UnsupportedQueryException {
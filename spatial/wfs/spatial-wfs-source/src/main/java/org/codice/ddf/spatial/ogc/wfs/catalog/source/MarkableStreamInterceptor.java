@@ -14,11 +14,9 @@
  **/
 package org.codice.ddf.spatial.ogc.wfs.catalog.source;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
+import java.io.BufferedInputStream;
 import java.io.InputStream;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.cxf.interceptor.Fault;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.phase.AbstractPhaseInterceptor;
@@ -26,8 +24,15 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Makes the response stream markable, so the exception mappers can re-read an error response.
+ * Only the first {@link #MARK_LIMIT} bytes are kept, so large responses are still streamed to
+ * their message body readers rather than held in memory.
+ */
 public class MarkableStreamInterceptor extends AbstractPhaseInterceptor<Message> {
 
+    public static final int MARK_LIMIT = 1024 * 1024;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(MarkableStreamInterceptor.class);
 
     public MarkableStreamInterceptor() {
@@ -39,13 +44,13 @@ public void handleMessage(Message message) throws Fault {
         LOGGER.debug("Converting message input stream to a buffered stream");
         InputStream is = message.getContent(InputStream.class);
 
-        try {
-            message.setContent(InputStream.class,
-                    new ByteArrayInputStream(IOUtils.toByteArray(is)));
-        } catch (IOException e) {
-            LOGGER.warn("Failed to convert buffered stream");
-        } catch (NullPointerException e) {
+        if (is == null) {
             LOGGER.warn("InputStream was null");
+            return;
         }
+
+        InputStream markable = is.markSupported() ? is : new BufferedInputStream(is);
+        markable.mark(MARK_LIMIT);
+        message.setContent(InputStream.class, markable);
     }
 }
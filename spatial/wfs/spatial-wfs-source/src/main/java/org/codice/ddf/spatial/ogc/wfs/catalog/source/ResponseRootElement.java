@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.wfs.catalog.source;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Root element of an XML response, read ahead of the response so the message body readers can
+ * tell a feature collection from an exception report and then stream the response, instead of
+ * copying the whole response into memory first.
+ */
+public final class ResponseRootElement {
+
+    /**
+     * Number of bytes the root element, and anything before it, may span.
+     */
+    public static final int MARK_LIMIT = 64 * 1024;
+
+    private static final XMLInputFactory XML_INPUT_FACTORY;
+
+    static {
+        ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+        try {
+            Thread.currentThread()
+                    .setContextClassLoader(ResponseRootElement.class.getClassLoader());
+
+            XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+            XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+            XML_INPUT_FACTORY
+                    .setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        } finally {
+            Thread.currentThread().setContextClassLoader(tccl);
+        }
+    }
+
+    private final String localName;
+
+    private final Map<String, String> attributes;
+
+    private ResponseRootElement(String localName, Map<String, String> attributes) {
+        this.localName = localName;
+        this.attributes = attributes;
+    }
+
+    /**
+     * Returns a stream that can be passed to {@link #read(InputStream)}.
+     */
+    public static InputStream markable(InputStream in) {
+        return in.markSupported() ? in : new BufferedInputStream(in);
+    }
+
+    /**
+     * Reads the root element of a response. The stream is reset afterwards, so the whole response
+     * can still be read from it.
+     *
+     * @param in response, which must support {@link InputStream#mark(int)}
+     * @return the root element, or {@code null} if the response has no root element
+     * @throws IOException if the response is not well-formed XML or cannot be read
+     */
+    public static ResponseRootElement read(InputStream in) throws IOException {
+        in.mark(MARK_LIMIT);
+        XMLStreamReader reader = null;
+        try {
+            // closing the reader does not close the underlying stream
+            reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                    Map<String, String> attributes = new HashMap<>();
+                    for (int i = 0; i < reader.getAttributeCount(); i++) {
+                        attributes.put(reader.getAttributeLocalName(i),
+                                reader.getAttributeValue(i));
+                    }
+                    return new ResponseRootElement(reader.getLocalName(), attributes);
+                }
+            }
+            return null;
+        } catch (XMLStreamException e) {
+            throw new IOException("Unable to read the root element of the response.", e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    // nothing more is read from the reader
+                }
+            }
+            in.reset();
+        }
+    }
+
+    /**
+     * Wraps the remaining content of a response that is not the expected document in a
+     * {@link WebApplicationException} with an "OK" status, which the sources convert to a
+     * {@code WfsException} through their exception mappers.
+     */
+    public static WebApplicationException toWebApplicationException(Throwable cause,
+            InputStream in) throws IOException {
+        ResponseBuilder responseBuilder = Response
+                .ok(new ByteArrayInputStream(IOUtils.toByteArray(in)));
+        responseBuilder.type("text/xml");
+        return new WebApplicationException(cause, responseBuilder.build());
+    }
+
+    public String getLocalName() {
+        return localName;
+    }
+
+    /**
+     * @return the value of the attribute with the local name, or {@code null} if the root element
+     * does not have it
+     */
+    public String getAttribute(String attributeLocalName) {
+        return attributes.get(attributeLocalName);
+    }
+}
@@ -27,6 +27,7 @@
 
 import org.apache.commons.collections.map.LRUMap;
 import org.apache.commons.lang.StringUtils;
+import org.codice.ddf.ui.searchui.query.model.MergedResults;
 import org.codice.ddf.ui.searchui.query.model.QueryStatus;
 import org.codice.ddf.ui.searchui.query.model.Search;
 import org.codice.ddf.ui.searchui.query.model.SearchRequest;
@@ -44,8 +45,6 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.collect.Ordering;
-
 import ddf.action.Action;
 import ddf.action.ActionRegistry;
 import ddf.catalog.CatalogFramework;
@@ -58,7 +57,6 @@
 import ddf.catalog.operation.Query;
 import ddf.catalog.operation.QueryRequest;
 import ddf.catalog.operation.QueryResponse;
-import ddf.catalog.operation.SourceResponse;
 import ddf.catalog.operation.impl.ProcessingDetailsImpl;
 import ddf.catalog.operation.impl.QueryRequestImpl;
 import ddf.catalog.operation.impl.QueryResponseImpl;
@@ -188,7 +186,9 @@ public void configureChannel(ConfigurableServerChannel channel) {
     }
 
     /**
-     * Execute all of the queries contained within the SearchRequest
+     * Execute all of the queries contained within the SearchRequest. The first push for a search
+     * contains all of its results; each later push only contains the results that were added,
+     * removed or moved and the statuses that changed.
      *
      * @param request
      *            - SearchRequest containing a query for 1 or more sources
@@ -198,8 +198,6 @@ public void configureChannel(ConfigurableServerChannel channel) {
     public void executeQuery(final SearchRequest request, final ServerSession session,
             final Subject subject) {
 
-        final SearchController controller = this;
-
         if (!cacheDisabled) {
             executorService.submit(new Runnable() {
                 @Override
@@ -209,15 +207,7 @@ public void run() {
                     QueryResponse response = executeQuery(null, request, subject,
                             new HashMap<>(CACHE_PROPERTIES));
 
-                    try {
-                        Search search = addQueryResponseToSearch(request, response);
-                        pushResults(request.getId(), controller.transform(search, request),
-                                session);
-                    } catch (InterruptedException e) {
-                        LOGGER.error("Failed adding cached search results.", e);
-                    } catch (CatalogTransformerException e) {
-                        LOGGER.error("Failed to transform cached search results.", e);
-                    }
+                    publishResults(request, session, response, null, null);
                 }
             });
 
@@ -230,33 +220,17 @@ public void run() {
                         QueryResponse indexResponse = executeQuery(sourceId, request, subject,
                                 new HashMap<>(INDEX_PROPERTIES));
 
-                        // query updated cache
+                        // query updated cache across all sources, as the cached page can change
+                        // for every source; results already in the search are not pushed again
                         QueryResponse cachedResponse = executeQuery(null, request, subject,
                                 new HashMap<>(CACHE_PROPERTIES));
 
-                        try {
-                            Search search = addQueryResponseToSearch(request, cachedResponse);
-                            search.updateStatus(sourceId, indexResponse);
-                            pushResults(request.getId(), controller.transform(search, request),
-                                    session);
-                            if (search.isFinished()) {
-                                searchMap.remove(request.getId());
-                            }
-                        } catch (InterruptedException e) {
-                            LOGGER.error("Failed adding federated search results.", e);
-                        } catch (CatalogTransformerException e) {
-                            LOGGER.error("Failed to transform federated search results.", e);
-                        }
+                        publishResults(request, session, cachedResponse, sourceId,
+                                indexResponse);
                     }
                 });
             }
         } else {
-            final Comparator<Result> sortComparator = getResultComparator(request.getQuery());
-            final int maxResults = request.getQuery().getPageSize() > 0 ?
-                    request.getQuery().getPageSize() :
-                    Integer.MAX_VALUE;
-            final List<Result> results = Collections.synchronizedList(new ArrayList<Result>());
-
             for (final String sourceId : request.getSourceIds()) {
                 LOGGER.debug("Executing async query without cache on: {}", sourceId);
                 executorService.submit(new Runnable() {
@@ -265,38 +239,53 @@ public void run() {
                         QueryResponse sourceResponse = executeQuery(sourceId, request, subject,
                                 new HashMap<String, Serializable>());
 
-                        results.addAll(sourceResponse.getResults());
-
-                        List<Result> sortedResults = Ordering.from(sortComparator)
-                                .immutableSortedCopy(results);
-
-                        sourceResponse.getResults().clear();
-                        sourceResponse.getResults().addAll(sortedResults.size() > maxResults ?
-                                sortedResults.subList(0, maxResults) :
-                                sortedResults);
-
-                        try {
-                            Search search = addQueryResponseToSearch(request, sourceResponse);
-                            search.updateStatus(sourceId, sourceResponse);
-                            pushResults(request.getId(), controller.transform(search, request),
-                                    session);
-                            if (search.isFinished()) {
-                                searchMap.remove(request.getId());
-                            }
-                        } catch (InterruptedException e) {
-                            LOGGER.error("Failed adding federated search results.", e);
-                        } catch (CatalogTransformerException e) {
-                            LOGGER.error("Failed to transform federated search results.", e);
-                        }
+                        publishResults(request, session, sourceResponse, sourceId,
+                                sourceResponse);
                     }
                 });
             }
         }
     }
 
+    /**
+     * Merges a response into its search and pushes the changes to the client. The search is
+     * locked until the push completes so that clients receive the changes in the order they were
+     * made.
+     */
+    private void publishResults(SearchRequest request, ServerSession session,
+            QueryResponse resultResponse, String sourceId, QueryResponse statusResponse) {
+        Search search = getSearch(request);
+
+        synchronized (search) {
+            MergedResults.Delta delta = search.addQueryResponse(resultResponse);
+            if (sourceId != null) {
+                search.updateStatus(sourceId, statusResponse);
+            }
+
+            try {
+                JSONObject json;
+                if (search.isSnapshotSent()) {
+                    json = transform(search, request, delta);
+                } else {
+                    json = transform(search, request);
+                }
+                pushResults(request.getId(), json, session);
+                search.setSnapshotSent(true);
+            } catch (CatalogTransformerException e) {
+                // the client may have missed changes, so send everything next time
+                search.setSnapshotSent(false);
+                LOGGER.error("Failed to transform search results.", e);
+            }
+
+            if (search.isFinished()) {
+                searchMap.remove(request.getId());
+            }
+        }
+    }
+
     private Comparator<Result> getResultComparator(Query query) {
         Comparator<Result> sortComparator = new RelevanceResultComparator(SortOrder.DESCENDING);
-        SortBy sortBy = query.getSortBy();
+        SortBy sortBy = query == null ? null : query.getSortBy();
 
         if (sortBy != null && sortBy.getPropertyName() != null) {
             PropertyName sortingProp = sortBy.getPropertyName();
@@ -319,23 +308,25 @@ private Comparator<Result> getResultComparator(Query query) {
         return sortComparator;
     }
 
-    private Search addQueryResponseToSearch(SearchRequest searchRequest,
-            QueryResponse queryResponse) throws InterruptedException {
-        Search search = null;
-        if (searchMap.containsKey(searchRequest.getId())) {
-            LOGGER.debug("Using previously created Search object for cache: {}",
-                    searchRequest.getId());
-            search = searchMap.get(searchRequest.getId());
-            search.addQueryResponse(queryResponse);
-        } else {
-            LOGGER.debug("Creating new Search object to cache async query results: {}",
-                    searchRequest.getId());
-            search = new Search();
-            search.setSearchRequest(searchRequest);
-            search.addQueryResponse(queryResponse);
-            searchMap.put(searchRequest.getId(), search);
+    private Search getSearch(SearchRequest searchRequest) {
+        synchronized (searchMap) {
+            Search search = searchMap.get(searchRequest.getId());
+            if (search != null) {
+                LOGGER.debug("Using previously created Search object for cache: {}",
+                        searchRequest.getId());
+            } else {
+                LOGGER.debug("Creating new Search object to cache async query results: {}",
+                        searchRequest.getId());
+                int maxResults = searchRequest.getQuery() != null
+                        && searchRequest.getQuery().getPageSize() > 0 ?
+                        searchRequest.getQuery().getPageSize() :
+                        Integer.MAX_VALUE;
+                search = new Search(getResultComparator(searchRequest.getQuery()), maxResults);
+                search.setSearchRequest(searchRequest);
+                searchMap.put(searchRequest.getId(), search);
+            }
+            return search;
         }
-        return search;
     }
 
     /**
@@ -402,20 +393,16 @@ private QueryResponse getEmptyResponse(String sourceId) {
     private JSONObject transform(Search search, SearchRequest searchRequest) throws
             CatalogTransformerException {
 
-        SourceResponse upstreamResponse = search.getCompositeQueryResponse();
         Map<String, MetacardType> metaTypes = new HashMap<String, MetacardType>();
-        if (upstreamResponse == null) {
-            throw new CatalogTransformerException(
-                    "Cannot transform null " + SourceResponse.class.getName());
-        }
 
         JSONObject rootObject = new JSONObject();
 
         addObject(rootObject, Search.HITS, search.getHits());
         addObject(rootObject, Search.ID, searchRequest.getId());
-        addObject(rootObject, Search.RESULTS,
-                getResultList(upstreamResponse.getResults(), metaTypes));
-        addObject(rootObject, Search.STATUS, getQueryStatus(search.getQueryStatus()));
+        addObject(rootObject, Search.RESULTS, getResultList(search.getResults(), metaTypes));
+        search.drainChangedStatus();
+        addObject(rootObject, Search.STATUS,
+                getQueryStatus(search.getQueryStatus(), search.getQueryStatus().keySet()));
         addObject(rootObject, Search.METACARD_TYPES, getMetacardTypes(metaTypes.values()));
 
         LOGGER.debug(rootObject.toJSONString());
@@ -423,11 +410,51 @@ private JSONObject transform(Search search, SearchRequest searchRequest) throws
         return rootObject;
     }
 
-    private JSONArray getQueryStatus(Map<String, QueryStatus> queryStatus) {
+    /**
+     * Transforms the changes made to a search. Added results carry their index in the merged
+     * results, removed results are identified by {@link MergedResults#getKey(Result)}, and only
+     * the statuses that changed are included.
+     */
+    private JSONObject transform(Search search, SearchRequest searchRequest,
+            MergedResults.Delta delta) throws CatalogTransformerException {
+
+        Map<String, MetacardType> metaTypes = new HashMap<String, MetacardType>();
+
+        JSONObject rootObject = new JSONObject();
+
+        JSONArray added = new JSONArray();
+        for (Map.Entry<Integer, Result> entry : delta.getAdded().entrySet()) {
+            JSONObject resultJson = convertToJSON(entry.getValue(), metaTypes);
+            addObject(resultJson, Search.INDEX, entry.getKey());
+            added.add(resultJson);
+        }
+
+        JSONArray removed = new JSONArray();
+        removed.addAll(delta.getRemoved());
+
+        addObject(rootObject, Search.DELTA, true);
+        addObject(rootObject, Search.HITS, search.getHits());
+        addObject(rootObject, Search.ID, searchRequest.getId());
+        addObject(rootObject, Search.RESULTS, added);
+        addObject(rootObject, Search.REMOVED, removed);
+        addObject(rootObject, Search.STATUS,
+                getQueryStatus(search.getQueryStatus(), search.drainChangedStatus()));
+        addObject(rootObject, Search.METACARD_TYPES, getMetacardTypes(metaTypes.values()));
+
+        LOGGER.debug(rootObject.toJSONString());
+
+        return rootObject;
+    }
+
+    private JSONArray getQueryStatus(Map<String, QueryStatus> queryStatus,
+            Collection<String> sourceIds) {
         JSONArray statuses = new JSONArray();
 
-        for (String key : queryStatus.keySet()) {
+        for (String key : sourceIds) {
             QueryStatus status = queryStatus.get(key);
+            if (status == null) {
+                continue;
+            }
 
             JSONObject statusObject = new JSONObject();
 
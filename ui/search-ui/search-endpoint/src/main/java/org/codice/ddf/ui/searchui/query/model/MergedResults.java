@@ -0,0 +1,262 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.ui.searchui.query.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+
+/**
+ * Sorted, bounded view of the results of a search across all of its sources. Results from each
+ * source are merged into the view as they arrive, and each merge reports only the results that
+ * were added to or removed from the view, so the cost of a merge depends on the size of the view
+ * and of the merged results rather than on the number of sources that have already responded.
+ * <p/>
+ * Results are identified by their source id and metacard id, so a newer version of a result
+ * replaces the one already in the view. Merging a result that is unchanged, i.e. has the same
+ * modified date and ranks the same as the one in the view, does not change the view, so merging
+ * the same results again produces an empty delta.
+ */
+public class MergedResults {
+
+    private final Comparator<Result> comparator;
+
+    private final int maxResults;
+
+    private final List<Result> results = new ArrayList<Result>();
+
+    private final Map<String, Result> resultsByKey = new HashMap<String, Result>();
+
+    private final Map<String, Long> resultCounts = new HashMap<String, Long>();
+
+    /**
+     * @param comparator order of the results in the view
+     * @param maxResults maximum number of results kept in the view
+     */
+    public MergedResults(Comparator<Result> comparator, int maxResults) {
+        this.comparator = comparator;
+        this.maxResults = maxResults;
+    }
+
+    /**
+     * Returns the key identifying a result in the view and in the deltas sent to clients.
+     */
+    public static String getKey(Result result) {
+        return getSourceId(result) + ":" + result.getMetacard().getId();
+    }
+
+    private static String getSourceId(Result result) {
+        Metacard metacard = result.getMetacard();
+        return metacard.getSourceId() == null ? "" : metacard.getSourceId();
+    }
+
+    /**
+     * Merges results into the view.
+     *
+     * @param newResults results to merge
+     * @return the changes made to the view
+     */
+    public synchronized Delta merge(Collection<Result> newResults) {
+        Map<String, String> removed = new LinkedHashMap<String, String>();
+        Set<String> added = new LinkedHashSet<String>();
+
+        for (Result result : newResults) {
+            if (result == null || result.getMetacard() == null) {
+                continue;
+            }
+
+            String key = getKey(result);
+            Result existing = resultsByKey.get(key);
+            if (existing != null && isUnchanged(existing, result)) {
+                results.set(indexOf(existing), result);
+                resultsByKey.put(key, result);
+                continue;
+            }
+
+            resultsByKey.remove(key);
+            if (existing != null) {
+                removeFromList(existing);
+                if (!added.remove(key)) {
+                    removed.put(key, getSourceId(existing));
+                }
+            }
+
+            int index = insertionPoint(result);
+            if (index >= maxResults) {
+                continue;
+            }
+
+            results.add(index, result);
+            resultsByKey.put(key, result);
+            added.add(key);
+
+            if (results.size() > maxResults) {
+                Result evicted = results.remove(results.size() - 1);
+                String evictedKey = getKey(evicted);
+                resultsByKey.remove(evictedKey);
+                if (!added.remove(evictedKey)) {
+                    removed.put(evictedKey, getSourceId(evicted));
+                }
+            }
+        }
+
+        Map<Integer, Result> addedResults = new LinkedHashMap<Integer, Result>();
+        if (!added.isEmpty()) {
+            for (int i = 0; i < results.size(); i++) {
+                if (added.contains(getKey(results.get(i)))) {
+                    addedResults.put(i, results.get(i));
+                }
+            }
+        }
+
+        updateResultCounts(removed.values(), addedResults.values());
+
+        Set<String> changedSources = new LinkedHashSet<String>(removed.values());
+        for (Result result : addedResults.values()) {
+            changedSources.add(getSourceId(result));
+        }
+
+        return new Delta(new ArrayList<String>(removed.keySet()), addedResults, changedSources);
+    }
+
+    /**
+     * @return a copy of the results in the view, in order
+     */
+    public synchronized List<Result> getResults() {
+        return new ArrayList<Result>(results);
+    }
+
+    /**
+     * @return the number of results in the view from the source
+     */
+    public synchronized long getResultCount(String sourceId) {
+        Long count = resultCounts.get(sourceId);
+        return count == null ? 0 : count;
+    }
+
+    public synchronized int size() {
+        return results.size();
+    }
+
+    private int insertionPoint(Result result) {
+        int low = 0;
+        int high = results.size();
+        // place the result after any equal results so earlier sources keep their place
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (comparator.compare(results.get(middle), result) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private boolean isUnchanged(Result existing, Result result) {
+        if (existing == result) {
+            return true;
+        }
+        Date existingModified = existing.getMetacard().getModifiedDate();
+        return existingModified != null && existingModified
+                .equals(result.getMetacard().getModifiedDate())
+                && comparator.compare(existing, result) == 0;
+    }
+
+    private int indexOf(Result result) {
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == result) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void removeFromList(Result result) {
+        int index = indexOf(result);
+        if (index >= 0) {
+            results.remove(index);
+        }
+    }
+
+    private void updateResultCounts(Collection<String> removedSourceIds,
+            Collection<Result> addedResults) {
+        for (String sourceId : removedSourceIds) {
+            Long count = resultCounts.get(sourceId);
+            if (count != null) {
+                resultCounts.put(sourceId, count - 1);
+            }
+        }
+        for (Result result : addedResults) {
+            String sourceId = getSourceId(result);
+            Long count = resultCounts.get(sourceId);
+            resultCounts.put(sourceId, count == null ? 1 : count + 1);
+        }
+    }
+
+    /**
+     * Changes made to the view by a merge. Applying a delta to the previous contents of the view
+     * means removing the results with the {@link #getRemoved() removed} keys and then inserting
+     * the {@link #getAdded() added} results at their indexes, in ascending order. A result that
+     * moved is both removed and added.
+     */
+    public static class Delta {
+
+        private final List<String> removed;
+
+        private final Map<Integer, Result> added;
+
+        private final Set<String> changedSources;
+
+        Delta(List<String> removed, Map<Integer, Result> added, Set<String> changedSources) {
+            this.removed = Collections.unmodifiableList(removed);
+            this.added = Collections.unmodifiableMap(added);
+            this.changedSources = Collections.unmodifiableSet(changedSources);
+        }
+
+        /**
+         * @return the keys of the results removed from the view
+         */
+        public List<String> getRemoved() {
+            return removed;
+        }
+
+        /**
+         * @return the results added to the view, by their index in the view, in ascending order
+         */
+        public Map<Integer, Result> getAdded() {
+            return added;
+        }
+
+        /**
+         * @return the ids of the sources whose number of results in the view changed
+         */
+        public Set<String> getChangedSources() {
+            return changedSources;
+        }
+
+        public boolean isEmpty() {
+            return removed.isEmpty() && added.isEmpty();
+        }
+    }
+}
@@ -14,13 +14,14 @@
  **/
 package org.codice.ddf.ui.searchui.query.model;
 
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import org.apache.commons.collections.Bag;
-import org.apache.commons.collections.bag.HashBag;
 import org.codice.ddf.ui.searchui.query.model.QueryStatus.State;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,7 +31,10 @@
 import ddf.catalog.operation.QueryResponse;
 
 /**
- * This class represents the cached asynchronous query response from all sources.
+ * This class represents the cached asynchronous query response from all sources. Results are
+ * kept in a {@link MergedResults} view so each response only changes the part of the view it
+ * affects, and the sources whose status changed since the last push are tracked so that only
+ * those statuses need to be sent.
  */
 public class Search {
 
@@ -70,34 +74,59 @@ public class Search {
 
     public static final String CACHED = "cached";
 
+    public static final String DELTA = "delta";
+
+    public static final String REMOVED = "removed";
+
+    public static final String INDEX = "index";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(Search.class);
 
     private SearchRequest searchRequest;
 
-    private QueryResponse compositeQueryResponse;
+    private final MergedResults mergedResults;
 
     private Map<String, QueryStatus> queryStatus = new HashMap<String, QueryStatus>();
 
+    private Set<String> changedStatus = new LinkedHashSet<String>();
+
+    private boolean snapshotSent = false;
+
     private long hits = 0;
 
     private long responseNum = 0;
 
     /**
-     * Adds a query response to the cached set of results.
+     * @param comparator - Order of the results
+     * @param maxResults - Maximum number of results to keep
+     */
+    public Search(Comparator<Result> comparator, int maxResults) {
+        mergedResults = new MergedResults(comparator, maxResults);
+    }
+
+    /**
+     * Merges the results of a query response into the cached set of results.
      *
      * @param queryResponse - Query response to add
      *
-     * @throws InterruptedException
+     * @return the changes made to the cached set of results
      */
-    public synchronized void addQueryResponse(QueryResponse queryResponse) throws
-            InterruptedException {
-        if (queryResponse != null) {
-            compositeQueryResponse = queryResponse;
-            updateResultStatus(queryResponse.getResults());
+    public synchronized MergedResults.Delta addQueryResponse(QueryResponse queryResponse) {
+        MergedResults.Delta delta = mergedResults
+                .merge(queryResponse == null ? Collections.<Result>emptyList() :
+                        queryResponse.getResults());
+
+        for (String sourceId : delta.getChangedSources()) {
+            QueryStatus status = queryStatus.get(sourceId);
+            if (status != null) {
+                status.setResultCount(mergedResults.getResultCount(sourceId));
+                changedStatus.add(sourceId);
+            }
         }
+        return delta;
     }
 
-    public void updateStatus(String sourceId, QueryResponse queryResponse) {
+    public synchronized void updateStatus(String sourceId, QueryResponse queryResponse) {
         if (!queryStatus.containsKey(sourceId)) {
             queryStatus.put(sourceId, new QueryStatus(sourceId));
         }
@@ -109,6 +138,8 @@ public void updateStatus(String sourceId, QueryResponse queryResponse) {
         status.setState((isSuccessful(queryResponse.getProcessingDetails()) ?
                 State.SUCCEEDED :
                 State.FAILED));
+        status.setResultCount(mergedResults.getResultCount(sourceId));
+        changedStatus.add(sourceId);
         responseNum++;
     }
 
@@ -121,25 +152,28 @@ private boolean isSuccessful(final Set<ProcessingDetails> details) {
         return true;
     }
 
-    private void updateResultStatus(List<Result> results) {
-        Bag hitSourceCount = new HashBag();
-
-        for (String sourceId : queryStatus.keySet()) {
-            queryStatus.get(sourceId).setResultCount(0);
-        }
+    /**
+     * Returns the ids of the sources whose status changed since this method was last called.
+     */
+    public synchronized Set<String> drainChangedStatus() {
+        Set<String> changed = changedStatus;
+        changedStatus = new LinkedHashSet<String>();
+        return changed;
+    }
 
-        for (Result result : results) {
-            hitSourceCount.add(result.getMetacard().getSourceId());
-        }
+    /**
+     * Whether the complete set of results has been sent to the client, after which only the
+     * changes to it are sent.
+     */
+    public synchronized boolean isSnapshotSent() {
+        return snapshotSent;
+    }
 
-        for (Object sourceId : hitSourceCount.uniqueSet()) {
-            if (queryStatus.containsKey(sourceId)) {
-                queryStatus.get(sourceId).setResultCount(hitSourceCount.getCount(sourceId));
-            }
-        }
+    public synchronized void setSnapshotSent(boolean snapshotSent) {
+        this.snapshotSent = snapshotSent;
     }
 
-    public boolean isFinished() {
+    public synchronized boolean isFinished() {
         return responseNum >= searchRequest.getSourceIds().size();
     }
 
@@ -155,8 +189,11 @@ public void setSearchRequest(SearchRequest request) {
         }
     }
 
-    public QueryResponse getCompositeQueryResponse() {
-        return compositeQueryResponse;
+    /**
+     * @return the cached results, in order
+     */
+    public List<Result> getResults() {
+        return mergedResults.getResults();
     }
 
     public Map<String, QueryStatus> getQueryStatus() {
@@ -55,6 +55,8 @@
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -160,6 +162,45 @@ public void testMetacardTypeValuesCacheEnabled() {
         assertReplies(replies);
     }
 
+    /**
+     * Verify that only the first push contains the whole search and later pushes contain the
+     * changes to it.
+     */
+    @Test
+    public void testLaterPushesAreDeltas() {
+
+        final String ID = "id";
+        Set<String> srcIds = new HashSet<String>();
+        srcIds.add(ID);
+
+        BayeuxServer bayeuxServer = mock(BayeuxServer.class);
+        ServerChannel channel = mock(ServerChannel.class);
+        ArgumentCaptor<ServerMessage.Mutable> reply = ArgumentCaptor
+                .forClass(ServerMessage.Mutable.class);
+
+        when(bayeuxServer.getChannel(any(String.class))).thenReturn(channel);
+
+        SearchRequest request = new SearchRequest(srcIds, mock(Query.class), ID);
+
+        searchController.setBayeuxServer(bayeuxServer);
+        searchController.setCacheDisabled(false);
+        searchController.executeQuery(request, mockServerSession, null);
+
+        verify(channel, timeout(1000).times(2))
+                .publish(any(ServerSession.class), reply.capture(), anyString());
+        List<Mutable> replies = reply.getAllValues();
+
+        assertThat(replies.get(0).get(Search.DELTA), is(nullValue()));
+        assertThat(((List<?>) replies.get(0).get(Search.RESULTS)).size(), is(2));
+
+        // the source returns newer versions of the two results, which replace the cached
+        // ones
+        assertThat((Boolean) replies.get(1).get(Search.DELTA), is(true));
+        assertThat(((List<?>) replies.get(1).get(Search.REMOVED)).size(), is(2));
+        assertThat(((List<?>) replies.get(1).get(Search.RESULTS)).size(), is(2));
+        assertThat(((List<?>) replies.get(1).get(Search.STATUS)).size(), is(1));
+    }
+
     /**
      * Verify that the CatalogFramework does not use the cache (i.e. the CatalogFramework 
      * is called WITH the query request property mode=cache).
@@ -197,6 +238,43 @@ public void testExecuteQueryCacheEnabled() throws Exception {
         assertThat(modes, hasItems("cache", "index", "cache"));
     }
 
+    /**
+     * Verify that the cache query made after a source is indexed covers every source of the
+     * search, as the query made for the first push does.
+     */
+    @Test
+    public void testCacheQueriesCoverAllSources() throws Exception {
+        // Setup
+        Set<String> srcIds = new HashSet<>(2);
+        srcIds.add("source1");
+        srcIds.add("source2");
+        SearchRequest request = new SearchRequest(srcIds, mock(Query.class), "id");
+        BayeuxServer bayeuxServer = mock(BayeuxServer.class);
+        ServerChannel channel = mock(ServerChannel.class);
+        when(bayeuxServer.getChannel(any(String.class))).thenReturn(channel);
+        ArgumentCaptor<QueryRequest> queryRequestCaptor = ArgumentCaptor
+                .forClass(QueryRequest.class);
+        searchController.setCacheDisabled(false);
+        searchController.setBayeuxServer(bayeuxServer);
+
+        // Perform Test
+        searchController.executeQuery(request, mockServerSession, null);
+
+        // Verify
+        verify(framework, times(5)).query(queryRequestCaptor.capture());
+
+        int cacheQueries = 0;
+        for (QueryRequest queryRequest : queryRequestCaptor.getAllValues()) {
+            if ("cache".equals(queryRequest.getPropertyValue("mode"))) {
+                assertThat(queryRequest.getSourceIds(), is(srcIds));
+                cacheQueries++;
+            } else {
+                assertThat(queryRequest.getSourceIds().size(), is(1));
+            }
+        }
+        assertThat(cacheQueries, is(3));
+    }
+
     /**
      * Verify that the CatalogFramework does not use the cache (i.e. the CatalogFramework 
      * is called WITHOUT the query request property mode=cache).
@@ -261,9 +339,32 @@ private void assertReplies(List<Mutable> replies) {
     }
 
     private CatalogFramework createFramework() {
+        CatalogFramework framework = mock(CatalogFramework.class);
+
+        try {
+            // every query returns a newer version of the results, as a source that was queried
+            // again would
+            when(framework.query(any(QueryRequest.class))).thenAnswer(new Answer<QueryResponse>() {
+                private long queryCount = 0;
+
+                @Override
+                public QueryResponse answer(InvocationOnMock invocation) {
+                    return createResponse(new Date(TIMESTAMP.getTime() + queryCount++));
+                }
+            });
+        } catch (UnsupportedQueryException e) {
+            LOGGER.debug("Error querying framework", e);
+        } catch (SourceUnavailableException e) {
+            LOGGER.debug("Error querying framework", e);
+        } catch (FederationException e) {
+            LOGGER.debug("Error querying framework", e);
+        }
+        return framework;
+    }
+
+    private QueryResponse createResponse(Date modified) {
         final long COUNT = 2;
 
-        CatalogFramework framework = mock(CatalogFramework.class);
         List<Result> results = new ArrayList<Result>();
 
         for (int i = 0; i < COUNT; i++) {
@@ -277,7 +378,7 @@ private CatalogFramework createFramework() {
             metacard.setCreatedDate(TIMESTAMP);
             metacard.setEffectiveDate(TIMESTAMP);
             metacard.setExpirationDate(TIMESTAMP);
-            metacard.setModifiedDate(TIMESTAMP);
+            metacard.setModifiedDate(modified);
             metacard.setContentTypeName("TEST");
             metacard.setContentTypeVersion("1.0");
             metacard.setTargetNamespace(URI.create(getClass().getPackage().getName()));
@@ -292,17 +393,7 @@ private CatalogFramework createFramework() {
         QueryResponse response = new QueryResponseImpl(mock(QueryRequest.class),
                 new ArrayList<Result>(), COUNT);
         response.getResults().addAll(results);
-
-        try {
-            when(framework.query(any(QueryRequest.class))).thenReturn(response);
-        } catch (UnsupportedQueryException e) {
-            LOGGER.debug("Error querying framework", e);
-        } catch (SourceUnavailableException e) {
-            LOGGER.debug("Error querying framework", e);
-        } catch (FederationException e) {
-            LOGGER.debug("Error querying framework", e);
-        }
-        return framework;
+        return response;
     }
 
     /**
@@ -0,0 +1,156 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.ui.searchui.query.model;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.opengis.filter.sort.SortOrder;
+
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.util.impl.RelevanceResultComparator;
+
+public class MergedResultsTest {
+
+    private MergedResults mergedResults = new MergedResults(
+            new RelevanceResultComparator(SortOrder.DESCENDING), 3);
+
+    @Test
+    public void testMergeInsertsInOrder() {
+        MergedResults.Delta delta = mergedResults
+                .merge(Arrays.asList(result("a", "1", 0.5), result("a", "2", 0.9)));
+
+        assertThat(ids(mergedResults.getResults()), is(Arrays.asList("2", "1")));
+        assertThat(delta.getRemoved().isEmpty(), is(true));
+        assertThat(delta.getAdded().keySet().toString(), is("[0, 1]"));
+
+        delta = mergedResults.merge(Arrays.asList(result("b", "3", 0.7)));
+
+        assertThat(ids(mergedResults.getResults()), is(Arrays.asList("2", "3", "1")));
+        assertThat(delta.getAdded().size(), is(1));
+        assertThat(delta.getAdded().get(1).getMetacard().getId(), is("3"));
+        assertThat(mergedResults.getResultCount("a"), is(2L));
+        assertThat(mergedResults.getResultCount("b"), is(1L));
+    }
+
+    @Test
+    public void testMergeEvictsLowestRankedResults() {
+        mergedResults.merge(
+                Arrays.asList(result("a", "1", 0.5), result("a", "2", 0.9), result("a", "3", 0.6)));
+
+        MergedResults.Delta delta = mergedResults
+                .merge(Arrays.asList(result("b", "4", 0.8), result("b", "5", 0.1)));
+
+        assertThat(ids(mergedResults.getResults()), is(Arrays.asList("2", "4", "3")));
+        assertThat(delta.getRemoved(), is(Arrays.asList("a:1")));
+        assertThat(delta.getAdded().size(), is(1));
+        assertThat(delta.getChangedSources().toString(), is("[a, b]"));
+        assertThat(mergedResults.getResultCount("a"), is(2L));
+        assertThat(mergedResults.getResultCount("b"), is(1L));
+    }
+
+    @Test
+    public void testMergeReplacesExistingResult() {
+        mergedResults.merge(Arrays.asList(result("a", "1", 0.5), result("a", "2", 0.9)));
+
+        MergedResults.Delta delta = mergedResults.merge(Arrays.asList(result("a", "1", 1.0)));
+
+        assertThat(ids(mergedResults.getResults()), is(Arrays.asList("1", "2")));
+        assertThat(delta.getRemoved(), is(Arrays.asList("a:1")));
+        Map<Integer, Result> added = delta.getAdded();
+        assertThat(added.keySet().toString(), is("[0]"));
+        assertThat(mergedResults.size(), is(2));
+        assertThat(mergedResults.getResultCount("a"), is(2L));
+    }
+
+    @Test
+    public void testMergeUnchangedResultIsNotReported() {
+        Date modified = new Date();
+        mergedResults.merge(Arrays.asList(result("a", "1", 0.5, modified),
+                result("b", "2", 0.9, modified)));
+
+        MergedResults.Delta delta = mergedResults.merge(Arrays.asList(
+                result("a", "1", 0.5, new Date(modified.getTime())),
+                result("b", "2", 0.9, modified)));
+
+        assertThat(delta.isEmpty(), is(true));
+        assertThat(delta.getChangedSources().isEmpty(), is(true));
+        assertThat(ids(mergedResults.getResults()), is(Arrays.asList("2", "1")));
+    }
+
+    @Test
+    public void testMergeModifiedResultIsReported() {
+        Date modified = new Date();
+        mergedResults.merge(Arrays.asList(result("a", "1", 0.5, modified)));
+
+        MergedResults.Delta delta = mergedResults.merge(Arrays.asList(
+                result("a", "1", 0.5, new Date(modified.getTime() + 1))));
+
+        assertThat(delta.getRemoved(), is(Arrays.asList("a:1")));
+        assertThat(delta.getAdded().keySet().toString(), is("[0]"));
+    }
+
+    @Test
+    public void testApplyingDeltasReproducesView() {
+        List<String> client = new ArrayList<String>();
+        apply(client, mergedResults
+                .merge(Arrays.asList(result("a", "1", 0.5), result("a", "2", 0.9))));
+        apply(client, mergedResults
+                .merge(Arrays.asList(result("b", "3", 0.95), result("b", "4", 0.6))));
+        apply(client, mergedResults
+                .merge(Arrays.asList(result("a", "2", 0.1), result("c", "5", 0.7))));
+
+        List<String> expected = new ArrayList<String>();
+        for (Result result : mergedResults.getResults()) {
+            expected.add(MergedResults.getKey(result));
+        }
+        assertThat(client, is(expected));
+    }
+
+    private void apply(List<String> client, MergedResults.Delta delta) {
+        client.removeAll(delta.getRemoved());
+        for (Map.Entry<Integer, Result> entry : delta.getAdded().entrySet()) {
+            client.add(entry.getKey(), MergedResults.getKey(entry.getValue()));
+        }
+    }
+
+    private List<String> ids(List<Result> results) {
+        List<String> ids = new ArrayList<String>();
+        for (Result result : results) {
+            ids.add(result.getMetacard().getId());
+        }
+        return ids;
+    }
+
+    private Result result(String sourceId, String id, double relevance) {
+        return result(sourceId, id, relevance, null);
+    }
+
+    private Result result(String sourceId, String id, double relevance, Date modified) {
+        MetacardImpl metacard = new MetacardImpl();
+        metacard.setId(id);
+        metacard.setSourceId(sourceId);
+        metacard.setModifiedDate(modified);
+        ResultImpl result = new ResultImpl(metacard);
+        result.setRelevanceScore(relevance);
+        return result;
+    }
+}
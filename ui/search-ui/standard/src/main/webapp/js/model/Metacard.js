@@ -252,6 +252,51 @@ define([
                 }
                 return resp;
             },
+            /**
+             * After the first response, the server only pushes the results that were added to,
+             * removed from or moved within the search, and the statuses that changed. This applies
+             * such a delta to the previous response so that the last response always holds the
+             * complete search.
+             */
+            accumulate: function (previous, resp) {
+                if (!previous || !resp || !resp.data || !resp.data.delta) {
+                    return resp;
+                }
+
+                var current = previous.data;
+                var delta = resp.data;
+                var keyOf = function (result) {
+                    var properties = result.metacard.properties;
+                    return (properties['source-id'] || '') + ':' + properties.id;
+                };
+
+                var removed = {};
+                _.each(delta.removed, function (key) {
+                    removed[key] = true;
+                });
+                var results = _.reject(current.results, function (result) {
+                    return removed[keyOf(result)];
+                });
+                _.each(delta.results, function (result) {
+                    var index = result.index;
+                    delete result.index;
+                    results.splice(index, 0, result);
+                });
+
+                var status = _.map(current.status, function (sourceStatus) {
+                    return _.findWhere(delta.status, {id: sourceStatus.id}) || sourceStatus;
+                });
+
+                return _.extend({}, resp, {
+                    data: _.extend({}, current, {
+                        hits: delta.hits,
+                        results: results,
+                        status: status,
+                        'metacard-types': _.extend({}, current['metacard-types'],
+                            delta['metacard-types'])
+                    })
+                });
+            },
             cancel: function() {
                 this.unsubscribe();
                 if(this.has('status')){
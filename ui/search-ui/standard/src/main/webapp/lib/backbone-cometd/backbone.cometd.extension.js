@@ -75,6 +75,9 @@
 
                 var success = options.success;
                 options.success = function (resp) {
+                    if (_.isFunction(model.accumulate)) {
+                        resp = model.accumulate(model.lastResponse, resp);
+                    }
                     if (deferred.state() !== "rejected") {
                         if (!model.lastResponse) {
                             var retVal = success(resp);